@@ -22,7 +22,12 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     implementation("org.springframework.boot:spring-boot-starter-validation")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("org.hibernate.orm:hibernate-jcache")
+    implementation("org.hibernate.orm:hibernate-micrometer")
+    implementation("com.github.ben-manes.caffeine:jcache")
     runtimeOnly("com.h2database:h2")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
 
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     testImplementation("org.assertj:assertj-core:3.26.3")
@@ -35,6 +40,9 @@ tasks.withType<Test> {
 }
 
 tasks.test {
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
     testLogging {
         events("passed", "skipped", "failed")
         exceptionFormat = org.gradle.api.tasks.testing.logging.TestExceptionFormat.FULL
@@ -91,6 +99,85 @@ tasks.jacocoTestCoverageVerification {
     // Current baseline excludes JPA entities and Application class
 }
 
+tasks.register<JavaExec>("analyzeJfr") {
+    group = "diagnostics"
+    description = "Summarizes a flight recording into per-phase latency percentiles (-Pjfr=<file>)"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("edu.trincoll.jfr.JfrPhaseAnalyzer")
+    args(providers.gradleProperty("jfr").getOrElse("build/jfr/library.jfr"))
+}
+
+tasks.register<Test>("benchmark") {
+    group = "verification"
+    description = "Runs the @Tag(\"benchmark\") tests, printing their measurements and writing them to build/reports/benchmark"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    systemProperty("benchmark.report",
+        layout.buildDirectory.dir("reports/benchmark").get().asFile.absolutePath)
+    testLogging {
+        showStandardStreams = true
+    }
+    outputs.upToDateWhen { false }
+}
+
+// Fast-start mode. With -Paot the Spring context is processed ahead of time, so
+// bean definitions are generated code instead of reflection at boot. Property
+// conditions (e.g. library.engine.enabled) are then fixed at build time; pass the
+// profile to bake in with -PaotProfile=prod.
+val aot = providers.gradleProperty("aot").isPresent
+if (aot) {
+    apply(plugin = "org.springframework.boot.aot")
+    tasks.named<JavaExec>("processAot") {
+        providers.gradleProperty("aotProfile").orNull?.let { args("--spring.profiles.active=$it") }
+    }
+}
+
+// AppCDS: extract the boot jar, run it once to record the classes loaded up to
+// context refresh, then start from the resulting archive.
+val javaLauncher = javaToolchains.launcherFor { languageVersion = JavaLanguageVersion.of(21) }
+val cdsDir = layout.buildDirectory.dir("cds")
+val cdsJar = cdsDir.zip(tasks.bootJar.flatMap { it.archiveFileName }) { dir, name -> dir.file("app/$name") }
+val cdsArchiveFile = cdsDir.map { it.file("library.jsa") }
+val fastStartJvmArgs = listOf("-Dspring.aot.enabled=$aot")
+
+val extractBootJar by tasks.registering(Exec::class) {
+    group = "startup"
+    description = "Extracts the boot jar into the layout used for class data sharing"
+    dependsOn(tasks.bootJar)
+    doFirst {
+        delete(cdsDir.get().dir("app"))
+        executable = javaLauncher.get().executablePath.asFile.absolutePath
+    }
+    args("-Djarmode=tools", "-jar", tasks.bootJar.get().archiveFile.get().asFile.absolutePath,
+        "extract", "--destination", cdsDir.get().dir("app").asFile.absolutePath)
+}
+
+tasks.register<Exec>("cdsArchive") {
+    group = "startup"
+    description = "Training run that writes a CDS archive of the classes loaded during startup"
+    dependsOn(extractBootJar)
+    outputs.file(cdsArchiveFile)
+    doFirst {
+        executable = javaLauncher.get().executablePath.asFile.absolutePath
+    }
+    args(listOf("-XX:ArchiveClassesAtExit=${cdsArchiveFile.get().asFile.absolutePath}",
+        "-Dspring.context.exit=onRefresh") + fastStartJvmArgs + listOf("-jar", cdsJar.get().asFile.absolutePath))
+}
+
+tasks.register<Exec>("runFastStart") {
+    group = "startup"
+    description = "Starts the extracted application with the CDS archive (and AOT code with -Paot)"
+    dependsOn("cdsArchive")
+    doFirst {
+        executable = javaLauncher.get().executablePath.asFile.absolutePath
+    }
+    args(listOf("-XX:SharedArchiveFile=${cdsArchiveFile.get().asFile.absolutePath}") + fastStartJvmArgs
+        + listOf("-jar", cdsJar.get().asFile.absolutePath))
+}
+
 jacoco {
     toolVersion = "0.8.12"
 }
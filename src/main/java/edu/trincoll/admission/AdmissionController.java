@@ -0,0 +1,173 @@
+package edu.trincoll.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Decides whether a circulation, search or report request may run.
+ *
+ * A request needs a token from its caller's bucket (when the caller is known),
+ * a token from its operation's bucket, and a slot under the global concurrency
+ * limit. Searches and reports may only fill the limit up to
+ * {@code reserved-for-circulation} slots short of it, so under overload they are
+ * shed first and checkouts and returns keep running. A request refused by a later
+ * check has still spent its earlier tokens. Every check is a compare-and-set, so
+ * admitting a request takes no lock. Enabled by {@code library.admission.enabled}.
+ */
+@Component
+@ConditionalOnProperty(name = "library.admission.enabled", havingValue = "true")
+public class AdmissionController {
+
+    public enum Operation {
+        CHECKOUT(true), RETURN(true), SEARCH(false), REPORT(false);
+
+        private final boolean circulation;
+
+        Operation(boolean circulation) {
+            this.circulation = circulation;
+        }
+    }
+
+    public enum Reason {
+        MEMBER_RATE, OPERATION_RATE, CONCURRENCY
+    }
+
+    /** Holds a concurrency slot until closed. */
+    public final class Permit implements AutoCloseable {
+        private boolean released;
+
+        private Permit() {
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private final int maxConcurrent;
+    private final int maxBackground;
+    private final double memberRate;
+    private final int memberBurst;
+    private final Map<Operation, TokenBucket> operationBuckets = new EnumMap<>(Operation.class);
+    private final Map<String, TokenBucket> memberBuckets = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<Operation, Counter> admitted = new EnumMap<>(Operation.class);
+    private final Map<Operation, Map<Reason, Counter>> rejected = new EnumMap<>(Operation.class);
+
+    public AdmissionController(MeterRegistry registry,
+                               @Value("${library.admission.max-concurrent:64}") int maxConcurrent,
+                               @Value("${library.admission.reserved-for-circulation:16}") int reservedForCirculation,
+                               @Value("${library.admission.member.rate:5}") double memberRate,
+                               @Value("${library.admission.member.burst:20}") int memberBurst,
+                               @Value("${library.admission.checkout.rate:500}") double checkoutRate,
+                               @Value("${library.admission.return.rate:500}") double returnRate,
+                               @Value("${library.admission.search.rate:200}") double searchRate,
+                               @Value("${library.admission.report.rate:5}") double reportRate) {
+        if (reservedForCirculation >= maxConcurrent) {
+            throw new IllegalArgumentException("Circulation reserve must be smaller than the concurrency limit");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.maxBackground = maxConcurrent - reservedForCirculation;
+        this.memberRate = memberRate;
+        this.memberBurst = memberBurst;
+        long now = System.nanoTime();
+        Map<Operation, Double> rates = Map.of(Operation.CHECKOUT, checkoutRate, Operation.RETURN, returnRate,
+                Operation.SEARCH, searchRate, Operation.REPORT, reportRate);
+        for (Operation operation : Operation.values()) {
+            double rate = rates.get(operation);
+            // One second's worth of burst
+            operationBuckets.put(operation, new TokenBucket(rate, (int) Math.max(1, Math.ceil(rate)), now));
+            String name = operation.name().toLowerCase(Locale.ROOT);
+            admitted.put(operation, decisions(registry, name, "admitted"));
+            Map<Reason, Counter> reasons = new EnumMap<>(Reason.class);
+            for (Reason reason : Reason.values()) {
+                reasons.put(reason, decisions(registry, name, reason.name().toLowerCase(Locale.ROOT)));
+            }
+            rejected.put(operation, reasons);
+        }
+        Gauge.builder("library.admission.in_flight", inFlight, AtomicInteger::get)
+                .description("Requests currently holding an admission slot")
+                .register(registry);
+    }
+
+    private static Counter decisions(MeterRegistry registry, String operation, String outcome) {
+        return Counter.builder("library.admission.decisions")
+                .description("Admission decisions by operation and outcome")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * Admits a request or throws {@link AdmissionRejectedException}.
+     *
+     * @param callerKey the member the request acts for, else the caller from
+     *                  {@link CallerKeys#current()}; null if neither is known
+     */
+    public Permit admit(Operation operation, String callerKey) {
+        long now = System.nanoTime();
+        if (callerKey != null && !memberBucket(callerKey, now).tryAcquire(now)) {
+            throw reject(operation, Reason.MEMBER_RATE);
+        }
+        if (!operationBuckets.get(operation).tryAcquire(now)) {
+            throw reject(operation, Reason.OPERATION_RATE);
+        }
+        int limit = operation.circulation ? maxConcurrent : maxBackground;
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                throw reject(operation, Reason.CONCURRENCY);
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+        admitted.get(operation).increment();
+        return new Permit();
+    }
+
+    /** Runs {@code work} under a permit. */
+    public <T> T call(Operation operation, String callerKey, Supplier<T> work) {
+        try (Permit permit = admit(operation, callerKey)) {
+            return work.get();
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /** Forgets members whose buckets have refilled, so the map only holds recently active members. */
+    @Scheduled(cron = "${library.admission.sweep-cron:0 * * * * *}")
+    public void sweepIdleMembers() {
+        long now = System.nanoTime();
+        memberBuckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private TokenBucket memberBucket(String memberEmail, long now) {
+        TokenBucket bucket = memberBuckets.get(memberEmail);
+        return bucket != null ? bucket
+                : memberBuckets.computeIfAbsent(memberEmail, email -> new TokenBucket(memberRate, memberBurst, now));
+    }
+
+    private AdmissionRejectedException reject(Operation operation, Reason reason) {
+        rejected.get(operation).get(reason).increment();
+        return new AdmissionRejectedException(operation, reason);
+    }
+}
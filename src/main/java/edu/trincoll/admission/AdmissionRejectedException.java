@@ -0,0 +1,23 @@
+package edu.trincoll.admission;
+
+import java.util.Locale;
+
+/** Thrown when the {@link AdmissionController} sheds a request; the caller should back off and retry. */
+public class AdmissionRejectedException extends RuntimeException {
+    private final AdmissionController.Operation operation;
+    private final AdmissionController.Reason reason;
+
+    public AdmissionRejectedException(AdmissionController.Operation operation, AdmissionController.Reason reason) {
+        super("Too many requests: " + operation.name().toLowerCase(Locale.ROOT) + " rejected (" + reason.name().toLowerCase(Locale.ROOT) + ")");
+        this.operation = operation;
+        this.reason = reason;
+    }
+
+    public AdmissionController.Operation operation() {
+        return operation;
+    }
+
+    public AdmissionController.Reason reason() {
+        return reason;
+    }
+}
@@ -0,0 +1,44 @@
+package edu.trincoll.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.security.Principal;
+
+/**
+ * Names the caller of the current request for the {@link AdmissionController}'s
+ * per-caller buckets when no member email is at hand: the authenticated principal,
+ * else the {@code X-Api-Key} header, else the client address. Work started outside
+ * an HTTP request (warmup, schedulers) has no caller and only counts against the
+ * operation's bucket.
+ */
+public final class CallerKeys {
+
+    static final String API_KEY_HEADER = "X-Api-Key";
+
+    private CallerKeys() {
+    }
+
+    /** The caller of the request bound to this thread, or null if there is none. */
+    public static String current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servlet)) {
+            return null;
+        }
+        return of(servlet.getRequest());
+    }
+
+    static String of(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            return principal.getName();
+        }
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        if (apiKey != null && !apiKey.isBlank()) {
+            return "key:" + apiKey;
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,34 @@
+package edu.trincoll.admission;
+
+import edu.trincoll.report.ReportGenerator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/** Wraps every {@link ReportGenerator} bean so reports go through the {@link AdmissionController}. */
+@Component
+@ConditionalOnProperty(name = "library.admission.enabled", havingValue = "true")
+public class ReportAdmissionPostProcessor implements BeanPostProcessor {
+    private final ObjectProvider<AdmissionController> admission;
+
+    public ReportAdmissionPostProcessor(ObjectProvider<AdmissionController> admission) {
+        this.admission = admission;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof ReportGenerator generator) {
+            return new AdmittedReportGenerator(generator, admission);
+        }
+        return bean;
+    }
+
+    private record AdmittedReportGenerator(ReportGenerator delegate,
+                                           ObjectProvider<AdmissionController> admission) implements ReportGenerator {
+        @Override
+        public String generateReport() {
+            return admission.getObject().call(AdmissionController.Operation.REPORT, CallerKeys.current(), delegate::generateReport);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package edu.trincoll.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Approximate counts of string keys in fixed memory.
+ *
+ * With {@code width = ceil(e / epsilon)} and {@code depth = ceil(ln(1 / (1 - confidence)))}
+ * an estimate never undercounts and, with probability {@code confidence}, overcounts
+ * by at most {@code epsilon} times the total of all counts added. Sketches built with
+ * the same dimensions hash identically, so one can be added to or subtracted from
+ * another. Not thread-safe.
+ */
+public final class CountMinSketch {
+    private final int width;
+    private final int depth;
+    private final long[][] counts;
+    private long total;
+
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("Sketch width and depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counts = new long[depth][width];
+    }
+
+    public static CountMinSketch withAccuracy(double epsilon, double confidence) {
+        if (epsilon <= 0 || epsilon >= 1 || confidence <= 0 || confidence >= 1) {
+            throw new IllegalArgumentException("Epsilon and confidence must be between 0 and 1");
+        }
+        return new CountMinSketch((int) Math.ceil(Math.E / epsilon), (int) Math.ceil(Math.log(1 / (1 - confidence))));
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    /** Sum of every count added, the N in the error bound. */
+    public long total() {
+        return total;
+    }
+
+    public void add(String key, long count) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int row = 0; row < depth; row++) {
+            counts[row][Math.floorMod(h1 + row * h2, width)] += count;
+        }
+        total += count;
+    }
+
+    public long estimate(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[row][Math.floorMod(h1 + row * h2, width)]);
+        }
+        return min;
+    }
+
+    public void merge(CountMinSketch other) {
+        combine(other, 1);
+    }
+
+    /** Removes counts that were previously merged in; {@code other} must be a part of this sketch. */
+    public void subtract(CountMinSketch other) {
+        combine(other, -1);
+    }
+
+    public void clear() {
+        for (long[] row : counts) {
+            Arrays.fill(row, 0);
+        }
+        total = 0;
+    }
+
+    private void combine(CountMinSketch other, int sign) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Sketches must have the same dimensions");
+        }
+        for (int row = 0; row < depth; row++) {
+            for (int column = 0; column < width; column++) {
+                counts[row][column] += sign * other.counts[row][column];
+            }
+        }
+        total += sign * other.total;
+    }
+
+    /** FNV-1a over the chars followed by the Murmur3 64-bit finalizer. */
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
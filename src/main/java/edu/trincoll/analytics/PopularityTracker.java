@@ -0,0 +1,70 @@
+package edu.trincoll.analytics;
+
+import edu.trincoll.journal.CirculationEvent;
+import edu.trincoll.model.LoanEventType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Live "most borrowed titles" and "most active members" over the last
+ * {@code library.popularity.window}, fed by the checkouts {@code LibraryService}
+ * publishes. Each is a {@link SlidingHeavyHitters}, so an update or a query costs
+ * the same however long the loan history gets. Journal replays are counted too,
+ * which refills the window after a restart.
+ */
+@Component
+public class PopularityTracker {
+    private final SlidingHeavyHitters titles;
+    private final SlidingHeavyHitters members;
+    private final Duration window;
+    private final Clock clock;
+
+    @Autowired
+    public PopularityTracker(@Value("${library.popularity.window:7d}") Duration window,
+                             @Value("${library.popularity.buckets:7}") int buckets,
+                             @Value("${library.popularity.top:10}") int top,
+                             @Value("${library.popularity.epsilon:0.001}") double epsilon,
+                             @Value("${library.popularity.confidence:0.99}") double confidence) {
+        this(window, buckets, top, epsilon, confidence, Clock.systemUTC());
+    }
+
+    PopularityTracker(Duration window, int buckets, int top, double epsilon, double confidence, Clock clock) {
+        this.titles = new SlidingHeavyHitters(window, buckets, top, epsilon, confidence);
+        this.members = new SlidingHeavyHitters(window, buckets, top, epsilon, confidence);
+        this.window = window;
+        this.clock = clock;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCirculation(CirculationEvent event) {
+        if (event.type() == LoanEventType.CHECKOUT) {
+            titles.add(event.isbn(), event.occurredAt());
+            members.add(event.memberEmail(), event.occurredAt());
+        }
+    }
+
+    public Duration window() {
+        return window;
+    }
+
+    /** Most borrowed ISBNs in the window, keyed by ISBN. */
+    public List<SlidingHeavyHitters.Entry> topTitles() {
+        return titles.top(clock.instant());
+    }
+
+    /** Members with the most checkouts in the window, keyed by email. */
+    public List<SlidingHeavyHitters.Entry> topMembers() {
+        return members.top(clock.instant());
+    }
+
+    /** How far any count in {@link #topTitles()} or {@link #topMembers()} may be overstated. */
+    public long errorBound() {
+        return titles.errorBound(clock.instant());
+    }
+}
@@ -0,0 +1,139 @@
+package edu.trincoll.analytics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Most frequent keys over a sliding time window, in memory that does not grow
+ * with the stream.
+ *
+ * The window is a ring of count-min sketches, one per bucket, plus a running sum
+ * of the live buckets. When time moves past a bucket its sketch is subtracted
+ * from the sum and reused, so the window slides a bucket at a time. Alongside the
+ * sketches a bounded set of candidate keys holds the current leaders; a new key
+ * displaces the weakest candidate once its estimate is higher. Event time decides
+ * the bucket, so events older than the window are ignored. Thread-safe.
+ */
+public final class SlidingHeavyHitters {
+
+    public record Entry(String key, long estimate) {
+    }
+
+    private final long bucketMillis;
+    private final int k;
+    private final int capacity;
+    private final CountMinSketch[] buckets;
+    private final long[] bucketSlots;
+    private final CountMinSketch window;
+    private final Map<String, Long> candidates = new HashMap<>();
+    private final double epsilon;
+    private long head = Long.MIN_VALUE;
+
+    /**
+     * @param epsilon    overcount bound as a fraction of all checkouts in the window
+     * @param confidence probability that an estimate stays within the bound
+     */
+    public SlidingHeavyHitters(Duration window, int bucketCount, int k, double epsilon, double confidence) {
+        if (bucketCount < 1 || k < 1 || window.toMillis() < bucketCount) {
+            throw new IllegalArgumentException("Window must hold at least one bucket and k must be positive");
+        }
+        this.bucketMillis = window.toMillis() / bucketCount;
+        this.k = k;
+        // Slack so a key climbing into the top k is usually already tracked
+        this.capacity = 2 * k;
+        this.epsilon = epsilon;
+        this.window = CountMinSketch.withAccuracy(epsilon, confidence);
+        this.buckets = new CountMinSketch[bucketCount];
+        this.bucketSlots = new long[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new CountMinSketch(this.window.width(), this.window.depth());
+        }
+        Arrays.fill(bucketSlots, Long.MIN_VALUE);
+    }
+
+    public synchronized void add(String key, Instant at) {
+        long slot = Math.floorDiv(at.toEpochMilli(), bucketMillis);
+        advance(slot);
+        if (slot <= head - buckets.length) {
+            return;
+        }
+        int index = (int) Math.floorMod(slot, buckets.length);
+        buckets[index].add(key, 1);
+        window.add(key, 1);
+        offer(key, window.estimate(key));
+    }
+
+    /** The top k keys in the window ending at {@code now}, highest estimate first. */
+    public synchronized List<Entry> top(Instant now) {
+        advance(Math.floorDiv(now.toEpochMilli(), bucketMillis));
+        List<Entry> top = new ArrayList<>(candidates.size());
+        candidates.forEach((key, estimate) -> top.add(new Entry(key, estimate)));
+        top.sort(Comparator.comparingLong(Entry::estimate).reversed().thenComparing(Entry::key));
+        return top.size() > k ? List.copyOf(top.subList(0, k)) : top;
+    }
+
+    public synchronized long estimate(String key, Instant now) {
+        advance(Math.floorDiv(now.toEpochMilli(), bucketMillis));
+        return window.estimate(key);
+    }
+
+    /** Largest overcount any estimate in the current window can have, at the configured confidence. */
+    public synchronized long errorBound(Instant now) {
+        advance(Math.floorDiv(now.toEpochMilli(), bucketMillis));
+        return (long) Math.ceil(epsilon * window.total());
+    }
+
+    private void advance(long slot) {
+        if (slot <= head) {
+            return;
+        }
+        long from = head == Long.MIN_VALUE ? slot - buckets.length + 1 : Math.max(head + 1, slot - buckets.length + 1);
+        for (long s = from; s <= slot; s++) {
+            int index = (int) Math.floorMod(s, buckets.length);
+            if (bucketSlots[index] != s) {
+                window.subtract(buckets[index]);
+                buckets[index].clear();
+                bucketSlots[index] = s;
+            }
+        }
+        head = slot;
+        refreshCandidates();
+    }
+
+    private void refreshCandidates() {
+        Iterator<Map.Entry<String, Long>> entries = candidates.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, Long> entry = entries.next();
+            long estimate = window.estimate(entry.getKey());
+            if (estimate == 0) {
+                entries.remove();
+            } else {
+                entry.setValue(estimate);
+            }
+        }
+    }
+
+    private void offer(String key, long estimate) {
+        if (candidates.containsKey(key) || candidates.size() < capacity) {
+            candidates.put(key, estimate);
+            return;
+        }
+        Map.Entry<String, Long> weakest = null;
+        for (Map.Entry<String, Long> entry : candidates.entrySet()) {
+            if (weakest == null || entry.getValue() < weakest.getValue()) {
+                weakest = entry;
+            }
+        }
+        if (estimate > weakest.getValue()) {
+            candidates.remove(weakest.getKey());
+            candidates.put(key, estimate);
+        }
+    }
+}
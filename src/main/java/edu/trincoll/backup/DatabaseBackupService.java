@@ -0,0 +1,117 @@
+package edu.trincoll.backup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Takes online backups of the file-backed H2 database with {@code BACKUP TO}.
+ * The MVStore is copy-on-write, so the backup is a transactionally consistent
+ * image taken without blocking writers. Only the newest
+ * {@code library.database.backup.keep} archives are retained.
+ */
+@Service
+@ConditionalOnProperty(name = "library.database.backup.enabled", havingValue = "true")
+public class DatabaseBackupService {
+    private static final Logger log = LoggerFactory.getLogger(DatabaseBackupService.class);
+    private static final String PREFIX = "library-";
+    private static final String SUFFIX = ".zip";
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")
+            .withZone(ZoneOffset.UTC);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path backupDir;
+    private final int keep;
+    private final Clock clock;
+
+    @Autowired
+    public DatabaseBackupService(JdbcTemplate jdbcTemplate,
+                                 @Value("${library.database.backup.directory:data/backup}") Path backupDir,
+                                 @Value("${library.database.backup.keep:3}") int keep) {
+        this(jdbcTemplate, backupDir, keep, Clock.systemUTC());
+    }
+
+    DatabaseBackupService(JdbcTemplate jdbcTemplate, Path backupDir, int keep, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.backupDir = backupDir;
+        this.keep = keep;
+        this.clock = clock;
+    }
+
+    /**
+     * Writes a new backup archive under a temporary name and moves it into place,
+     * so {@link #latest(Path)} never picks up a half-written file.
+     */
+    @Scheduled(cron = "${library.database.backup.cron:0 0 3 * * *}")
+    public Path backup() {
+        long start = System.nanoTime();
+        Path target = backupDir.resolve(PREFIX + STAMP.format(Instant.now(clock)) + SUFFIX).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(target.getParent());
+            Files.deleteIfExists(temp);
+            jdbcTemplate.execute("BACKUP TO '" + temp.toString().replace("'", "''") + "'");
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            prune();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not back up database to " + target, e);
+        }
+        log.info("Backed up database to {} ({} bytes) in {} ms",
+                target, size(target), (System.nanoTime() - start) / 1_000_000);
+        return target;
+    }
+
+    /** Newest completed backup in the directory, if any. */
+    public static Optional<Path> latest(Path backupDir) throws IOException {
+        return backups(backupDir).stream().max(Comparator.naturalOrder());
+    }
+
+    private void prune() throws IOException {
+        List<Path> backups = backups(backupDir);
+        for (int i = 0; i < backups.size() - keep; i++) {
+            Files.deleteIfExists(backups.get(i));
+        }
+    }
+
+    /** Completed backups, oldest first; the timestamped names sort chronologically. */
+    static List<Path> backups(Path backupDir) throws IOException {
+        if (!Files.isDirectory(backupDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(backupDir)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package edu.trincoll.backup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Restores the newest backup before the {@link DataSource} opens its first
+ * connection, when the file-backed database does not exist yet. A fresh or
+ * rebuilt node therefore starts from a consistent image of the catalog instead
+ * of an empty schema. An existing database is never overwritten; delete its
+ * files to force a restore.
+ */
+@Component
+@ConditionalOnProperty(name = "library.database.restore-on-start", havingValue = "true")
+public class DatabaseRestorePostProcessor implements BeanPostProcessor {
+    private static final Logger log = LoggerFactory.getLogger(DatabaseRestorePostProcessor.class);
+
+    private final String url;
+    private final Path backupDir;
+
+    public DatabaseRestorePostProcessor(@Value("${spring.datasource.url:}") String url,
+                                        @Value("${library.database.backup.directory:data/backup}") Path backupDir) {
+        this.url = url;
+        this.backupDir = backupDir;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource) {
+            H2FileDatabase.fromUrl(url).ifPresent(database -> {
+                try {
+                    restoreIfMissing(database, backupDir);
+                } catch (IOException e) {
+                    throw new BeanInitializationException("Could not restore database " + database.dataFile(), e);
+                }
+            });
+        }
+        return bean;
+    }
+
+    /**
+     * Extracts the newest backup into the database directory if the database has
+     * no data file.
+     *
+     * @return the backup that was restored
+     */
+    static Optional<Path> restoreIfMissing(H2FileDatabase database, Path backupDir) throws IOException {
+        if (Files.exists(database.dataFile())) {
+            return Optional.empty();
+        }
+        Optional<Path> latest = DatabaseBackupService.latest(backupDir);
+        if (latest.isEmpty()) {
+            log.info("No database at {} and no backup in {}; starting empty", database.dataFile(), backupDir);
+            return latest;
+        }
+        long start = System.nanoTime();
+        extract(latest.get(), database.directory());
+        if (!Files.exists(database.dataFile())) {
+            throw new IOException("Backup " + latest.get() + " does not contain " + database.dataFile().getFileName());
+        }
+        log.info("Restored database {} from {} in {} ms",
+                database.dataFile(), latest.get(), (System.nanoTime() - start) / 1_000_000);
+        return latest;
+    }
+
+    private static void extract(Path archive, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(archive))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                Path target = directory.resolve(entry.getName()).normalize();
+                if (!target.startsWith(directory)) {
+                    throw new IOException("Backup entry escapes the database directory: " + entry.getName());
+                }
+                Files.createDirectories(target.getParent());
+                Path temp = target.resolveSibling(target.getFileName() + ".restore");
+                Files.copy(zip, temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+}
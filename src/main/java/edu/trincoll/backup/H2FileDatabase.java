@@ -0,0 +1,42 @@
+package edu.trincoll.backup;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Location of an embedded, file-backed H2 database as named by its JDBC URL.
+ * In-memory and server URLs have no local files and are not matched.
+ */
+public record H2FileDatabase(Path directory, String name) {
+    private static final String PREFIX = "jdbc:h2:";
+    private static final String DATA_SUFFIX = ".mv.db";
+
+    public static Optional<H2FileDatabase> fromUrl(String url) {
+        if (url == null || !url.regionMatches(true, 0, PREFIX, 0, PREFIX.length())) {
+            return Optional.empty();
+        }
+        String location = url.substring(PREFIX.length());
+        int options = location.indexOf(';');
+        if (options >= 0) {
+            location = location.substring(0, options);
+        }
+        String lower = location.toLowerCase(Locale.ROOT);
+        if (lower.startsWith("file:")) {
+            location = location.substring("file:".length());
+        } else if (lower.startsWith("mem:") || lower.startsWith("tcp:") || lower.startsWith("ssl:")
+                || lower.startsWith("zip:")) {
+            return Optional.empty();
+        }
+        if (location.startsWith("~")) {
+            location = System.getProperty("user.home") + location.substring(1);
+        }
+        Path base = Path.of(location).toAbsolutePath().normalize();
+        return Optional.of(new H2FileDatabase(base.getParent(), base.getFileName().toString()));
+    }
+
+    /** The MVStore file holding all of the database's data. */
+    public Path dataFile() {
+        return directory.resolve(name + DATA_SUFFIX);
+    }
+}
@@ -0,0 +1,49 @@
+package edu.trincoll.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Access to Hibernate's second-level cache for code that writes around it.
+ *
+ * Changes made through entities and JPQL bulk updates keep the cache correct by
+ * themselves. Plain JDBC writes do not, so jobs that batch through
+ * {@code JdbcTemplate} call {@link #evict(Class)} once their transaction has
+ * committed.
+ */
+@Component
+public class EntityCaches {
+    private final SessionFactory sessionFactory;
+
+    public EntityCaches(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    /** Drops the cached rows, natural ids and query results that may include {@code entity}. */
+    public void evict(Class<?> entity) {
+        Cache cache = sessionFactory.getCache();
+        cache.evictEntityData(entity);
+        cache.evictNaturalIdData(entity);
+        cache.evictQueryRegions();
+    }
+
+    /** Hit ratio of every region that has been read since startup, by region name. */
+    public Map<String, Double> hitRatios() {
+        Statistics statistics = sessionFactory.getStatistics();
+        Map<String, Double> ratios = new TreeMap<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics stats = statistics.getCacheRegionStatistics(region);
+            if (stats != null && stats.getHitCount() + stats.getMissCount() > 0) {
+                ratios.put(region, (double) stats.getHitCount() / (stats.getHitCount() + stats.getMissCount()));
+            }
+        }
+        return ratios;
+    }
+}
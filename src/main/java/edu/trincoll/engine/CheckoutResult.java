@@ -0,0 +1,16 @@
+package edu.trincoll.engine;
+
+import edu.trincoll.metrics.CheckoutOutcome;
+import edu.trincoll.model.Book;
+import edu.trincoll.model.Member;
+
+/**
+ * Outcome of an engine checkout. On success {@code copy} and {@code member} are
+ * detached snapshots taken on the engine thread, safe to hand to notifications.
+ */
+public record CheckoutResult(CheckoutOutcome outcome, String message, Book copy, Member member) {
+
+    public CheckoutResult(CheckoutOutcome outcome, String message) {
+        this(outcome, message, null, null);
+    }
+}
@@ -0,0 +1,890 @@
+package edu.trincoll.engine;
+
+import edu.trincoll.journal.CirculationEvent;
+import edu.trincoll.metrics.CheckoutOutcome;
+import edu.trincoll.metrics.ReturnOutcome;
+import edu.trincoll.engine.WriteBehindBatch.CopyRow;
+import edu.trincoll.model.Book;
+import edu.trincoll.model.BookStatus;
+import edu.trincoll.model.LoanEvent;
+import edu.trincoll.model.LoanEventType;
+import edu.trincoll.model.Member;
+import edu.trincoll.model.Reservation;
+import edu.trincoll.model.ReservationStatus;
+import edu.trincoll.projection.BookChanged;
+import edu.trincoll.projection.BookView;
+import edu.trincoll.projection.MemberChanged;
+import edu.trincoll.projection.MemberView;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.BookTitleRepository;
+import edu.trincoll.repository.CheckoutPolicy;
+import edu.trincoll.repository.CheckoutPolicyFactory;
+import edu.trincoll.repository.LoanEventRepository;
+import edu.trincoll.repository.MemberRepository;
+import edu.trincoll.repository.ReservationRepository;
+import edu.trincoll.service.HoldReady;
+import edu.trincoll.service.latefee.LateFeeCalculatorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional single-writer circulation engine, enabled by {@code library.engine.enabled}.
+ *
+ * Checkout and return commands go into a lock-free {@link CommandRing} and are
+ * applied one at a time by a single thread that owns the copy and member state
+ * in plain maps, so no locks or row contention are involved and every command
+ * sees the effects of all earlier ones. Row changes are written behind in
+ * coalesced batches on a separate thread with bulk update queries.
+ *
+ * Titles and members are loaded on first use. Changes committed elsewhere (new
+ * copies, hold expiry, member edits) arrive as {@link BookChanged} and
+ * {@link MemberChanged} events and are applied on the engine thread like any
+ * other command. Copy rows carry their {@code @Version}: views older than the
+ * engine's copy are dropped, and the engine writes a copy only if the row is
+ * still at the version it expects, re-reading the row when it is not.
+ *
+ * Hold queues follow the same rules as {@link edu.trincoll.service.BookService}: a
+ * member with a ready hold gets the copy set aside for them, and a returned copy
+ * goes to the head of its queue. The active holds of a title are loaded with its
+ * copies and kept in memory, and their row changes are written in the same
+ * batch as the copies, so a copy and its hold never disagree in the database.
+ * While the engine runs, {@link edu.trincoll.service.ReservationService} hands
+ * placed, cancelled and expired holds to it instead of touching copies itself.
+ * Hold-ready notices go out from the write-behind thread once their batch commits.
+ *
+ * A batch that cannot be written is retried with backoff. If it still fails, the
+ * engine stops taking commands. Unwritten changes are carried into the next batch,
+ * and whatever is still unwritten at shutdown is logged.
+ */
+@Component
+@ConditionalOnProperty(name = "library.engine.enabled", havingValue = "true")
+public class CirculationEngine implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(CirculationEngine.class);
+    private static final int SPINS_BEFORE_PARK = 200;
+    private static final int ANY_COPY = 0;
+    private static final String ANY_BRANCH = null;
+    private static final long RETRY_BACKOFF_MILLIS = 50;
+    private static final EnumSet<ReservationStatus> ACTIVE_HOLDS =
+            EnumSet.of(ReservationStatus.WAITING, ReservationStatus.READY);
+
+    private final BookRepository bookRepository;
+    private final MemberRepository memberRepository;
+    private final BookTitleRepository bookTitleRepository;
+    private final LoanEventRepository loanEventRepository;
+    private final ReservationRepository reservationRepository;
+    private final LateFeeCalculatorFactory lateFeeCalculatorFactory;
+    private final CheckoutPolicyFactory checkoutPolicyFactory;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int pickupDays;
+    private final int maxBatch;
+    private final int writeAttempts;
+    private final CommandRing<Command> ring;
+    // Submitters hold the read lock while they check accepting and offer; stop and
+    // halt clear it under the write lock, so nothing is offered after the last drain
+    private final ReadWriteLock gate = new ReentrantReadWriteLock();
+
+    // Owned by the engine thread once started
+    private final Map<String, List<Book>> copiesByIsbn = new HashMap<>();
+    private final Map<String, Member> membersByEmail = new HashMap<>();
+    private final Map<String, Integer> availableByIsbn = new HashMap<>();
+    // Waiting and ready holds per loaded title, in queue order
+    private final Map<String, List<Reservation>> holdsByIsbn = new HashMap<>();
+    // The @Version each loaded copy has once every queued write has landed, and how
+    // often the copy was re-read from a committed row (see WriteBehindBatch)
+    private final Map<Long, Long> versionById = new HashMap<>();
+    private final Map<Long, Integer> epochById = new HashMap<>();
+    private WriteBehindBatch pending = new WriteBehindBatch();
+
+    // Owned by the write-behind thread
+    private WriteBehindBatch unwritten;
+    // Copies whose write found the row changed outside, by the epoch of that write
+    private final Map<Long, Integer> divergedEpochs = new HashMap<>();
+
+    private volatile boolean accepting;
+    private volatile RuntimeException failure;
+    private boolean started;
+    private Thread engineThread;
+    private volatile Thread writeBehindThread;
+    private ExecutorService persister;
+
+    public CirculationEngine(BookRepository bookRepository,
+                             MemberRepository memberRepository,
+                             BookTitleRepository bookTitleRepository,
+                             LoanEventRepository loanEventRepository,
+                             ReservationRepository reservationRepository,
+                             LateFeeCalculatorFactory lateFeeCalculatorFactory,
+                             CheckoutPolicyFactory checkoutPolicyFactory,
+                             ApplicationEventPublisher eventPublisher,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${library.reservations.pickup-days:3}") int pickupDays,
+                             @Value("${library.engine.ring-size:65536}") int ringSize,
+                             @Value("${library.engine.max-batch:2048}") int maxBatch,
+                             @Value("${library.engine.write-attempts:5}") int writeAttempts) {
+        this.bookRepository = bookRepository;
+        this.memberRepository = memberRepository;
+        this.bookTitleRepository = bookTitleRepository;
+        this.loanEventRepository = loanEventRepository;
+        this.reservationRepository = reservationRepository;
+        this.lateFeeCalculatorFactory = lateFeeCalculatorFactory;
+        this.checkoutPolicyFactory = checkoutPolicyFactory;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.pickupDays = pickupDays;
+        this.maxBatch = maxBatch;
+        this.writeAttempts = writeAttempts;
+        this.ring = new CommandRing<>(ringSize);
+    }
+
+    public CompletableFuture<CheckoutResult> checkout(String isbn, String memberEmail) {
+        return checkout(isbn, memberEmail, ANY_BRANCH);
+    }
+
+    /**
+     * Checks out a copy shelved at {@code branch}. A ready hold for the member on a
+     * copy at another branch moves to a copy on the shelf here, and the copy set
+     * aside there goes to the next holder, as in {@link edu.trincoll.service.BookService}.
+     */
+    public CompletableFuture<CheckoutResult> checkout(String isbn, String memberEmail, String branch) {
+        CompletableFuture<CheckoutResult> result = new CompletableFuture<>();
+        submit(new Checkout(isbn, memberEmail, branch, result));
+        return result;
+    }
+
+    /** Returns the only checked-out copy of the ISBN; fails if several copies are out. */
+    public CompletableFuture<ReturnResult> returnBook(String isbn) {
+        return returnBook(isbn, ANY_COPY, null, ANY_BRANCH);
+    }
+
+    /** Returns the copy of the ISBN that {@code memberEmail} has out, the one due first if there are several. */
+    public CompletableFuture<ReturnResult> returnBook(String isbn, String memberEmail) {
+        return returnBook(isbn, ANY_COPY, memberEmail, ANY_BRANCH);
+    }
+
+    /** Like {@link #returnBook(String, String)} but only for copies shelved at {@code branch}. */
+    public CompletableFuture<ReturnResult> returnBook(String isbn, String memberEmail, String branch) {
+        return returnBook(isbn, ANY_COPY, memberEmail, branch);
+    }
+
+    public CompletableFuture<ReturnResult> returnBook(String isbn, int copyNumber) {
+        return returnBook(isbn, copyNumber, null, ANY_BRANCH);
+    }
+
+    private CompletableFuture<ReturnResult> returnBook(String isbn, int copyNumber, String borrower, String branch) {
+        CompletableFuture<ReturnResult> result = new CompletableFuture<>();
+        submit(new Return(isbn, copyNumber, borrower, branch, result));
+        return result;
+    }
+
+    /**
+     * Adds a hold committed by {@link edu.trincoll.service.ReservationService} to the
+     * title's queue. A copy that came back after the caller found the shelf empty is
+     * handed to the queue straight away.
+     */
+    public CompletableFuture<Void> placeHold(Reservation placed) {
+        Reservation hold = new Reservation(placed.getIsbn(), placed.getMemberEmail());
+        hold.setId(placed.getId());
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        submit(new PlaceHold(hold, result));
+        return result;
+    }
+
+    /** Cancels the member's waiting or ready hold; a copy set aside for it goes to the next holder or the shelf. */
+    public CompletableFuture<Void> cancelHold(String isbn, String memberEmail) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        submit(new CancelHold(isbn, memberEmail, result));
+        return result;
+    }
+
+    /**
+     * Expires the title's ready holds whose pickup deadline is before {@code today}
+     * and passes their copies on; completes with the number expired.
+     */
+    public CompletableFuture<Integer> expireHolds(String isbn, LocalDate today) {
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        submit(new ExpireHolds(isbn, today, result));
+        return result;
+    }
+
+    /**
+     * Applies a copy change committed outside the engine. Events from the engine's
+     * own write-behind are skipped, since its state is already newer than theirs,
+     * and so is any view whose version the engine has already seen or written.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChanged change) {
+        if (Thread.currentThread() != writeBehindThread) {
+            submit(new CopyChange(change, new CompletableFuture<>()));
+        }
+    }
+
+    /** Applies a member change committed outside the engine; see {@link #onBookChanged}. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberChanged(MemberChanged change) {
+        if (Thread.currentThread() != writeBehindThread) {
+            submit(new MemberChange(change, new CompletableFuture<>()));
+        }
+    }
+
+    /** True once a write-behind batch failed for good and the engine stopped taking commands. */
+    public boolean hasFailed() {
+        return failure != null;
+    }
+
+    private void submit(Command command) {
+        while (true) {
+            gate.readLock().lock();
+            try {
+                if (!accepting) {
+                    command.result().completeExceptionally(failure == null
+                            ? new IllegalStateException("Circulation engine is not running")
+                            : new IllegalStateException("Circulation engine stopped after a failed write", failure));
+                    return;
+                }
+                if (ring.offer(command)) {
+                    return;
+                }
+            } finally {
+                gate.readLock().unlock();
+            }
+            // Ring full: the engine thread is behind, back off briefly
+            LockSupport.parkNanos(1_000);
+        }
+    }
+
+    /** @param cause the write failure that stopped the engine, or null for a normal stop */
+    private void stopAccepting(RuntimeException cause) {
+        gate.writeLock().lock();
+        try {
+            if (cause != null && failure == null) {
+                failure = cause;
+            }
+            accepting = false;
+        } finally {
+            gate.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        persister = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "circulation-write-behind");
+            thread.setDaemon(true);
+            writeBehindThread = thread;
+            return thread;
+        });
+        accepting = true;
+        started = true;
+        engineThread = new Thread(this::runLoop, "circulation-engine");
+        engineThread.start();
+        log.info("Circulation engine started; titles and members load on first use");
+    }
+
+    /** Stops taking commands, applies everything already queued and waits for the last write. */
+    @Override
+    public synchronized void stop() {
+        if (!started) {
+            return;
+        }
+        started = false;
+        stopAccepting(null);
+        try {
+            engineThread.join();
+            persister.shutdown();
+            if (!persister.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Circulation write-behind did not finish within 30 seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        WriteBehindBatch lost = unwritten;
+        if (lost != null) {
+            log.error("Circulation engine stopped with {} copy changes, {} member changes, {} hold changes and {} loan events unwritten",
+                    lost.copies.size(), lost.members.size(), lost.holds.size(), lost.loans.size());
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return started;
+    }
+
+    private void runLoop() {
+        int idle = 0;
+        while (accepting || !ring.isEmpty()) {
+            Command command = ring.poll();
+            if (command == null) {
+                flush();
+                if (++idle < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(50_000);
+                }
+                continue;
+            }
+            idle = 0;
+            apply(command);
+            if (pending.size() >= maxBatch) {
+                flush();
+            }
+        }
+        flush();
+    }
+
+    private void apply(Command command) {
+        try {
+            switch (command) {
+                case Checkout checkout -> checkout.result().complete(
+                        applyCheckout(checkout.isbn(), checkout.memberEmail(), checkout.branch()));
+                case Return ret -> ret.result().complete(
+                        applyReturn(ret.isbn(), ret.copyNumber(), ret.borrower(), ret.branch()));
+                case CopyChange change -> change.result().complete(applyCopyChange(change.change()));
+                case MemberChange change -> change.result().complete(applyMemberChange(change.change()));
+                case ReloadCopy reload -> reload.result().complete(applyReloadCopy(reload.isbn(), reload.id(), reload.epoch()));
+                case PlaceHold place -> place.result().complete(applyPlaceHold(place.hold()));
+                case CancelHold cancel -> cancel.result().complete(applyCancelHold(cancel.isbn(), cancel.memberEmail()));
+                case ExpireHolds expire -> expire.result().complete(applyExpireHolds(expire.isbn(), expire.today()));
+            }
+        } catch (RuntimeException e) {
+            if (command instanceof CopyChange || command instanceof MemberChange || command instanceof ReloadCopy) {
+                log.warn("Could not apply an outside change to the circulation engine", e);
+            }
+            command.result().completeExceptionally(e);
+        }
+    }
+
+    private CheckoutResult applyCheckout(String isbn, String memberEmail, String branch) {
+        List<Book> copies = copies(isbn);
+        requireCopyAt(copies, branch);
+        Member member = member(memberEmail);
+
+        CheckoutPolicy policy = checkoutPolicyFactory.getCheckoutPolicy(member.getMembershipType());
+        if (!policy.canCheckout(member)) {
+            return new CheckoutResult(CheckoutOutcome.LIMIT_REACHED, "Member has reached checkout limit");
+        }
+        Book shelved = null;
+        for (Book candidate : copies) {
+            if (candidate.getStatus() == BookStatus.AVAILABLE && atBranch(candidate, branch)) {
+                shelved = candidate;
+                break;
+            }
+        }
+        // The copy held for the member comes first, as in BookService
+        Reservation hold = readyHold(isbn, member);
+        Book heldCopy = hold == null ? null : copyById(copies, hold.getBookId());
+        if (heldCopy != null && heldCopy.getStatus() != BookStatus.RESERVED) {
+            heldCopy = null;
+        }
+        Book copy;
+        Long released = null;
+        if (heldCopy != null && atBranch(heldCopy, branch)) {
+            copy = heldCopy;
+        } else if (heldCopy != null && shelved != null) {
+            // The hold follows the member to this branch; the copy held elsewhere is passed on
+            copy = shelved;
+            released = heldCopy.getId();
+        } else {
+            hold = null;
+            copy = shelved;
+        }
+        if (copy == null) {
+            return new CheckoutResult(CheckoutOutcome.NOT_AVAILABLE, "Book is not available");
+        }
+        boolean held = copy.getStatus() == BookStatus.RESERVED;
+        if (hold != null) {
+            hold.setStatus(ReservationStatus.FULFILLED);
+            hold.setBookId(copy.getId());
+            holdsByIsbn.get(isbn).remove(hold);
+            pending.hold(hold);
+        }
+
+        LocalDate dueDate = LocalDate.now().plusDays(policy.getLoanPeriodDays());
+        copy.setStatus(BookStatus.CHECKED_OUT);
+        copy.setCheckedOutBy(member.getEmail());
+        copy.setDueDate(dueDate);
+        member.setBooksCheckedOut(member.getBooksCheckedOut() + 1);
+        // A held copy was already off the shelf count when it became RESERVED
+        int available = held ? availableByIsbn.get(isbn) : availableByIsbn.merge(isbn, -1, Integer::sum);
+
+        queueCopy(copy);
+        pending.member(member);
+        pending.available(isbn, available);
+        pending.loan(new LoanEvent(LoanEventType.CHECKOUT, isbn, copy.getCopyNumber(), member.getEmail(),
+                LocalDateTime.now(), dueDate, 0.0));
+        eventPublisher.publishEvent(CirculationEvent.checkout(copy));
+        if (released != null) {
+            releaseCopy(isbn, released);
+        }
+        return new CheckoutResult(CheckoutOutcome.SUCCESS, "Book checked out successfully. Due date: " + dueDate,
+                BookView.of(copy).toBook(), MemberView.of(member).toMember());
+    }
+
+    /** The member's ready hold on the title, or null if there is none. */
+    private Reservation readyHold(String isbn, Member member) {
+        for (Reservation hold : holdsByIsbn.get(isbn)) {
+            if (hold.getStatus() == ReservationStatus.READY && hold.getMemberEmail().equals(member.getEmail())) {
+                return hold;
+            }
+        }
+        return null;
+    }
+
+    private static boolean atBranch(Book copy, String branch) {
+        return branch == null || branch.equals(copy.getBranch());
+    }
+
+    /** A branch that shelves no copy of the title does not have the book at all. */
+    private static void requireCopyAt(List<Book> copies, String branch) {
+        for (Book copy : copies) {
+            if (atBranch(copy, branch)) {
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Book not found");
+    }
+
+    /**
+     * Sets {@code copy} aside for the first waiting hold on its title.
+     *
+     * @return true if someone was waiting and the copy should be marked RESERVED
+     */
+    private boolean assignNextHolder(Book copy) {
+        for (Reservation hold : holdsByIsbn.get(copy.getIsbn())) {
+            if (hold.getStatus() == ReservationStatus.WAITING) {
+                hold.setStatus(ReservationStatus.READY);
+                hold.setBookId(copy.getId());
+                hold.setPickupDeadline(LocalDate.now().plusDays(pickupDays));
+                pending.hold(hold);
+                pending.notice(new HoldReady(hold.getMemberEmail(), BookView.of(copy).toBook(), hold.getPickupDeadline()));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Passes a copy set aside for a hold that ended to the next holder, or back to the shelf. */
+    private void releaseCopy(String isbn, Long bookId) {
+        Book copy = copyById(copies(isbn), bookId);
+        if (copy == null || copy.getStatus() != BookStatus.RESERVED) {
+            return;
+        }
+        if (!assignNextHolder(copy)) {
+            copy.setStatus(BookStatus.AVAILABLE);
+            pending.available(isbn, availableByIsbn.merge(isbn, 1, Integer::sum));
+        }
+        queueCopy(copy);
+    }
+
+    private ReturnResult applyReturn(String isbn, int copyNumber, String borrower, String branch) {
+        List<Book> copies = copies(isbn);
+        requireCopyAt(copies, branch);
+        Book copy = null;
+        int onLoan = 0;
+        for (Book candidate : copies) {
+            if (!atBranch(candidate, branch)) {
+                continue;
+            }
+            if (copyNumber != ANY_COPY) {
+                if (candidate.getCopyNumber() == copyNumber) {
+                    copy = candidate;
+                    break;
+                }
+            } else if (candidate.getStatus() == BookStatus.CHECKED_OUT
+                    && (borrower == null || borrower.equals(candidate.getCheckedOutBy()))) {
+                onLoan++;
+                if (copy == null || candidate.getDueDate().isBefore(copy.getDueDate())) {
+                    copy = candidate;
+                }
+            }
+        }
+        if (copy == null && copyNumber != ANY_COPY) {
+            throw new IllegalArgumentException("Book not found");
+        }
+        if (borrower == null && onLoan > 1) {
+            throw new IllegalStateException("Several copies are checked out; specify the borrower or copy number");
+        }
+        if (copy == null || copy.getStatus() != BookStatus.CHECKED_OUT) {
+            return new ReturnResult(ReturnOutcome.NOT_CHECKED_OUT, "Book is not checked out", null, 0.0);
+        }
+
+        String memberEmail = copy.getCheckedOutBy();
+        Member member = member(memberEmail);
+        double lateFee = 0.0;
+        LocalDate today = LocalDate.now();
+        if (copy.getDueDate().isBefore(today)) {
+            long daysLate = today.toEpochDay() - copy.getDueDate().toEpochDay();
+            lateFee = lateFeeCalculatorFactory.getCalculator(member.getMembershipType()).calculateLateFee(daysLate);
+        }
+
+        copy.setCheckedOutBy(null);
+        copy.setDueDate(null);
+        // The next holder in the queue gets the copy straight away
+        copy.setStatus(assignNextHolder(copy) ? BookStatus.RESERVED : BookStatus.AVAILABLE);
+        member.setBooksCheckedOut(Math.max(0, member.getBooksCheckedOut() - 1));
+        int available = copy.getStatus() == BookStatus.AVAILABLE
+                ? availableByIsbn.merge(isbn, 1, Integer::sum)
+                : availableByIsbn.get(isbn);
+
+        queueCopy(copy);
+        pending.member(member);
+        pending.available(isbn, available);
+        pending.loan(new LoanEvent(LoanEventType.RETURN, isbn, copy.getCopyNumber(), memberEmail,
+                LocalDateTime.now(), null, lateFee));
+        eventPublisher.publishEvent(CirculationEvent.returned(copy, memberEmail, lateFee));
+
+        if (lateFee > 0) {
+            return new ReturnResult(ReturnOutcome.LATE, "Book returned. Late fee: $" + String.format("%.2f", lateFee),
+                    member.getMembershipType(), lateFee);
+        }
+        return new ReturnResult(ReturnOutcome.SUCCESS, "Book returned successfully", member.getMembershipType(), 0.0);
+    }
+
+    /**
+     * Applies a committed outside change to a loaded title. Events are delivered
+     * after commit and may arrive after the engine loaded or wrote a newer row, so a
+     * view no newer than the version the engine holds is dropped. A newer view wins
+     * over the engine's own unwritten changes to the copy, whose writes would now
+     * fail their version check anyway.
+     */
+    private Void applyCopyChange(BookChanged change) {
+        BookView view = change.book();
+        List<Book> copies = copiesByIsbn.get(view.isbn());
+        if (copies == null) {
+            return null;   // not loaded yet; first use reads the committed row
+        }
+        Book cached = copyById(copies, view.id());
+        if (change.removed()) {
+            if (cached != null) {
+                copies.remove(cached);
+                versionById.remove(view.id());
+                pending.copies.remove(view.id());
+            }
+        } else if (change.version() <= versionById.getOrDefault(view.id(), -1L)) {
+            return null;
+        } else {
+            if (cached == null) {
+                copies.add(view.toBook());
+                copies.sort(Comparator.comparingInt(Book::getCopyNumber));
+            } else {
+                setCirculation(cached, view);
+            }
+            rebase(view.id(), change.version());
+        }
+        return refreshAvailable(view.isbn(), copies);
+    }
+
+    /**
+     * Replaces a copy with its committed row after an engine write of {@code epoch}
+     * found the row changed outside the engine; the outside change wins, and engine
+     * changes to the copy since then are dropped with a warning. Nothing is read if
+     * a newer outside view has already been applied.
+     */
+    private Void applyReloadCopy(String isbn, Long id, int epoch) {
+        List<Book> copies = copiesByIsbn.get(isbn);
+        Book cached = copies == null ? null : copyById(copies, id);
+        if (cached == null || epochById.getOrDefault(id, 0) != epoch) {
+            return null;
+        }
+        Book row = bookRepository.findById(id).orElse(null);
+        if (row == null) {
+            copies.remove(cached);
+            versionById.remove(id);
+            pending.copies.remove(id);
+        } else {
+            setCirculation(cached, BookView.of(row));
+            rebase(id, row.getVersion());
+        }
+        return refreshAvailable(isbn, copies);
+    }
+
+    /** Moves the copy to a committed row's version in a new epoch; its unwritten row is superseded. */
+    private void rebase(Long id, long version) {
+        versionById.put(id, version);
+        epochById.merge(id, 1, Integer::sum);
+        pending.copies.remove(id);
+    }
+
+    private static void setCirculation(Book copy, BookView view) {
+        copy.setStatus(view.status());
+        copy.setCheckedOutBy(view.checkedOutBy());
+        copy.setDueDate(view.dueDate());
+        copy.setBranch(view.branch());
+    }
+
+    private Void refreshAvailable(String isbn, List<Book> copies) {
+        int available = countAvailable(copies);
+        availableByIsbn.put(isbn, available);
+        pending.available(isbn, available);
+        return null;
+    }
+
+    private Void applyPlaceHold(Reservation placed) {
+        String isbn = placed.getIsbn();
+        List<Book> copies = copies(isbn);
+        List<Reservation> holds = holdsByIsbn.get(isbn);
+        if (!holds.contains(placed)) {   // a title loaded just now already has the committed hold
+            holds.add(placed);
+        }
+        for (Book copy : copies) {
+            if (copy.getStatus() == BookStatus.AVAILABLE && assignNextHolder(copy)) {
+                copy.setStatus(BookStatus.RESERVED);
+                queueCopy(copy);
+                pending.available(isbn, availableByIsbn.merge(isbn, -1, Integer::sum));
+                break;
+            }
+        }
+        return null;
+    }
+
+    private Void applyCancelHold(String isbn, String memberEmail) {
+        copies(isbn);
+        for (Iterator<Reservation> holds = holdsByIsbn.get(isbn).iterator(); holds.hasNext(); ) {
+            Reservation hold = holds.next();
+            if (hold.getMemberEmail().equals(memberEmail)) {
+                boolean wasReady = hold.getStatus() == ReservationStatus.READY;
+                hold.setStatus(ReservationStatus.CANCELLED);
+                holds.remove();
+                pending.hold(hold);
+                if (wasReady && hold.getBookId() != null) {
+                    releaseCopy(isbn, hold.getBookId());
+                }
+                return null;
+            }
+        }
+        throw new IllegalArgumentException("Hold not found");
+    }
+
+    private Integer applyExpireHolds(String isbn, LocalDate today) {
+        copies(isbn);
+        List<Long> released = new ArrayList<>();
+        for (Iterator<Reservation> holds = holdsByIsbn.get(isbn).iterator(); holds.hasNext(); ) {
+            Reservation hold = holds.next();
+            if (hold.getStatus() == ReservationStatus.READY && hold.getPickupDeadline().isBefore(today)) {
+                hold.setStatus(ReservationStatus.EXPIRED);
+                holds.remove();
+                pending.hold(hold);
+                if (hold.getBookId() != null) {
+                    released.add(hold.getBookId());
+                }
+            }
+        }
+        released.forEach(bookId -> releaseCopy(isbn, bookId));
+        return released.size();
+    }
+
+    private Void applyMemberChange(MemberChanged change) {
+        MemberView view = change.member();
+        if (change.removed()) {
+            membersByEmail.remove(view.email());
+            return null;
+        }
+        Member cached = membersByEmail.get(view.email());
+        if (cached != null) {
+            cached.setName(view.name());
+            cached.setMembershipType(view.membershipType());
+            cached.setBooksCheckedOut(view.booksCheckedOut());
+            pending.member(cached);
+        }
+        return null;
+    }
+
+    private List<Book> copies(String isbn) {
+        List<Book> copies = copiesByIsbn.get(isbn);
+        if (copies == null) {
+            copies = new ArrayList<>(bookRepository.findAllByIsbnOrderByCopyNumberAsc(isbn));
+            if (copies.isEmpty()) {
+                throw new IllegalArgumentException("Book not found");
+            }
+            copiesByIsbn.put(isbn, copies);
+            availableByIsbn.put(isbn, countAvailable(copies));
+            holdsByIsbn.put(isbn, new ArrayList<>(reservationRepository.findByIsbnAndStatusInOrderByIdAsc(isbn, ACTIVE_HOLDS)));
+            copies.forEach(copy -> versionById.put(copy.getId(), copy.getVersion()));
+        }
+        return copies;
+    }
+
+    /** Queues the copy's row; its first change in a batch moves it to the next version. */
+    private void queueCopy(Book copy) {
+        Long id = copy.getId();
+        if (!pending.copies.containsKey(id)) {
+            versionById.merge(id, 1L, Long::sum);
+        }
+        long version = versionById.get(id);
+        pending.copy(copy, version - 1, version, epochById.getOrDefault(id, 0));
+    }
+
+    private static Book copyById(List<Book> copies, Long id) {
+        for (Book copy : copies) {
+            if (copy.getId().equals(id)) {
+                return copy;
+            }
+        }
+        return null;
+    }
+
+    private Member member(String email) {
+        Member member = membersByEmail.get(email);
+        if (member == null) {
+            member = memberRepository.findByEmail(email)
+                    .orElseThrow(() -> new IllegalArgumentException("Member not found"));
+            membersByEmail.put(email, member);
+        }
+        return member;
+    }
+
+    private static int countAvailable(List<Book> copies) {
+        int available = 0;
+        for (Book copy : copies) {
+            if (copy.getStatus() == BookStatus.AVAILABLE) {
+                available++;
+            }
+        }
+        return available;
+    }
+
+    /** Hands the pending changes to the write-behind thread; batches are written in order. */
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        WriteBehindBatch batch = pending;
+        pending = new WriteBehindBatch();
+        persister.execute(() -> persist(batch));
+    }
+
+    /**
+     * Writes a batch, together with anything an earlier failed attempt left behind,
+     * retrying with backoff. When every attempt fails the engine stops taking
+     * commands and keeps the rows for the next batch or the shutdown report.
+     */
+    private void persist(WriteBehindBatch batch) {
+        WriteBehindBatch rows = unwritten == null ? batch : unwritten.absorb(batch);
+        // A copy whose earlier write failed its version check is being reloaded, and
+        // rows it queued before then are superseded; a row that expects the same version
+        // as the outside write produced must not slip through
+        rows.copies.values().removeIf(row -> row.epoch() <= divergedEpochs.getOrDefault(row.view().id(), -1));
+        List<CopyRow> stale;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                stale = write(rows);
+                break;
+            } catch (RuntimeException e) {
+                if (attempt >= writeAttempts) {
+                    unwritten = rows;
+                    halt(e);
+                    return;
+                }
+                log.warn("Write-behind of {} copy and {} member changes failed (attempt {} of {}), retrying",
+                        rows.copies.size(), rows.members.size(), attempt, writeAttempts, e);
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MILLIS << (attempt - 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    unwritten = rows;
+                    return;
+                }
+            }
+        }
+        unwritten = null;
+        for (CopyRow row : stale) {
+            log.warn("Copy {} was changed outside the circulation engine; reloading it", row.view().id());
+            rows.copies.remove(row.view().id());
+            divergedEpochs.put(row.view().id(), row.epoch());
+            submit(new ReloadCopy(row.view().isbn(), row.view().id(), row.epoch(), new CompletableFuture<>()));
+        }
+        // Bulk updates skip the JPA entity listeners, so tell the read model directly
+        rows.copies.values().forEach(row -> eventPublisher.publishEvent(new BookChanged(row.view(), row.version(), false)));
+        rows.members.values().forEach(row -> eventPublisher.publishEvent(new MemberChanged(row, false)));
+        // The holds are committed now, so the holders can be told
+        rows.notices.forEach(eventPublisher::publishEvent);
+    }
+
+    /*
+     * Hibernate cannot tell which rows a JPQL bulk update touched, so each
+     * updateCirculation and updateBooksCheckedOut drops the whole Book or Member
+     * second-level region, and every batch leaves both regions cold for the request
+     * path. The engine reads its own maps, so only callers outside it pay for this.
+     *
+     * Returns the copy rows that were not at the expected version and so were left alone.
+     */
+    private List<CopyRow> write(WriteBehindBatch rows) {
+        return transactionTemplate.execute(status -> {
+            List<CopyRow> stale = new ArrayList<>();
+            for (CopyRow row : rows.copies.values()) {
+                BookView view = row.view();
+                if (bookRepository.updateCirculation(view.id(), view.status(), view.checkedOutBy(), view.dueDate(),
+                        row.expectedVersion(), row.version()) == 0) {
+                    stale.add(row);
+                }
+            }
+            rows.members.values().forEach(row -> memberRepository.updateBooksCheckedOut(row.id(), row.booksCheckedOut()));
+            rows.holds.values().forEach(row ->
+                    reservationRepository.updateHold(row.id(), row.status(), row.bookId(), row.pickupDeadline()));
+            rows.availableCopies.forEach(bookTitleRepository::updateAvailable);
+            loanEventRepository.saveAll(rows.loans);
+            return stale;
+        });
+    }
+
+    private void halt(RuntimeException cause) {
+        log.error("Circulation engine stopped taking commands: write-behind failed {} times", writeAttempts, cause);
+        stopAccepting(cause);
+    }
+
+    private sealed interface Command permits Checkout, Return, CopyChange, MemberChange, ReloadCopy,
+            PlaceHold, CancelHold, ExpireHolds {
+        CompletableFuture<?> result();
+    }
+
+    /** @param branch the branch the copy must be shelved at, or null for any */
+    private record Checkout(String isbn, String memberEmail, String branch, CompletableFuture<CheckoutResult> result)
+            implements Command {
+    }
+
+    /** @param branch the branch the copy must be shelved at, or null for any */
+    private record Return(String isbn, int copyNumber, String borrower, String branch,
+                          CompletableFuture<ReturnResult> result) implements Command {
+    }
+
+    private record CopyChange(BookChanged change, CompletableFuture<Void> result) implements Command {
+    }
+
+    private record MemberChange(MemberChanged change, CompletableFuture<Void> result) implements Command {
+    }
+
+    private record ReloadCopy(String isbn, Long id, int epoch, CompletableFuture<Void> result) implements Command {
+    }
+
+    private record PlaceHold(Reservation hold, CompletableFuture<Void> result) implements Command {
+    }
+
+    private record CancelHold(String isbn, String memberEmail, CompletableFuture<Void> result) implements Command {
+    }
+
+    private record ExpireHolds(String isbn, LocalDate today, CompletableFuture<Integer> result) implements Command {
+    }
+}
@@ -0,0 +1,7 @@
+package edu.trincoll.engine;
+
+import edu.trincoll.metrics.ReturnOutcome;
+import edu.trincoll.model.MembershipType;
+
+public record ReturnResult(ReturnOutcome outcome, String message, MembershipType tier, double lateFee) {
+}
@@ -0,0 +1,90 @@
+package edu.trincoll.engine;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.LoanEvent;
+import edu.trincoll.model.Member;
+import edu.trincoll.model.Reservation;
+import edu.trincoll.model.ReservationStatus;
+import edu.trincoll.projection.BookView;
+import edu.trincoll.projection.MemberView;
+import edu.trincoll.service.HoldReady;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Row changes collected by the engine thread between flushes. Later changes to
+ * the same copy, member, hold or title overwrite earlier ones, so a hot row is
+ * written once per batch no matter how often it changed. Hold-ready notices ride
+ * along and are sent only once the batch is committed.
+ *
+ * A copy row carries the version the engine expects the row to have and the one
+ * it moves it to, so a write over a change made outside the engine is detected.
+ * Its epoch counts how often the engine re-read the copy from a committed row;
+ * rows of an older epoch are superseded by those of a newer one.
+ */
+final class WriteBehindBatch {
+    final Map<Long, CopyRow> copies = new LinkedHashMap<>();
+    final Map<Long, MemberView> members = new LinkedHashMap<>();
+    final Map<Long, HoldRow> holds = new LinkedHashMap<>();
+    final Map<String, Integer> availableCopies = new HashMap<>();
+    final List<LoanEvent> loans = new ArrayList<>();
+    final List<HoldReady> notices = new ArrayList<>();
+
+    void copy(Book book, long expectedVersion, long version, int epoch) {
+        copies.put(book.getId(), new CopyRow(BookView.of(book), expectedVersion, version, epoch));
+    }
+
+    void member(Member member) {
+        members.put(member.getId(), MemberView.of(member));
+    }
+
+    void hold(Reservation reservation) {
+        holds.put(reservation.getId(), new HoldRow(reservation.getId(), reservation.getStatus(),
+                reservation.getBookId(), reservation.getPickupDeadline()));
+    }
+
+    void available(String isbn, int count) {
+        availableCopies.put(isbn, count);
+    }
+
+    void loan(LoanEvent event) {
+        loans.add(event);
+    }
+
+    void notice(HoldReady notice) {
+        notices.add(notice);
+    }
+
+    /** Adds a later batch on top of this one, later rows winning; returns this batch. */
+    WriteBehindBatch absorb(WriteBehindBatch later) {
+        later.copies.forEach((id, row) -> copies.merge(id, row, (earlier, latest) -> earlier.epoch() == latest.epoch()
+                ? new CopyRow(latest.view(), earlier.expectedVersion(), latest.version(), latest.epoch())
+                : latest));
+        members.putAll(later.members);
+        holds.putAll(later.holds);
+        availableCopies.putAll(later.availableCopies);
+        loans.addAll(later.loans);
+        notices.addAll(later.notices);
+        return this;
+    }
+
+    int size() {
+        return loans.size();
+    }
+
+    boolean isEmpty() {
+        return copies.isEmpty() && members.isEmpty() && holds.isEmpty();
+    }
+
+    record CopyRow(BookView view, long expectedVersion, long version, int epoch) {
+    }
+
+    /** The columns of a reservation the engine changes. */
+    record HoldRow(Long id, ReservationStatus status, Long bookId, LocalDate pickupDeadline) {
+    }
+}
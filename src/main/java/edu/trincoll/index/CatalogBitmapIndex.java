@@ -0,0 +1,196 @@
+package edu.trincoll.index;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.BookStatus;
+import edu.trincoll.projection.BookView;
+import edu.trincoll.projection.BookViewListener;
+import edu.trincoll.projection.CatalogProjection;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmaps of copy ids per status, author, publication year and borrower presence.
+ *
+ * Kept in step with the {@link CatalogProjection}, which feeds it every committed
+ * copy change, so multi-facet filters and facet counts are answered by
+ * intersecting bitmaps instead of scanning copies. Only meaningful while the
+ * projection is ready. Copy ids must fit in an int.
+ */
+@Component
+public class CatalogBitmapIndex implements BookViewListener {
+
+    private final CatalogProjection projection;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final Map<BookStatus, RoaringBitmap> byStatus = new EnumMap<>(BookStatus.class);
+    private final Map<String, RoaringBitmap> byAuthor = new HashMap<>();
+    private final NavigableMap<Integer, RoaringBitmap> byYear = new TreeMap<>();
+    private final RoaringBitmap borrowed = new RoaringBitmap();
+
+    public CatalogBitmapIndex(CatalogProjection projection) {
+        this.projection = projection;
+        projection.addListener(this);
+    }
+
+    @Override
+    public void cleared() {
+        lock.writeLock().lock();
+        try {
+            all.clear();
+            byStatus.clear();
+            byAuthor.clear();
+            byYear.clear();
+            borrowed.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void added(BookView view) {
+        int id = Math.toIntExact(view.id());
+        lock.writeLock().lock();
+        try {
+            all.add(id);
+            byStatus.computeIfAbsent(view.status(), status -> new RoaringBitmap()).add(id);
+            byAuthor.computeIfAbsent(view.author(), author -> new RoaringBitmap()).add(id);
+            if (view.publicationDate() != null) {
+                byYear.computeIfAbsent(view.publicationDate().getYear(), year -> new RoaringBitmap()).add(id);
+            }
+            if (view.checkedOutBy() != null) {
+                borrowed.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removed(BookView view) {
+        int id = Math.toIntExact(view.id());
+        lock.writeLock().lock();
+        try {
+            all.remove(id);
+            removeFrom(byStatus, view.status(), id);
+            removeFrom(byAuthor, view.author(), id);
+            if (view.publicationDate() != null) {
+                removeFrom(byYear, view.publicationDate().getYear(), id);
+            }
+            borrowed.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return projection.isReady();
+    }
+
+    /** Ids of the copies matching every non-null facet of {@code query}. */
+    public RoaringBitmap matching(FacetQuery query) {
+        lock.readLock().lock();
+        try {
+            return match(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Book> search(FacetQuery query) {
+        List<Book> books = new ArrayList<>();
+        matching(query).forEach(id -> projection.findById((long) id).ifPresent(books::add));
+        return books;
+    }
+
+    /**
+     * Facet counts within the copies matching {@code query}, each one a single
+     * intersection cardinality against the match.
+     */
+    public FacetCounts counts(FacetQuery query, int authorLimit) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap match = match(query);
+            Map<BookStatus, Integer> statuses = new EnumMap<>(BookStatus.class);
+            byStatus.forEach((status, ids) -> {
+                int count = RoaringBitmap.andCardinality(match, ids);
+                if (count > 0) {
+                    statuses.put(status, count);
+                }
+            });
+            Map<String, Integer> authors = new HashMap<>();
+            byAuthor.forEach((author, ids) -> {
+                int count = RoaringBitmap.andCardinality(match, ids);
+                if (count > 0) {
+                    authors.put(author, count);
+                }
+            });
+            Map<Integer, Integer> decades = new TreeMap<>();
+            byYear.forEach((year, ids) -> {
+                int count = RoaringBitmap.andCardinality(match, ids);
+                if (count > 0) {
+                    decades.merge(FacetCounts.decade(year), count, Integer::sum);
+                }
+            });
+            return new FacetCounts(match.cardinality(), statuses, FacetCounts.top(authors, authorLimit), decades,
+                    RoaringBitmap.andCardinality(match, borrowed));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap match(FacetQuery query) {
+        RoaringBitmap result = all;
+        if (query.status() != null) {
+            result = intersect(result, byStatus.get(query.status()));
+        }
+        if (query.author() != null) {
+            result = intersect(result, byAuthor.get(query.author()));
+        }
+        if (query.publishedFrom() != null || query.publishedTo() != null) {
+            RoaringBitmap years = new RoaringBitmap();
+            for (RoaringBitmap ids : yearRange(query.publishedFrom(), query.publishedTo()).values()) {
+                years = RoaringBitmap.or(years, ids);
+            }
+            result = RoaringBitmap.and(result, years);
+        }
+        if (query.checkedOut() != null) {
+            result = query.checkedOut() ? RoaringBitmap.and(result, borrowed) : RoaringBitmap.andNot(result, borrowed);
+        }
+        // Never hand out the live bitmap
+        return result == all ? all.copy() : result;
+    }
+
+    private NavigableMap<Integer, RoaringBitmap> yearRange(Integer from, Integer to) {
+        if (from == null) {
+            return byYear.headMap(to, true);
+        }
+        if (to == null) {
+            return byYear.tailMap(from, true);
+        }
+        return from > to ? new TreeMap<>() : byYear.subMap(from, true, to, true);
+    }
+
+    private static RoaringBitmap intersect(RoaringBitmap result, RoaringBitmap ids) {
+        return ids == null ? new RoaringBitmap() : RoaringBitmap.and(result, ids);
+    }
+
+    private static <K> void removeFrom(Map<K, RoaringBitmap> index, K key, int id) {
+        RoaringBitmap ids = index.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
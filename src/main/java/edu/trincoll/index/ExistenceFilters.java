@@ -0,0 +1,131 @@
+package edu.trincoll.index;
+
+import edu.trincoll.projection.BookChanged;
+import edu.trincoll.projection.MemberChanged;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.MemberRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bloom filters over every ISBN and member email, so lookups for keys that do not
+ * exist fail without a query.
+ *
+ * Inserts are added as soon as the entity listener publishes them, before commit,
+ * so a key is never rejected inside the transaction that created it; a rolled back
+ * insert only leaves a false positive. Deletes cannot be removed from a Bloom
+ * filter, so the filters are rebuilt from the database on
+ * {@code library.bloom.rebuild-cron}. The previous generation is consulted until
+ * the next rebuild, which covers inserts whose transaction was still open while
+ * the rebuild read the tables. Until the first build every key is let through.
+ */
+@Component
+public class ExistenceFilters {
+    private static final Logger log = LoggerFactory.getLogger(ExistenceFilters.class);
+    private static final long MIN_EXPECTED_KEYS = 1024;
+
+    private record Generation(BloomFilter isbns, BloomFilter emails) {
+    }
+
+    private final BookRepository bookRepository;
+    private final MemberRepository memberRepository;
+    private final double falsePositiveRate;
+    private final Counter rejectedIsbns;
+    private final Counter rejectedEmails;
+
+    private volatile Generation current;
+    private volatile Generation previous;
+    private volatile Generation building;
+
+    public ExistenceFilters(BookRepository bookRepository,
+                            MemberRepository memberRepository,
+                            MeterRegistry registry,
+                            @Value("${library.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.bookRepository = bookRepository;
+        this.memberRepository = memberRepository;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rejectedIsbns = rejected(registry, "isbn");
+        this.rejectedEmails = rejected(registry, "email");
+    }
+
+    private static Counter rejected(MeterRegistry registry, String key) {
+        return Counter.builder("library.bloom.rejected")
+                .description("Lookups answered as not found without querying the database")
+                .tag("key", key)
+                .register(registry);
+    }
+
+    @EventListener
+    public void onBookChanged(BookChanged event) {
+        if (!event.removed()) {
+            for (Generation generation : new Generation[]{building, current}) {
+                if (generation != null) {
+                    generation.isbns().put(event.book().isbn());
+                }
+            }
+        }
+    }
+
+    @EventListener
+    public void onMemberChanged(MemberChanged event) {
+        if (!event.removed()) {
+            for (Generation generation : new Generation[]{building, current}) {
+                if (generation != null) {
+                    generation.emails().put(event.member().email());
+                }
+            }
+        }
+    }
+
+    /** False only if no copy with this ISBN exists. */
+    public boolean mightContainIsbn(String isbn) {
+        Generation now = current;
+        Generation before = previous;
+        if (now == null || now.isbns().mightContain(isbn) || (before != null && before.isbns().mightContain(isbn))) {
+            return true;
+        }
+        rejectedIsbns.increment();
+        return false;
+    }
+
+    /** False only if no member with this email exists. */
+    public boolean mightContainEmail(String email) {
+        Generation now = current;
+        Generation before = previous;
+        if (now == null || now.emails().mightContain(email) || (before != null && before.emails().mightContain(email))) {
+            return true;
+        }
+        rejectedEmails.increment();
+        return false;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${library.bloom.rebuild-cron:0 0 * * * *}")
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        try {
+            // Sized for twice today's rows so inserts until the next rebuild keep the rate down
+            Generation next = new Generation(
+                    BloomFilter.create(Math.max(MIN_EXPECTED_KEYS, 2 * bookRepository.count()), falsePositiveRate),
+                    BloomFilter.create(Math.max(MIN_EXPECTED_KEYS, 2 * memberRepository.count()), falsePositiveRate));
+            building = next;
+            bookRepository.findAllIsbns().forEach(next.isbns()::put);
+            memberRepository.findAllEmails().forEach(next.emails()::put);
+            previous = current;
+            current = next;
+        } catch (RuntimeException e) {
+            log.warn("Failed to rebuild ISBN and email filters; keeping the current ones", e);
+            return;
+        } finally {
+            building = null;
+        }
+        log.info("Rebuilt ISBN and email filters in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,56 @@
+package edu.trincoll.index;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.BookStatus;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Copies per facet value within the result of a {@link FacetQuery}. Years are
+ * rolled up into decades keyed by their first year; authors are the most
+ * frequent ones, largest first.
+ */
+public record FacetCounts(int total,
+                          Map<BookStatus, Integer> byStatus,
+                          Map<String, Integer> byAuthor,
+                          Map<Integer, Integer> byDecade,
+                          int checkedOut) {
+
+    /** Counts a list of copies directly, for when the bitmap index is not ready. */
+    public static FacetCounts tally(Iterable<Book> books, int authorLimit) {
+        int total = 0;
+        int checkedOut = 0;
+        Map<BookStatus, Integer> byStatus = new EnumMap<>(BookStatus.class);
+        Map<String, Integer> byAuthor = new HashMap<>();
+        Map<Integer, Integer> byDecade = new TreeMap<>();
+        for (Book book : books) {
+            total++;
+            byStatus.merge(book.getStatus(), 1, Integer::sum);
+            byAuthor.merge(book.getAuthor(), 1, Integer::sum);
+            if (book.getPublicationDate() != null) {
+                byDecade.merge(decade(book.getPublicationDate().getYear()), 1, Integer::sum);
+            }
+            if (book.getCheckedOutBy() != null) {
+                checkedOut++;
+            }
+        }
+        return new FacetCounts(total, byStatus, top(byAuthor, authorLimit), byDecade, checkedOut);
+    }
+
+    static int decade(int year) {
+        return Math.floorDiv(year, 10) * 10;
+    }
+
+    static Map<String, Integer> top(Map<String, Integer> counts, int limit) {
+        Map<String, Integer> top = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+}
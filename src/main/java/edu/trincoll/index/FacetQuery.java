@@ -0,0 +1,40 @@
+package edu.trincoll.index;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.BookStatus;
+
+import java.util.function.Predicate;
+
+/**
+ * Catalog filter over the indexed facets. A null component matches every copy;
+ * the year bounds are inclusive and either may be left open.
+ */
+public record FacetQuery(BookStatus status,
+                         String author,
+                         Integer publishedFrom,
+                         Integer publishedTo,
+                         Boolean checkedOut) implements Predicate<Book> {
+
+    public static final FacetQuery ANY = new FacetQuery(null, null, null, null, null);
+
+    /** Same filter applied row by row, for when the bitmap index is not ready. */
+    @Override
+    public boolean test(Book book) {
+        if (status != null && book.getStatus() != status) {
+            return false;
+        }
+        if (author != null && !author.equals(book.getAuthor())) {
+            return false;
+        }
+        if (publishedFrom != null || publishedTo != null) {
+            if (book.getPublicationDate() == null) {
+                return false;
+            }
+            int year = book.getPublicationDate().getYear();
+            if ((publishedFrom != null && year < publishedFrom) || (publishedTo != null && year > publishedTo)) {
+                return false;
+            }
+        }
+        return checkedOut == null || checkedOut == (book.getCheckedOutBy() != null);
+    }
+}
@@ -0,0 +1,47 @@
+package edu.trincoll.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One phase (lookup, policy check, save, notification, ...) of a checkout or return.
+ * When no recording is running, {@link #begin()} and {@link #shouldCommit()} are
+ * effectively free, so the events can stay in the hot path permanently.
+ */
+@Name(CirculationPhaseEvent.NAME)
+@Label("Circulation Phase")
+@Category({"Library", "Circulation"})
+@Description("Duration of a single phase of a checkout or return")
+@StackTrace(false)
+public class CirculationPhaseEvent extends Event {
+    public static final String NAME = "edu.trincoll.CirculationPhase";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("ISBN")
+    String isbn;
+
+    public static CirculationPhaseEvent start(String operation, String phase) {
+        CirculationPhaseEvent event = new CirculationPhaseEvent();
+        event.operation = operation;
+        event.phase = phase;
+        event.begin();
+        return event;
+    }
+
+    public void finish(String isbn) {
+        end();
+        if (shouldCommit()) {
+            this.isbn = isbn;
+            commit();
+        }
+    }
+}
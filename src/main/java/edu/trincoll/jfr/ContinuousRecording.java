@@ -0,0 +1,73 @@
+package edu.trincoll.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Keeps a rolling on-disk flight recording with the library events enabled.
+ * Active only under the {@code jfr} profile; the recording is dumped to
+ * {@code library.jfr.destination} on shutdown.
+ */
+@Component
+@Profile("jfr")
+public class ContinuousRecording implements SmartLifecycle {
+    private final Duration maxAge;
+    private final DataSize maxSize;
+    private final Path destination;
+    private Recording recording;
+
+    public ContinuousRecording(@Value("${library.jfr.max-age:6h}") Duration maxAge,
+                               @Value("${library.jfr.max-size:256MB}") DataSize maxSize,
+                               @Value("${library.jfr.destination:build/jfr/library.jfr}") Path destination) {
+        this.maxAge = maxAge;
+        this.maxSize = maxSize;
+        this.destination = destination;
+    }
+
+    @Override
+    public synchronized void start() {
+        try {
+            Files.createDirectories(destination.toAbsolutePath().getParent());
+            recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName("library-continuous");
+            recording.setToDisk(true);
+            recording.setMaxAge(maxAge);
+            recording.setMaxSize(maxSize.toBytes());
+            recording.setDestination(destination);
+            recording.enable(CirculationPhaseEvent.class).withoutThreshold();
+            recording.enable(SearchEvent.class).withoutThreshold();
+            recording.enable(ReportEvent.class).withoutThreshold();
+            recording.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Cannot load default JFR configuration", e);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (recording != null) {
+            recording.stop();
+            recording.close();
+            recording = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return recording != null;
+    }
+}
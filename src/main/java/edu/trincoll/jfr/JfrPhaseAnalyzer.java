@@ -0,0 +1,81 @@
+package edu.trincoll.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Summarizes the library's custom JFR events in a {@code .jfr} file into
+ * per-phase latency percentiles.
+ *
+ * Usage: {@code ./gradlew analyzeJfr -Pjfr=path/to/recording.jfr}
+ */
+public class JfrPhaseAnalyzer {
+
+    public record PhaseStats(long count, long p50Micros, long p90Micros, long p99Micros, long maxMicros) {
+    }
+
+    public static Map<String, PhaseStats> analyze(Path recording) throws IOException {
+        Map<String, List<Long>> durations = new TreeMap<>();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                String key = phaseKey(event);
+                if (key != null) {
+                    durations.computeIfAbsent(key, k -> new ArrayList<>())
+                            .add(event.getDuration().toNanos() / 1_000);
+                }
+            }
+        }
+
+        Map<String, PhaseStats> stats = new TreeMap<>();
+        durations.forEach((key, values) -> stats.put(key, summarize(values)));
+        return stats;
+    }
+
+    static String phaseKey(RecordedEvent event) {
+        return switch (event.getEventType().getName()) {
+            case CirculationPhaseEvent.NAME -> event.getString("operation") + "." + event.getString("phase");
+            case SearchEvent.NAME -> "search." + event.getString("searchType");
+            case ReportEvent.NAME -> "report." + event.getString("report");
+            default -> null;
+        };
+    }
+
+    static PhaseStats summarize(List<Long> values) {
+        long[] sorted = values.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return new PhaseStats(sorted.length,
+                percentile(sorted, 0.50),
+                percentile(sorted, 0.90),
+                percentile(sorted, 0.99),
+                sorted[sorted.length - 1]);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: JfrPhaseAnalyzer <recording.jfr>");
+            System.exit(1);
+        }
+        Map<String, PhaseStats> stats = analyze(Path.of(args[0]));
+        if (stats.isEmpty()) {
+            System.out.println("No library events found in " + args[0]);
+            return;
+        }
+        System.out.printf("%-28s %10s %10s %10s %10s %10s%n", "phase", "count", "p50(us)", "p90(us)", "p99(us)", "max(us)");
+        stats.forEach((phase, s) -> System.out.printf("%-28s %10d %10d %10d %10d %10d%n",
+                phase, s.count(), s.p50Micros(), s.p90Micros(), s.p99Micros(), s.maxMicros()));
+    }
+}
@@ -0,0 +1,29 @@
+package edu.trincoll.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(ReportEvent.NAME)
+@Label("Report Generation")
+@Category({"Library", "Reports"})
+@StackTrace(false)
+public class ReportEvent extends Event {
+    public static final String NAME = "edu.trincoll.Report";
+
+    @Label("Report")
+    String report;
+
+    public static ReportEvent start(String report) {
+        ReportEvent event = new ReportEvent();
+        event.report = report;
+        event.begin();
+        return event;
+    }
+
+    public void finish() {
+        commit();
+    }
+}
@@ -0,0 +1,29 @@
+package edu.trincoll.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name(SearchEvent.NAME)
+@Label("Catalog Search")
+@Category({"Library", "Search"})
+@StackTrace(false)
+public class SearchEvent extends Event {
+    public static final String NAME = "edu.trincoll.Search";
+
+    @Label("Search Type")
+    String searchType;
+
+    public static SearchEvent start(String searchType) {
+        SearchEvent event = new SearchEvent();
+        event.searchType = searchType;
+        event.begin();
+        return event;
+    }
+
+    public void finish() {
+        commit();
+    }
+}
@@ -0,0 +1,35 @@
+package edu.trincoll.journal;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.LoanEventType;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * A checkout or return, published by {@code LibraryService} once it has succeeded.
+ * Events re-published from the journal at startup carry {@code replayed = true}.
+ */
+public record CirculationEvent(LoanEventType type,
+                               String isbn,
+                               int copyNumber,
+                               String memberEmail,
+                               Instant occurredAt,
+                               LocalDate dueDate,
+                               double lateFee,
+                               boolean replayed) {
+
+    public static CirculationEvent checkout(Book book) {
+        return new CirculationEvent(LoanEventType.CHECKOUT, book.getIsbn(), book.getCopyNumber(),
+                book.getCheckedOutBy(), Instant.now(), book.getDueDate(), 0.0, false);
+    }
+
+    public static CirculationEvent returned(Book book, String memberEmail, double lateFee) {
+        return new CirculationEvent(LoanEventType.RETURN, book.getIsbn(), book.getCopyNumber(),
+                memberEmail, Instant.now(), null, lateFee, false);
+    }
+
+    public CirculationEvent asReplayed() {
+        return new CirculationEvent(type, isbn, copyNumber, memberEmail, occurredAt, dueDate, lateFee, true);
+    }
+}
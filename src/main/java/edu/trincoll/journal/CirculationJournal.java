@@ -0,0 +1,90 @@
+package edu.trincoll.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * Writes every {@link CirculationEvent} to the {@link EventJournal} and, on startup,
+ * replays the journal by re-publishing its events with {@code replayed = true} so
+ * listeners can rebuild their state. Enabled by {@code library.journal.enabled}.
+ */
+@Component
+@ConditionalOnProperty(name = "library.journal.enabled", havingValue = "true")
+public class CirculationJournal implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(CirculationJournal.class);
+
+    private final ApplicationEventPublisher publisher;
+    private final Path directory;
+    private final DataSize segmentSize;
+    private final int maxBatch;
+    private final int queueCapacity;
+    private final boolean replayOnStartup;
+    private volatile EventJournal journal;
+
+    public CirculationJournal(ApplicationEventPublisher publisher,
+                              @Value("${library.journal.directory:data/journal}") Path directory,
+                              @Value("${library.journal.segment-size:64MB}") DataSize segmentSize,
+                              @Value("${library.journal.max-batch:1024}") int maxBatch,
+                              @Value("${library.journal.queue-capacity:65536}") int queueCapacity,
+                              @Value("${library.journal.replay-on-startup:true}") boolean replayOnStartup) {
+        this.publisher = publisher;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxBatch = maxBatch;
+        this.queueCapacity = queueCapacity;
+        this.replayOnStartup = replayOnStartup;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCirculation(CirculationEvent event) {
+        EventJournal current = journal;
+        if (current != null && !event.replayed()) {
+            current.append(event);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        try {
+            EventJournal opened = EventJournal.open(directory, Math.toIntExact(segmentSize.toBytes()), maxBatch, queueCapacity);
+            if (replayOnStartup) {
+                long start = System.nanoTime();
+                long replayed = opened.replay(event -> publisher.publishEvent(event.asReplayed()));
+                log.info("Replayed {} circulation events from {} in {} ms",
+                        replayed, directory, (System.nanoTime() - start) / 1_000_000);
+            }
+            journal = opened;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        EventJournal current = journal;
+        if (current != null) {
+            journal = null;
+            try {
+                current.close();
+            } catch (IOException e) {
+                log.warn("Failed to close circulation journal", e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return journal != null;
+    }
+}
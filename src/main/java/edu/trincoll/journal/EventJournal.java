@@ -0,0 +1,293 @@
+package edu.trincoll.journal;
+
+import edu.trincoll.model.LoanEventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of circulation events stored in rolling memory-mapped segments.
+ *
+ * {@link #append} only enqueues the event, so callers never wait on disk. A single
+ * writer thread drains whatever has queued up, copies the batch into the current
+ * segment and forces it once (group commit). Events still queued when the process
+ * dies are lost; everything forced survives and is checked by CRC on replay.
+ *
+ * A batch that cannot be written is retried a few times with backoff. If it still
+ * fails the journal fails: {@link #append} rejects new events from then on and the
+ * events that were never written are reported.
+ */
+public class EventJournal implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(EventJournal.class);
+    private static final String SUFFIX = ".seg";
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final int WRITE_ATTEMPTS = 5;
+    private static final long RETRY_BACKOFF_MILLIS = 10;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxBatch;
+    private final BlockingQueue<CirculationEvent> queue;
+    private final ByteBuffer scratch = ByteBuffer.allocate(64 * 1024);
+    private final CRC32C crc = new CRC32C();
+    private final Thread writer;
+    // Appends hold the read lock while they check running and enqueue; close and
+    // fail take the write lock to clear it, so no event is queued after the last drain
+    private final ReadWriteLock gate = new ReentrantReadWriteLock();
+
+    private JournalSegment active;
+    private long activeIndex;
+    private volatile boolean running = true;
+    private volatile IOException failure;
+    private volatile long written;
+
+    private EventJournal(Path directory, int segmentSize, int maxBatch, int queueCapacity) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxBatch = maxBatch;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        List<Path> segments = segments();
+        activeIndex = segments.isEmpty() ? 0 : indexOf(segments.get(segments.size() - 1));
+        active = JournalSegment.openForAppend(segmentPath(activeIndex), segmentSize);
+
+        writer = new Thread(this::writeLoop, "circulation-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static EventJournal open(Path directory, int segmentSize, int maxBatch, int queueCapacity) throws IOException {
+        Files.createDirectories(directory);
+        return new EventJournal(directory, segmentSize, maxBatch, queueCapacity);
+    }
+
+    /**
+     * Queues an event for the writer thread. Blocks only if the queue is full,
+     * which means the disk cannot keep up.
+     *
+     * @throws IllegalStateException if the journal is closed or has failed
+     */
+    public void append(CirculationEvent event) {
+        while (true) {
+            gate.readLock().lock();
+            try {
+                if (!running) {
+                    throw failure == null
+                            ? new IllegalStateException("Journal is closed")
+                            : new IllegalStateException("Journal failed", failure);
+                }
+                if (queue.offer(event)) {
+                    return;
+                }
+            } finally {
+                gate.readLock().unlock();
+            }
+            // Queue full: wait for the writer outside the gate so close() is never held up
+            LockSupport.parkNanos(100_000);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while appending to journal");
+            }
+        }
+    }
+
+    /** Number of events forced to disk since this journal was opened. */
+    public long written() {
+        return written;
+    }
+
+    /**
+     * Streams every intact event in segment order. Reading stops at the first
+     * corrupt record, since everything after it can no longer be trusted.
+     *
+     * @return number of events read
+     */
+    public long replay(Consumer<CirculationEvent> consumer) {
+        long[] count = {0};
+        try {
+            for (Path segment : segments()) {
+                boolean clean = JournalSegment.read(segment, payload -> {
+                    consumer.accept(decode(payload));
+                    count[0]++;
+                });
+                if (!clean) {
+                    log.warn("Journal replay stopped at a corrupt record in {}", segment);
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count[0];
+    }
+
+    /** Stops accepting events, writes out everything already queued and unmaps the segment. */
+    @Override
+    public void close() throws IOException {
+        stopAccepting(null);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        active.close();
+    }
+
+    /** True once a batch could not be written; see {@link #append}. */
+    public boolean hasFailed() {
+        return failure != null;
+    }
+
+    private void stopAccepting(IOException cause) {
+        gate.writeLock().lock();
+        try {
+            if (cause != null && failure == null) {
+                failure = cause;
+            }
+            running = false;
+        } finally {
+            gate.writeLock().unlock();
+        }
+    }
+
+    private void writeLoop() {
+        List<CirculationEvent> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                CirculationEvent first = queue.poll(50, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                writeBatch(batch);
+                written += batch.size();
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                stopAccepting(e);
+                int lost = batch.size() + queue.size();
+                queue.clear();
+                log.error("Journal failed; {} events were not written and new events are rejected", lost, e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Copies the batch into the segment and forces it, retrying with backoff.
+     * Events already copied are not copied again on a retry.
+     */
+    private void writeBatch(List<CirculationEvent> batch) throws IOException, InterruptedException {
+        int copied = 0;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                for (; copied < batch.size(); copied++) {
+                    write(batch.get(copied));
+                }
+                active.force();
+                return;
+            } catch (IOException | RuntimeException e) {
+                if (attempt == WRITE_ATTEMPTS) {
+                    throw e instanceof IOException io ? io : new IOException(e);
+                }
+                log.warn("Writing {} journal events failed (attempt {} of {}), retrying",
+                        batch.size() - copied, attempt, WRITE_ATTEMPTS, e);
+                Thread.sleep(RETRY_BACKOFF_MILLIS << (attempt - 1));
+            }
+        }
+    }
+
+    private void write(CirculationEvent event) throws IOException {
+        scratch.clear();
+        encode(event, scratch);
+        scratch.flip();
+        if (active.tryAppend(scratch, crc)) {
+            return;
+        }
+        if (active.isEmpty()) {
+            throw new IOException("Event larger than a journal segment: " + event);
+        }
+        // Open the next segment before letting go of the current one, so a failed
+        // open leaves a usable segment behind for the retry
+        JournalSegment next = JournalSegment.openForAppend(segmentPath(activeIndex + 1), segmentSize);
+        active.close();
+        active = next;
+        activeIndex++;
+        if (!active.tryAppend(scratch, crc)) {
+            throw new IOException("Event larger than a journal segment: " + event);
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long index) {
+        return directory.resolve(String.format("journal-%016d%s", index, SUFFIX));
+    }
+
+    private static long indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring("journal-".length(), name.length() - SUFFIX.length()));
+    }
+
+    static void encode(CirculationEvent event, ByteBuffer out) {
+        out.put((byte) event.type().ordinal());
+        out.putLong(event.occurredAt().toEpochMilli());
+        out.putInt(event.copyNumber());
+        out.putInt(event.dueDate() == null ? NO_DATE : (int) event.dueDate().toEpochDay());
+        out.putDouble(event.lateFee());
+        putString(out, event.isbn());
+        putString(out, event.memberEmail());
+    }
+
+    static CirculationEvent decode(ByteBuffer in) {
+        LoanEventType type = LoanEventType.values()[in.get()];
+        Instant occurredAt = Instant.ofEpochMilli(in.getLong());
+        int copyNumber = in.getInt();
+        int dueDay = in.getInt();
+        double lateFee = in.getDouble();
+        String isbn = getString(in);
+        String memberEmail = getString(in);
+        return new CirculationEvent(type, isbn, copyNumber, memberEmail, occurredAt,
+                dueDay == NO_DATE ? null : LocalDate.ofEpochDay(dueDay), lateFee, false);
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,148 @@
+package edu.trincoll.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * One fixed-size, memory-mapped journal file.
+ *
+ * Layout: an 8-byte header (magic, version) followed by records of
+ * {@code [int length][int crc32c][payload]}. The file is zero-filled when it is
+ * created, so a length of zero marks the end of the written data.
+ */
+final class JournalSegment implements AutoCloseable {
+    static final int HEADER_SIZE = 8;
+    static final int RECORD_OVERHEAD = 8;
+    private static final int MAGIC = 0x434A3031; // "CJ01"
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private JournalSegment(Path file, FileChannel channel, MappedByteBuffer buffer) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Maps a segment for appending, creating it if needed. An existing segment is
+     * scanned to find the end of its last intact record; anything after that (a
+     * torn write from a crash) is zeroed so it can never be mistaken for data.
+     */
+    static JournalSegment openForAppend(Path file, int size) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean fresh = channel.size() == 0;
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fresh ? size : channel.size());
+        if (fresh) {
+            buffer.putInt(MAGIC).putInt(VERSION);
+            buffer.force();
+        } else {
+            checkHeader(buffer, file);
+            int end = scan(buffer, payload -> { });
+            boolean dirty = false;
+            for (int i = end; i < buffer.limit(); i++) {
+                if (buffer.get(i) != 0) {
+                    buffer.put(i, (byte) 0);
+                    dirty = true;
+                }
+            }
+            if (dirty) {
+                buffer.force();
+            }
+            buffer.position(end);
+        }
+        return new JournalSegment(file, channel, buffer);
+    }
+
+    /**
+     * Copies one record into the mapping. Nothing is forced to disk here.
+     *
+     * @return false if the record does not fit and the caller should roll to a new segment
+     */
+    boolean tryAppend(ByteBuffer payload, CRC32C crc) {
+        int length = payload.remaining();
+        if (buffer.remaining() < RECORD_OVERHEAD + length) {
+            return false;
+        }
+        crc.reset();
+        crc.update(payload.duplicate());
+        int start = buffer.position();
+        buffer.position(start + 4);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(payload);
+        // Length goes in last so a reader never sees a record whose body is missing.
+        buffer.putInt(start, length);
+        return true;
+    }
+
+    boolean isEmpty() {
+        return buffer.position() == HEADER_SIZE;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    Path file() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Streams every intact record in a segment file, in order.
+     *
+     * @return false if reading stopped at a corrupt record rather than at the end of the data
+     */
+    static boolean read(Path file, Consumer<ByteBuffer> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            checkHeader(buffer, file);
+            int end = scan(buffer, consumer);
+            return end + 4 > buffer.limit() || buffer.getInt(end) == 0;
+        }
+    }
+
+    private static void checkHeader(ByteBuffer buffer, Path file) throws IOException {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a journal segment: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported journal version " + buffer.getInt(4) + ": " + file);
+        }
+    }
+
+    /** Walks records from the header on and returns the offset just past the last valid one. */
+    private static int scan(ByteBuffer buffer, Consumer<ByteBuffer> consumer) {
+        CRC32C crc = new CRC32C();
+        int position = HEADER_SIZE;
+        while (position + RECORD_OVERHEAD <= buffer.limit()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > buffer.limit() - position - RECORD_OVERHEAD) {
+                break;
+            }
+            ByteBuffer payload = buffer.slice(position + RECORD_OVERHEAD, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            consumer.accept(payload);
+            position += RECORD_OVERHEAD + length;
+        }
+        return position;
+    }
+}
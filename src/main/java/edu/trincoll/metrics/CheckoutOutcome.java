@@ -0,0 +1,9 @@
+package edu.trincoll.metrics;
+
+public enum CheckoutOutcome {
+    SUCCESS,
+    LIMIT_REACHED,
+    NOT_AVAILABLE,
+    NOT_FOUND,
+    ERROR
+}
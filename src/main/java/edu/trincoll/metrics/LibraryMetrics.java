@@ -0,0 +1,150 @@
+package edu.trincoll.metrics;
+
+import edu.trincoll.jfr.SearchEvent;
+import edu.trincoll.model.MembershipType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Central place for the library's Micrometer meters.
+ *
+ * All meters on the checkout/return path are registered up front and kept in
+ * enum maps, so recording is a map read plus an atomic add with no tag building
+ * per call. Searches additionally emit a JFR {@link SearchEvent}. The time from
+ * JVM start to the first successful checkout is kept as a startup gauge.
+ */
+@Component
+public class LibraryMetrics {
+    private static final Logger log = LoggerFactory.getLogger(LibraryMetrics.class);
+    private static final long NOT_YET = -1;
+
+    private final MeterRegistry registry;
+
+    private final Map<CheckoutOutcome, Counter> checkoutCounters = new EnumMap<>(CheckoutOutcome.class);
+    private final Map<ReturnOutcome, Counter> returnCounters = new EnumMap<>(ReturnOutcome.class);
+    private final Map<MembershipType, DistributionSummary> lateFees = new EnumMap<>(MembershipType.class);
+    private final Timer checkoutTimer;
+    private final Timer returnTimer;
+    private final Map<String, Timer> searchTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> reportTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> notificationTimers = new ConcurrentHashMap<>();
+    private final AtomicLong firstCheckoutMillis = new AtomicLong(NOT_YET);
+
+    public LibraryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (CheckoutOutcome outcome : CheckoutOutcome.values()) {
+            checkoutCounters.put(outcome, Counter.builder("library.checkouts")
+                    .description("Checkout attempts by outcome")
+                    .tag("outcome", tagValue(outcome))
+                    .register(registry));
+        }
+        for (ReturnOutcome outcome : ReturnOutcome.values()) {
+            returnCounters.put(outcome, Counter.builder("library.returns")
+                    .description("Return attempts by outcome")
+                    .tag("outcome", tagValue(outcome))
+                    .register(registry));
+        }
+        for (MembershipType tier : MembershipType.values()) {
+            lateFees.put(tier, DistributionSummary.builder("library.late.fees")
+                    .description("Late fees charged on return")
+                    .baseUnit("dollars")
+                    .tag("tier", tagValue(tier))
+                    .register(registry));
+        }
+        checkoutTimer = Timer.builder("library.checkout.duration")
+                .description("End-to-end checkout latency")
+                .register(registry);
+        returnTimer = Timer.builder("library.return.duration")
+                .description("End-to-end return latency")
+                .register(registry);
+        for (String type : new String[]{"title", "author", "isbn"}) {
+            searchTimer(type);
+        }
+        Gauge.builder("library.startup.first.checkout", firstCheckoutMillis,
+                        millis -> millis.get() == NOT_YET ? Double.NaN : millis.get() / 1000.0)
+                .description("Time from JVM start to the first successful checkout")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    public Timer.Sample startTimer() {
+        return Timer.start(registry);
+    }
+
+    public void recordCheckout(Timer.Sample sample, CheckoutOutcome outcome) {
+        sample.stop(checkoutTimer);
+        checkoutCounters.get(outcome).increment();
+        if (outcome == CheckoutOutcome.SUCCESS && firstCheckoutMillis.get() == NOT_YET) {
+            long sinceStart = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+            if (firstCheckoutMillis.compareAndSet(NOT_YET, sinceStart)) {
+                log.info("First checkout completed {} ms after JVM start", sinceStart);
+            }
+        }
+    }
+
+    /** Time from JVM start to the first successful checkout, once there has been one. */
+    public Optional<Duration> timeToFirstCheckout() {
+        long millis = firstCheckoutMillis.get();
+        return millis == NOT_YET ? Optional.empty() : Optional.of(Duration.ofMillis(millis));
+    }
+
+    public void recordReturn(Timer.Sample sample, ReturnOutcome outcome) {
+        sample.stop(returnTimer);
+        returnCounters.get(outcome).increment();
+    }
+
+    public void recordLateFee(MembershipType tier, double fee) {
+        lateFees.get(tier).record(fee);
+    }
+
+    public <T> T timeSearch(String type, Supplier<T> search) {
+        SearchEvent event = SearchEvent.start(type);
+        try {
+            return searchTimer(type).record(search);
+        } finally {
+            event.finish();
+        }
+    }
+
+    public <T> T timeNotification(String kind, Supplier<T> send) {
+        return notificationTimers.computeIfAbsent(kind, k -> Timer.builder("library.notification.duration")
+                        .description("Time spent sending a notification")
+                        .tag("kind", k)
+                        .register(registry))
+                .record(send);
+    }
+
+    public Timer reportTimer(String report) {
+        return reportTimers.computeIfAbsent(report, r -> Timer.builder("library.report.duration")
+                .description("Report generation time")
+                .tag("report", r)
+                .register(registry));
+    }
+
+    private Timer searchTimer(String type) {
+        return searchTimers.computeIfAbsent(type, t -> Timer.builder("library.search.duration")
+                .description("Search latency by search type")
+                .tag("type", t)
+                .register(registry));
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,51 @@
+package edu.trincoll.metrics;
+
+import edu.trincoll.jfr.ReportEvent;
+import edu.trincoll.report.ReportGenerator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps every {@link ReportGenerator} bean so generation time is recorded per
+ * report (as a Micrometer timer and a JFR event) without each generator having
+ * to know about instrumentation.
+ */
+@Component
+public class ReportGeneratorMetricsPostProcessor implements BeanPostProcessor {
+    private static final String SUFFIX = "ReportGenerator";
+
+    private final ObjectProvider<LibraryMetrics> metrics;
+
+    public ReportGeneratorMetricsPostProcessor(ObjectProvider<LibraryMetrics> metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof ReportGenerator generator) {
+            return new TimedReportGenerator(generator, reportName(beanName), metrics);
+        }
+        return bean;
+    }
+
+    static String reportName(String beanName) {
+        if (beanName.endsWith(SUFFIX) && beanName.length() > SUFFIX.length()) {
+            return beanName.substring(0, beanName.length() - SUFFIX.length());
+        }
+        return beanName;
+    }
+
+    private record TimedReportGenerator(ReportGenerator delegate, String name,
+                                        ObjectProvider<LibraryMetrics> metrics) implements ReportGenerator {
+        @Override
+        public String generateReport() {
+            ReportEvent event = ReportEvent.start(name);
+            try {
+                return metrics.getObject().reportTimer(name).record(delegate::generateReport);
+            } finally {
+                event.finish();
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package edu.trincoll.metrics;
+
+public enum ReturnOutcome {
+    SUCCESS,
+    LATE,
+    NOT_CHECKED_OUT,
+    NOT_FOUND,
+    ERROR
+}
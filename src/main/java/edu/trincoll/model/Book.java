@@ -1,22 +1,56 @@
 package edu.trincoll.model;
 
+import edu.trincoll.projection.CatalogChangeListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import java.time.LocalDate;
 import java.util.Objects;
 
+/**
+ * A single physical copy. Copies of the same edition share an ISBN and are told
+ * apart by {@code copyNumber}; per-title counters live on {@link BookTitle}.
+ * Each copy belongs to one branch, and branch-scoped queries lead with the
+ * {@code branch} column so they only read that branch's index range.
+ * Copies are kept in the second-level cache and can be looked up there by their
+ * natural id, ISBN plus copy number.
+ * Copies are versioned, so two concurrent checkouts of the same copy cannot both
+ * commit; the loser fails with an optimistic locking error.
+ */
 @Entity
-@Table(name = "books")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
+@EntityListeners(CatalogChangeListener.class)
+@Table(name = "books",
+        uniqueConstraints = @UniqueConstraint(name = "uk_books_isbn_copy", columnNames = {"isbn", "copy_number"}),
+        indexes = {
+                @Index(name = "idx_books_isbn_status", columnList = "isbn, status"),
+                @Index(name = "idx_books_branch_isbn_status", columnList = "branch, isbn, status"),
+                @Index(name = "idx_books_status_borrower", columnList = "status, checked_out_by"),
+                @Index(name = "idx_books_status_due_borrower", columnList = "status, due_date, checked_out_by")
+        })
 public class Book {
+    public static final String DEFAULT_BRANCH = "MAIN";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @NaturalId
     @NotBlank(message = "ISBN is required")
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String isbn;
 
+    @NaturalId
+    @Column(name = "copy_number", nullable = false)
+    private int copyNumber = 1;
+
     @NotBlank(message = "Title is required")
     @Column(nullable = false)
     private String title;
@@ -38,6 +72,17 @@ public class Book {
     @Column(name = "due_date")
     private LocalDate dueDate;
 
+    @NotBlank(message = "Branch is required")
+    @Column(nullable = false, length = 32)
+    @ColumnDefault("'" + DEFAULT_BRANCH + "'")
+    private String branch = DEFAULT_BRANCH;
+
+    // Defaulted so existing rows pick up a version when the column is added
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
     // Constructors
     public Book() {
     }
@@ -49,6 +94,11 @@ public class Book {
         this.publicationDate = publicationDate;
     }
 
+    public Book(String isbn, int copyNumber, String title, String author, LocalDate publicationDate) {
+        this(isbn, title, author, publicationDate);
+        this.copyNumber = copyNumber;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -66,6 +116,14 @@ public class Book {
         this.isbn = isbn;
     }
 
+    public int getCopyNumber() {
+        return copyNumber;
+    }
+
+    public void setCopyNumber(int copyNumber) {
+        this.copyNumber = copyNumber;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -114,17 +172,29 @@ public class Book {
         this.dueDate = dueDate;
     }
 
+    public String getBranch() {
+        return branch;
+    }
+
+    public void setBranch(String branch) {
+        this.branch = branch;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Book book = (Book) o;
-        return Objects.equals(isbn, book.isbn);
+        return copyNumber == book.copyNumber && Objects.equals(isbn, book.isbn);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(isbn);
+        return Objects.hash(isbn, copyNumber);
     }
 
     @Override
@@ -132,9 +202,11 @@ public class Book {
         return "Book{" +
                 "id=" + id +
                 ", isbn='" + isbn + '\'' +
+                ", copyNumber=" + copyNumber +
                 ", title='" + title + '\'' +
                 ", author='" + author + '\'' +
                 ", status=" + status +
+                ", branch='" + branch + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,130 @@
+package edu.trincoll.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Catalog-level record for an ISBN. {@code availableCopies} is a denormalized
+ * counter kept in step with the copies' statuses by checkout and return, so
+ * "is any copy on the shelf" is a single-row read.
+ */
+@Entity
+@Table(name = "titles")
+public class BookTitle {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank(message = "ISBN is required")
+    @Column(unique = true, nullable = false)
+    private String isbn;
+
+    @NotBlank(message = "Title is required")
+    @Column(nullable = false)
+    private String title;
+
+    @NotBlank(message = "Author is required")
+    @Column(nullable = false)
+    private String author;
+
+    private LocalDate publicationDate;
+
+    @Column(name = "total_copies", nullable = false)
+    private int totalCopies = 0;
+
+    @Column(name = "available_copies", nullable = false)
+    private int availableCopies = 0;
+
+    // Constructors
+    public BookTitle() {
+    }
+
+    public BookTitle(String isbn, String title, String author, LocalDate publicationDate) {
+        this.isbn = isbn;
+        this.title = title;
+        this.author = author;
+        this.publicationDate = publicationDate;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public void setIsbn(String isbn) {
+        this.isbn = isbn;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public LocalDate getPublicationDate() {
+        return publicationDate;
+    }
+
+    public void setPublicationDate(LocalDate publicationDate) {
+        this.publicationDate = publicationDate;
+    }
+
+    public int getTotalCopies() {
+        return totalCopies;
+    }
+
+    public void setTotalCopies(int totalCopies) {
+        this.totalCopies = totalCopies;
+    }
+
+    public int getAvailableCopies() {
+        return availableCopies;
+    }
+
+    public void setAvailableCopies(int availableCopies) {
+        this.availableCopies = availableCopies;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BookTitle that = (BookTitle) o;
+        return Objects.equals(isbn, that.isbn);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(isbn);
+    }
+
+    @Override
+    public String toString() {
+        return "BookTitle{" +
+                "isbn='" + isbn + '\'' +
+                ", title='" + title + '\'' +
+                ", availableCopies=" + availableCopies +
+                ", totalCopies=" + totalCopies +
+                '}';
+    }
+}
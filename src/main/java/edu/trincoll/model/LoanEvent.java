@@ -0,0 +1,113 @@
+package edu.trincoll.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Append-only circulation history row. {@code loanMonth} (yyyyMM) is the
+ * partition key: queries and archival work one month at a time.
+ */
+@Entity
+@Table(name = "loan_history", indexes = {
+        @Index(name = "idx_loan_history_member", columnList = "member_email, occurred_at"),
+        @Index(name = "idx_loan_history_month", columnList = "loan_month, type, isbn")
+})
+public class LoanEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private LoanEventType type;
+
+    @Column(nullable = false, updatable = false)
+    private String isbn;
+
+    @Column(name = "copy_number", nullable = false, updatable = false)
+    private int copyNumber;
+
+    @Column(name = "member_email", nullable = false, updatable = false)
+    private String memberEmail;
+
+    @Column(name = "occurred_at", nullable = false, updatable = false)
+    private LocalDateTime occurredAt;
+
+    @Column(name = "due_date", updatable = false)
+    private LocalDate dueDate;
+
+    @Column(name = "late_fee", updatable = false)
+    private double lateFee;
+
+    @Column(name = "loan_month", nullable = false, updatable = false)
+    private int loanMonth;
+
+    // Constructors
+    public LoanEvent() {
+    }
+
+    public LoanEvent(LoanEventType type, String isbn, int copyNumber, String memberEmail,
+                     LocalDateTime occurredAt, LocalDate dueDate, double lateFee) {
+        this.type = type;
+        this.isbn = isbn;
+        this.copyNumber = copyNumber;
+        this.memberEmail = memberEmail;
+        this.occurredAt = occurredAt;
+        this.dueDate = dueDate;
+        this.lateFee = lateFee;
+        this.loanMonth = monthKey(occurredAt.toLocalDate());
+    }
+
+    public static int monthKey(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public LoanEventType getType() {
+        return type;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public int getCopyNumber() {
+        return copyNumber;
+    }
+
+    public String getMemberEmail() {
+        return memberEmail;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    public double getLateFee() {
+        return lateFee;
+    }
+
+    public int getLoanMonth() {
+        return loanMonth;
+    }
+
+    @Override
+    public String toString() {
+        return "LoanEvent{" +
+                "type=" + type +
+                ", isbn='" + isbn + '\'' +
+                ", copyNumber=" + copyNumber +
+                ", memberEmail='" + memberEmail + '\'' +
+                ", occurredAt=" + occurredAt +
+                '}';
+    }
+}
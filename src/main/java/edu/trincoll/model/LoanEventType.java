@@ -0,0 +1,6 @@
+package edu.trincoll.model;
+
+public enum LoanEventType {
+    CHECKOUT,
+    RETURN
+}
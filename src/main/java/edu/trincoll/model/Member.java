@@ -1,13 +1,37 @@
 package edu.trincoll.model;
 
+import edu.trincoll.projection.CatalogChangeListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import java.time.LocalDate;
+import java.util.Locale;
 import java.util.Objects;
 
+/**
+ * A library member. {@code nameKey} is the trimmed, lower-cased name kept next to
+ * {@code name} so case-insensitive prefix searches can range-scan an index. The
+ * column is nullable so schema updates can add it to a populated table;
+ * {@code MemberNameKeyBackfill} fills it for older rows at startup.
+ * Members are kept in the second-level cache and can be looked up there by email.
+ */
 @Entity
-@Table(name = "members")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
+@EntityListeners(CatalogChangeListener.class)
+@Table(name = "members",
+        indexes = {
+                @Index(name = "idx_members_name_key", columnList = "name_key"),
+                @Index(name = "idx_members_type_name_key", columnList = "membership_type, name_key"),
+                @Index(name = "idx_members_books_checked_out", columnList = "books_checked_out"),
+                @Index(name = "idx_members_type_books", columnList = "membership_type, books_checked_out")
+        })
 public class Member {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -17,6 +41,10 @@ public class Member {
     @Column(nullable = false)
     private String name;
 
+    @Column(name = "name_key")
+    private String nameKey;
+
+    @NaturalId
     @Email(message = "Email should be valid")
     @NotBlank(message = "Email is required")
     @Column(unique = true, nullable = false)
@@ -32,17 +60,23 @@ public class Member {
     @Column(name = "books_checked_out")
     private int booksCheckedOut = 0;
 
+    // Defaulted so existing rows pick up a version when the column is added
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
+
     // Constructors
     public Member() {
     }
 
     public Member(String name, String email) {
-        this.name = name;
+        setName(name);
         this.email = email;
     }
 
     public Member(String name, String email, MembershipType membershipType) {
-        this.name = name;
+        setName(name);
         this.email = email;
         this.membershipType = membershipType;
     }
@@ -62,6 +96,16 @@ public class Member {
 
     public void setName(String name) {
         this.name = name;
+        this.nameKey = nameKey(name);
+    }
+
+    public String getNameKey() {
+        return nameKey;
+    }
+
+    /** The form names are indexed and searched in. */
+    public static String nameKey(String name) {
+        return name == null ? null : name.strip().toLowerCase(Locale.ROOT);
     }
 
     public String getEmail() {
@@ -96,6 +140,10 @@ public class Member {
         this.booksCheckedOut = booksCheckedOut;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
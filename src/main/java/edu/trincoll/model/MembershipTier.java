@@ -0,0 +1,100 @@
+package edu.trincoll.model;
+
+import edu.trincoll.policy.TierPolicy;
+import jakarta.persistence.*;
+
+/**
+ * Editable definition of a membership tier. A null {@code feeCap} means fees are
+ * not capped.
+ */
+@Entity
+@Table(name = "membership_tiers")
+public class MembershipTier {
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "membership_type")
+    private MembershipType membershipType;
+
+    @Column(name = "max_books", nullable = false)
+    private int maxBooks;
+
+    @Column(name = "loan_period_days", nullable = false)
+    private int loanPeriodDays;
+
+    @Column(name = "fee_per_day", nullable = false)
+    private double feePerDay;
+
+    @Column(name = "fee_cap")
+    private Double feeCap;
+
+    @Column(name = "grace_days", nullable = false)
+    private int graceDays;
+
+    // Constructors
+    public MembershipTier() {
+    }
+
+    public MembershipTier(MembershipType membershipType, int maxBooks, int loanPeriodDays,
+                          double feePerDay, Double feeCap, int graceDays) {
+        this.membershipType = membershipType;
+        this.maxBooks = maxBooks;
+        this.loanPeriodDays = loanPeriodDays;
+        this.feePerDay = feePerDay;
+        this.feeCap = feeCap;
+        this.graceDays = graceDays;
+    }
+
+    public TierPolicy toPolicy() {
+        return new TierPolicy(membershipType, maxBooks, loanPeriodDays, feePerDay,
+                feeCap == null ? TierPolicy.NO_CAP : feeCap, graceDays);
+    }
+
+    // Getters and Setters
+    public MembershipType getMembershipType() {
+        return membershipType;
+    }
+
+    public void setMembershipType(MembershipType membershipType) {
+        this.membershipType = membershipType;
+    }
+
+    public int getMaxBooks() {
+        return maxBooks;
+    }
+
+    public void setMaxBooks(int maxBooks) {
+        this.maxBooks = maxBooks;
+    }
+
+    public int getLoanPeriodDays() {
+        return loanPeriodDays;
+    }
+
+    public void setLoanPeriodDays(int loanPeriodDays) {
+        this.loanPeriodDays = loanPeriodDays;
+    }
+
+    public double getFeePerDay() {
+        return feePerDay;
+    }
+
+    public void setFeePerDay(double feePerDay) {
+        this.feePerDay = feePerDay;
+    }
+
+    public Double getFeeCap() {
+        return feeCap;
+    }
+
+    public void setFeeCap(Double feeCap) {
+        this.feeCap = feeCap;
+    }
+
+    public int getGraceDays() {
+        return graceDays;
+    }
+
+    public void setGraceDays(int graceDays) {
+        this.graceDays = graceDays;
+    }
+}
@@ -0,0 +1,135 @@
+package edu.trincoll.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * A member's place in the hold queue for an ISBN. The queue order is the id order,
+ * and the {@code (isbn, status, id)} index lets the head of the queue be read
+ * without scanning other holds.
+ */
+@Entity
+@Table(name = "reservations", indexes = {
+        @Index(name = "idx_reservations_queue", columnList = "isbn, status, id"),
+        @Index(name = "idx_reservations_deadline", columnList = "status, pickup_deadline"),
+        @Index(name = "idx_reservations_member", columnList = "member_email, status")
+})
+public class Reservation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank(message = "ISBN is required")
+    @Column(nullable = false)
+    private String isbn;
+
+    @NotBlank(message = "Member email is required")
+    @Column(name = "member_email", nullable = false)
+    private String memberEmail;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ReservationStatus status = ReservationStatus.WAITING;
+
+    @Column(name = "placed_at", nullable = false)
+    private LocalDateTime placedAt = LocalDateTime.now();
+
+    @Column(name = "pickup_deadline")
+    private LocalDate pickupDeadline;
+
+    @Column(name = "book_id")
+    private Long bookId;
+
+    // Constructors
+    public Reservation() {
+    }
+
+    public Reservation(String isbn, String memberEmail) {
+        this.isbn = isbn;
+        this.memberEmail = memberEmail;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public void setIsbn(String isbn) {
+        this.isbn = isbn;
+    }
+
+    public String getMemberEmail() {
+        return memberEmail;
+    }
+
+    public void setMemberEmail(String memberEmail) {
+        this.memberEmail = memberEmail;
+    }
+
+    public ReservationStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ReservationStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getPlacedAt() {
+        return placedAt;
+    }
+
+    public void setPlacedAt(LocalDateTime placedAt) {
+        this.placedAt = placedAt;
+    }
+
+    public LocalDate getPickupDeadline() {
+        return pickupDeadline;
+    }
+
+    public void setPickupDeadline(LocalDate pickupDeadline) {
+        this.pickupDeadline = pickupDeadline;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Reservation that = (Reservation) o;
+        return id != null && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Reservation{" +
+                "id=" + id +
+                ", isbn='" + isbn + '\'' +
+                ", memberEmail='" + memberEmail + '\'' +
+                ", status=" + status +
+                ", pickupDeadline=" + pickupDeadline +
+                '}';
+    }
+}
@@ -0,0 +1,9 @@
+package edu.trincoll.model;
+
+public enum ReservationStatus {
+    WAITING,
+    READY,
+    FULFILLED,
+    EXPIRED,
+    CANCELLED
+}
@@ -0,0 +1,49 @@
+package edu.trincoll.policy;
+
+import edu.trincoll.model.MembershipTier;
+import edu.trincoll.repository.MembershipTierRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads tier definitions from the {@code membership_tiers} table and holds them
+ * as the policy table circulation reads. Tiers without a row keep their default
+ * policy, so an empty table behaves as before. The table is reloaded on
+ * {@code library.tiers.reload-cron}; a row edited in the database takes effect at
+ * the next reload, and a reload that fails keeps the table already in use.
+ */
+@Component
+public class MembershipTiers {
+    private static final Logger log = LoggerFactory.getLogger(MembershipTiers.class);
+
+    private final MembershipTierRepository repository;
+    private volatile PolicyTable table = PolicyTable.defaults();
+
+    public MembershipTiers(MembershipTierRepository repository) {
+        this.repository = repository;
+    }
+
+    public PolicyTable current() {
+        return table;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${library.tiers.reload-cron:0 * * * * *}")
+    public synchronized void reload() {
+        PolicyTable next;
+        try {
+            next = PolicyTable.compile(repository.findAll().stream().map(MembershipTier::toPolicy).toList());
+        } catch (RuntimeException e) {
+            log.warn("Failed to load membership tiers; keeping the current ones", e);
+            return;
+        }
+        if (!next.equals(table)) {
+            table = next;
+            log.info("Installed membership tiers {}", next.policies());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package edu.trincoll.policy;
+
+import edu.trincoll.model.MembershipType;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable tier policies indexed by {@link MembershipType#ordinal()}, so a lookup
+ * is one array read. Tables are compiled whole and replaced whole; nothing edits
+ * one in place.
+ */
+public final class PolicyTable {
+    private static final MembershipType[] TYPES = MembershipType.values();
+
+    private static final PolicyTable DEFAULTS = new PolicyTable(new TierPolicy[]{
+            new TierPolicy(MembershipType.REGULAR, 3, 14, 0.50, TierPolicy.NO_CAP, 0),
+            new TierPolicy(MembershipType.PREMIUM, 10, 30, 0.0, TierPolicy.NO_CAP, 0),
+            new TierPolicy(MembershipType.STUDENT, 5, 21, 0.25, TierPolicy.NO_CAP, 0)
+    });
+
+    private final TierPolicy[] policies;
+
+    private PolicyTable(TierPolicy[] policies) {
+        for (MembershipType type : TYPES) {
+            if (policies[type.ordinal()] == null || policies[type.ordinal()].membershipType() != type) {
+                throw new IllegalArgumentException("No policy for membership type: " + type);
+            }
+        }
+        this.policies = policies;
+    }
+
+    /** The tiers as they were before they became configurable. */
+    public static PolicyTable defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Builds a table from {@code tiers}; types without a definition keep their
+     * default policy. A type defined twice is rejected.
+     */
+    public static PolicyTable compile(Collection<TierPolicy> tiers) {
+        TierPolicy[] compiled = new TierPolicy[TYPES.length];
+        for (TierPolicy tier : tiers) {
+            int slot = tier.membershipType().ordinal();
+            if (compiled[slot] != null) {
+                throw new IllegalArgumentException("Duplicate policy for membership type: " + tier.membershipType());
+            }
+            compiled[slot] = tier;
+        }
+        for (int slot = 0; slot < compiled.length; slot++) {
+            if (compiled[slot] == null) {
+                compiled[slot] = DEFAULTS.policies[slot];
+            }
+        }
+        return new PolicyTable(compiled);
+    }
+
+    public TierPolicy policy(MembershipType type) {
+        return policies[type.ordinal()];
+    }
+
+    public List<TierPolicy> policies() {
+        return List.of(policies);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PolicyTable other && Arrays.equals(policies, other.policies);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(policies);
+    }
+
+    @Override
+    public String toString() {
+        return "PolicyTable" + Arrays.toString(policies);
+    }
+}
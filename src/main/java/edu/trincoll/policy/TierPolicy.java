@@ -0,0 +1,64 @@
+package edu.trincoll.policy;
+
+import edu.trincoll.model.Member;
+import edu.trincoll.model.MembershipType;
+import edu.trincoll.repository.CheckoutPolicy;
+import edu.trincoll.service.latefee.LateFeeCalculator;
+
+/**
+ * Everything circulation needs to know about one membership tier. Fees accrue at
+ * {@code feePerDay} once a loan is more than {@code graceDays} late and never
+ * exceed {@code feeCap}.
+ */
+public record TierPolicy(MembershipType membershipType,
+                         int maxBooks,
+                         int loanPeriodDays,
+                         double feePerDay,
+                         double feeCap,
+                         int graceDays) implements CheckoutPolicy, LateFeeCalculator {
+
+    public static final double NO_CAP = Double.POSITIVE_INFINITY;
+
+    public TierPolicy {
+        if (membershipType == null) {
+            throw new IllegalArgumentException("Membership type is required");
+        }
+        if (maxBooks < 0 || loanPeriodDays < 1 || graceDays < 0) {
+            throw new IllegalArgumentException("Invalid limits for " + membershipType
+                    + ": maxBooks=" + maxBooks + ", loanPeriodDays=" + loanPeriodDays + ", graceDays=" + graceDays);
+        }
+        if (!(feePerDay >= 0) || !(feeCap >= 0)) {
+            throw new IllegalArgumentException("Invalid fees for " + membershipType
+                    + ": feePerDay=" + feePerDay + ", feeCap=" + feeCap);
+        }
+    }
+
+    @Override
+    public int getMaxBooks() {
+        return maxBooks;
+    }
+
+    @Override
+    public int getLoanPeriodDays() {
+        return loanPeriodDays;
+    }
+
+    @Override
+    public boolean canCheckout(Member member) {
+        return member.getBooksCheckedOut() < maxBooks;
+    }
+
+    @Override
+    public MembershipType getMembershipType() {
+        return membershipType;
+    }
+
+    @Override
+    public double calculateLateFee(long daysLate) {
+        long chargedDays = daysLate - graceDays;
+        if (chargedDays <= 0) {
+            return 0.0;
+        }
+        return Math.min(chargedDays * feePerDay, feeCap);
+    }
+}
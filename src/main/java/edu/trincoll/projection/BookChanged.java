@@ -0,0 +1,14 @@
+package edu.trincoll.projection;
+
+import edu.trincoll.model.Book;
+
+/**
+ * A copy was inserted, updated or (if {@code removed}) deleted; {@code version} is
+ * the row's {@code @Version} after the change, so consumers can drop stale views.
+ */
+public record BookChanged(BookView book, long version, boolean removed) {
+
+    public static BookChanged of(Book book, boolean removed) {
+        return new BookChanged(BookView.of(book), book.getVersion(), removed);
+    }
+}
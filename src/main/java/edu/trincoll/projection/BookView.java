@@ -0,0 +1,35 @@
+package edu.trincoll.projection;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.BookStatus;
+
+import java.time.LocalDate;
+
+/** Immutable snapshot of one copy as held by the read model. */
+public record BookView(Long id,
+                       String isbn,
+                       int copyNumber,
+                       String title,
+                       String author,
+                       LocalDate publicationDate,
+                       BookStatus status,
+                       String checkedOutBy,
+                       LocalDate dueDate,
+                       String branch) {
+
+    public static BookView of(Book book) {
+        return new BookView(book.getId(), book.getIsbn(), book.getCopyNumber(), book.getTitle(), book.getAuthor(),
+                book.getPublicationDate(), book.getStatus(), book.getCheckedOutBy(), book.getDueDate(), book.getBranch());
+    }
+
+    /** A detached {@link Book} for callers that expect the entity type. */
+    public Book toBook() {
+        Book book = new Book(isbn, copyNumber, title, author, publicationDate);
+        book.setId(id);
+        book.setStatus(status);
+        book.setCheckedOutBy(checkedOutBy);
+        book.setDueDate(dueDate);
+        book.setBranch(branch);
+        return book;
+    }
+}
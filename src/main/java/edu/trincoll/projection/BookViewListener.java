@@ -0,0 +1,17 @@
+package edu.trincoll.projection;
+
+/**
+ * Secondary index kept in step with the {@link CatalogProjection}. Called on the
+ * projection's applier thread, in commit order, so an implementation only has to
+ * guard against concurrent readers.
+ */
+public interface BookViewListener {
+
+    /** The projection is about to reload; drop everything indexed so far. */
+    void cleared();
+
+    void added(BookView view);
+
+    /** {@code view} is the state that was indexed last, not the new one. */
+    void removed(BookView view);
+}
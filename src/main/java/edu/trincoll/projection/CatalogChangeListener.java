@@ -0,0 +1,43 @@
+package edu.trincoll.projection;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.Member;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener that turns every insert, update or delete of a {@link Book}
+ * or {@link Member} into a change event; the projection applies it after commit.
+ * Hibernate obtains the listener from the Spring context, so the publisher is
+ * injected as usual. Bulk update queries bypass it and publish their own events.
+ */
+@Component
+public class CatalogChangeListener {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CatalogChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void saved(Object entity) {
+        publish(entity, false);
+    }
+
+    @PostRemove
+    public void removed(Object entity) {
+        publish(entity, true);
+    }
+
+    private void publish(Object entity, boolean removed) {
+        if (entity instanceof Book book) {
+            eventPublisher.publishEvent(BookChanged.of(book, removed));
+        } else if (entity instanceof Member member) {
+            eventPublisher.publishEvent(new MemberChanged(MemberView.of(member), removed));
+        }
+    }
+}
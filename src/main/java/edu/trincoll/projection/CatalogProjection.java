@@ -0,0 +1,556 @@
+package edu.trincoll.projection;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.BookStatus;
+import edu.trincoll.model.Member;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.MemberRepository;
+import edu.trincoll.snapshot.CatalogSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Denormalized, in-memory read model of copies and members for search and reports.
+ *
+ * Committed {@link BookChanged}/{@link MemberChanged} events are queued and applied
+ * by one thread, so readers never touch the write tables while the model is ready.
+ * It is ready once the initial load has finished and the oldest unapplied change
+ * is younger than {@code library.projection.max-lag}; otherwise callers fall back
+ * to the repositories. If the queue overflows, the model is reloaded from scratch.
+ *
+ * When seeded with a current {@link CatalogSnapshot} the snapshot itself is the
+ * base layer: its rows are read from the mapping on demand, and the heap maps hold
+ * only rows changed since, which hide the base rows with the same id.
+ */
+@Component
+public class CatalogProjection implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(CatalogProjection.class);
+
+    private record Change(Object event, long enqueuedNanos) {
+    }
+
+    private final BookRepository bookRepository;
+    private final MemberRepository memberRepository;
+    private final Duration maxLag;
+    private final BlockingQueue<Change> changes;
+    private final Counter applied;
+
+    private final Map<Long, BookView> booksById = new ConcurrentHashMap<>();
+    private final Map<String, NavigableMap<Integer, BookView>> copiesByIsbn = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> idsByAuthor = new ConcurrentHashMap<>();
+    private final Map<Long, BookView> checkedOut = new ConcurrentHashMap<>();
+    private final Map<Long, MemberView> membersById = new ConcurrentHashMap<>();
+    private final List<BookViewListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Snapshot base layer and the ids of its rows that changed since it was loaded
+    private final Set<Long> shadowedBooks = ConcurrentHashMap.newKeySet();
+    private final Set<Long> shadowedMembers = ConcurrentHashMap.newKeySet();
+    private volatile CatalogSnapshot base;
+    private volatile int baseBooks;
+    private volatile int baseMembers;
+
+    private volatile CatalogSnapshot seed;
+    private volatile Supplier<CatalogSnapshot.Mark> seedMark;
+    private volatile boolean loaded;
+    private volatile boolean overflowed;
+    private volatile boolean running;
+    private Thread applier;
+
+    public CatalogProjection(BookRepository bookRepository,
+                             MemberRepository memberRepository,
+                             MeterRegistry registry,
+                             @Value("${library.projection.max-lag:2s}") Duration maxLag,
+                             @Value("${library.projection.queue-capacity:100000}") int queueCapacity) {
+        this.bookRepository = bookRepository;
+        this.memberRepository = memberRepository;
+        this.maxLag = maxLag;
+        this.changes = new ArrayBlockingQueue<>(queueCapacity);
+        this.applied = Counter.builder("library.projection.applied")
+                .description("Change events applied to the catalog projection")
+                .register(registry);
+        Gauge.builder("library.projection.lag", this, projection -> projection.lag().toNanos() / 1e9)
+                .description("Age of the oldest change not yet applied to the catalog projection")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChanged event) {
+        enqueue(event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberChanged(MemberChanged event) {
+        enqueue(event);
+    }
+
+    private void enqueue(Object event) {
+        if (!changes.offer(new Change(event, System.nanoTime()))) {
+            // Dropping a change would leave the model wrong, so rebuild it instead
+            overflowed = true;
+        }
+    }
+
+    public boolean isReady() {
+        return loaded && !overflowed && lag().compareTo(maxLag) <= 0;
+    }
+
+    /** Age of the oldest queued change, or zero when the model is caught up. */
+    public Duration lag() {
+        Change oldest = changes.peek();
+        return oldest == null ? Duration.ZERO : Duration.ofNanos(System.nanoTime() - oldest.enqueuedNanos());
+    }
+
+    public int bookCount() {
+        return booksById.size() + baseBooks;
+    }
+
+    public int memberCount() {
+        return membersById.size() + baseMembers;
+    }
+
+    public void forEachBook(Consumer<BookView> consumer) {
+        booksById.values().forEach(consumer);
+        CatalogSnapshot snapshot = base;
+        if (snapshot != null) {
+            for (int row = 0; row < snapshot.bookCount(); row++) {
+                if (!shadowedBooks.contains(snapshot.bookId(row))) {
+                    consumer.accept(snapshot.book(row));
+                }
+            }
+        }
+    }
+
+    public void forEachMember(Consumer<MemberView> consumer) {
+        membersById.values().forEach(consumer);
+        CatalogSnapshot snapshot = base;
+        if (snapshot != null) {
+            for (int row = 0; row < snapshot.memberCount(); row++) {
+                if (!shadowedMembers.contains(snapshot.memberId(row))) {
+                    consumer.accept(snapshot.member(row));
+                }
+            }
+        }
+    }
+
+    /**
+     * Supplies a snapshot to serve instead of reading every row through Hibernate.
+     * It is used only if its row counts and {@link CatalogSnapshot.Mark} still match
+     * {@code currentMark} when the first load runs; otherwise the projection loads
+     * from the repositories. The projection takes ownership of the snapshot.
+     */
+    public void seed(CatalogSnapshot snapshot, Supplier<CatalogSnapshot.Mark> currentMark) {
+        this.seedMark = currentMark;
+        this.seed = snapshot;
+    }
+
+    /** Registers a secondary index; it must be added before the projection starts. */
+    public void addListener(BookViewListener listener) {
+        listeners.add(listener);
+    }
+
+    public Optional<Book> findById(Long id) {
+        BookView view = booksById.get(id);
+        return Optional.ofNullable(view != null ? view : baseBook(id)).map(BookView::toBook);
+    }
+
+    public List<Book> searchByTitle(String title) {
+        return searchByTitle(title, null);
+    }
+
+    /** Title search limited to one branch, or across all branches when {@code branch} is null. */
+    public List<Book> searchByTitle(String title, String branch) {
+        String needle = title.toLowerCase(Locale.ROOT);
+        List<Book> matches = new ArrayList<>();
+        for (BookView view : booksById.values()) {
+            if ((branch == null || branch.equals(view.branch())) && view.title().toLowerCase(Locale.ROOT).contains(needle)) {
+                matches.add(view.toBook());
+            }
+        }
+        CatalogSnapshot snapshot = base;
+        if (snapshot != null) {
+            for (int row = 0; row < snapshot.bookCount(); row++) {
+                if ((branch == null || branch.equals(snapshot.branch(row)))
+                        && snapshot.title(row).toLowerCase(Locale.ROOT).contains(needle)
+                        && !shadowedBooks.contains(snapshot.bookId(row))) {
+                    matches.add(snapshot.book(row).toBook());
+                }
+            }
+        }
+        return matches;
+    }
+
+    public List<Book> searchByAuthor(String author) {
+        List<Book> matches = new ArrayList<>();
+        for (Long id : idsByAuthor.getOrDefault(author, Set.of())) {
+            BookView view = booksById.get(id);
+            if (view != null) {
+                matches.add(view.toBook());
+            }
+        }
+        CatalogSnapshot snapshot = base;
+        if (snapshot != null) {
+            for (int row = 0; row < snapshot.bookCount(); row++) {
+                if (author.equals(snapshot.author(row)) && !shadowedBooks.contains(snapshot.bookId(row))) {
+                    matches.add(snapshot.book(row).toBook());
+                }
+            }
+        }
+        return matches;
+    }
+
+    /** Lowest-numbered copy of the ISBN, like {@link BookRepository#findByIsbn}. */
+    public Optional<Book> findByIsbn(String isbn) {
+        NavigableMap<Integer, BookView> copies = copiesOf(isbn);
+        if (copies == null) {
+            return Optional.empty();
+        }
+        Map.Entry<Integer, BookView> first = copies.firstEntry();
+        return first == null ? Optional.empty() : Optional.of(first.getValue().toBook());
+    }
+
+    /**
+     * Lowest-numbered available copy, taken from {@code preferredBranch} when it has
+     * one and from any branch otherwise.
+     */
+    public Optional<Book> findAvailableCopy(String isbn, String preferredBranch) {
+        NavigableMap<Integer, BookView> copies = copiesOf(isbn);
+        if (copies == null) {
+            return Optional.empty();
+        }
+        BookView fallback = null;
+        for (BookView view : copies.values()) {
+            if (view.status() != BookStatus.AVAILABLE) {
+                continue;
+            }
+            if (view.branch().equals(preferredBranch)) {
+                return Optional.of(view.toBook());
+            }
+            if (fallback == null) {
+                fallback = view;
+            }
+        }
+        return Optional.ofNullable(fallback).map(BookView::toBook);
+    }
+
+    public List<Book> overdue(LocalDate today) {
+        List<Book> overdue = new ArrayList<>();
+        for (BookView view : checkedOut.values()) {
+            if (view.dueDate() != null && view.dueDate().isBefore(today)) {
+                overdue.add(view.toBook());
+            }
+        }
+        CatalogSnapshot snapshot = base;
+        if (snapshot != null) {
+            for (int row = 0; row < snapshot.bookCount(); row++) {
+                if (snapshot.status(row) == BookStatus.CHECKED_OUT && snapshot.dueDate(row) != null
+                        && snapshot.dueDate(row).isBefore(today) && !shadowedBooks.contains(snapshot.bookId(row))) {
+                    overdue.add(snapshot.book(row).toBook());
+                }
+            }
+        }
+        overdue.sort(Comparator.comparing(Book::getDueDate));
+        return overdue;
+    }
+
+    public List<TitleAvailability> availableTitles() {
+        List<TitleAvailability> titles = new ArrayList<>();
+        CatalogSnapshot snapshot = base;
+        if (snapshot != null) {
+            // Base rows are grouped by ISBN; count each group without building views
+            for (int row = 0, end; row < snapshot.bookCount(); row = end) {
+                end = snapshot.titleEnd(row);
+                int available = 0;
+                int total = 0;
+                for (int copy = row; copy < end; copy++) {
+                    if (!shadowedBooks.contains(snapshot.bookId(copy))) {
+                        total++;
+                        if (snapshot.status(copy) == BookStatus.AVAILABLE) {
+                            available++;
+                        }
+                    }
+                }
+                String isbn = snapshot.isbn(row);
+                NavigableMap<Integer, BookView> changed = copiesByIsbn.get(isbn);
+                if (changed != null) {
+                    addTitle(titles, isbn, changed.values(), available, total);
+                } else if (available > 0) {
+                    titles.add(new TitleAvailability(isbn, snapshot.title(row), snapshot.author(row), available, total));
+                }
+            }
+        }
+        copiesByIsbn.forEach((isbn, copies) -> {
+            if (snapshot == null || snapshot.firstCopyRow(isbn) < 0) {
+                addTitle(titles, isbn, copies.values(), 0, 0);
+            }
+        });
+        titles.sort(Comparator.comparing(TitleAvailability::title));
+        return titles;
+    }
+
+    /** Adds the title if any copy is available, on top of counts already taken from the base. */
+    private static void addTitle(List<TitleAvailability> titles, String isbn, Collection<BookView> copies,
+                                 int available, int total) {
+        BookView any = null;
+        for (BookView view : copies) {
+            any = view;
+            total++;
+            if (view.status() == BookStatus.AVAILABLE) {
+                available++;
+            }
+        }
+        if (available > 0) {
+            titles.add(new TitleAvailability(isbn, any.title(), any.author(), available, total));
+        }
+    }
+
+    /** Copies of the ISBN by copy number across both layers, or null if there are none. */
+    private NavigableMap<Integer, BookView> copiesOf(String isbn) {
+        NavigableMap<Integer, BookView> changed = copiesByIsbn.get(isbn);
+        CatalogSnapshot snapshot = base;
+        int row = snapshot == null ? -1 : snapshot.firstCopyRow(isbn);
+        if (row < 0) {
+            return changed;
+        }
+        NavigableMap<Integer, BookView> copies = new TreeMap<>();
+        for (int end = snapshot.titleEnd(row); row < end; row++) {
+            if (!shadowedBooks.contains(snapshot.bookId(row))) {
+                BookView view = snapshot.book(row);
+                copies.put(view.copyNumber(), view);
+            }
+        }
+        if (changed != null) {
+            copies.putAll(changed);
+        }
+        return copies;
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        applier = new Thread(this::applyLoop, "catalog-projection");
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (applier != null) {
+            applier.interrupt();
+            try {
+                applier.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            applier = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void applyLoop() {
+        while (running) {
+            try {
+                if (!loaded || overflowed) {
+                    reload();
+                }
+                Change change = changes.poll(100, TimeUnit.MILLISECONDS);
+                if (change == null) {
+                    continue;
+                }
+                switch (change.event()) {
+                    case BookChanged book -> apply(book);
+                    case MemberChanged member -> apply(member);
+                    default -> { }
+                }
+                applied.increment();
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Failed to update catalog projection; reloading", e);
+                loaded = false;
+            }
+        }
+    }
+
+    /**
+     * Loads everything from the repositories. Changes queued while loading are
+     * applied afterwards; each carries a full row snapshot, so replaying one the
+     * load already saw is harmless and the model converges on the committed state.
+     */
+    private void reload() {
+        overflowed = false;
+        // Everything queued so far was committed before the load below reads it
+        changes.clear();
+        booksById.clear();
+        copiesByIsbn.clear();
+        idsByAuthor.clear();
+        checkedOut.clear();
+        membersById.clear();
+        base = null;
+        baseBooks = 0;
+        baseMembers = 0;
+        shadowedBooks.clear();
+        shadowedMembers.clear();
+        listeners.forEach(BookViewListener::cleared);
+        if (loadFromSeed()) {
+            return;
+        }
+        for (Book book : bookRepository.findAll()) {
+            put(BookView.of(book));
+        }
+        for (Member member : memberRepository.findAll()) {
+            membersById.put(member.getId(), MemberView.of(member));
+        }
+        loaded = true;
+        log.info("Catalog projection loaded {} copies and {} members", booksById.size(), membersById.size());
+    }
+
+    /**
+     * Serves the seed snapshot if there is one and it is current: same row counts
+     * and the same mark as the database. The queue was cleared just before, so
+     * anything committed after the check arrives as a change. A stale snapshot is
+     * discarded and the caller loads from the repositories.
+     */
+    private boolean loadFromSeed() {
+        CatalogSnapshot snapshot = seed;
+        if (snapshot == null) {
+            return false;
+        }
+        seed = null;
+        // The mapping outlives the channel, so the file handle can go straight away
+        try (snapshot) {
+            if (snapshot.bookCount() != bookRepository.count() || snapshot.memberCount() != memberRepository.count()
+                    || !snapshot.mark().equals(seedMark.get())) {
+                log.info("Ignoring catalog snapshot from {}: the database has changed since", snapshot.createdAt());
+                return false;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close catalog snapshot", e);
+        }
+        if (!listeners.isEmpty()) {
+            for (int row = 0; row < snapshot.bookCount(); row++) {
+                BookView view = snapshot.book(row);
+                for (BookViewListener listener : listeners) {
+                    listener.added(view);
+                }
+            }
+        }
+        baseBooks = snapshot.bookCount();
+        baseMembers = snapshot.memberCount();
+        base = snapshot;
+        loaded = true;
+        log.info("Catalog projection serving {} copies and {} members from snapshot taken {}",
+                baseBooks, baseMembers, snapshot.createdAt());
+        return true;
+    }
+
+    private void apply(BookChanged change) {
+        Long id = change.book().id();
+        BookView previous = booksById.remove(id);
+        if (previous == null) {
+            previous = baseBook(id);
+        }
+        shadowBook(id);
+        if (previous != null) {
+            unindex(previous);
+        }
+        if (!change.removed()) {
+            put(change.book());
+        }
+    }
+
+    private void apply(MemberChanged change) {
+        Long id = change.member().id();
+        CatalogSnapshot snapshot = base;
+        if (snapshot != null && shadowedMembers.add(id) && snapshot.memberRow(id) >= 0) {
+            baseMembers--;
+        }
+        if (change.removed()) {
+            membersById.remove(id);
+        } else {
+            membersById.put(id, change.member());
+        }
+    }
+
+    /** The base row for the id, unless there is no base or the row has been changed since. */
+    private BookView baseBook(Long id) {
+        CatalogSnapshot snapshot = base;
+        if (snapshot == null || shadowedBooks.contains(id)) {
+            return null;
+        }
+        int row = snapshot.bookRow(id);
+        return row < 0 ? null : snapshot.book(row);
+    }
+
+    /** Hides the base row for the id; from now on the heap maps hold its state. */
+    private void shadowBook(Long id) {
+        CatalogSnapshot snapshot = base;
+        if (snapshot != null && shadowedBooks.add(id) && snapshot.bookRow(id) >= 0) {
+            baseBooks--;
+        }
+    }
+
+    private void put(BookView view) {
+        booksById.put(view.id(), view);
+        copiesByIsbn.computeIfAbsent(view.isbn(), isbn -> new ConcurrentSkipListMap<>()).put(view.copyNumber(), view);
+        idsByAuthor.computeIfAbsent(view.author(), author -> ConcurrentHashMap.newKeySet()).add(view.id());
+        if (view.status() == BookStatus.CHECKED_OUT) {
+            checkedOut.put(view.id(), view);
+        }
+        for (BookViewListener listener : listeners) {
+            listener.added(view);
+        }
+    }
+
+    private void unindex(BookView view) {
+        NavigableMap<Integer, BookView> copies = copiesByIsbn.get(view.isbn());
+        if (copies != null) {
+            copies.remove(view.copyNumber());
+            if (copies.isEmpty()) {
+                copiesByIsbn.remove(view.isbn());
+            }
+        }
+        Set<Long> ids = idsByAuthor.get(view.author());
+        if (ids != null) {
+            ids.remove(view.id());
+        }
+        checkedOut.remove(view.id());
+        for (BookViewListener listener : listeners) {
+            listener.removed(view);
+        }
+    }
+}
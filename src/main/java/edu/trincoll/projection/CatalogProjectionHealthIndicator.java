@@ -0,0 +1,32 @@
+package edu.trincoll.projection;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the projection as UP while it serves reads and LAGGING while reads fall
+ * back to the database. LAGGING is not a failure, so it does not fail the overall
+ * health check.
+ */
+@Component
+public class CatalogProjectionHealthIndicator implements HealthIndicator {
+    static final Status LAGGING = new Status("LAGGING", "Reads are served from the database until the projection catches up");
+
+    private final CatalogProjection projection;
+
+    public CatalogProjectionHealthIndicator(CatalogProjection projection) {
+        this.projection = projection;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = projection.isReady() ? Health.up() : Health.status(LAGGING);
+        return builder
+                .withDetail("lagMillis", projection.lag().toMillis())
+                .withDetail("copies", projection.bookCount())
+                .withDetail("members", projection.memberCount())
+                .build();
+    }
+}
@@ -0,0 +1,5 @@
+package edu.trincoll.projection;
+
+/** A member was inserted, updated or (if {@code removed}) deleted. */
+public record MemberChanged(MemberView member, boolean removed) {
+}
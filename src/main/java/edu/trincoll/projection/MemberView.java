@@ -0,0 +1,20 @@
+package edu.trincoll.projection;
+
+import edu.trincoll.model.Member;
+import edu.trincoll.model.MembershipType;
+
+/** Immutable snapshot of one member as held by the read model. */
+public record MemberView(Long id, String name, String email, MembershipType membershipType, int booksCheckedOut) {
+
+    public static MemberView of(Member member) {
+        return new MemberView(member.getId(), member.getName(), member.getEmail(),
+                member.getMembershipType(), member.getBooksCheckedOut());
+    }
+
+    public Member toMember() {
+        Member member = new Member(name, email, membershipType);
+        member.setId(id);
+        member.setBooksCheckedOut(booksCheckedOut);
+        return member;
+    }
+}
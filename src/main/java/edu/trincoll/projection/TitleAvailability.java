@@ -0,0 +1,4 @@
+package edu.trincoll.projection;
+
+public record TitleAvailability(String isbn, String title, String author, int availableCopies, int totalCopies) {
+}
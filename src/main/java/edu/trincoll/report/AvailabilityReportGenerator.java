@@ -1,29 +1,42 @@
 package edu.trincoll.report;
 
-import edu.trincoll.model.Book;
-import edu.trincoll.model.BookStatus;
-import edu.trincoll.repository.BookRepository;
+import edu.trincoll.model.BookTitle;
+import edu.trincoll.projection.CatalogProjection;
+import edu.trincoll.projection.TitleAvailability;
+import edu.trincoll.repository.BookTitleRepository;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Component
+@Lazy
 public class AvailabilityReportGenerator implements ReportGenerator {
-    private final BookRepository bookRepository;
+    private final BookTitleRepository bookTitleRepository;
+    private final CatalogProjection projection;
 
-    public AvailabilityReportGenerator(BookRepository bookRepository) {
-        this.bookRepository = bookRepository;
+    public AvailabilityReportGenerator(BookTitleRepository bookTitleRepository, CatalogProjection projection) {
+        this.bookTitleRepository = bookTitleRepository;
+        this.projection = projection;
     }
 
     @Override
     public String generateReport() {
-        List<Book> available = bookRepository.findByStatus(BookStatus.AVAILABLE);
+        List<TitleAvailability> available = projection.isReady()
+                ? projection.availableTitles()
+                : bookTitleRepository.findByAvailableCopiesGreaterThan(0).stream().map(AvailabilityReportGenerator::of).toList();
         if (available.isEmpty()) return "No available books.";
         return available.stream()
-                .map(b -> "%s by %s (ISBN %s)".formatted(b.getTitle(), b.getAuthor(), b.getIsbn()))
+                .map(t -> "%s by %s (ISBN %s) - %d of %d copies available".formatted(
+                        t.title(), t.author(), t.isbn(), t.availableCopies(), t.totalCopies()))
                 .collect(Collectors.joining("\n", "Available Books:\n", ""));
     }
+
+    private static TitleAvailability of(BookTitle title) {
+        return new TitleAvailability(title.getIsbn(), title.getTitle(), title.getAuthor(),
+                title.getAvailableCopies(), title.getTotalCopies());
+    }
 }
 
 
@@ -2,7 +2,9 @@ package edu.trincoll.report;
 
 import edu.trincoll.model.Book;
 import edu.trincoll.model.BookStatus;
+import edu.trincoll.projection.CatalogProjection;
 import edu.trincoll.repository.BookRepository;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
@@ -10,19 +12,24 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 @Component
+@Lazy
 public class OverdueReportGenerator implements ReportGenerator {
     private final BookRepository bookRepository;
+    private final CatalogProjection projection;
 
-    public OverdueReportGenerator(BookRepository bookRepository) {
+    public OverdueReportGenerator(BookRepository bookRepository, CatalogProjection projection) {
         this.bookRepository = bookRepository;
+        this.projection = projection;
     }
 
     @Override
     public String generateReport() {
         LocalDate today = LocalDate.now();
-        List<Book> overdueCheckedOut = bookRepository.findByDueDateBefore(today).stream()
-                .filter(b -> b.getStatus() == BookStatus.CHECKED_OUT)
-                .collect(Collectors.toList());
+        List<Book> overdueCheckedOut = projection.isReady()
+                ? projection.overdue(today)
+                : bookRepository.findByDueDateBefore(today).stream()
+                        .filter(b -> b.getStatus() == BookStatus.CHECKED_OUT)
+                        .collect(Collectors.toList());
 
         if (overdueCheckedOut.isEmpty()) {
             return "No overdue books.";
@@ -0,0 +1,54 @@
+package edu.trincoll.report;
+
+import edu.trincoll.analytics.PopularityTracker;
+import edu.trincoll.analytics.SlidingHeavyHitters;
+import edu.trincoll.repository.BookTitleRepository;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/** Most borrowed titles and most active members from the live {@link PopularityTracker}. */
+@Component
+@Lazy
+public class PopularityReportGenerator implements ReportGenerator {
+    private final PopularityTracker tracker;
+    private final BookTitleRepository bookTitleRepository;
+
+    public PopularityReportGenerator(PopularityTracker tracker, BookTitleRepository bookTitleRepository) {
+        this.tracker = tracker;
+        this.bookTitleRepository = bookTitleRepository;
+    }
+
+    @Override
+    public String generateReport() {
+        List<SlidingHeavyHitters.Entry> titles = tracker.topTitles();
+        String window = describe(tracker.window());
+        if (titles.isEmpty()) {
+            return "No checkouts in the last " + window + ".";
+        }
+        StringBuilder report = new StringBuilder("Most Borrowed Titles (last %s, counts may be up to %d high):\n"
+                .formatted(window, tracker.errorBound()));
+        int rank = 1;
+        for (SlidingHeavyHitters.Entry entry : titles) {
+            String name = bookTitleRepository.findByIsbn(entry.key())
+                    .map(title -> "%s by %s".formatted(title.getTitle(), title.getAuthor()))
+                    .orElse("Unknown title");
+            report.append("%d. %s (ISBN %s) - %d checkouts\n".formatted(rank++, name, entry.key(), entry.estimate()));
+        }
+        report.append("Most Active Members:");
+        rank = 1;
+        for (SlidingHeavyHitters.Entry entry : tracker.topMembers()) {
+            report.append("\n%d. %s - %d checkouts".formatted(rank++, entry.key(), entry.estimate()));
+        }
+        return report.toString();
+    }
+
+    private static String describe(Duration window) {
+        if (window.toDays() > 0 && window.equals(Duration.ofDays(window.toDays()))) {
+            return window.toDays() == 1 ? "day" : window.toDays() + " days";
+        }
+        return window.toHours() == 1 ? "hour" : window.toHours() + " hours";
+    }
+}
@@ -0,0 +1,11 @@
+package edu.trincoll.repository;
+
+import edu.trincoll.model.Book;
+
+import java.util.Optional;
+
+/** Copy lookups by natural id, answered from the second-level cache when it holds them. */
+public interface BookNaturalIdRepository {
+
+    Optional<Book> loadByIsbnAndCopyNumber(String isbn, int copyNumber);
+}
@@ -0,0 +1,24 @@
+package edu.trincoll.repository;
+
+import edu.trincoll.model.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+class BookNaturalIdRepositoryImpl implements BookNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Book> loadByIsbnAndCopyNumber(String isbn, int copyNumber) {
+        return entityManager.unwrap(Session.class).byNaturalId(Book.class)
+                .using("isbn", isbn)
+                .using("copyNumber", copyNumber)
+                .loadOptional();
+    }
+}
@@ -2,17 +2,49 @@ package edu.trincoll.repository;
 
 import edu.trincoll.model.Book;
 import edu.trincoll.model.BookStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookNaturalIdRepository {
 
-    Optional<Book> findByIsbn(String isbn);
+    /**
+     * Any copy of the ISBN (the lowest copy number). Use the status-aware
+     * finders when the choice of copy matters.
+     */
+    default Optional<Book> findByIsbn(String isbn) {
+        return findFirstByIsbnOrderByCopyNumberAsc(isbn);
+    }
+
+    Optional<Book> findFirstByIsbnOrderByCopyNumberAsc(String isbn);
+
+    Optional<Book> findFirstByIsbnAndStatusOrderByCopyNumberAsc(String isbn, BookStatus status);
+
+    List<Book> findTop2ByIsbnAndStatusOrderByDueDateAsc(String isbn, BookStatus status);
+
+    Optional<Book> findFirstByIsbnAndStatusAndCheckedOutByOrderByDueDateAsc(String isbn, BookStatus status, String checkedOutBy);
+
+    /** Resolved through the natural-id cache, so repeat lookups skip the database. */
+    default Optional<Book> findByIsbnAndCopyNumber(String isbn, int copyNumber) {
+        return loadByIsbnAndCopyNumber(isbn, copyNumber);
+    }
+
+    Optional<Book> findTopByIsbnOrderByCopyNumberDesc(String isbn);
+
+    List<Book> findAllByIsbnOrderByCopyNumberAsc(String isbn);
 
     List<Book> findByStatus(BookStatus status);
 
@@ -24,5 +56,67 @@ public interface BookRepository extends JpaRepository<Book, Long> {
 
     List<Book> findByCheckedOutBy(String memberEmail);
 
+    // Due-date window finders; both stay inside idx_books_status_due_borrower
+
+    @Query("""
+            select distinct b.checkedOutBy from Book b
+            where b.status = :status and b.dueDate between :from and :to and b.checkedOutBy > :after
+            order by b.checkedOutBy
+            """)
+    List<String> findBorrowersDueBetween(@Param("status") BookStatus status, @Param("from") LocalDate from,
+                                         @Param("to") LocalDate to, @Param("after") String after, Limit limit);
+
+    List<Book> findByStatusAndDueDateBetweenAndCheckedOutByIn(BookStatus status, LocalDate from, LocalDate to,
+                                                               Collection<String> memberEmails);
+
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "book-counts")
+    })
     long countByStatus(BookStatus status);
+
+    // Branch-scoped finders; each leads with branch to stay inside that branch's index range
+
+    Optional<Book> findFirstByBranchAndIsbnAndStatusOrderByCopyNumberAsc(String branch, String isbn, BookStatus status);
+
+    Optional<Book> findFirstByBranchAndIsbnOrderByCopyNumberAsc(String branch, String isbn);
+
+    List<Book> findByBranchAndTitleContainingIgnoreCase(String branch, String title);
+
+    Optional<Book> findFirstByBranchAndIsbnAndStatusAndCheckedOutByOrderByDueDateAsc(String branch, String isbn,
+                                                                                 BookStatus status, String checkedOutBy);
+
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "book-counts")
+    })
+    @Query("select distinct b.branch from Book b order by b.branch")
+    List<String> findBranches();
+
+    @Query("select distinct b.isbn from Book b")
+    List<String> findAllIsbns();
+
+    /** Sum of all row versions; changes whenever any copy is written. */
+    @Query("select coalesce(sum(b.version), 0) from Book b")
+    long sumVersions();
+
+    @Query("""
+            select new edu.trincoll.repository.BorrowerCount(b.checkedOutBy, count(b))
+            from Book b
+            where b.status = :status and b.checkedOutBy is not null
+            group by b.checkedOutBy
+            """)
+    List<BorrowerCount> countByBorrower(@Param("status") BookStatus status);
+
+    /** Writes a copy's circulation columns only if the row is still at {@code expectedVersion}; returns 0 if not. */
+    @Transactional
+    @Modifying
+    @Query("""
+            update Book b set b.status = :status, b.checkedOutBy = :checkedOutBy, b.dueDate = :dueDate,
+                b.version = :version
+            where b.id = :id and b.version = :expectedVersion
+            """)
+    int updateCirculation(@Param("id") Long id, @Param("status") BookStatus status,
+                          @Param("checkedOutBy") String checkedOutBy, @Param("dueDate") LocalDate dueDate,
+                          @Param("expectedVersion") long expectedVersion, @Param("version") long version);
 }
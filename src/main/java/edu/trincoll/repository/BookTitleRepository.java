@@ -0,0 +1,42 @@
+package edu.trincoll.repository;
+
+import edu.trincoll.model.BookTitle;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BookTitleRepository extends JpaRepository<BookTitle, Long> {
+
+    Optional<BookTitle> findByIsbn(String isbn);
+
+    List<BookTitle> findByTitleContainingIgnoreCase(String title);
+
+    List<BookTitle> findByAuthor(String author);
+
+    List<BookTitle> findByAvailableCopiesGreaterThan(int count);
+
+    @Query("select t.availableCopies from BookTitle t where t.isbn = :isbn")
+    Optional<Integer> findAvailableCopiesByIsbn(@Param("isbn") String isbn);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("update BookTitle t set t.availableCopies = t.availableCopies - 1 where t.isbn = :isbn and t.availableCopies > 0")
+    int decrementAvailable(@Param("isbn") String isbn);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("update BookTitle t set t.availableCopies = t.availableCopies + 1 where t.isbn = :isbn and t.availableCopies < t.totalCopies")
+    int incrementAvailable(@Param("isbn") String isbn);
+
+    @Transactional
+    @Modifying
+    @Query("update BookTitle t set t.availableCopies = :count where t.isbn = :isbn")
+    int updateAvailable(@Param("isbn") String isbn, @Param("count") int count);
+}
@@ -0,0 +1,4 @@
+package edu.trincoll.repository;
+
+public record BorrowerCount(String memberEmail, long count) {
+}
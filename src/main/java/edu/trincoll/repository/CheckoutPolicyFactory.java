@@ -1,22 +1,22 @@
 package edu.trincoll.repository;
 
 import edu.trincoll.model.MembershipType;
-import org.aspectj.apache.bcel.generic.RET;
-
-import java.util.Map;
+import edu.trincoll.policy.MembershipTiers;
+import org.springframework.stereotype.Component;
 
+/**
+ * Hands out the policy for a membership type from the table {@link MembershipTiers}
+ * currently has installed; until tiers are loaded the default tiers apply.
+ */
+@Component
 public class CheckoutPolicyFactory {
-    private static final Map<MembershipType, CheckoutPolicy> checkoutPolicies = Map.of(
-            MembershipType.REGULAR, new RegularCheckoutPolicy(),
-            MembershipType.PREMIUM, new PremiumCheckoutPolicy(),
-            MembershipType.STUDENT, new StudentCheckoutPolicy()
-    );
+    private final MembershipTiers tiers;
+
+    public CheckoutPolicyFactory(MembershipTiers tiers) {
+        this.tiers = tiers;
+    }
 
-    public static CheckoutPolicy getCheckoutPolicy(MembershipType type) {
-        CheckoutPolicy policy = checkoutPolicies.get(type);
-        if(policy == null) {
-            throw new IllegalArgumentException("Unknown checkout policy type: " + type);
-        }
-        return policy;
+    public CheckoutPolicy getCheckoutPolicy(MembershipType type) {
+        return tiers.current().policy(type);
     }
 }
@@ -0,0 +1,4 @@
+package edu.trincoll.repository;
+
+public record IsbnCount(String isbn, long count) {
+}
@@ -0,0 +1,55 @@
+package edu.trincoll.repository;
+
+import edu.trincoll.model.LoanEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LoanEventRepository extends JpaRepository<LoanEvent, Long> {
+
+    Slice<LoanEvent> findByMemberEmailOrderByOccurredAtDesc(String memberEmail, Pageable pageable);
+
+    @Query("""
+            select new edu.trincoll.repository.IsbnCount(e.isbn, count(e))
+            from LoanEvent e
+            where e.type = edu.trincoll.model.LoanEventType.CHECKOUT
+              and e.loanMonth between :fromMonth and :toMonth
+            group by e.isbn
+            order by count(e) desc""")
+    List<IsbnCount> findMostBorrowed(@Param("fromMonth") int fromMonth, @Param("toMonth") int toMonth, Limit limit);
+
+    @Query("""
+            select new edu.trincoll.repository.IsbnCount(e.isbn, count(e))
+            from LoanEvent e
+            where e.type = edu.trincoll.model.LoanEventType.CHECKOUT
+              and e.loanMonth between :fromMonth and :toMonth
+            group by e.isbn""")
+    List<IsbnCount> countBorrowed(@Param("fromMonth") int fromMonth, @Param("toMonth") int toMonth);
+
+    @Query("select distinct e.loanMonth from LoanEvent e where e.loanMonth < :beforeMonth order by e.loanMonth")
+    List<Integer> findMonthsBefore(@Param("beforeMonth") int beforeMonth);
+
+    @Query("select max(e.id) from LoanEvent e")
+    Optional<Long> findMaxId();
+
+    @Query("select max(e.id) from LoanEvent e where e.loanMonth = :loanMonth")
+    Optional<Long> findMaxIdByLoanMonth(@Param("loanMonth") int loanMonth);
+
+    List<LoanEvent> findByLoanMonthAndIdGreaterThanAndIdLessThanEqualOrderByIdAsc(int loanMonth, Long afterId, Long upToId,
+                                                                                  Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("delete from LoanEvent e where e.loanMonth = :loanMonth and e.id <= :upToId")
+    int deleteArchived(@Param("loanMonth") int loanMonth, @Param("upToId") Long upToId);
+}
@@ -0,0 +1,5 @@
+package edu.trincoll.repository;
+
+/** A member's id, email and stored checkout counter, without loading the entity. */
+public record MemberCounter(Long id, String email, int booksCheckedOut) {
+}
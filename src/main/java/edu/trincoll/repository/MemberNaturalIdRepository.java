@@ -0,0 +1,11 @@
+package edu.trincoll.repository;
+
+import edu.trincoll.model.Member;
+
+import java.util.Optional;
+
+/** Member lookups by natural id, answered from the second-level cache when it holds them. */
+public interface MemberNaturalIdRepository {
+
+    Optional<Member> loadByEmail(String email);
+}
@@ -0,0 +1,21 @@
+package edu.trincoll.repository;
+
+import edu.trincoll.model.Member;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+class MemberNaturalIdRepositoryImpl implements MemberNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Member> loadByEmail(String email) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(Member.class).loadOptional(email);
+    }
+}
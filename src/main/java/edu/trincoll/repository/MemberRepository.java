@@ -2,18 +2,53 @@ package edu.trincoll.repository;
 
 import edu.trincoll.model.Member;
 import edu.trincoll.model.MembershipType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface MemberRepository extends JpaRepository<Member, Long> {
+public interface MemberRepository extends JpaRepository<Member, Long>, MemberNaturalIdRepository {
 
-    Optional<Member> findByEmail(String email);
+    /** Resolved through the natural-id cache, so repeat lookups skip the database. */
+    default Optional<Member> findByEmail(String email) {
+        return loadByEmail(email);
+    }
 
-    List<Member> findByMembershipType(MembershipType membershipType);
+    List<Member> findByEmailIn(Collection<String> emails);
 
-    List<Member> findByBooksCheckedOutGreaterThan(int count);
+    // Paged finders; each is served by one of the indexes declared on Member
+
+    Slice<Member> findByMembershipType(MembershipType membershipType, Pageable pageable);
+
+    Slice<Member> findByBooksCheckedOutGreaterThan(int count, Pageable pageable);
+
+    Slice<Member> findByNameKeyStartingWith(String prefix, Pageable pageable);
+
+    Slice<Member> findByMembershipTypeAndBooksCheckedOutGreaterThanEqual(MembershipType membershipType, int count,
+                                                                          Pageable pageable);
+
+    @Query("select m.email from Member m")
+    List<String> findAllEmails();
+
+    @Query("select new edu.trincoll.repository.MemberCounter(m.id, m.email, m.booksCheckedOut) from Member m where m.id > :afterId order by m.id")
+    List<MemberCounter> findCountersAfter(@Param("afterId") Long afterId, Limit limit);
+
+    /** Sum of all row versions; changes whenever any member is written. */
+    @Query("select coalesce(sum(m.version), 0) from Member m")
+    long sumVersions();
+
+    @Transactional
+    @Modifying
+    @Query("update Member m set m.booksCheckedOut = :count, m.version = m.version + 1 where m.id = :id")
+    int updateBooksCheckedOut(@Param("id") Long id, @Param("count") int count);
 }
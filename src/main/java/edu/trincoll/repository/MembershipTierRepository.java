@@ -0,0 +1,10 @@
+package edu.trincoll.repository;
+
+import edu.trincoll.model.MembershipTier;
+import edu.trincoll.model.MembershipType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MembershipTierRepository extends JpaRepository<MembershipTier, MembershipType> {
+}
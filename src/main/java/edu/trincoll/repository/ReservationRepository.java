@@ -0,0 +1,49 @@
+package edu.trincoll.repository;
+
+import edu.trincoll.model.Reservation;
+import edu.trincoll.model.ReservationStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+
+    Optional<Reservation> findFirstByIsbnAndStatusOrderByIdAsc(String isbn, ReservationStatus status);
+
+    Optional<Reservation> findFirstByIsbnAndMemberEmailAndStatus(String isbn, String memberEmail, ReservationStatus status);
+
+    Optional<Reservation> findFirstByIsbnAndMemberEmailAndStatusIn(String isbn, String memberEmail, Collection<ReservationStatus> statuses);
+
+    boolean existsByIsbnAndMemberEmailAndStatusIn(String isbn, String memberEmail, Collection<ReservationStatus> statuses);
+
+    long countByIsbnAndStatusAndIdLessThanEqual(String isbn, ReservationStatus status, Long id);
+
+    List<Reservation> findByStatusAndPickupDeadlineBeforeOrderByIdAsc(ReservationStatus status, LocalDate date, Limit limit);
+
+    List<Reservation> findByMemberEmailAndStatusIn(String memberEmail, Collection<ReservationStatus> statuses);
+
+    List<Reservation> findByIsbnAndStatusInOrderByIdAsc(String isbn, Collection<ReservationStatus> statuses);
+
+    @Query("select distinct r.isbn from Reservation r where r.status = :status and r.pickupDeadline < :date")
+    List<String> findIsbnsByStatusAndPickupDeadlineBefore(@Param("status") ReservationStatus status,
+                                                          @Param("date") LocalDate date);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update Reservation r set r.status = :status, r.bookId = :bookId, r.pickupDeadline = :pickupDeadline
+            where r.id = :id
+            """)
+    int updateHold(@Param("id") Long id, @Param("status") ReservationStatus status,
+                   @Param("bookId") Long bookId, @Param("pickupDeadline") LocalDate pickupDeadline);
+}
@@ -1,30 +1,102 @@
 package edu.trincoll.service;
 
+import edu.trincoll.admission.AdmissionController;
+import edu.trincoll.admission.CallerKeys;
+import edu.trincoll.index.CatalogBitmapIndex;
+import edu.trincoll.index.FacetCounts;
+import edu.trincoll.index.FacetQuery;
+import edu.trincoll.metrics.LibraryMetrics;
 import edu.trincoll.model.Book;
+import edu.trincoll.model.BookTitle;
+import edu.trincoll.projection.CatalogProjection;
 import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.BookTitleRepository;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
+/**
+ * Copy searches are answered from the {@link CatalogProjection} while it is ready
+ * and from the repositories otherwise. When admission control is enabled every
+ * search needs a permit first, charged to the caller of the current request.
+ */
 @Service
 public class BookSearchService {
 
     private final BookRepository bookRepository;
+    private final BookTitleRepository bookTitleRepository;
+    private final LibraryMetrics metrics;
+    private final CatalogProjection projection;
+    private final CatalogBitmapIndex bitmapIndex;
+    private final AdmissionController admission;
 
-    public BookSearchService(BookRepository bookRepository) {
+    public BookSearchService(BookRepository bookRepository, BookTitleRepository bookTitleRepository, LibraryMetrics metrics,
+                             CatalogProjection projection, CatalogBitmapIndex bitmapIndex,
+                             ObjectProvider<AdmissionController> admission) {
         this.bookRepository = bookRepository;
+        this.bookTitleRepository = bookTitleRepository;
+        this.metrics = metrics;
+        this.projection = projection;
+        this.bitmapIndex = bitmapIndex;
+        this.admission = admission.getIfAvailable();
     }
 
     public List<Book> searchByTitle(String title) {
-        return bookRepository.findByTitleContainingIgnoreCase(title);
+        if (projection.isReady()) {
+            return search("title", () -> projection.searchByTitle(title));
+        }
+        return search("title", () -> bookRepository.findByTitleContainingIgnoreCase(title));
+    }
+
+    /** Title search that only reads copies shelved at {@code branch}. */
+    public List<Book> searchByTitle(String title, String branch) {
+        if (projection.isReady()) {
+            return search("title", () -> projection.searchByTitle(title, branch));
+        }
+        return search("title", () -> bookRepository.findByBranchAndTitleContainingIgnoreCase(branch, title));
     }
 
     public List<Book> searchByAuthor(String author) {
-        return bookRepository.findByAuthor(author);
+        if (projection.isReady()) {
+            return search("author", () -> projection.searchByAuthor(author));
+        }
+        return search("author", () -> bookRepository.findByAuthor(author));
     }
 
     public Optional<Book> searchByIsbn(String isbn) {
-        return bookRepository.findByIsbn(isbn);
+        if (projection.isReady()) {
+            return search("isbn", () -> projection.findByIsbn(isbn));
+        }
+        return search("isbn", () -> bookRepository.findByIsbn(isbn));
+    }
+
+    /** Copies matching every facet of {@code query}, in copy id order when indexed. */
+    public List<Book> searchFacets(FacetQuery query) {
+        if (bitmapIndex.isReady()) {
+            return search("facets", () -> bitmapIndex.search(query));
+        }
+        return search("facets", () -> bookRepository.findAll().stream().filter(query).toList());
+    }
+
+    public FacetCounts facetCounts(FacetQuery query, int authorLimit) {
+        if (bitmapIndex.isReady()) {
+            return search("facet-counts", () -> bitmapIndex.counts(query, authorLimit));
+        }
+        return search("facet-counts",
+                () -> FacetCounts.tally(bookRepository.findAll().stream().filter(query).toList(), authorLimit));
+    }
+
+    public List<BookTitle> searchTitles(String title) {
+        return search("titles", () -> bookTitleRepository.findByTitleContainingIgnoreCase(title));
+    }
+
+    private <T> T search(String type, Supplier<T> search) {
+        if (admission == null) {
+            return metrics.timeSearch(type, search);
+        }
+        return admission.call(AdmissionController.Operation.SEARCH, CallerKeys.current(), () -> metrics.timeSearch(type, search));
     }
 }
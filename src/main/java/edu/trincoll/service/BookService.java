@@ -1,20 +1,31 @@
 package edu.trincoll.service;
 
+import edu.trincoll.index.ExistenceFilters;
 import edu.trincoll.repository.BookRepository;
-import edu.trincoll.repository.MemberRepository;
+import edu.trincoll.repository.BookTitleRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import edu.trincoll.model.Book;
 import edu.trincoll.model.BookStatus;
 import edu.trincoll.model.Member;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
 
 @Service
 public class BookService {
 private final BookRepository bookRepository;
+private final BookTitleRepository bookTitleRepository;
+private final ReservationService reservationService;
+private final ExistenceFilters existenceFilters;
 
-public BookService(BookRepository bookRepository) {
+public BookService(BookRepository bookRepository, BookTitleRepository bookTitleRepository, ReservationService reservationService, ExistenceFilters existenceFilters) {
     this.bookRepository = bookRepository;
+    this.bookTitleRepository = bookTitleRepository;
+    this.reservationService = reservationService;
+    this.existenceFilters = existenceFilters;
 }
 
 public boolean isAvailable(Book book) {
@@ -22,30 +33,142 @@ public boolean isAvailable(Book book) {
 }
 
 public Book getByIsbnOrThrow(String isbn) {
+    requireKnownIsbn(isbn);
     return bookRepository.findByIsbn(isbn)
             .orElseThrow(() -> new IllegalArgumentException("Book not found"));
 }
 
+public Book getCopyOrThrow(String isbn, int copyNumber) {
+    requireKnownIsbn(isbn);
+    return bookRepository.findByIsbnAndCopyNumber(isbn, copyNumber)
+            .orElseThrow(() -> new IllegalArgumentException("Book not found"));
+}
+
+/**
+ * Picks the copy a member should be handed: the copy held for them, else any
+ * copy on the shelf, else any copy (which checkout will then reject).
+ */
+public Book getCopyForCheckout(String isbn, String memberEmail) {
+    requireKnownIsbn(isbn);
+    return reservationService.readyCopyFor(isbn, memberEmail)
+            .flatMap(bookRepository::findById)
+            .or(() -> bookRepository.findFirstByIsbnAndStatusOrderByCopyNumberAsc(isbn, BookStatus.AVAILABLE))
+            .orElseGet(() -> getByIsbnOrThrow(isbn));
+}
+
+/**
+ * Like {@link #getCopyForCheckout(String, String)} but only hands out copies
+ * shelved at {@code branch}. A hold waiting for the member at another branch
+ * follows them here when this branch has a copy on the shelf; the copy set aside
+ * there goes to the next holder.
+ */
+public Book getCopyForCheckout(String isbn, String memberEmail, String branch) {
+    requireKnownIsbn(isbn);
+    Optional<Book> held = reservationService.readyCopyFor(isbn, memberEmail).flatMap(bookRepository::findById);
+    if (held.isPresent() && branch.equals(held.get().getBranch())) {
+        return held.get();
+    }
+    Optional<Book> local = bookRepository.findFirstByBranchAndIsbnAndStatusOrderByCopyNumberAsc(branch, isbn, BookStatus.AVAILABLE);
+    if (held.isPresent() && local.isPresent()) {
+        try {
+            Optional<Book> moved = reservationService.moveReadyHold(local.get(), memberEmail);
+            if (moved.isPresent()) {
+                return moved.get();
+            }
+        } catch (OptimisticLockingFailureException e) {
+            // Someone took the local copy first; the hold stays where it is
+        }
+    }
+    return local
+            .or(() -> bookRepository.findFirstByBranchAndIsbnOrderByCopyNumberAsc(branch, isbn))
+            .orElseThrow(() -> new IllegalArgumentException("Book not found"));
+}
+
+/**
+ * Picks the only checked-out copy, else any copy (which return will then reject).
+ * When several copies are out the ISBN alone does not say which one came back,
+ * so the caller must name the borrower or the copy number.
+ */
+public Book getCopyForReturn(String isbn) {
+    requireKnownIsbn(isbn);
+    List<Book> onLoan = bookRepository.findTop2ByIsbnAndStatusOrderByDueDateAsc(isbn, BookStatus.CHECKED_OUT);
+    if (onLoan.size() > 1) {
+        throw new IllegalStateException("Several copies are checked out; specify the borrower or copy number");
+    }
+    return onLoan.isEmpty() ? getByIsbnOrThrow(isbn) : onLoan.get(0);
+}
+
+/**
+ * Picks the member's checked-out copy with the earliest due date, else any copy
+ * (which return will then reject as not checked out by this member).
+ */
+public Book getCopyForReturn(String isbn, String memberEmail) {
+    requireKnownIsbn(isbn);
+    return bookRepository.findFirstByIsbnAndStatusAndCheckedOutByOrderByDueDateAsc(isbn, BookStatus.CHECKED_OUT, memberEmail)
+            .orElseGet(() -> getByIsbnOrThrow(isbn));
+}
+
+/**
+ * Like {@link #getCopyForReturn(String, String)} but only reads copies shelved at
+ * {@code branch}; a copy that belongs to another branch is not found here.
+ */
+public Book getCopyForReturn(String isbn, String memberEmail, String branch) {
+    requireKnownIsbn(isbn);
+    return bookRepository.findFirstByBranchAndIsbnAndStatusAndCheckedOutByOrderByDueDateAsc(branch, isbn,
+                    BookStatus.CHECKED_OUT, memberEmail)
+            .or(() -> bookRepository.findFirstByBranchAndIsbnOrderByCopyNumberAsc(branch, isbn))
+            .orElseThrow(() -> new IllegalArgumentException("Book not found"));
+}
+
+/** Fails fast, without a query, for ISBNs the filter has never seen. */
+private void requireKnownIsbn(String isbn) {
+    if (!existenceFilters.mightContainIsbn(isbn)) {
+        throw new IllegalArgumentException("Book not found");
+    }
+}
+
+@Transactional
 public void checkoutBook(Book book, Member member, int loadPeriodDays) {
-    if(!isAvailable(book)) {
+    boolean wasAvailable = isAvailable(book);
+    boolean heldForMember = book.getStatus() == BookStatus.RESERVED && reservationService.claimHold(book, member);
+    if(!wasAvailable && !heldForMember) {
         throw new IllegalStateException("Book is not available");
     }
     book.setStatus(BookStatus.CHECKED_OUT);
     book.setCheckedOutBy(member.getEmail());
     book.setDueDate(LocalDate.now().plusDays(loadPeriodDays));
 
-    bookRepository.save(book);
-
+    try {
+        // Flushed here so a concurrent checkout of the same copy surfaces as "not available"
+        bookRepository.save(book);
+        bookRepository.flush();
+    } catch (OptimisticLockingFailureException e) {
+        throw new IllegalStateException("Book is not available", e);
+    }
+    // A held copy was already off the shelf count when it became RESERVED
+    if (wasAvailable && bookTitleRepository.decrementAvailable(book.getIsbn()) == 0) {
+        throw new IllegalStateException("Book is not available");
+    }
 }
 
+@Transactional
 public void returnBook(Book book) {
     if(book.getStatus() != BookStatus.CHECKED_OUT) {
         throw new IllegalStateException("Book is not checked out");
     }
-    book.setStatus(BookStatus.AVAILABLE);
     book.setCheckedOutBy(null);
     book.setDueDate(null);
-    bookRepository.save(book);
+    // The next holder in the queue gets the copy straight away
+    book.setStatus(reservationService.assignNextHolder(book) ? BookStatus.RESERVED : BookStatus.AVAILABLE);
+    try {
+        bookRepository.save(book);
+        bookRepository.flush();
+    } catch (OptimisticLockingFailureException e) {
+        throw new IllegalStateException("Book is not checked out", e);
+    }
+    if (isAvailable(book)) {
+        bookTitleRepository.incrementAvailable(book.getIsbn());
+    }
 }
 
 
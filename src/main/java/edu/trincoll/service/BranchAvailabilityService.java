@@ -0,0 +1,130 @@
+package edu.trincoll.service;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.BookStatus;
+import edu.trincoll.projection.CatalogProjection;
+import edu.trincoll.repository.BookRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Finds an available copy of a title at any branch.
+ *
+ * While the {@link CatalogProjection} is ready the answer comes from memory.
+ * Otherwise the preferred branch is asked first, and if it has no copy on the
+ * shelf every other branch is queried at once; the first branch to report a
+ * copy wins and queries that have not started yet are skipped. A branch whose
+ * query fails is passed over; the search fails only if no branch has a copy.
+ */
+@Service
+public class BranchAvailabilityService implements AutoCloseable {
+
+    private final BookRepository bookRepository;
+    private final CatalogProjection projection;
+    private final ExecutorService executor;
+
+    public BranchAvailabilityService(BookRepository bookRepository,
+                                     CatalogProjection projection,
+                                     @Value("${library.branches.search-threads:8}") int searchThreads) {
+        this.bookRepository = bookRepository;
+        this.projection = projection;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(searchThreads, task -> {
+            Thread thread = new Thread(task, "branch-search-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public List<String> branches() {
+        return bookRepository.findBranches();
+    }
+
+    public Optional<Book> findAvailableCopyAnywhere(String isbn) {
+        return findAvailableCopy(isbn, null);
+    }
+
+    /**
+     * An available copy at {@code preferredBranch} if it has one, else at whichever
+     * other branch answers first.
+     */
+    public Optional<Book> findAvailableCopy(String isbn, String preferredBranch) {
+        if (projection.isReady()) {
+            return projection.findAvailableCopy(isbn, preferredBranch);
+        }
+        if (preferredBranch != null) {
+            Optional<Book> local = availableAt(preferredBranch, isbn);
+            if (local.isPresent()) {
+                return local;
+            }
+        }
+        List<String> others = new ArrayList<>(branches());
+        others.remove(preferredBranch);
+        return firstAvailable(isbn, others);
+    }
+
+    private Optional<Book> firstAvailable(String isbn, List<String> branches) {
+        if (branches.isEmpty()) {
+            return Optional.empty();
+        }
+        CompletableFuture<Optional<Book>> first = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(branches.size());
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        List<Future<?>> queries = new ArrayList<>(branches.size());
+        for (String branch : branches) {
+            queries.add(executor.submit(() -> {
+                try {
+                    if (!first.isDone()) {
+                        availableAt(branch, isbn).ifPresent(copy -> first.complete(Optional.of(copy)));
+                    }
+                } catch (RuntimeException e) {
+                    // Another branch may still have a copy; only report this if none does
+                    failure.accumulateAndGet(e, (earlier, next) -> {
+                        if (earlier == null) {
+                            return next;
+                        }
+                        earlier.addSuppressed(next);
+                        return earlier;
+                    });
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        RuntimeException cause = failure.get();
+                        if (cause == null) {
+                            first.complete(Optional.empty());
+                        } else {
+                            first.completeExceptionally(cause);
+                        }
+                    }
+                }
+            }));
+        }
+        try {
+            return first.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        } finally {
+            // Not interrupting: H2 closes its file channel when a reading thread is interrupted
+            queries.forEach(query -> query.cancel(false));
+        }
+    }
+
+    private Optional<Book> availableAt(String branch, String isbn) {
+        return bookRepository.findFirstByBranchAndIsbnAndStatusOrderByCopyNumberAsc(branch, isbn, BookStatus.AVAILABLE);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,67 @@
+package edu.trincoll.service;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.BookTitle;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.BookTitleRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Title-level catalog operations: adding copies of an ISBN and answering
+ * availability from the title's counter instead of counting copy rows.
+ */
+@Service
+public class CatalogService {
+    private final BookRepository bookRepository;
+    private final BookTitleRepository bookTitleRepository;
+
+    public CatalogService(BookRepository bookRepository, BookTitleRepository bookTitleRepository) {
+        this.bookRepository = bookRepository;
+        this.bookTitleRepository = bookTitleRepository;
+    }
+
+    @Transactional
+    public List<Book> addCopies(String isbn, String title, String author, LocalDate publicationDate, int copies) {
+        return addCopies(Book.DEFAULT_BRANCH, isbn, title, author, publicationDate, copies);
+    }
+
+    @Transactional
+    public List<Book> addCopies(String branch, String isbn, String title, String author, LocalDate publicationDate,
+                                int copies) {
+        if (copies < 1) {
+            throw new IllegalArgumentException("At least one copy is required");
+        }
+        BookTitle bookTitle = bookTitleRepository.findByIsbn(isbn)
+                .orElseGet(() -> new BookTitle(isbn, title, author, publicationDate));
+        int nextCopyNumber = bookRepository.findTopByIsbnOrderByCopyNumberDesc(isbn)
+                .map(Book::getCopyNumber)
+                .orElse(0) + 1;
+
+        List<Book> added = new ArrayList<>(copies);
+        for (int i = 0; i < copies; i++) {
+            Book copy = new Book(isbn, nextCopyNumber + i, title, author, publicationDate);
+            copy.setBranch(branch);
+            added.add(copy);
+        }
+        bookTitle.setTotalCopies(bookTitle.getTotalCopies() + copies);
+        bookTitle.setAvailableCopies(bookTitle.getAvailableCopies() + copies);
+        bookTitleRepository.save(bookTitle);
+        return bookRepository.saveAll(added);
+    }
+
+    public BookTitle getTitleOrThrow(String isbn) {
+        return bookTitleRepository.findByIsbn(isbn)
+                .orElseThrow(() -> new IllegalArgumentException("Book not found"));
+    }
+
+    public boolean isAnyCopyAvailable(String isbn) {
+        return bookTitleRepository.findAvailableCopiesByIsbn(isbn)
+                .map(available -> available > 0)
+                .orElse(false);
+    }
+}
@@ -0,0 +1,173 @@
+package edu.trincoll.service;
+
+import edu.trincoll.index.RoaringBitmap;
+import edu.trincoll.model.Book;
+import edu.trincoll.model.BookStatus;
+import edu.trincoll.model.Member;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.MemberRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Reminds borrowers {@code library.reminders.days-before} days before their copies
+ * are due.
+ *
+ * The sweep walks the borrowers with a copy due on that day in email order, a
+ * chunk at a time, and loads the chunk's copies and members with one query each.
+ * Each member gets one reminder listing all of their copies, sent from a fixed
+ * pool of sender threads. Members reminded today are kept in a bitmap of member
+ * ids, so running the sweep again the same day only reaches members it missed,
+ * such as those whose send failed. The log is kept in memory, so a member can be
+ * reminded twice on the day of a restart.
+ */
+@Service
+public class DueDateReminderService implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(DueDateReminderService.class);
+
+    public record Result(int sent, int skipped, int failed) {
+    }
+
+    private final BookRepository bookRepository;
+    private final MemberRepository memberRepository;
+    private final NotificationService notificationService;
+    private final int daysBefore;
+    private final int batchSize;
+    private final Clock clock;
+    private final ExecutorService executor;
+    private final Counter sentCounter;
+    private final Counter skippedCounter;
+    private final Counter failedCounter;
+
+    private final RoaringBitmap remindedToday = new RoaringBitmap();
+    private LocalDate remindedOn;
+
+    @Autowired
+    public DueDateReminderService(BookRepository bookRepository,
+                                  MemberRepository memberRepository,
+                                  @Lazy NotificationService notificationService,
+                                  MeterRegistry registry,
+                                  @Value("${library.reminders.days-before:2}") int daysBefore,
+                                  @Value("${library.reminders.batch-size:1000}") int batchSize,
+                                  @Value("${library.reminders.send-threads:16}") int sendThreads) {
+        this(bookRepository, memberRepository, notificationService, registry, daysBefore, batchSize, sendThreads,
+                Clock.systemDefaultZone());
+    }
+
+    DueDateReminderService(BookRepository bookRepository, MemberRepository memberRepository,
+                           NotificationService notificationService, MeterRegistry registry,
+                           int daysBefore, int batchSize, int sendThreads, Clock clock) {
+        this.bookRepository = bookRepository;
+        this.memberRepository = memberRepository;
+        this.notificationService = notificationService;
+        this.daysBefore = daysBefore;
+        this.batchSize = batchSize;
+        this.clock = clock;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(sendThreads, task -> {
+            Thread thread = new Thread(task, "reminder-send-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sentCounter = reminders(registry, "sent");
+        this.skippedCounter = reminders(registry, "skipped");
+        this.failedCounter = reminders(registry, "failed");
+    }
+
+    private static Counter reminders(MeterRegistry registry, String outcome) {
+        return Counter.builder("library.reminders")
+                .description("Due-soon reminders by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @Scheduled(cron = "${library.reminders.cron:0 0 9 * * *}")
+    public synchronized Result sendReminders() {
+        LocalDate today = LocalDate.now(clock);
+        if (!today.equals(remindedOn)) {
+            remindedToday.clear();
+            remindedOn = today;
+        }
+        LocalDate dueDate = today.plusDays(daysBefore);
+        long start = System.nanoTime();
+        int sent = 0;
+        int skipped = 0;
+        int failed = 0;
+        String after = "";
+        while (true) {
+            List<String> borrowers = bookRepository.findBorrowersDueBetween(
+                    BookStatus.CHECKED_OUT, dueDate, dueDate, after, Limit.of(batchSize));
+            if (borrowers.isEmpty()) {
+                break;
+            }
+            after = borrowers.get(borrowers.size() - 1);
+            Map<String, List<Book>> copiesByBorrower = bookRepository
+                    .findByStatusAndDueDateBetweenAndCheckedOutByIn(BookStatus.CHECKED_OUT, dueDate, dueDate, borrowers)
+                    .stream()
+                    .collect(Collectors.groupingBy(Book::getCheckedOutBy));
+
+            List<CompletableFuture<Integer>> sends = new ArrayList<>();
+            for (Member member : memberRepository.findByEmailIn(borrowers)) {
+                List<Book> copies = copiesByBorrower.get(member.getEmail());
+                int memberId = Math.toIntExact(member.getId());
+                if (copies == null) {
+                    continue; // returned since the borrower query
+                }
+                if (remindedToday.contains(memberId)) {
+                    skipped++;
+                    continue;
+                }
+                sends.add(CompletableFuture.supplyAsync(() -> {
+                    notificationService.sendDueSoonNotification(member, copies, dueDate);
+                    return memberId;
+                }, executor).exceptionally(e -> {
+                    log.warn("Failed to send due-soon reminder to {}", member.getEmail(), e);
+                    return null;
+                }));
+            }
+            // The log is only touched from this thread, after each send has finished
+            for (CompletableFuture<Integer> send : sends) {
+                Integer memberId = send.join();
+                if (memberId == null) {
+                    failed++;
+                } else {
+                    remindedToday.add(memberId);
+                    sent++;
+                }
+            }
+            if (borrowers.size() < batchSize) {
+                break;
+            }
+        }
+        sentCounter.increment(sent);
+        skippedCounter.increment(skipped);
+        failedCounter.increment(failed);
+        log.info("Sent {} reminders for books due {} ({} already reminded, {} failed) in {} ms",
+                sent, dueDate, skipped, failed, (System.nanoTime() - start) / 1_000_000);
+        return new Result(sent, skipped, failed);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -2,11 +2,14 @@ package edu.trincoll.service;
 
 import edu.trincoll.model.Book;
 import edu.trincoll.model.Member;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.List;
 
 @Service
+@Lazy
 public class EmailNotificationService implements NotificationService{
     @Override
     public String sendCheckoutNotification(Member member, Book book, LocalDate dueDate) {
@@ -30,4 +33,22 @@ public class EmailNotificationService implements NotificationService{
 
     }
 
+    @Override
+    public String sendHoldReadyNotification(Member member, Book book, LocalDate pickupDeadline) {
+        System.out.println("Sending email to: " + member.getEmail());
+        System.out.println("Subject: Your hold is ready");
+        System.out.println("Message: " + book.getTitle() + " is waiting for you. Pick it up by: " + pickupDeadline);
+        return null;
+    }
+
+    @Override
+    public String sendDueSoonNotification(Member member, List<Book> books, LocalDate dueDate) {
+        System.out.println("Sending email to: " + member.getEmail());
+        System.out.println("Subject: Books due on " + dueDate);
+        for (Book book : books) {
+            System.out.println("Message: " + book.getTitle() + " is due back on: " + dueDate);
+        }
+        return null;
+    }
+
 }
@@ -0,0 +1,9 @@
+package edu.trincoll.service;
+
+import edu.trincoll.model.Book;
+
+import java.time.LocalDate;
+
+/** {@code copy} was set aside for {@code memberEmail}, who must pick it up by {@code pickupDeadline}. */
+public record HoldReady(String memberEmail, Book copy, LocalDate pickupDeadline) {
+}
@@ -1,19 +1,40 @@
 package edu.trincoll.service;
 
+import edu.trincoll.admission.AdmissionController;
+import edu.trincoll.admission.CallerKeys;
+import edu.trincoll.engine.CheckoutResult;
+import edu.trincoll.engine.CirculationEngine;
+import edu.trincoll.engine.ReturnResult;
+import edu.trincoll.jfr.CirculationPhaseEvent;
+import edu.trincoll.journal.CirculationEvent;
+import edu.trincoll.metrics.CheckoutOutcome;
+import edu.trincoll.metrics.LibraryMetrics;
+import edu.trincoll.metrics.ReturnOutcome;
 import edu.trincoll.model.Book;
 import edu.trincoll.model.BookStatus;
 import edu.trincoll.model.Member;
 import edu.trincoll.model.MembershipType;
+import edu.trincoll.model.Reservation;
 import edu.trincoll.repository.*;
 import edu.trincoll.service.*;
+import edu.trincoll.service.history.LoanHistoryService;
 import edu.trincoll.service.latefee.LateFeeCalculator;
 import edu.trincoll.service.latefee.LateFeeCalculatorFactory;
+import io.micrometer.core.instrument.Timer;
 import org.hibernate.annotations.Check;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import edu.trincoll.service.BookService;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * SOLID VIOLATIONS TO FIX:
@@ -37,67 +58,238 @@ public class LibraryService {
     private final MemberService memberService;
     private final EmailNotificationService emailNotificationService;
     private final LateFeeCalculatorFactory lateFeeCalculatorFactory;
+    private final LibraryMetrics metrics;
+    private final ReservationService reservationService;
+    private final LoanHistoryService loanHistoryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CirculationEngine circulationEngine;
+    private final AdmissionController admission;
+    private final BranchAvailabilityService branchAvailability;
+    private final CheckoutPolicyFactory checkoutPolicyFactory;
 
-    public LibraryService(BookRepository bookRepository, MemberRepository memberRepository, BookService bookService, MemberService memberService, EmailNotificationService emailNotificationService, LateFeeCalculatorFactory lateFeeCalculatorFactory) {
+    public LibraryService(BookRepository bookRepository, MemberRepository memberRepository, BookService bookService, MemberService memberService, @Lazy EmailNotificationService emailNotificationService, LateFeeCalculatorFactory lateFeeCalculatorFactory, LibraryMetrics metrics, ReservationService reservationService, LoanHistoryService loanHistoryService, ApplicationEventPublisher eventPublisher, ObjectProvider<CirculationEngine> circulationEngine, ObjectProvider<AdmissionController> admission, BranchAvailabilityService branchAvailability, CheckoutPolicyFactory checkoutPolicyFactory) {
         this.bookRepository = bookRepository;
         this.memberRepository = memberRepository;
         this.bookService = bookService;
         this.memberService = memberService;
         this.emailNotificationService = emailNotificationService;
         this.lateFeeCalculatorFactory = lateFeeCalculatorFactory;
+        this.metrics = metrics;
+        this.reservationService = reservationService;
+        this.loanHistoryService = loanHistoryService;
+        this.eventPublisher = eventPublisher;
+        // Null unless library.engine.enabled is set
+        this.circulationEngine = circulationEngine.getIfAvailable();
+        // Null unless library.admission.enabled is set
+        this.admission = admission.getIfAvailable();
+        this.branchAvailability = branchAvailability;
+        this.checkoutPolicyFactory = checkoutPolicyFactory;
     }
 
     // TODO 1 (15 points): SRP Violation - This method has multiple responsibilities
     // Extract book-specific operations to a separate BookService
     // Move member-specific operations to a separate MemberService
     public String checkoutBook(String isbn, String memberEmail) {
+        return admitted(AdmissionController.Operation.CHECKOUT, memberEmail, () -> timedCheckout(sample -> checkout(isbn, memberEmail, sample)));
+    }
+
+    private String checkout(String isbn, String memberEmail, Timer.Sample sample) {
+        if (circulationEngine != null) {
+            return engineCheckout(await(circulationEngine.checkout(isbn, memberEmail)), sample);
+        }
+
         // Find book
-        Book book = bookService.getByIsbnOrThrow(isbn);
+        CirculationPhaseEvent phase = CirculationPhaseEvent.start("checkout", "findBook");
+        Book book = bookService.getCopyForCheckout(isbn, memberEmail);
+        phase.finish(isbn);
+        return completeCheckout(book, memberEmail, sample);
+    }
+
+    /**
+     * Checks out a copy shelved at {@code branch}; copies at other branches are not
+     * handed out, but when every copy here is on loan the reply names a branch that
+     * has one on the shelf.
+     */
+    public String checkoutBook(String isbn, String memberEmail, String branch) {
+        return admitted(AdmissionController.Operation.CHECKOUT, memberEmail, () -> timedCheckout(sample -> checkout(isbn, memberEmail, branch, sample)));
+    }
+
+    private String checkout(String isbn, String memberEmail, String branch, Timer.Sample sample) {
+        if (circulationEngine != null) {
+            CheckoutResult result = await(circulationEngine.checkout(isbn, memberEmail, branch));
+            if (result.outcome() == CheckoutOutcome.NOT_AVAILABLE) {
+                Optional<String> elsewhere = availableElsewhere(isbn, branch);
+                if (elsewhere.isPresent()) {
+                    metrics.recordCheckout(sample, CheckoutOutcome.NOT_AVAILABLE);
+                    return notAvailableAt(branch, elsewhere.get());
+                }
+            }
+            return engineCheckout(result, sample);
+        }
+        CirculationPhaseEvent phase = CirculationPhaseEvent.start("checkout", "findBook");
+        Book book = bookService.getCopyForCheckout(isbn, memberEmail, branch);
+        phase.finish(isbn);
+        if (book.getStatus() == BookStatus.CHECKED_OUT) {
+            Optional<String> elsewhere = availableElsewhere(isbn, branch);
+            if (elsewhere.isPresent()) {
+                metrics.recordCheckout(sample, CheckoutOutcome.NOT_AVAILABLE);
+                return notAvailableAt(branch, elsewhere.get());
+            }
+        }
+        return completeCheckout(book, memberEmail, sample);
+    }
+
+    private Optional<String> availableElsewhere(String isbn, String branch) {
+        return branchAvailability.findAvailableCopy(isbn, branch)
+                .map(Book::getBranch)
+                .filter(other -> !branch.equals(other));
+    }
+
+    private static String notAvailableAt(String branch, String elsewhere) {
+        return "Book is not available at " + branch + "; a copy is available at " + elsewhere;
+    }
+
+    private String engineCheckout(CheckoutResult result, Timer.Sample sample) {
+        if (result.outcome() != CheckoutOutcome.SUCCESS) {
+            metrics.recordCheckout(sample, result.outcome());
+            return result.message();
+        }
+        // Same notification and reply as completeCheckout
+        String message = metrics.timeNotification("checkout", () -> emailNotificationService
+                .sendCheckoutNotification(result.member(), result.copy(), result.copy().getDueDate()));
+        metrics.recordCheckout(sample, CheckoutOutcome.SUCCESS);
+        return message;
+    }
+
+    private String completeCheckout(Book book, String memberEmail, Timer.Sample sample) {
+        String isbn = book.getIsbn();
 
         // Find member
+        CirculationPhaseEvent phase = CirculationPhaseEvent.start("checkout", "findMember");
         Member member = memberService.getByEmail(memberEmail);
+        phase.finish(isbn);
 
-        // TODO 2 (15 points): OCP Violation - This checkout limit logic violates Open-Closed Principle
-        // Create a CheckoutPolicy interface with different implementations for each membership type
-        // Use Strategy pattern instead of if-else statements
-        // STILL NEED TO DO THIS:
-        CheckoutPolicy policy = CheckoutPolicyFactory.getCheckoutPolicy(member.getMembershipType());
+        // Tier limits come from the installed policy table (see MembershipTiers)
+        phase = CirculationPhaseEvent.start("checkout", "policy");
+        CheckoutPolicy policy = checkoutPolicyFactory.getCheckoutPolicy(member.getMembershipType());
         //Enforce checkout limit:
-        if (!policy.canCheckout(member)) {
+        boolean allowed = policy.canCheckout(member);
+        phase.finish(isbn);
+        if (!allowed) {
+            metrics.recordCheckout(sample, CheckoutOutcome.LIMIT_REACHED);
             return "Member has reached checkout limit";
         }
 
         int loanPeriodDays = policy.getLoanPeriodDays();
         int maxBooks = policy.getMaxBooks();
+        phase = CirculationPhaseEvent.start("checkout", "saveBook");
         try {
             bookService.checkoutBook(book, member, loanPeriodDays);
         }   catch(IllegalStateException exception) {
+            metrics.recordCheckout(sample, CheckoutOutcome.NOT_AVAILABLE);
             return exception.getMessage();
+        } finally {
+            phase.finish(isbn);
         }
         // Update member (Updated)
+        phase = CirculationPhaseEvent.start("checkout", "saveMember");
         memberService.incrementCheckedOut(member);
+        loanHistoryService.recordCheckout(book);
+        eventPublisher.publishEvent(CirculationEvent.checkout(book));
+        phase.finish(isbn);
 
         // TODO 3 (10 points): SRP Violation - Notification logic should be separate
         // Create a NotificationService interface with email implementation
         // This demonstrates DIP (depend on abstraction, not concrete email sending)
         LocalDate dueDate = book.getDueDate();
-        return emailNotificationService.sendCheckoutNotification(member, book, dueDate);
+        phase = CirculationPhaseEvent.start("checkout", "notify");
+        String message = metrics.timeNotification("checkout",
+                () -> emailNotificationService.sendCheckoutNotification(member, book, dueDate));
+        phase.finish(isbn);
+        metrics.recordCheckout(sample, CheckoutOutcome.SUCCESS);
+        return message;
     }
 
     // TODO 4 (15 points): SRP Violation - Return book logic should be in BookService
     // Also contains duplicated notification logic (DRY violation)
     public String returnBook(String isbn) {
+        return admitted(AdmissionController.Operation.RETURN, CallerKeys.current(), () -> timedReturn(sample -> returnCopy(isbn, sample)));
+    }
+
+    private String returnCopy(String isbn, Timer.Sample sample) {
+        if (circulationEngine != null) {
+            return engineReturn(circulationEngine.returnBook(isbn), sample);
+        }
+
         // Look up via services
-        Book book = bookService.getByIsbnOrThrow(isbn);
+        CirculationPhaseEvent phase = CirculationPhaseEvent.start("return", "findBook");
+        Book book = bookService.getCopyForReturn(isbn);
+        phase.finish(isbn);
+        return completeReturn(book, null, sample);
+    }
+
+    /** Returns the copy of the ISBN that {@code memberEmail} has out, the one due first if there are several. */
+    public String returnBook(String isbn, String memberEmail) {
+        return admitted(AdmissionController.Operation.RETURN, memberEmail, () -> timedReturn(sample -> returnCopy(isbn, memberEmail, sample)));
+    }
+
+    private String returnCopy(String isbn, String memberEmail, Timer.Sample sample) {
+        if (circulationEngine != null) {
+            return engineReturn(circulationEngine.returnBook(isbn, memberEmail), sample);
+        }
+
+        CirculationPhaseEvent phase = CirculationPhaseEvent.start("return", "findBook");
+        Book book = bookService.getCopyForReturn(isbn, memberEmail);
+        phase.finish(isbn);
+        return completeReturn(book, memberEmail, sample);
+    }
+
+    /** Like {@link #returnBook(String, String)} but only for copies shelved at {@code branch}. */
+    public String returnBook(String isbn, String memberEmail, String branch) {
+        return admitted(AdmissionController.Operation.RETURN, memberEmail, () -> timedReturn(sample -> returnCopy(isbn, memberEmail, branch, sample)));
+    }
 
-        if (book.getStatus() != BookStatus.CHECKED_OUT) {
+    private String returnCopy(String isbn, String memberEmail, String branch, Timer.Sample sample) {
+        if (circulationEngine != null) {
+            return engineReturn(circulationEngine.returnBook(isbn, memberEmail, branch), sample);
+        }
+        CirculationPhaseEvent phase = CirculationPhaseEvent.start("return", "findBook");
+        Book book = bookService.getCopyForReturn(isbn, memberEmail, branch);
+        phase.finish(isbn);
+        return completeReturn(book, memberEmail, sample);
+    }
+
+    public String returnBook(String isbn, int copyNumber) {
+        return admitted(AdmissionController.Operation.RETURN, CallerKeys.current(), () -> timedReturn(sample -> returnCopy(isbn, copyNumber, sample)));
+    }
+
+    private String returnCopy(String isbn, int copyNumber, Timer.Sample sample) {
+        if (circulationEngine != null) {
+            return engineReturn(circulationEngine.returnBook(isbn, copyNumber), sample);
+        }
+
+        CirculationPhaseEvent phase = CirculationPhaseEvent.start("return", "findBook");
+        Book book = bookService.getCopyOrThrow(isbn, copyNumber);
+        phase.finish(isbn);
+        return completeReturn(book, null, sample);
+    }
+
+    /** @param borrower if not null, the copy must be checked out to this member */
+    private String completeReturn(Book book, String borrower, Timer.Sample sample) {
+        String isbn = book.getIsbn();
+        if (book.getStatus() != BookStatus.CHECKED_OUT
+                || (borrower != null && !borrower.equals(book.getCheckedOutBy()))) {
+            metrics.recordReturn(sample, ReturnOutcome.NOT_CHECKED_OUT);
             return "Book is not checked out";
         }
 
         String memberEmail = book.getCheckedOutBy();
+        CirculationPhaseEvent phase = CirculationPhaseEvent.start("return", "findMember");
         Member member = memberService.getByEmail(memberEmail);
+        phase.finish(isbn);
 
         // --- compute late fee BEFORE clearing due date ---
+        phase = CirculationPhaseEvent.start("return", "lateFee");
         double lateFee = 0.0;
         LocalDate due = book.getDueDate();
         LocalDate today = LocalDate.now();
@@ -107,32 +299,109 @@ public class LibraryService {
             LateFeeCalculator calculator = lateFeeCalculatorFactory.getCalculator(member.getMembershipType());
             lateFee = calculator.calculateLateFee(daysLate);
         }
+        phase.finish(isbn);
 
         // --- delegate state changes (SRP) ---
+        phase = CirculationPhaseEvent.start("return", "saveBook");
         bookService.returnBook(book);            // clears status/checkedOutBy/dueDate and saves
+        phase.finish(isbn);
+        phase = CirculationPhaseEvent.start("return", "saveMember");
         memberService.decrementCheckedOut(member);
+        loanHistoryService.recordReturn(book, memberEmail, lateFee);
+        eventPublisher.publishEvent(CirculationEvent.returned(book, memberEmail, lateFee));
+        phase.finish(isbn);
 
         // (Optional) notify via abstraction if you want; tests don't assert this:
         // emailNotificationService.sendReturnNotification(member, book, lateFee);
 
         if (lateFee > 0) {
+            metrics.recordLateFee(member.getMembershipType(), lateFee);
+            metrics.recordReturn(sample, ReturnOutcome.LATE);
             return "Book returned. Late fee: $" + String.format("%.2f", lateFee);
         }
+        metrics.recordReturn(sample, ReturnOutcome.SUCCESS);
         return "Book returned successfully";
     }
 
+    private String engineReturn(CompletableFuture<ReturnResult> pending, Timer.Sample sample) {
+        ReturnResult result = await(pending);
+        if (result.lateFee() > 0) {
+            metrics.recordLateFee(result.tier(), result.lateFee());
+        }
+        metrics.recordReturn(sample, result.outcome());
+        return result.message();
+    }
+
+    /**
+     * Starts the checkout timer for {@code checkout}, which records its own outcome when
+     * it returns. One that throws instead (unknown book or member, a failed write) is
+     * recorded here before the exception propagates, so failed attempts still show up in
+     * the timer and in {@code library.checkouts}.
+     */
+    private String timedCheckout(Function<Timer.Sample, String> checkout) {
+        Timer.Sample sample = metrics.startTimer();
+        try {
+            return checkout.apply(sample);
+        } catch (RuntimeException exception) {
+            metrics.recordCheckout(sample, exception instanceof IllegalArgumentException
+                    ? CheckoutOutcome.NOT_FOUND : CheckoutOutcome.ERROR);
+            throw exception;
+        }
+    }
+
+    /** The return-side counterpart of {@link #timedCheckout}. */
+    private String timedReturn(Function<Timer.Sample, String> returnCopy) {
+        Timer.Sample sample = metrics.startTimer();
+        try {
+            return returnCopy.apply(sample);
+        } catch (RuntimeException exception) {
+            metrics.recordReturn(sample, exception instanceof IllegalArgumentException
+                    ? ReturnOutcome.NOT_FOUND : ReturnOutcome.ERROR);
+            throw exception;
+        }
+    }
+
+    private <T> T admitted(AdmissionController.Operation operation, String callerKey, Supplier<T> work) {
+        return admission == null ? work.get() : admission.call(operation, callerKey, work);
+    }
+
+    private static <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public String placeHold(String isbn, String memberEmail) {
+        try {
+            Reservation reservation = reservationService.placeHold(isbn, memberEmail);
+            return "Hold placed. Position in queue: " + reservationService.queuePosition(reservation);
+        } catch (IllegalStateException exception) {
+            return exception.getMessage();
+        }
+    }
+
+    public String cancelHold(String isbn, String memberEmail) {
+        reservationService.cancelHold(isbn, memberEmail);
+        return "Hold cancelled";
+    }
+
     // TODO 6 (10 points): SRP Violation - Search/query operations
     // Create a BookSearchService with different search strategies
     // This also demonstrates ISP - clients shouldn't depend on unused search methods
     public List<Book> searchBooks(String searchTerm, String searchType) {
         if ("title".equalsIgnoreCase(searchType)) {
-            return bookRepository.findByTitleContainingIgnoreCase(searchTerm);
+            return metrics.timeSearch("title", () -> bookRepository.findByTitleContainingIgnoreCase(searchTerm));
         } else if ("author".equalsIgnoreCase(searchType)) {
-            return bookRepository.findByAuthor(searchTerm);
+            return metrics.timeSearch("author", () -> bookRepository.findByAuthor(searchTerm));
         } else if ("isbn".equalsIgnoreCase(searchType)) {
-            return bookRepository.findByIsbn(searchTerm)
+            return metrics.timeSearch("isbn", () -> bookRepository.findByIsbn(searchTerm)
                     .map(List::of)
-                    .orElse(List.of());
+                    .orElse(List.of()));
         } else {
             throw new IllegalArgumentException("Invalid search type");
         }
@@ -0,0 +1,149 @@
+package edu.trincoll.service;
+
+import edu.trincoll.cache.EntityCaches;
+import edu.trincoll.engine.CirculationEngine;
+import edu.trincoll.model.BookStatus;
+import edu.trincoll.model.Member;
+import edu.trincoll.projection.MemberChanged;
+import edu.trincoll.projection.MemberView;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.BorrowerCount;
+import edu.trincoll.repository.MemberCounter;
+import edu.trincoll.repository.MemberRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repairs drift in {@code Member.booksCheckedOut}, which is saved separately from
+ * the copy and can be left wrong by a crash between the two saves.
+ *
+ * True counts come from one grouped aggregate over checked-out copies. Members
+ * are then read in keyset-paged chunks of plain id/email/counter rows and only
+ * the members whose counter differs are written. Each correction recounts the
+ * member's copies in the same statement and only applies if the counter still
+ * holds the value that was read, so a checkout or return that lands while the
+ * job runs is never overwritten; such a member is left for the next run. Nothing
+ * is locked for longer than one chunk's update. The job does nothing while the
+ * circulation engine owns the counters.
+ */
+@Service
+public class MemberCounterReconciler {
+    private static final Logger log = LoggerFactory.getLogger(MemberCounterReconciler.class);
+
+    static final String CORRECT_SQL = """
+            update members set books_checked_out = (
+                select count(*) from books b where b.checked_out_by = members.email and b.status = 'CHECKED_OUT'),
+                version = version + 1
+            where id = ? and books_checked_out = ?
+            """;
+
+    public record Result(long membersScanned, int corrected, int skipped) {
+    }
+
+    private final BookRepository bookRepository;
+    private final MemberRepository memberRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityCaches entityCaches;
+    private final ObjectProvider<CirculationEngine> circulationEngine;
+    private final int batchSize;
+
+    public MemberCounterReconciler(BookRepository bookRepository,
+                                   MemberRepository memberRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   ApplicationEventPublisher eventPublisher,
+                                   EntityCaches entityCaches,
+                                   ObjectProvider<CirculationEngine> circulationEngine,
+                                   @Value("${library.members.reconcile-batch-size:5000}") int batchSize) {
+        this.bookRepository = bookRepository;
+        this.memberRepository = memberRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.entityCaches = entityCaches;
+        this.circulationEngine = circulationEngine;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${library.members.reconcile-cron:0 15 3 * * *}")
+    public Result reconcile() {
+        if (circulationEngine.getIfAvailable() != null) {
+            log.info("Skipping member counter reconciliation: the circulation engine owns the counters");
+            return new Result(0, 0, 0);
+        }
+        long start = System.nanoTime();
+        Map<String, Long> actual = new HashMap<>();
+        for (BorrowerCount count : bookRepository.countByBorrower(BookStatus.CHECKED_OUT)) {
+            actual.put(count.memberEmail(), count.count());
+        }
+
+        long scanned = 0;
+        int corrected = 0;
+        int skipped = 0;
+        Long lastId = 0L;
+        List<MemberCounter> chunk;
+        do {
+            chunk = memberRepository.findCountersAfter(lastId, Limit.of(batchSize));
+            List<MemberCounter> drifted = new ArrayList<>();
+            for (MemberCounter member : chunk) {
+                if (member.booksCheckedOut() != actual.getOrDefault(member.email(), 0L)) {
+                    drifted.add(member);
+                }
+                lastId = member.id();
+            }
+            scanned += chunk.size();
+            if (!drifted.isEmpty()) {
+                int applied = correct(drifted);
+                corrected += applied;
+                skipped += drifted.size() - applied;
+            }
+        } while (chunk.size() == batchSize);
+
+        log.info("Reconciled {} member counters in {} ms: {} corrected, {} changed concurrently and left for the next run",
+                scanned, (System.nanoTime() - start) / 1_000_000, corrected, skipped);
+        return new Result(scanned, corrected, skipped);
+    }
+
+    /** Applies one chunk's corrections as a JDBC batch and publishes the new rows for the read model. */
+    private int correct(List<MemberCounter> drifted) {
+        Integer applied = transactionTemplate.execute(status -> {
+            int[][] rows = jdbcTemplate.batchUpdate(CORRECT_SQL, drifted, drifted.size(),
+                    (statement, member) -> {
+                        statement.setLong(1, member.id());
+                        statement.setInt(2, member.booksCheckedOut());
+                    });
+            List<Long> changed = new ArrayList<>();
+            int i = 0;
+            for (int[] batch : rows) {
+                for (int count : batch) {
+                    if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                        changed.add(drifted.get(i).id());
+                    }
+                    i++;
+                }
+            }
+            // The bulk update bypasses the entity listener, so tell the projection ourselves
+            memberRepository.findAllById(changed)
+                    .forEach(member -> eventPublisher.publishEvent(new MemberChanged(MemberView.of(member), false)));
+            return changed.size();
+        });
+        entityCaches.evict(Member.class);
+        return applied == null ? 0 : applied;
+    }
+}
@@ -0,0 +1,219 @@
+package edu.trincoll.service;
+
+import edu.trincoll.cache.EntityCaches;
+import edu.trincoll.engine.CirculationEngine;
+import edu.trincoll.model.Member;
+import edu.trincoll.model.MembershipType;
+import edu.trincoll.projection.MemberChanged;
+import edu.trincoll.projection.MemberView;
+import edu.trincoll.repository.MemberRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Bulk upsert of members from a registrar extract, keyed on email.
+ *
+ * Rows are read from the stream a chunk at a time. Each chunk is validated in
+ * parallel against the {@link Member} constraints, then compared with the
+ * members already stored under the chunk's emails using one query. New members
+ * are inserted and changed names or membership types are updated as two JDBC
+ * batches in one transaction per chunk. Unchanged rows are not written. Members
+ * missing from the extract are left alone. Every rejected row is reported with
+ * its line number, and a chunk that fails to write reports all of its rows
+ * without stopping the import.
+ */
+@Service
+public class MemberImportService {
+    private static final Logger log = LoggerFactory.getLogger(MemberImportService.class);
+
+    static final String INSERT_SQL = """
+            insert into members (name, name_key, email, membership_type, member_since, books_checked_out, version)
+            values (?, ?, ?, ?, ?, 0, 0)
+            """;
+
+    static final String UPDATE_SQL = """
+            update members set name = ?, name_key = ?, membership_type = ?, version = version + 1 where email = ?
+            """;
+
+    /** One row of an extract; {@code line} is only used for the error report. */
+    public record MemberRecord(long line, String name, String email, MembershipType membershipType) {
+    }
+
+    public record RowError(long line, String email, String message) {
+    }
+
+    public record Result(int inserted, int updated, int unchanged, List<RowError> errors) {
+    }
+
+    private final MemberRepository memberRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityCaches entityCaches;
+    private final Validator validator;
+    private final ObjectProvider<CirculationEngine> circulationEngine;
+    private final int batchSize;
+
+    public MemberImportService(MemberRepository memberRepository,
+                               JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               ApplicationEventPublisher eventPublisher,
+                               EntityCaches entityCaches,
+                               Validator validator,
+                               ObjectProvider<CirculationEngine> circulationEngine,
+                               @Value("${library.members.import-batch-size:1000}") int batchSize) {
+        this.memberRepository = memberRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.entityCaches = entityCaches;
+        this.validator = validator;
+        this.circulationEngine = circulationEngine;
+        this.batchSize = batchSize;
+    }
+
+    public Result importMembers(Stream<MemberRecord> records) {
+        if (circulationEngine.getIfAvailable() != null) {
+            // The engine keeps loaded members in memory and would not see changed types
+            throw new IllegalStateException("Member import is unavailable while the circulation engine is enabled");
+        }
+        long start = System.nanoTime();
+        Counts counts = new Counts();
+        Set<String> seen = new HashSet<>();
+        Iterator<MemberRecord> rows = records.iterator();
+        List<MemberRecord> chunk = new ArrayList<>(batchSize);
+        while (rows.hasNext()) {
+            chunk.add(rows.next());
+            if (chunk.size() == batchSize || !rows.hasNext()) {
+                importChunk(chunk, seen, counts);
+                chunk.clear();
+            }
+        }
+        log.info("Imported members in {} ms: {} inserted, {} updated, {} unchanged, {} rejected",
+                (System.nanoTime() - start) / 1_000_000, counts.inserted, counts.updated, counts.unchanged,
+                counts.errors.size());
+        return new Result(counts.inserted, counts.updated, counts.unchanged, List.copyOf(counts.errors));
+    }
+
+    private void importChunk(List<MemberRecord> chunk, Set<String> seen, Counts counts) {
+        List<String> problems = chunk.parallelStream().map(this::validate).toList();
+        List<MemberRecord> valid = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            MemberRecord row = chunk.get(i);
+            if (problems.get(i) != null) {
+                counts.errors.add(new RowError(row.line(), row.email(), problems.get(i)));
+            } else if (!seen.add(row.email())) {
+                counts.errors.add(new RowError(row.line(), row.email(), "Duplicate email in extract"));
+            } else {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        Map<String, Member> existing = memberRepository.findByEmailIn(valid.stream().map(MemberRecord::email).toList())
+                .stream()
+                .collect(Collectors.toMap(Member::getEmail, Function.identity()));
+        List<MemberRecord> inserts = new ArrayList<>();
+        List<MemberRecord> updates = new ArrayList<>();
+        for (MemberRecord row : valid) {
+            Member member = existing.get(row.email());
+            if (member == null) {
+                inserts.add(row);
+            } else if (!member.getName().equals(row.name()) || member.getMembershipType() != row.membershipType()) {
+                updates.add(row);
+            } else {
+                counts.unchanged++;
+            }
+        }
+        if (inserts.isEmpty() && updates.isEmpty()) {
+            return;
+        }
+
+        try {
+            write(inserts, updates);
+            entityCaches.evict(Member.class);
+            counts.inserted += inserts.size();
+            counts.updated += updates.size();
+        } catch (DataAccessException e) {
+            log.warn("Failed to write a chunk of {} imported members", inserts.size() + updates.size(), e);
+            String message = "Not saved: " + e.getMostSpecificCause().getMessage();
+            Stream.concat(inserts.stream(), updates.stream())
+                    .forEach(row -> counts.errors.add(new RowError(row.line(), row.email(), message)));
+        }
+    }
+
+    /** Null if the row would make a valid member, else every violated constraint. */
+    private String validate(MemberRecord row) {
+        if (row.membershipType() == null) {
+            return "membershipType: Membership type is required";
+        }
+        Set<ConstraintViolation<Member>> violations =
+                validator.validate(new Member(row.name(), row.email(), row.membershipType()));
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void write(List<MemberRecord> inserts, List<MemberRecord> updates) {
+        Date today = Date.valueOf(LocalDate.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, inserts, inserts.size(), (statement, row) -> {
+                    statement.setString(1, row.name());
+                    statement.setString(2, Member.nameKey(row.name()));
+                    statement.setString(3, row.email());
+                    statement.setString(4, row.membershipType().name());
+                    statement.setDate(5, today);
+                });
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, updates, updates.size(), (statement, row) -> {
+                    statement.setString(1, row.name());
+                    statement.setString(2, Member.nameKey(row.name()));
+                    statement.setString(3, row.membershipType().name());
+                    statement.setString(4, row.email());
+                });
+            }
+            // The batches bypass the entity listener, so tell the projection and filters ourselves
+            List<String> written = Stream.concat(inserts.stream(), updates.stream())
+                    .map(MemberRecord::email)
+                    .toList();
+            memberRepository.findByEmailIn(written)
+                    .forEach(member -> eventPublisher.publishEvent(new MemberChanged(MemberView.of(member), false)));
+        });
+    }
+
+    private static final class Counts {
+        int inserted;
+        int updated;
+        int unchanged;
+        final List<RowError> errors = new ArrayList<>();
+    }
+}
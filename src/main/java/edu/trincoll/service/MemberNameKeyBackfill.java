@@ -0,0 +1,39 @@
+package edu.trincoll.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills {@code members.name_key} for rows written before the column existed. A
+ * schema update adds the column empty, and name searches range-scan it, so the
+ * backfill runs once the schema is in place and before the instance serves
+ * requests. Rows that already have a key are left alone, so later starts update
+ * nothing.
+ */
+@Component
+public class MemberNameKeyBackfill implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(MemberNameKeyBackfill.class);
+
+    static final String BACKFILL_SQL = "update members set name_key = lower(trim(name)) where name_key is null";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MemberNameKeyBackfill(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int updated = backfill();
+        if (updated > 0) {
+            log.info("Backfilled name keys for {} members", updated);
+        }
+    }
+
+    public int backfill() {
+        return jdbcTemplate.update(BACKFILL_SQL);
+    }
+}
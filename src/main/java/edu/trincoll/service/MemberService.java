@@ -1,8 +1,14 @@
 package edu.trincoll.service;
 
+import edu.trincoll.index.ExistenceFilters;
 import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.CheckoutPolicyFactory;
 import edu.trincoll.repository.MemberRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import edu.trincoll.model.Book;
 import edu.trincoll.model.BookStatus;
@@ -18,28 +24,68 @@ import java.util.List;
 @Service
 public class MemberService {
     private final MemberRepository memberRepository;
+    private final ExistenceFilters existenceFilters;
+    private final CheckoutPolicyFactory checkoutPolicyFactory;
 
-    public MemberService(MemberRepository memberRepository) {
+    public MemberService(MemberRepository memberRepository, ExistenceFilters existenceFilters,
+                         CheckoutPolicyFactory checkoutPolicyFactory) {
         this.memberRepository = memberRepository;
+        this.existenceFilters = existenceFilters;
+        this.checkoutPolicyFactory = checkoutPolicyFactory;
     }
 
     public Member getByEmail(String email) {
+        if (!existenceFilters.mightContainEmail(email)) {
+            throw new IllegalArgumentException("Member not found");
+        }
         return memberRepository.findByEmail(email)
                 .orElseThrow(() -> new IllegalArgumentException("Member not found"));
     }
 
     public Member incrementCheckedOut(Member member) {
-        member.setBooksCheckedOut(member.getBooksCheckedOut() + 1);
-        return memberRepository.save(member);
+        return adjustCheckedOut(member, 1);
     }
 
     public Member decrementCheckedOut(Member member) {
-        if (member.getBooksCheckedOut() > 0) {
-            member.setBooksCheckedOut(member.getBooksCheckedOut() - 1);
+        return adjustCheckedOut(member, -1);
+    }
+
+    /**
+     * Saves the counter change; if the member was written since it was read (another
+     * checkout or return by the same member), the change is applied once more to the
+     * current row instead of overwriting it.
+     */
+    private Member adjustCheckedOut(Member member, int delta) {
+        try {
+            return memberRepository.save(withCheckedOut(member, delta));
+        } catch (OptimisticLockingFailureException e) {
+            Member current = memberRepository.findByEmail(member.getEmail()).orElseThrow(() -> e);
+            return memberRepository.save(withCheckedOut(current, delta));
         }
-        return memberRepository.save(member);
     }
 
+    private static Member withCheckedOut(Member member, int delta) {
+        member.setBooksCheckedOut(Math.max(0, member.getBooksCheckedOut() + delta));
+        return member;
+    }
+
+    public Slice<Member> membersByType(MembershipType type, int page, int size) {
+        return memberRepository.findByMembershipType(type, PageRequest.of(page, size, Sort.by("nameKey", "id")));
+    }
 
+    /** Members whose name starts with {@code prefix}, ignoring case, in name order. */
+    public Slice<Member> searchByName(String prefix, int page, int size) {
+        return memberRepository.findByNameKeyStartingWith(Member.nameKey(prefix),
+                PageRequest.of(page, size, Sort.by("nameKey", "id")));
+    }
 
+    /**
+     * Members of {@code type} with at most {@code margin} checkouts left under the
+     * current tier limit, fullest first. A margin of zero finds members at the limit.
+     */
+    public Slice<Member> membersNearLimit(MembershipType type, int margin, int page, int size) {
+        int threshold = Math.max(0, checkoutPolicyFactory.getCheckoutPolicy(type).getMaxBooks() - margin);
+        return memberRepository.findByMembershipTypeAndBooksCheckedOutGreaterThanEqual(type, threshold,
+                PageRequest.of(page, size, Sort.by(Sort.Order.desc("booksCheckedOut"), Sort.Order.asc("id"))));
+    }
 }
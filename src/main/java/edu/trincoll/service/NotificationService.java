@@ -4,8 +4,11 @@ import edu.trincoll.model.Book;
 import edu.trincoll.model.Member;
 
 import java.time.LocalDate;
+import java.util.List;
 
 public interface NotificationService {
     String sendCheckoutNotification(Member member, Book book, LocalDate dueDate);
     String sendReturnNotification(Member member, Book book, double lateFee);
+    String sendHoldReadyNotification(Member member, Book book, LocalDate pickupDeadline);
+    String sendDueSoonNotification(Member member, List<Book> books, LocalDate dueDate);
 }
@@ -0,0 +1,279 @@
+package edu.trincoll.service;
+
+import edu.trincoll.engine.CirculationEngine;
+import edu.trincoll.model.Book;
+import edu.trincoll.model.BookStatus;
+import edu.trincoll.model.Member;
+import edu.trincoll.model.Reservation;
+import edu.trincoll.model.ReservationStatus;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.BookTitleRepository;
+import edu.trincoll.repository.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Per-ISBN FIFO hold queues. Serving the next holder on return is a single indexed
+ * read of the queue head, and the expiry sweep walks the deadline index in batches.
+ *
+ * When the {@link CirculationEngine} runs it owns the copies and hold queues of the
+ * titles it has loaded, so placed holds are handed to it and cancellations and
+ * expiries are applied by it; this service then never writes a copy row.
+ */
+@Service
+public class ReservationService {
+    private static final Logger log = LoggerFactory.getLogger(ReservationService.class);
+    private static final EnumSet<ReservationStatus> ACTIVE =
+            EnumSet.of(ReservationStatus.WAITING, ReservationStatus.READY);
+
+    private final ReservationRepository reservationRepository;
+    private final BookRepository bookRepository;
+    private final BookTitleRepository bookTitleRepository;
+    private final CatalogService catalogService;
+    private final MemberService memberService;
+    private final NotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final CirculationEngine circulationEngine;
+    private final int pickupDays;
+    private final int sweepBatchSize;
+
+    public ReservationService(ReservationRepository reservationRepository,
+                              BookRepository bookRepository,
+                              BookTitleRepository bookTitleRepository,
+                              CatalogService catalogService,
+                              MemberService memberService,
+                              @Lazy NotificationService notificationService,
+                              ApplicationEventPublisher eventPublisher,
+                              TransactionTemplate transactionTemplate,
+                              ObjectProvider<CirculationEngine> circulationEngine,
+                              @Value("${library.reservations.pickup-days:3}") int pickupDays,
+                              @Value("${library.reservations.sweep-batch-size:500}") int sweepBatchSize) {
+        this.reservationRepository = reservationRepository;
+        this.bookRepository = bookRepository;
+        this.bookTitleRepository = bookTitleRepository;
+        this.catalogService = catalogService;
+        this.memberService = memberService;
+        this.notificationService = notificationService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.circulationEngine = circulationEngine.getIfAvailable();
+        this.pickupDays = pickupDays;
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    public Reservation placeHold(String isbn, String memberEmail) {
+        catalogService.getTitleOrThrow(isbn);
+        Member member = memberService.getByEmail(memberEmail);
+
+        if (catalogService.isAnyCopyAvailable(isbn)) {
+            throw new IllegalStateException("Book is available for checkout");
+        }
+        if (reservationRepository.existsByIsbnAndMemberEmailAndStatusIn(isbn, member.getEmail(), ACTIVE)) {
+            throw new IllegalStateException("Member already has a hold on this book");
+        }
+        Reservation placed = reservationRepository.save(new Reservation(isbn, member.getEmail()));
+        if (circulationEngine != null) {
+            await(circulationEngine.placeHold(placed));
+        }
+        return placed;
+    }
+
+    public long queuePosition(Reservation reservation) {
+        return reservationRepository.countByIsbnAndStatusAndIdLessThanEqual(
+                reservation.getIsbn(), ReservationStatus.WAITING, reservation.getId());
+    }
+
+    /**
+     * Cancels the member's waiting or ready hold. A copy already set aside for a ready
+     * hold is passed on to the next holder, or back to the shelf.
+     */
+    public void cancelHold(String isbn, String memberEmail) {
+        if (circulationEngine != null) {
+            await(circulationEngine.cancelHold(isbn, memberEmail));
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            Reservation reservation = reservationRepository
+                    .findFirstByIsbnAndMemberEmailAndStatusIn(isbn, memberEmail, ACTIVE)
+                    .orElseThrow(() -> new IllegalArgumentException("Hold not found"));
+            boolean wasReady = reservation.getStatus() == ReservationStatus.READY;
+            reservation.setStatus(ReservationStatus.CANCELLED);
+            reservationRepository.save(reservation);
+
+            if (wasReady && reservation.getBookId() != null) {
+                releaseCopy(reservation.getBookId());
+            }
+        });
+    }
+
+    /**
+     * Hands a returned copy to the head of its hold queue, if there is one. The holder
+     * is told by {@link #onHoldReady} once the surrounding transaction commits.
+     *
+     * @return true if the copy is now held for someone and should be marked RESERVED
+     */
+    public boolean assignNextHolder(Book book) {
+        Optional<Reservation> next = reservationRepository
+                .findFirstByIsbnAndStatusOrderByIdAsc(book.getIsbn(), ReservationStatus.WAITING);
+        if (next.isEmpty()) {
+            return false;
+        }
+        Reservation reservation = next.get();
+        reservation.setStatus(ReservationStatus.READY);
+        reservation.setBookId(book.getId());
+        reservation.setPickupDeadline(LocalDate.now().plusDays(pickupDays));
+        reservationRepository.save(reservation);
+
+        eventPublisher.publishEvent(new HoldReady(reservation.getMemberEmail(), book, reservation.getPickupDeadline()));
+        return true;
+    }
+
+    /**
+     * Notifies the holder after the hold is committed, so a rolled-back return never
+     * sends a pickup notice. The return has already succeeded by then; a failed
+     * notification is logged rather than reported to the caller.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHoldReady(HoldReady event) {
+        try {
+            Member holder = memberService.getByEmail(event.memberEmail());
+            notificationService.sendHoldReadyNotification(holder, event.copy(), event.pickupDeadline());
+        } catch (RuntimeException e) {
+            log.warn("Could not notify {} that {} is ready", event.memberEmail(), event.copy().getIsbn(), e);
+        }
+    }
+
+    public Optional<Long> readyCopyFor(String isbn, String memberEmail) {
+        return reservationRepository
+                .findFirstByIsbnAndMemberEmailAndStatus(isbn, memberEmail, ReservationStatus.READY)
+                .map(Reservation::getBookId);
+    }
+
+    /**
+     * Moves the member's ready hold onto {@code copy}, an available copy at the branch
+     * they came to, and passes the copy set aside for them elsewhere on to the next
+     * holder or back to the shelf.
+     *
+     * @return the copy, now RESERVED for the member, or empty if they have no ready
+     *         hold or the copy is no longer on the shelf
+     */
+    public Optional<Book> moveReadyHold(Book copy, String memberEmail) {
+        return transactionTemplate.execute(status -> {
+            Optional<Reservation> ready = reservationRepository
+                    .findFirstByIsbnAndMemberEmailAndStatus(copy.getIsbn(), memberEmail, ReservationStatus.READY);
+            if (ready.isEmpty() || copy.getStatus() != BookStatus.AVAILABLE) {
+                return Optional.<Book>empty();
+            }
+            Reservation reservation = ready.get();
+            Long previous = reservation.getBookId();
+            reservation.setBookId(copy.getId());
+            reservationRepository.save(reservation);
+
+            copy.setStatus(BookStatus.RESERVED);
+            Book moved = bookRepository.save(copy);
+            bookTitleRepository.decrementAvailable(copy.getIsbn());
+            if (previous != null) {
+                releaseCopy(previous);
+            }
+            return Optional.of(moved);
+        });
+    }
+
+    /**
+     * Fulfils the member's ready hold on this copy, if any.
+     *
+     * @return true if the member was the holder and may check the copy out
+     */
+    public boolean claimHold(Book book, Member member) {
+        Optional<Reservation> ready = reservationRepository
+                .findFirstByIsbnAndMemberEmailAndStatus(book.getIsbn(), member.getEmail(), ReservationStatus.READY);
+        if (ready.isEmpty() || !book.getId().equals(ready.get().getBookId())) {
+            return false;
+        }
+        Reservation reservation = ready.get();
+        reservation.setStatus(ReservationStatus.FULFILLED);
+        reservationRepository.save(reservation);
+        return true;
+    }
+
+    /**
+     * Expires ready holds whose pickup deadline has passed and passes each copy on to
+     * the next holder (or back to the shelf). Runs in short batch transactions so a
+     * large backlog never holds locks for long. With the engine running, each title
+     * that has overdue holds is expired by the engine instead.
+     *
+     * @return number of holds expired
+     */
+    @Scheduled(cron = "${library.reservations.expiry-cron:0 */15 * * * *}")
+    public int expireHolds() {
+        LocalDate today = LocalDate.now();
+        int expired = 0;
+        if (circulationEngine != null) {
+            for (String isbn : reservationRepository.findIsbnsByStatusAndPickupDeadlineBefore(ReservationStatus.READY, today)) {
+                expired += await(circulationEngine.expireHolds(isbn, today));
+            }
+            return expired;
+        }
+        while (true) {
+            Integer batch = transactionTemplate.execute(status -> expireBatch(today));
+            if (batch == null || batch == 0) {
+                return expired;
+            }
+            expired += batch;
+        }
+    }
+
+    private int expireBatch(LocalDate today) {
+        List<Reservation> overdue = reservationRepository.findByStatusAndPickupDeadlineBeforeOrderByIdAsc(
+                ReservationStatus.READY, today, Limit.of(sweepBatchSize));
+        for (Reservation reservation : overdue) {
+            reservation.setStatus(ReservationStatus.EXPIRED);
+            reservationRepository.save(reservation);
+
+            if (reservation.getBookId() != null) {
+                releaseCopy(reservation.getBookId());
+            }
+        }
+        return overdue.size();
+    }
+
+    private static <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void releaseCopy(Long bookId) {
+        bookRepository.findById(bookId)
+                .filter(book -> book.getStatus() == BookStatus.RESERVED)
+                .ifPresent(book -> {
+                    book.setStatus(assignNextHolder(book) ? BookStatus.RESERVED : BookStatus.AVAILABLE);
+                    bookRepository.save(book);
+                    if (book.getStatus() == BookStatus.AVAILABLE) {
+                        bookTitleRepository.incrementAvailable(book.getIsbn());
+                    }
+                });
+    }
+}
@@ -0,0 +1,167 @@
+package edu.trincoll.service.history;
+
+import edu.trincoll.model.LoanEvent;
+import edu.trincoll.model.LoanEventType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact, gzip-compressed file holding one month of loan history.
+ *
+ * Layout: magic, version, month, the id of the newest live row the file covers,
+ * then one record per event. ISBNs and member emails are dictionary-encoded:
+ * each string is written in full the first time it appears and referenced by
+ * index afterwards. Timestamps are kept to the second. A type byte of {@code -1}
+ * ends the file. Version 1 files have no covered id and 16-bit copy numbers;
+ * they can still be read.
+ */
+public final class LoanArchiveFile implements AutoCloseable {
+    /** Covered id reported for version 1 files, which did not record one. */
+    public static final long UNKNOWN_ID = -1;
+
+    private static final int MAGIC = 0x4C484131; // "LHA1"
+    private static final int VERSION = 2;
+    private static final byte END = -1;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private long written;
+
+    private LoanArchiveFile(DataOutputStream out) {
+        this.out = out;
+    }
+
+    /** The file's header and the id of the newest live row archived into it. */
+    public record Header(int loanMonth, long coveredId) {
+    }
+
+    /**
+     * @param coveredId the id of the newest live row the file will hold; rows up to
+     *                  and including it may be dropped from the table once the file is in place
+     */
+    public static LoanArchiveFile create(Path file, int loanMonth, long coveredId) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024)));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(loanMonth);
+        out.writeLong(coveredId);
+        return new LoanArchiveFile(out);
+    }
+
+    public void append(LoanEvent event) throws IOException {
+        out.writeByte(event.getType().ordinal());
+        writeString(event.getIsbn());
+        out.writeInt(event.getCopyNumber());
+        writeString(event.getMemberEmail());
+        out.writeLong(event.getOccurredAt().toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(event.getDueDate() == null ? NO_DATE : (int) event.getDueDate().toEpochDay());
+        out.writeDouble(event.getLateFee());
+        written++;
+    }
+
+    public long written() {
+        return written;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.writeByte(END);
+        out.close();
+    }
+
+    private void writeString(String value) throws IOException {
+        Integer index = dictionary.get(value);
+        if (index != null) {
+            out.writeInt(index);
+            return;
+        }
+        out.writeInt(dictionary.size());
+        out.writeUTF(value);
+        dictionary.put(value, dictionary.size());
+    }
+
+    /**
+     * Streams every event in an archive file to {@code consumer}.
+     *
+     * @return the file header
+     */
+    public static Header read(Path file, Consumer<LoanEvent> consumer) throws IOException {
+        try (DataInputStream in = open(file)) {
+            int version = readVersion(in, file);
+            int loanMonth = in.readInt();
+            long coveredId = version == 1 ? UNKNOWN_ID : in.readLong();
+            List<String> dictionary = new ArrayList<>();
+            LoanEventType[] types = LoanEventType.values();
+            while (true) {
+                byte type = in.readByte();
+                if (type == END) {
+                    return new Header(loanMonth, coveredId);
+                }
+                String isbn = readString(in, dictionary);
+                int copyNumber = version == 1 ? in.readShort() : in.readInt();
+                String email = readString(in, dictionary);
+                LocalDateTime occurredAt = LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC);
+                int dueDay = in.readInt();
+                double lateFee = in.readDouble();
+                consumer.accept(new LoanEvent(types[type], isbn, copyNumber, email, occurredAt,
+                        dueDay == NO_DATE ? null : LocalDate.ofEpochDay(dueDay), lateFee));
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated loan archive: " + file, e);
+        }
+    }
+
+    /** Reads only the header, without reading the events. */
+    public static Header header(Path file) throws IOException {
+        try (DataInputStream in = open(file)) {
+            int version = readVersion(in, file);
+            int loanMonth = in.readInt();
+            return new Header(loanMonth, version == 1 ? UNKNOWN_ID : in.readLong());
+        } catch (EOFException e) {
+            throw new IOException("Truncated loan archive: " + file, e);
+        }
+    }
+
+    private static DataInputStream open(Path file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file), 64 * 1024)));
+    }
+
+    private static int readVersion(DataInputStream in, Path file) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a loan archive: " + file);
+        }
+        int version = in.readInt();
+        if (version != 1 && version != VERSION) {
+            throw new IOException("Unsupported loan archive version " + version + ": " + file);
+        }
+        return version;
+    }
+
+    private static String readString(DataInputStream in, List<String> dictionary) throws IOException {
+        int index = in.readInt();
+        if (index == dictionary.size()) {
+            dictionary.add(in.readUTF());
+        }
+        return dictionary.get(index);
+    }
+}
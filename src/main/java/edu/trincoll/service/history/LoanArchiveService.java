@@ -0,0 +1,158 @@
+package edu.trincoll.service.history;
+
+import edu.trincoll.model.LoanEvent;
+import edu.trincoll.repository.LoanEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Moves cold months of loan history out of the live table into compact
+ * {@link LoanArchiveFile}s, one file per month.
+ */
+@Service
+public class LoanArchiveService {
+    private static final Logger log = LoggerFactory.getLogger(LoanArchiveService.class);
+
+    private final LoanEventRepository loanEventRepository;
+    private final Path archiveDir;
+    private final int hotMonths;
+    private final int batchSize;
+
+    public LoanArchiveService(LoanEventRepository loanEventRepository,
+                              @Value("${library.loans.archive-dir:data/loan-archive}") Path archiveDir,
+                              @Value("${library.loans.hot-months:6}") int hotMonths,
+                              @Value("${library.loans.archive-batch-size:5000}") int batchSize) {
+        this.loanEventRepository = loanEventRepository;
+        this.archiveDir = archiveDir;
+        this.hotMonths = hotMonths;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Archives every month older than the hot window.
+     *
+     * @return the months that were archived
+     */
+    @Scheduled(cron = "${library.loans.archive-cron:0 30 2 1 * *}")
+    public List<Integer> archiveColdMonths() {
+        int cutoff = LoanEvent.monthKey(LocalDate.now().minusMonths(hotMonths));
+        List<Integer> archived = new ArrayList<>();
+        for (int month : loanEventRepository.findMonthsBefore(cutoff)) {
+            archiveMonth(month);
+            archived.add(month);
+        }
+        return archived;
+    }
+
+    /**
+     * Streams one month to its archive file in keyset-paged batches, then drops
+     * the archived rows from the live table. The file is written under a temporary
+     * name and moved into place first, so a crash never loses rows.
+     *
+     * Only rows up to the newest id seen at the start are archived and deleted, and
+     * the file records that id. If the month already has an archive, its events are
+     * carried over and only rows past its recorded id are added, so running again
+     * after a crash between the move and the delete does not duplicate events.
+     * Archives written before ids were recorded are not merged.
+     */
+    public Path archiveMonth(int month) {
+        Path target = archiveFile(month);
+        Optional<Long> newest = loanEventRepository.findMaxIdByLoanMonth(month);
+        if (newest.isEmpty()) {
+            return target;
+        }
+        long upToId = newest.get();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(archiveDir);
+            boolean merge = Files.exists(target);
+            long lastId = merge ? previouslyCovered(target) : 0L;
+            long written;
+            try (LoanArchiveFile file = LoanArchiveFile.create(temp, month, Math.max(upToId, lastId))) {
+                if (merge) {
+                    LoanArchiveFile.read(target, event -> append(file, event));
+                }
+                List<LoanEvent> batch;
+                do {
+                    batch = loanEventRepository.findByLoanMonthAndIdGreaterThanAndIdLessThanEqualOrderByIdAsc(
+                            month, lastId, upToId, Limit.of(batchSize));
+                    for (LoanEvent event : batch) {
+                        file.append(event);
+                        lastId = event.getId();
+                    }
+                } while (batch.size() == batchSize);
+                written = file.written();
+            }
+            // The new file holds everything the old one did, so replacing it loses nothing
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            int deleted = loanEventRepository.deleteArchived(month, upToId);
+            log.info("Archived {} loan events for {} to {} ({} rows removed)", written, month, target, deleted);
+            return target;
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new UncheckedIOException("Could not archive loan month " + month, e);
+        } catch (RuntimeException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+    }
+
+    public boolean isArchived(int month) {
+        return Files.exists(archiveFile(month));
+    }
+
+    public void readArchivedMonth(int month, Consumer<LoanEvent> consumer) {
+        Path file = archiveFile(month);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            LoanArchiveFile.read(file, consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path archiveFile(int month) {
+        return archiveDir.resolve("loans-" + month + ".lha");
+    }
+
+    private static long previouslyCovered(Path archive) throws IOException {
+        long coveredId = LoanArchiveFile.header(archive).coveredId();
+        if (coveredId == LoanArchiveFile.UNKNOWN_ID) {
+            throw new IllegalStateException("Archive " + archive + " does not record the rows it covers and cannot be merged");
+        }
+        return coveredId;
+    }
+
+    private static void append(LoanArchiveFile file, LoanEvent event) {
+        try {
+            file.append(event);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package edu.trincoll.service.history;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.LoanEvent;
+import edu.trincoll.model.LoanEventType;
+import edu.trincoll.repository.IsbnCount;
+import edu.trincoll.repository.LoanEventRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class LoanHistoryService {
+    private final LoanEventRepository loanEventRepository;
+    private final LoanArchiveService loanArchiveService;
+
+    public LoanHistoryService(LoanEventRepository loanEventRepository, LoanArchiveService loanArchiveService) {
+        this.loanEventRepository = loanEventRepository;
+        this.loanArchiveService = loanArchiveService;
+    }
+
+    public void recordCheckout(Book book) {
+        loanEventRepository.save(new LoanEvent(LoanEventType.CHECKOUT, book.getIsbn(), book.getCopyNumber(),
+                book.getCheckedOutBy(), LocalDateTime.now(), book.getDueDate(), 0.0));
+    }
+
+    public void recordReturn(Book book, String memberEmail, double lateFee) {
+        loanEventRepository.save(new LoanEvent(LoanEventType.RETURN, book.getIsbn(), book.getCopyNumber(),
+                memberEmail, LocalDateTime.now(), null, lateFee));
+    }
+
+    /**
+     * A member's loans from the live table only, newest first. Months older than the
+     * hot window have been archived; read those with
+     * {@link LoanArchiveService#readArchivedMonth}.
+     */
+    public Slice<LoanEvent> recentMemberHistory(String memberEmail, int page, int size) {
+        return loanEventRepository.findByMemberEmailOrderByOccurredAtDesc(memberEmail, PageRequest.of(page, size));
+    }
+
+    /**
+     * Most-borrowed ISBNs for a month range. Archived months in the range are
+     * counted from their archive files, which costs a pass over each file.
+     */
+    public List<IsbnCount> mostBorrowed(YearMonth from, YearMonth to, int limit) {
+        int fromMonth = LoanEvent.monthKey(from.atDay(1));
+        int toMonth = LoanEvent.monthKey(to.atDay(1));
+        List<Integer> archived = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            int key = LoanEvent.monthKey(month.atDay(1));
+            if (loanArchiveService.isArchived(key)) {
+                archived.add(key);
+            }
+        }
+        if (archived.isEmpty()) {
+            return loanEventRepository.findMostBorrowed(fromMonth, toMonth, Limit.of(limit));
+        }
+
+        // A live top-N cannot be combined with archive counts, so count every title
+        Map<String, Long> counts = new HashMap<>();
+        for (IsbnCount live : loanEventRepository.countBorrowed(fromMonth, toMonth)) {
+            counts.merge(live.isbn(), live.count(), Long::sum);
+        }
+        for (int month : archived) {
+            loanArchiveService.readArchivedMonth(month, event -> {
+                if (event.getType() == LoanEventType.CHECKOUT) {
+                    counts.merge(event.getIsbn(), 1L, Long::sum);
+                }
+            });
+        }
+        return counts.entrySet().stream()
+                .map(entry -> new IsbnCount(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingLong(IsbnCount::count).reversed())
+                .limit(limit)
+                .toList();
+    }
+}
@@ -0,0 +1,111 @@
+package edu.trincoll.service.idempotency;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the outcome of each keyed request for a fixed window so a retry gets
+ * the first result back instead of running the operation again.
+ *
+ * A retry that arrives while the first attempt is still running waits for it. An
+ * {@link IllegalArgumentException} (unknown book or member) is a result like any
+ * other and is replayed; any other exception is forgotten, so the client may
+ * retry for real. Reusing a key for a different request is rejected. Entries leave after {@code window}
+ * or, once more than {@code maxEntries} are held, oldest first.
+ */
+public final class IdempotencyStore<T> {
+
+    private record Entry<T>(String key, String request, CompletableFuture<T> result, long expiresAtMillis) {
+    }
+
+    private final Map<String, Entry<T>> entries = new ConcurrentHashMap<>();
+    // Insertion order is expiry order because every entry lives for the same window
+    private final Queue<Entry<T>> order = new ConcurrentLinkedQueue<>();
+    private final Duration window;
+    private final int maxEntries;
+    private final Clock clock;
+
+    public IdempotencyStore(Duration window, int maxEntries, Clock clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("The store must hold at least one entry");
+        }
+        this.window = window;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /** {@code replayed} is true when the result came from an earlier attempt with the same key. */
+    public record Outcome<T>(T result, boolean replayed) {
+    }
+
+    /**
+     * Runs {@code operation} unless a request with {@code key} was seen within the
+     * window, in which case that request's result is returned.
+     *
+     * @param request describes the request, so a key reused for something else is caught
+     */
+    public Outcome<T> execute(String key, String request, Supplier<T> operation) {
+        long now = clock.millis();
+        expire(now);
+        Entry<T> mine = new Entry<>(key, request, new CompletableFuture<>(), now + window.toMillis());
+        while (true) {
+            Entry<T> existing = entries.putIfAbsent(key, mine);
+            if (existing == null) {
+                break;
+            }
+            if (existing.expiresAtMillis() <= now) {
+                entries.remove(key, existing);
+                continue;
+            }
+            if (!existing.request().equals(request)) {
+                throw new IllegalArgumentException("Idempotency key was already used for a different request");
+            }
+            return new Outcome<>(await(existing.result()), true);
+        }
+        order.add(mine);
+        try {
+            T result = operation.get();
+            mine.result().complete(result);
+            return new Outcome<>(result, false);
+        } catch (IllegalArgumentException e) {
+            mine.result().completeExceptionally(e);
+            throw e;
+        } catch (RuntimeException e) {
+            entries.remove(key, mine);
+            order.remove(mine);
+            mine.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void expire(long now) {
+        Entry<T> oldest;
+        while ((oldest = order.peek()) != null && (oldest.expiresAtMillis() <= now || entries.size() >= maxEntries)) {
+            if (order.remove(oldest)) {
+                entries.remove(oldest.key(), oldest);
+            }
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package edu.trincoll.service.idempotency;
+
+import edu.trincoll.service.LibraryService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Checkouts and returns keyed by a client-chosen idempotency key, for kiosks that
+ * retry on timeout. A retry within {@code library.idempotency.window} gets the
+ * message of the first attempt without touching the database, so a retried
+ * return cannot decrement the member's count twice.
+ */
+@Service
+public class IdempotentCirculationService {
+    private final LibraryService libraryService;
+    private final IdempotencyStore<String> store;
+    private final Counter replays;
+
+    public IdempotentCirculationService(LibraryService libraryService,
+                                        MeterRegistry registry,
+                                        @Value("${library.idempotency.window:10m}") Duration window,
+                                        @Value("${library.idempotency.max-entries:100000}") int maxEntries) {
+        this.libraryService = libraryService;
+        this.store = new IdempotencyStore<>(window, maxEntries, Clock.systemUTC());
+        this.replays = Counter.builder("library.idempotency.replays")
+                .description("Circulation requests answered from an earlier attempt with the same key")
+                .register(registry);
+        Gauge.builder("library.idempotency.entries", store, IdempotencyStore::size)
+                .description("Idempotency keys currently remembered")
+                .register(registry);
+    }
+
+    public String checkoutBook(String idempotencyKey, String isbn, String memberEmail) {
+        return execute(idempotencyKey, "checkout " + isbn + " " + memberEmail,
+                () -> libraryService.checkoutBook(isbn, memberEmail));
+    }
+
+    public String checkoutBook(String idempotencyKey, String isbn, String memberEmail, String branch) {
+        return execute(idempotencyKey, "checkout " + isbn + " " + memberEmail + " at " + branch,
+                () -> libraryService.checkoutBook(isbn, memberEmail, branch));
+    }
+
+    public String returnBook(String idempotencyKey, String isbn) {
+        return execute(idempotencyKey, "return " + isbn, () -> libraryService.returnBook(isbn));
+    }
+
+    public String returnBook(String idempotencyKey, String isbn, String memberEmail) {
+        return execute(idempotencyKey, "return " + isbn + " from " + memberEmail,
+                () -> libraryService.returnBook(isbn, memberEmail));
+    }
+
+    public String returnBook(String idempotencyKey, String isbn, String memberEmail, String branch) {
+        return execute(idempotencyKey, "return " + isbn + " from " + memberEmail + " at " + branch,
+                () -> libraryService.returnBook(isbn, memberEmail, branch));
+    }
+
+    public String returnBook(String idempotencyKey, String isbn, int copyNumber) {
+        return execute(idempotencyKey, "return " + isbn + " copy " + copyNumber,
+                () -> libraryService.returnBook(isbn, copyNumber));
+    }
+
+    private String execute(String idempotencyKey, String request, Supplier<String> operation) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            throw new IllegalArgumentException("Idempotency key is required");
+        }
+        IdempotencyStore.Outcome<String> outcome = store.execute(idempotencyKey, request, operation);
+        if (outcome.replayed()) {
+            replays.increment();
+        }
+        return outcome.result();
+    }
+}
@@ -1,20 +1,19 @@
 package edu.trincoll.service.latefee;
 
 import edu.trincoll.model.MembershipType;
+import edu.trincoll.policy.MembershipTiers;
 import org.springframework.stereotype.Component;
 
+/** Late fees follow the same installed tier table as checkout limits. */
 @Component
 public class LateFeeCalculatorFactory {
+    private final MembershipTiers tiers;
+
+    public LateFeeCalculatorFactory(MembershipTiers tiers) {
+        this.tiers = tiers;
+    }
+
     public LateFeeCalculator getCalculator(MembershipType membershipType) {
-        switch (membershipType) {
-            case REGULAR:
-                return new RegularLateFeeCalculator();
-            case PREMIUM:
-                return new PremiumLateFeeCalculator();
-            case STUDENT:
-                return new StudentLateFeeCalculator();
-            default:
-                throw new IllegalArgumentException("Unknown membership type: " + membershipType);
-        }
+        return tiers.current().policy(membershipType);
     }
-}
\ No newline at end of file
+}
@@ -1,8 +0,0 @@
-package edu.trincoll.service.latefee;
-
-public class RegularLateFeeCalculator implements LateFeeCalculator {
-    @Override
-    public double calculateLateFee(long daysLate) {
-        return daysLate * 0.50;
-    }
-}
\ No newline at end of file
@@ -0,0 +1,458 @@
+package edu.trincoll.snapshot;
+
+import edu.trincoll.model.BookStatus;
+import edu.trincoll.model.MembershipType;
+import edu.trincoll.projection.BookView;
+import edu.trincoll.projection.MemberView;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Read-only, memory-mapped binary snapshot of copies and members.
+ *
+ * Layout: a 64-byte header, fixed-width copy rows sorted by (isbn, copy number),
+ * fixed-width member rows sorted by email, row numbers of each sorted by id, then
+ * a string table. Titles, authors, names and emails are stored once in the string
+ * table and referenced by index; status and membership type are single bytes and
+ * dates are epoch days. Rows are read straight from the mapping, so lookups and
+ * scans never build entities and the data lives outside the heap.
+ *
+ * The header carries the {@link Mark} the catalog was at when the rows were read.
+ * Closing releases the file handle only; as with any mapped buffer the rows stay
+ * readable until the snapshot itself is unreachable.
+ */
+public final class CatalogSnapshot implements AutoCloseable {
+    private static final int MAGIC = 0x4C435331; // "LCS1"
+    private static final int VERSION = 4;
+    private static final int HEADER_SIZE = 64;
+    private static final int ISBN_WIDTH = 20;
+    private static final int NONE = -1;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    // Copy row: id, isbn, copy number, status, title, author, published, checked out by, due, branch
+    private static final int BOOK_ID = 0;
+    private static final int BOOK_ISBN = 8;
+    private static final int BOOK_COPY = BOOK_ISBN + ISBN_WIDTH;
+    private static final int BOOK_STATUS = BOOK_COPY + 4;
+    private static final int BOOK_TITLE = BOOK_STATUS + 4;
+    private static final int BOOK_AUTHOR = BOOK_TITLE + 4;
+    private static final int BOOK_PUBLISHED = BOOK_AUTHOR + 4;
+    private static final int BOOK_BORROWER = BOOK_PUBLISHED + 4;
+    private static final int BOOK_DUE = BOOK_BORROWER + 4;
+    private static final int BOOK_BRANCH = BOOK_DUE + 4;
+    static final int BOOK_ROW = BOOK_BRANCH + 4;
+
+    // Member row: id, email, name, membership type, books checked out
+    private static final int MEMBER_ID = 0;
+    private static final int MEMBER_EMAIL = 8;
+    private static final int MEMBER_NAME = 12;
+    private static final int MEMBER_TYPE = 16;
+    private static final int MEMBER_COUNT = 20;
+    static final int MEMBER_ROW = 24;
+
+    private static final BookStatus[] STATUSES = BookStatus.values();
+    private static final MembershipType[] TYPES = MembershipType.values();
+
+    /**
+     * How far the catalog had got when a snapshot was taken: the newest loan event
+     * and the sums of copy and member row versions. Every checkout and return adds a
+     * loan event and every copy or member write bumps its version, so a snapshot
+     * whose mark differs from the database's is stale.
+     */
+    public record Mark(long lastLoanEventId, long bookVersions, long memberVersions) {
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer data;
+    private final Instant createdAt;
+    private final Mark mark;
+    private final int bookCount;
+    private final int memberCount;
+    private final int booksStart;
+    private final int membersStart;
+    private final int bookIdsStart;
+    private final int memberIdsStart;
+    private final int stringOffsetsStart;
+    private final int stringDataStart;
+    private final String[] decoded;
+
+    private CatalogSnapshot(FileChannel channel, ByteBuffer data) throws IOException {
+        this.channel = channel;
+        this.data = data;
+        if (data.limit() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException("Not a catalog snapshot");
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IOException("Unsupported catalog snapshot version " + data.getInt(4));
+        }
+        this.createdAt = Instant.ofEpochMilli(data.getLong(8));
+        this.bookCount = data.getInt(16);
+        this.memberCount = data.getInt(20);
+        int stringCount = data.getInt(24);
+        this.mark = new Mark(data.getLong(32), data.getLong(40), data.getLong(48));
+        this.booksStart = HEADER_SIZE;
+        this.membersStart = booksStart + bookCount * BOOK_ROW;
+        this.bookIdsStart = membersStart + memberCount * MEMBER_ROW;
+        this.memberIdsStart = bookIdsStart + bookCount * 4;
+        this.stringOffsetsStart = memberIdsStart + memberCount * 4;
+        this.stringDataStart = stringOffsetsStart + (stringCount + 1) * 4;
+        if (data.limit() < stringDataStart || data.limit() < stringDataStart + data.getInt(stringOffsetsStart + stringCount * 4)) {
+            throw new IOException("Truncated catalog snapshot");
+        }
+        this.decoded = new String[stringCount];
+    }
+
+    public static CatalogSnapshot open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new CatalogSnapshot(channel, data.order(ByteOrder.LITTLE_ENDIAN));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Instant createdAt() {
+        return createdAt;
+    }
+
+    public Mark mark() {
+        return mark;
+    }
+
+    public int bookCount() {
+        return bookCount;
+    }
+
+    public int memberCount() {
+        return memberCount;
+    }
+
+    public void forEachBook(Consumer<BookView> consumer) {
+        for (int row = 0; row < bookCount; row++) {
+            consumer.accept(book(row));
+        }
+    }
+
+    public void forEachMember(Consumer<MemberView> consumer) {
+        for (int row = 0; row < memberCount; row++) {
+            consumer.accept(member(row));
+        }
+    }
+
+    // Column readers, so callers can filter rows before building a view
+
+    public BookView book(int row) {
+        int at = bookAt(row);
+        return new BookView(
+                data.getLong(at + BOOK_ID),
+                isbn(row),
+                data.getInt(at + BOOK_COPY),
+                title(row),
+                author(row),
+                date(data.getInt(at + BOOK_PUBLISHED)),
+                status(row),
+                string(data.getInt(at + BOOK_BORROWER)),
+                dueDate(row),
+                branch(row));
+    }
+
+    public long bookId(int row) {
+        return data.getLong(bookAt(row) + BOOK_ID);
+    }
+
+    public String isbn(int row) {
+        int at = bookAt(row) + BOOK_ISBN;
+        int length = 0;
+        while (length < ISBN_WIDTH && data.get(at + length) != 0) {
+            length++;
+        }
+        byte[] bytes = new byte[length];
+        data.get(at, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    public BookStatus status(int row) {
+        return STATUSES[data.get(bookAt(row) + BOOK_STATUS)];
+    }
+
+    public String title(int row) {
+        return string(data.getInt(bookAt(row) + BOOK_TITLE));
+    }
+
+    public String author(int row) {
+        return string(data.getInt(bookAt(row) + BOOK_AUTHOR));
+    }
+
+    public LocalDate dueDate(int row) {
+        return date(data.getInt(bookAt(row) + BOOK_DUE));
+    }
+
+    public String branch(int row) {
+        return string(data.getInt(bookAt(row) + BOOK_BRANCH));
+    }
+
+    public MemberView member(int row) {
+        int at = memberAt(row);
+        return new MemberView(
+                data.getLong(at + MEMBER_ID),
+                string(data.getInt(at + MEMBER_NAME)),
+                string(data.getInt(at + MEMBER_EMAIL)),
+                TYPES[data.get(at + MEMBER_TYPE)],
+                data.getInt(at + MEMBER_COUNT));
+    }
+
+    public long memberId(int row) {
+        return data.getLong(memberAt(row) + MEMBER_ID);
+    }
+
+    /** Row of the copy with this id, or -1; a binary search over the id index. */
+    public int bookRow(long id) {
+        return rowById(bookIdsStart, bookCount, id, booksStart, BOOK_ROW);
+    }
+
+    /** Row of the member with this id, or -1. */
+    public int memberRow(long id) {
+        return rowById(memberIdsStart, memberCount, id, membersStart, MEMBER_ROW);
+    }
+
+    /** First row of the ISBN's copies, or -1; its copies run up to {@link #titleEnd}. */
+    public int firstCopyRow(String isbn) {
+        byte[] key = isbnKey(isbn);
+        if (key == null) {
+            return NONE;
+        }
+        int low = 0;
+        int high = bookCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareIsbn(mid, key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < bookCount && compareIsbn(low, key) == 0 ? low : NONE;
+    }
+
+    /** The row after the last copy of the title that {@code row} belongs to. */
+    public int titleEnd(int row) {
+        int end = row + 1;
+        while (end < bookCount && sameIsbn(row, end)) {
+            end++;
+        }
+        return end;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int bookAt(int row) {
+        return booksStart + row * BOOK_ROW;
+    }
+
+    private int memberAt(int row) {
+        return membersStart + row * MEMBER_ROW;
+    }
+
+    private int rowById(int indexStart, int count, long id, int rowsStart, int rowWidth) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int row = data.getInt(indexStart + mid * 4);
+            long midId = data.getLong(rowsStart + row * rowWidth);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return row;
+            }
+        }
+        return NONE;
+    }
+
+    private int compareIsbn(int row, byte[] key) {
+        int at = bookAt(row) + BOOK_ISBN;
+        for (int i = 0; i < ISBN_WIDTH; i++) {
+            int cmp = Byte.compareUnsigned(data.get(at + i), key[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private boolean sameIsbn(int row, int other) {
+        int at = bookAt(row) + BOOK_ISBN;
+        int otherAt = bookAt(other) + BOOK_ISBN;
+        for (int i = 0; i < ISBN_WIDTH; i++) {
+            if (data.get(at + i) != data.get(otherAt + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Decodes a string-table entry once and reuses it, so repeated authors share one instance. */
+    private String string(int index) {
+        if (index == NONE) {
+            return null;
+        }
+        String value = decoded[index];
+        if (value == null) {
+            int start = data.getInt(stringOffsetsStart + index * 4);
+            int end = data.getInt(stringOffsetsStart + (index + 1) * 4);
+            byte[] bytes = new byte[end - start];
+            data.get(stringDataStart + start, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            decoded[index] = value;
+        }
+        return value;
+    }
+
+    private static LocalDate date(int epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private static int epochDay(LocalDate date) {
+        return date == null ? NO_DATE : (int) date.toEpochDay();
+    }
+
+    private static byte[] isbnKey(String isbn) {
+        byte[] ascii = isbn.getBytes(StandardCharsets.US_ASCII);
+        if (ascii.length > ISBN_WIDTH) {
+            return null;
+        }
+        byte[] key = new byte[ISBN_WIDTH];
+        System.arraycopy(ascii, 0, key, 0, ascii.length);
+        return key;
+    }
+
+    /**
+     * Writes a snapshot to {@code file}, replacing any existing one atomically so a
+     * reader never maps a half-written file.
+     */
+    public static void write(Path file, Collection<BookView> books, Collection<MemberView> members, Mark mark)
+            throws IOException {
+        List<BookView> sortedBooks = new ArrayList<>(books);
+        sortedBooks.sort(Comparator.comparing(BookView::isbn).thenComparingInt(BookView::copyNumber));
+        List<MemberView> sortedMembers = new ArrayList<>(members);
+        sortedMembers.sort(Comparator.comparing(MemberView::email));
+
+        Map<String, Integer> strings = new LinkedHashMap<>();
+        ByteBuffer bookRows = ByteBuffer.allocate(sortedBooks.size() * BOOK_ROW).order(ByteOrder.LITTLE_ENDIAN);
+        for (BookView book : sortedBooks) {
+            byte[] isbn = isbnKey(book.isbn());
+            if (isbn == null) {
+                throw new IllegalArgumentException("ISBN too long for snapshot: " + book.isbn());
+            }
+            int at = bookRows.position();
+            bookRows.putLong(at + BOOK_ID, book.id());
+            bookRows.put(at + BOOK_ISBN, isbn);
+            bookRows.putInt(at + BOOK_COPY, book.copyNumber());
+            bookRows.put(at + BOOK_STATUS, (byte) book.status().ordinal());
+            bookRows.putInt(at + BOOK_TITLE, ref(strings, book.title()));
+            bookRows.putInt(at + BOOK_AUTHOR, ref(strings, book.author()));
+            bookRows.putInt(at + BOOK_PUBLISHED, epochDay(book.publicationDate()));
+            bookRows.putInt(at + BOOK_BORROWER, ref(strings, book.checkedOutBy()));
+            bookRows.putInt(at + BOOK_DUE, epochDay(book.dueDate()));
+            bookRows.putInt(at + BOOK_BRANCH, ref(strings, book.branch()));
+            bookRows.position(at + BOOK_ROW);
+        }
+        ByteBuffer memberRows = ByteBuffer.allocate(sortedMembers.size() * MEMBER_ROW).order(ByteOrder.LITTLE_ENDIAN);
+        for (MemberView member : sortedMembers) {
+            int at = memberRows.position();
+            memberRows.putLong(at + MEMBER_ID, member.id());
+            memberRows.putInt(at + MEMBER_EMAIL, ref(strings, member.email()));
+            memberRows.putInt(at + MEMBER_NAME, ref(strings, member.name()));
+            memberRows.put(at + MEMBER_TYPE, (byte) member.membershipType().ordinal());
+            memberRows.putInt(at + MEMBER_COUNT, member.booksCheckedOut());
+            memberRows.position(at + MEMBER_ROW);
+        }
+        ByteBuffer bookIds = idIndex(sortedBooks.stream().mapToLong(BookView::id).toArray());
+        ByteBuffer memberIds = idIndex(sortedMembers.stream().mapToLong(MemberView::id).toArray());
+
+        ByteBuffer offsets = ByteBuffer.allocate((strings.size() + 1) * 4).order(ByteOrder.LITTLE_ENDIAN);
+        List<byte[]> encoded = new ArrayList<>(strings.size());
+        int offset = 0;
+        for (String value : strings.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            offsets.putInt(offset);
+            encoded.add(bytes);
+            offset += bytes.length;
+        }
+        offsets.putInt(offset);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis())
+                .putInt(sortedBooks.size()).putInt(sortedMembers.size()).putInt(strings.size())
+                .putInt(0).putLong(mark.lastLoanEventId()).putLong(mark.bookVersions()).putLong(mark.memberVersions());
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(out, header.clear());
+            writeFully(out, bookRows.flip());
+            writeFully(out, memberRows.flip());
+            writeFully(out, bookIds);
+            writeFully(out, memberIds);
+            writeFully(out, offsets.flip());
+            for (byte[] bytes : encoded) {
+                writeFully(out, ByteBuffer.wrap(bytes));
+            }
+            out.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** Row numbers ordered by the id in each row. */
+    private static ByteBuffer idIndex(long[] ids) {
+        Integer[] rows = new Integer[ids.length];
+        for (int row = 0; row < rows.length; row++) {
+            rows[row] = row;
+        }
+        Arrays.sort(rows, Comparator.comparingLong(row -> ids[row]));
+        ByteBuffer index = ByteBuffer.allocate(rows.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int row : rows) {
+            index.putInt(row);
+        }
+        return index.flip();
+    }
+
+    private static int ref(Map<String, Integer> strings, String value) {
+        if (value == null) {
+            return NONE;
+        }
+        return strings.computeIfAbsent(value, key -> strings.size());
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package edu.trincoll.snapshot;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.Member;
+import edu.trincoll.projection.BookView;
+import edu.trincoll.projection.CatalogProjection;
+import edu.trincoll.projection.MemberView;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.LoanEventRepository;
+import edu.trincoll.repository.MemberRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a {@link CatalogSnapshot} on a schedule and at shutdown, and seeds the
+ * {@link CatalogProjection} from the last one at boot so the read model is warm
+ * without a full Hibernate load. Enabled by {@code library.snapshot.enabled}.
+ *
+ * Each snapshot records the catalog's {@link CatalogSnapshot.Mark}; the projection
+ * serves it only while the database is still at that mark.
+ */
+@Component
+@ConditionalOnProperty(name = "library.snapshot.enabled", havingValue = "true")
+public class CatalogSnapshotService implements SmartInitializingSingleton, SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    private final CatalogProjection projection;
+    private final BookRepository bookRepository;
+    private final MemberRepository memberRepository;
+    private final LoanEventRepository loanEventRepository;
+    private final Path file;
+    private volatile boolean running;
+
+    public CatalogSnapshotService(CatalogProjection projection,
+                                  BookRepository bookRepository,
+                                  MemberRepository memberRepository,
+                                  LoanEventRepository loanEventRepository,
+                                  @Value("${library.snapshot.file:data/catalog.snap}") Path file) {
+        this.projection = projection;
+        this.bookRepository = bookRepository;
+        this.memberRepository = memberRepository;
+        this.loanEventRepository = loanEventRepository;
+        this.file = file;
+    }
+
+    /** Runs before any lifecycle bean starts, so the projection's first load sees the seed. */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            projection.seed(CatalogSnapshot.open(file), this::currentMark);
+        } catch (IOException e) {
+            log.warn("Cannot open catalog snapshot {}; loading from the database", file, e);
+        }
+    }
+
+    /** The database's mark right now. */
+    CatalogSnapshot.Mark currentMark() {
+        return new CatalogSnapshot.Mark(loanEventRepository.findMaxId().orElse(0L), bookRepository.sumVersions(),
+                memberRepository.sumVersions());
+    }
+
+    /**
+     * Writes the current catalog. Uses the projection when it is fully caught up
+     * and the repositories otherwise. The mark is read first, so the rows are at
+     * least that new; a change that lands in between makes the snapshot look stale
+     * and it is discarded at the next boot rather than served.
+     */
+    @Scheduled(cron = "${library.snapshot.cron:0 0 * * * *}")
+    public void write() {
+        long start = System.nanoTime();
+        CatalogSnapshot.Mark mark = currentMark();
+        List<BookView> books = new ArrayList<>();
+        List<MemberView> members = new ArrayList<>();
+        if (projection.isReady() && projection.lag().isZero()) {
+            projection.forEachBook(books::add);
+            projection.forEachMember(members::add);
+        } else {
+            for (Book book : bookRepository.findAll()) {
+                books.add(BookView.of(book));
+            }
+            for (Member member : memberRepository.findAll()) {
+                members.add(MemberView.of(member));
+            }
+        }
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            CatalogSnapshot.write(file, books, members, mark);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write catalog snapshot " + file, e);
+        }
+        log.info("Wrote catalog snapshot of {} copies and {} members to {} in {} ms",
+                books.size(), members.size(), file, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            write();
+        } catch (RuntimeException e) {
+            log.warn("Failed to write catalog snapshot at shutdown", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Stops after the engine and projection so the final snapshot sees their last writes. */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 1;
+    }
+}
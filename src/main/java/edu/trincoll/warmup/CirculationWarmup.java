@@ -0,0 +1,235 @@
+package edu.trincoll.warmup;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.Member;
+import edu.trincoll.model.MembershipType;
+import edu.trincoll.projection.CatalogProjection;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.BookTitleRepository;
+import edu.trincoll.repository.CheckoutPolicy;
+import edu.trincoll.repository.CheckoutPolicyFactory;
+import edu.trincoll.repository.IsbnCount;
+import edu.trincoll.repository.MemberRepository;
+import edu.trincoll.service.BookSearchService;
+import edu.trincoll.service.BookService;
+import edu.trincoll.service.CatalogService;
+import edu.trincoll.service.MemberService;
+import edu.trincoll.service.history.LoanHistoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Exercises the circulation and search paths before the instance takes traffic.
+ *
+ * Runs while {@link ApplicationReadyEvent} is being handled, which is before Spring
+ * Boot moves readiness to ACCEPTING_TRAFFIC, so the readiness probe stays down
+ * until warm-up ends. It fills the connection pool, reads the most borrowed
+ * titles of the last month, waits for the catalog projection, and then repeats
+ * checkout/return/search rounds on a synthetic title and member inside a
+ * transaction that is always rolled back. It stops once a round averages under
+ * {@code library.warmup.target-latency}, or gives up at {@code max-duration}.
+ */
+@Component
+@ConditionalOnProperty(name = "library.warmup.enabled", havingValue = "true")
+public class CirculationWarmup {
+    private static final Logger log = LoggerFactory.getLogger(CirculationWarmup.class);
+    static final String ISBN = "WARMUP-0000000000";
+    static final String EMAIL = "warmup@library.invalid";
+    private static final String TITLE = "Warm-up Title";
+    private static final String AUTHOR = "Warm-up Author";
+
+    public record Result(int rounds, Duration lastRoundLatency, boolean reachedTarget) {
+    }
+
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogService catalogService;
+    private final BookService bookService;
+    private final MemberService memberService;
+    private final MemberRepository memberRepository;
+    private final BookRepository bookRepository;
+    private final BookTitleRepository bookTitleRepository;
+    private final BookSearchService bookSearchService;
+    private final LoanHistoryService loanHistoryService;
+    private final CheckoutPolicyFactory checkoutPolicyFactory;
+    private final CatalogProjection projection;
+    private final DataSource dataSource;
+    private final Duration targetLatency;
+    private final Duration maxDuration;
+    private final int roundSize;
+    private final int minRounds;
+    private final int hotIsbns;
+    private final int connections;
+
+    public CirculationWarmup(TransactionTemplate transactionTemplate,
+                             CatalogService catalogService,
+                             BookService bookService,
+                             MemberService memberService,
+                             MemberRepository memberRepository,
+                             BookRepository bookRepository,
+                             BookTitleRepository bookTitleRepository,
+                             BookSearchService bookSearchService,
+                             LoanHistoryService loanHistoryService,
+                             CheckoutPolicyFactory checkoutPolicyFactory,
+                             CatalogProjection projection,
+                             DataSource dataSource,
+                             @Value("${library.warmup.target-latency:5ms}") Duration targetLatency,
+                             @Value("${library.warmup.max-duration:60s}") Duration maxDuration,
+                             @Value("${library.warmup.round-size:50}") int roundSize,
+                             @Value("${library.warmup.min-rounds:4}") int minRounds,
+                             @Value("${library.warmup.hot-isbns:200}") int hotIsbns,
+                             @Value("${library.warmup.connections:10}") int connections) {
+        this.transactionTemplate = transactionTemplate;
+        this.catalogService = catalogService;
+        this.bookService = bookService;
+        this.memberService = memberService;
+        this.memberRepository = memberRepository;
+        this.bookRepository = bookRepository;
+        this.bookTitleRepository = bookTitleRepository;
+        this.bookSearchService = bookSearchService;
+        this.loanHistoryService = loanHistoryService;
+        this.checkoutPolicyFactory = checkoutPolicyFactory;
+        this.projection = projection;
+        this.dataSource = dataSource;
+        this.targetLatency = targetLatency;
+        this.maxDuration = maxDuration;
+        this.roundSize = roundSize;
+        this.minRounds = minRounds;
+        this.hotIsbns = hotIsbns;
+        this.connections = connections;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        run();
+    }
+
+    public Result run() {
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        primeConnections();
+        preloadHotTitles();
+        awaitProjection(deadline);
+
+        int rounds = 0;
+        long roundLatency = Long.MAX_VALUE;
+        boolean reachedTarget = false;
+        try {
+            while (System.nanoTime() < deadline) {
+                roundLatency = runRound();
+                rounds++;
+                if (rounds >= minRounds && roundLatency <= targetLatency.toNanos()) {
+                    reachedTarget = true;
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Warm-up round failed; accepting traffic without further warm-up", e);
+        }
+
+        Duration latency = Duration.ofNanos(roundLatency == Long.MAX_VALUE ? 0 : roundLatency);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (reachedTarget) {
+            log.info("Warm-up reached {} per circulation round trip after {} rounds in {} ms",
+                    latency, rounds, elapsedMs);
+        } else {
+            log.warn("Warm-up stopped after {} rounds in {} ms at {} per round trip (target {})",
+                    rounds, elapsedMs, latency, targetLatency);
+        }
+        return new Result(rounds, latency, reachedTarget);
+    }
+
+    /** Holds several connections at once so the pool opens them now rather than under load. */
+    private void primeConnections() {
+        List<Connection> held = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                Connection connection = dataSource.getConnection();
+                held.add(connection);
+                connection.isValid(1);
+            }
+        } catch (SQLException e) {
+            log.warn("Could not prime {} connections; got {}", connections, held.size(), e);
+        } finally {
+            for (Connection connection : held) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.debug("Failed to return warm-up connection", e);
+                }
+            }
+        }
+    }
+
+    /** Reads the copies and title rows of last month's most borrowed ISBNs into the database cache. */
+    private void preloadHotTitles() {
+        YearMonth now = YearMonth.now();
+        for (IsbnCount hot : loanHistoryService.mostBorrowed(now.minusMonths(1), now, hotIsbns)) {
+            bookRepository.findAllByIsbnOrderByCopyNumberAsc(hot.isbn());
+            bookTitleRepository.findByIsbn(hot.isbn());
+        }
+    }
+
+    private void awaitProjection(long deadline) {
+        while (!projection.isReady() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+    }
+
+    /**
+     * One rolled-back transaction of checkout, return and search round trips on a
+     * synthetic copy. Nothing is committed, so no change events are published.
+     *
+     * @return average nanoseconds per round trip
+     */
+    private long runRound() {
+        Long average = transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            catalogService.addCopies(ISBN, TITLE, AUTHOR, LocalDate.now(), 1);
+            memberRepository.save(new Member("Warm-up", EMAIL, MembershipType.REGULAR));
+            long total = 0;
+            for (int i = 0; i < roundSize; i++) {
+                long begin = System.nanoTime();
+                roundTrip();
+                total += System.nanoTime() - begin;
+            }
+            return total / roundSize;
+        });
+        return average == null ? Long.MAX_VALUE : average;
+    }
+
+    private void roundTrip() {
+        Book book = bookService.getCopyForCheckout(ISBN, EMAIL);
+        Member member = memberService.getByEmail(EMAIL);
+        CheckoutPolicy policy = checkoutPolicyFactory.getCheckoutPolicy(member.getMembershipType());
+        if (policy.canCheckout(member)) {
+            bookService.checkoutBook(book, member, policy.getLoanPeriodDays());
+            memberService.incrementCheckedOut(member);
+            loanHistoryService.recordCheckout(book);
+
+            Book copy = bookService.getCopyForReturn(ISBN, EMAIL);
+            bookService.returnBook(copy);
+            memberService.decrementCheckedOut(member);
+            loanHistoryService.recordReturn(copy, EMAIL, 0.0);
+        }
+        bookSearchService.searchByIsbn(ISBN);
+        bookSearchService.searchByTitle(TITLE);
+        bookSearchService.searchByAuthor(AUTHOR);
+    }
+}
@@ -0,0 +1,150 @@
+package edu.trincoll;
+
+import edu.trincoll.backup.DatabaseBackupService;
+import edu.trincoll.model.Member;
+import edu.trincoll.model.MembershipType;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.MemberRepository;
+import edu.trincoll.service.CatalogService;
+import edu.trincoll.service.LibraryService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the default in-memory configuration with the prod profile: boot time,
+ * time to load a catalog, checkout/return throughput, and how long a node takes
+ * to come back with the catalog intact. The default configuration has to replay
+ * the inserts after a restart; prod restores its latest backup instead. Run with
+ * {@code ./gradlew benchmark}; the numbers are printed, not asserted, because they
+ * depend on the machine. The task also writes each profile's line to
+ * {@code build/reports/benchmark/<profile>.txt} so a run can be quoted as measured.
+ */
+@Tag("benchmark")
+@DisplayName("Persistence Profile Benchmark")
+class PersistenceProfileBenchmarkTest {
+    private static final int TITLES = 5_000;
+    private static final int COPIES = 2;
+    private static final int MEMBERS = 500;
+    private static final int LOANS = 5_000;
+
+    @TempDir Path dir;
+
+    @Test
+    @DisplayName("default profile: startup, load, throughput and restart")
+    void defaultProfile() throws IOException {
+        String[] args = {"--server.port=0", "--spring.jpa.show-sql=false"};
+
+        Timings first = run(args, true);
+        // The in-memory database is gone after a restart, so the catalog is loaded again
+        Timings second = run(args, true);
+
+        print("default", first, second.startMillis() + second.loadMillis());
+    }
+
+    @Test
+    @DisplayName("prod profile: startup, load, throughput and restart from backup")
+    void prodProfile() throws IOException {
+        Path database = dir.resolve("db");
+        String[] args = {"--server.port=0", "--spring.profiles.active=prod",
+                "--spring.datasource.url=jdbc:h2:file:" + database.resolve("library") + ";DB_CLOSE_ON_EXIT=FALSE",
+                "--library.database.backup.directory=" + dir.resolve("backup"),
+                "--library.snapshot.file=" + dir.resolve("catalog.snap")};
+
+        Timings first = run(args, true);
+        deleteRecursively(database);
+        // No database file: the restore post-processor brings back the latest backup
+        Timings second = run(args, false);
+
+        assertThat(second.copies()).isEqualTo(first.copies());
+        print("prod", first, second.startMillis());
+    }
+
+    private record Timings(long startMillis, long loadMillis, double loansPerSecond, long copies) {
+    }
+
+    /** Boots, optionally loads the catalog, measures loans and backs up when the profile has backups. */
+    private static Timings run(String[] args, boolean load) {
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = SpringApplication.run(LibraryApplication.class, args)) {
+            long started = System.nanoTime();
+            List<String> emails = load ? loadCatalog(context) : existingMembers(context);
+            long loaded = System.nanoTime();
+
+            LibraryService library = context.getBean(LibraryService.class);
+            long loansStart = System.nanoTime();
+            for (int i = 0; i < LOANS; i++) {
+                String isbn = isbn(i % TITLES);
+                String email = emails.get(i % emails.size());
+                library.checkoutBook(isbn, email);
+                library.returnBook(isbn, email);
+            }
+            double seconds = (System.nanoTime() - loansStart) / 1e9;
+
+            long copies = context.getBean(BookRepository.class).count();
+            context.getBeanProvider(DatabaseBackupService.class).ifAvailable(DatabaseBackupService::backup);
+            return new Timings((started - start) / 1_000_000, (loaded - started) / 1_000_000,
+                    LOANS / seconds, copies);
+        }
+    }
+
+    private static List<String> loadCatalog(ConfigurableApplicationContext context) {
+        CatalogService catalog = context.getBean(CatalogService.class);
+        for (int i = 0; i < TITLES; i++) {
+            catalog.addCopies(isbn(i), "Title " + i, "Author " + (i % 100), LocalDate.of(2000, 1, 1), COPIES);
+        }
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(new Member("Patron " + i, "patron" + i + "@example.com", MembershipType.REGULAR));
+        }
+        context.getBean(MemberRepository.class).saveAll(members);
+        return existingMembers(context);
+    }
+
+    private static List<String> existingMembers(ConfigurableApplicationContext context) {
+        return context.getBean(MemberRepository.class).findAll().stream()
+                .map(Member::getEmail)
+                .filter(email -> email.startsWith("patron"))
+                .toList();
+    }
+
+    private static String isbn(int title) {
+        return String.format("978-1-%08d", title);
+    }
+
+    private static void print(String profile, Timings first, long restartMillis) throws IOException {
+        String line = String.format("%s: boot %d ms, load %d titles x %d copies + %d members %d ms, "
+                        + "%.0f checkout+return pairs/s, back in service with %d copies after restart %d ms%n",
+                profile, first.startMillis(), TITLES, COPIES, MEMBERS, first.loadMillis(),
+                first.loansPerSecond(), first.copies(), restartMillis);
+        System.out.print(line);
+
+        String report = System.getProperty("benchmark.report");
+        if (report != null) {
+            Path directory = Files.createDirectories(Path.of(report));
+            Files.writeString(directory.resolve(profile + ".txt"), line);
+        }
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package edu.trincoll;
+
+import edu.trincoll.metrics.LibraryMetrics;
+import edu.trincoll.model.Member;
+import edu.trincoll.model.MembershipType;
+import edu.trincoll.repository.MemberRepository;
+import edu.trincoll.service.CatalogService;
+import edu.trincoll.service.LibraryService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Boots the full application and measures the time until the first checkout
+ * completes. Run with {@code ./gradlew benchmark}; the numbers are printed, not
+ * asserted, because they depend on the machine.
+ */
+@Tag("benchmark")
+@DisplayName("Startup Benchmark")
+class StartupBenchmarkTest {
+
+    @Test
+    @DisplayName("time to first checkout")
+    void timeToFirstCheckout() {
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = SpringApplication.run(LibraryApplication.class,
+                "--server.port=0", "--spring.jpa.show-sql=false")) {
+            long started = System.nanoTime();
+
+            context.getBean(CatalogService.class)
+                    .addCopies("978-0-13-468599-1", "Effective Java", "Joshua Bloch", LocalDate.of(2018, 1, 6), 1);
+            context.getBean(MemberRepository.class)
+                    .save(new Member("Kiosk Patron", "kiosk@example.com", MembershipType.REGULAR));
+            context.getBean(LibraryService.class).checkoutBook("978-0-13-468599-1", "kiosk@example.com");
+            long checkedOut = System.nanoTime();
+
+            assertThat(context.getBean(LibraryMetrics.class).timeToFirstCheckout()).isPresent();
+            System.out.printf("context refresh: %d ms, first checkout: %d ms after run()%n",
+                    (started - start) / 1_000_000, (checkedOut - start) / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package edu.trincoll.admission;
+
+import edu.trincoll.admission.AdmissionController.Operation;
+import edu.trincoll.admission.AdmissionController.Permit;
+import edu.trincoll.admission.AdmissionController.Reason;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Admission Controller Tests")
+class AdmissionControllerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("a token bucket allows its burst, then refills at its rate")
+    void tokenBucket() {
+        TokenBucket bucket = new TokenBucket(10, 3, 0);
+
+        assertThat(bucket.tryAcquire(0)).isTrue();
+        assertThat(bucket.tryAcquire(0)).isTrue();
+        assertThat(bucket.tryAcquire(0)).isTrue();
+        assertThat(bucket.tryAcquire(0)).isFalse();
+        assertThat(bucket.tryAcquire(100_000_000)).isTrue();
+        assertThat(bucket.tryAcquire(100_000_000)).isFalse();
+        assertThat(bucket.isFull(400_000_000)).isTrue();
+    }
+
+    @Test
+    @DisplayName("keys a caller by principal, then API key, then address")
+    void callerKeys() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.7");
+        assertThat(CallerKeys.current()).isNull();
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            assertThat(CallerKeys.current()).isEqualTo("ip:10.0.0.7");
+            request.addHeader(CallerKeys.API_KEY_HEADER, "k-123");
+            assertThat(CallerKeys.current()).isEqualTo("key:k-123");
+            request.setUserPrincipal(() -> "jane@example.com");
+            assertThat(CallerKeys.current()).isEqualTo("jane@example.com");
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    @DisplayName("limits each member to their own burst")
+    void limitsMembers() {
+        AdmissionController admission = new AdmissionController(registry, 64, 16, 0.001, 2, 1000, 1000, 1000, 1000);
+
+        admission.admit(Operation.CHECKOUT, "bot@example.com").close();
+        admission.admit(Operation.CHECKOUT, "bot@example.com").close();
+        assertThatThrownBy(() -> admission.admit(Operation.CHECKOUT, "bot@example.com"))
+                .isInstanceOfSatisfying(AdmissionRejectedException.class,
+                        e -> assertThat(e.reason()).isEqualTo(Reason.MEMBER_RATE));
+        admission.admit(Operation.CHECKOUT, "john@example.com").close();
+
+        assertThat(count("checkout", "member_rate")).isEqualTo(1);
+        assertThat(count("checkout", "admitted")).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("sheds searches before checkouts when the concurrency limit fills up")
+    void reservesCapacityForCirculation() {
+        AdmissionController admission = new AdmissionController(registry, 4, 2, 1000, 1000, 1000, 1000, 1000, 1000);
+        List<Permit> held = new ArrayList<>();
+        held.add(admission.admit(Operation.SEARCH, null));
+        held.add(admission.admit(Operation.REPORT, null));
+
+        assertThatThrownBy(() -> admission.admit(Operation.SEARCH, null))
+                .isInstanceOfSatisfying(AdmissionRejectedException.class,
+                        e -> assertThat(e.reason()).isEqualTo(Reason.CONCURRENCY));
+        held.add(admission.admit(Operation.CHECKOUT, "john@example.com"));
+        held.add(admission.admit(Operation.RETURN, null));
+        assertThatThrownBy(() -> admission.admit(Operation.RETURN, null))
+                .isInstanceOf(AdmissionRejectedException.class);
+        assertThat(admission.inFlight()).isEqualTo(4);
+
+        held.forEach(Permit::close);
+        held.get(0).close();
+        assertThat(admission.inFlight()).isZero();
+        assertThat(admission.call(Operation.SEARCH, null, () -> "found")).isEqualTo("found");
+        assertThat(count("search", "concurrency")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("rejects an operation over its own rate")
+    void limitsOperations() {
+        AdmissionController admission = new AdmissionController(registry, 64, 16, 1000, 1000, 1000, 1000, 1000, 0.001);
+
+        admission.call(Operation.REPORT, null, () -> "report");
+        assertThatThrownBy(() -> admission.call(Operation.REPORT, null, () -> "report"))
+                .isInstanceOfSatisfying(AdmissionRejectedException.class,
+                        e -> assertThat(e.reason()).isEqualTo(Reason.OPERATION_RATE));
+        assertThat(admission.inFlight()).isZero();
+    }
+
+    private double count(String operation, String outcome) {
+        return registry.get("library.admission.decisions").tag("operation", operation).tag("outcome", outcome)
+                .counter().count();
+    }
+}
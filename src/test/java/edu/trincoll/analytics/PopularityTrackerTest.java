@@ -0,0 +1,84 @@
+package edu.trincoll.analytics;
+
+import edu.trincoll.journal.CirculationEvent;
+import edu.trincoll.model.LoanEventType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Popularity Tracker Tests")
+class PopularityTrackerTest {
+
+    private static final Instant NOW = Instant.parse("2025-03-10T12:00:00Z");
+
+    @Test
+    @DisplayName("count-min estimates never undercount and stay within the error bound")
+    void sketchStaysWithinBound() {
+        CountMinSketch sketch = CountMinSketch.withAccuracy(0.01, 0.99);
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            // Skewed so a few keys dominate, like real checkouts
+            String key = "isbn-" + (int) Math.pow(random.nextInt(1000), 2) / 1000;
+            sketch.add(key, 1);
+            exact.merge(key, 1L, Long::sum);
+        }
+
+        long bound = (long) Math.ceil(0.01 * sketch.total());
+        long outside = exact.entrySet().stream()
+                .filter(entry -> sketch.estimate(entry.getKey()) < entry.getValue()
+                        || sketch.estimate(entry.getKey()) > entry.getValue() + bound)
+                .count();
+        assertThat(outside).isLessThanOrEqualTo(exact.size() / 100 + 1);
+        assertThat(sketch.estimate("never-seen")).isLessThanOrEqualTo(bound);
+    }
+
+    @Test
+    @DisplayName("ranks the heaviest titles and members in the window")
+    void ranksHeavyHitters() {
+        PopularityTracker tracker = new PopularityTracker(Duration.ofDays(7), 7, 2, 0.001, 0.99,
+                Clock.fixed(NOW, ZoneOffset.UTC));
+        checkout(tracker, "clean-code", "john@example.com", NOW.minusSeconds(60), 5);
+        checkout(tracker, "refactoring", "jane@example.com", NOW.minusSeconds(60), 3);
+        checkout(tracker, "ddd", "john@example.com", NOW.minusSeconds(60), 1);
+        tracker.onCirculation(new CirculationEvent(LoanEventType.RETURN, "ddd", 1, "jane@example.com",
+                NOW, null, 0.0, false));
+
+        assertThat(tracker.topTitles()).extracting(SlidingHeavyHitters.Entry::key)
+                .containsExactly("clean-code", "refactoring");
+        assertThat(tracker.topTitles().get(0).estimate()).isEqualTo(5);
+        assertThat(tracker.topMembers()).extracting(SlidingHeavyHitters.Entry::key)
+                .containsExactly("john@example.com", "jane@example.com");
+    }
+
+    @Test
+    @DisplayName("forgets checkouts once their bucket leaves the window")
+    void slidesWindow() {
+        SlidingHeavyHitters hitters = new SlidingHeavyHitters(Duration.ofDays(7), 7, 3, 0.001, 0.99);
+        for (int i = 0; i < 4; i++) {
+            hitters.add("old", NOW.minus(Duration.ofDays(6)));
+        }
+        hitters.add("new", NOW);
+        hitters.add("ancient", NOW.minus(Duration.ofDays(30)));
+
+        assertThat(hitters.top(NOW)).extracting(SlidingHeavyHitters.Entry::key).containsExactly("old", "new");
+        assertThat(hitters.top(NOW.plus(Duration.ofDays(2))))
+                .containsExactly(new SlidingHeavyHitters.Entry("new", 1));
+        assertThat(hitters.estimate("old", NOW.plus(Duration.ofDays(2)))).isZero();
+    }
+
+    private static void checkout(PopularityTracker tracker, String isbn, String email, Instant at, int times) {
+        for (int i = 0; i < times; i++) {
+            tracker.onCirculation(new CirculationEvent(LoanEventType.CHECKOUT, isbn, 1, email, at, null, 0.0, false));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package edu.trincoll.backup;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Database Restore Tests")
+class DatabaseRestorePostProcessorTest {
+
+    @TempDir Path dir;
+
+    @Test
+    @DisplayName("recognizes only file-backed H2 URLs")
+    void parsesUrls() {
+        H2FileDatabase database = H2FileDatabase.fromUrl("jdbc:h2:file:" + dir.resolve("db/library") + ";DB_CLOSE_ON_EXIT=FALSE")
+                .orElseThrow();
+
+        assertThat(database.directory()).isEqualTo(dir.resolve("db"));
+        assertThat(database.dataFile()).isEqualTo(dir.resolve("db/library.mv.db"));
+        assertThat(H2FileDatabase.fromUrl("jdbc:h2:" + dir.resolve("plain"))).isPresent();
+        assertThat(H2FileDatabase.fromUrl("jdbc:h2:mem:library")).isEmpty();
+        assertThat(H2FileDatabase.fromUrl("jdbc:h2:tcp://localhost/library")).isEmpty();
+        assertThat(H2FileDatabase.fromUrl("jdbc:postgresql://localhost/library")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("restores the newest backup when the database is missing")
+    void restoresNewest() throws IOException {
+        Path backups = dir.resolve("backup");
+        zip(backups.resolve("library-20250101T030000Z.zip"), "library.mv.db", "old");
+        zip(backups.resolve("library-20250102T030000Z.zip"), "library.mv.db", "new");
+        H2FileDatabase database = new H2FileDatabase(dir.resolve("db"), "library");
+
+        assertThat(DatabaseRestorePostProcessor.restoreIfMissing(database, backups))
+                .contains(backups.resolve("library-20250102T030000Z.zip"));
+        assertThat(Files.readString(database.dataFile())).isEqualTo("new");
+    }
+
+    @Test
+    @DisplayName("never overwrites an existing database")
+    void keepsExistingDatabase() throws IOException {
+        Path backups = dir.resolve("backup");
+        zip(backups.resolve("library-20250101T030000Z.zip"), "library.mv.db", "backup");
+        H2FileDatabase database = new H2FileDatabase(dir, "library");
+        Files.writeString(database.dataFile(), "live");
+
+        assertThat(DatabaseRestorePostProcessor.restoreIfMissing(database, backups)).isEmpty();
+        assertThat(Files.readString(database.dataFile())).isEqualTo("live");
+    }
+
+    @Test
+    @DisplayName("starts empty when there is nothing to restore")
+    void noBackup() throws IOException {
+        H2FileDatabase database = new H2FileDatabase(dir, "library");
+
+        assertThat(DatabaseRestorePostProcessor.restoreIfMissing(database, dir.resolve("backup"))).isEmpty();
+        assertThat(database.dataFile()).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("rejects entries that would land outside the database directory")
+    void rejectsZipSlip() throws IOException {
+        Path backups = dir.resolve("backup");
+        zip(backups.resolve("library-20250101T030000Z.zip"), "../escaped.mv.db", "x");
+        H2FileDatabase database = new H2FileDatabase(dir.resolve("db"), "library");
+
+        assertThatThrownBy(() -> DatabaseRestorePostProcessor.restoreIfMissing(database, backups))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("escapes");
+        assertThat(dir.resolve("escaped.mv.db")).doesNotExist();
+    }
+
+    private static void zip(Path archive, String entry, String content) throws IOException {
+        Files.createDirectories(archive.getParent());
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+            out.putNextEntry(new ZipEntry(entry));
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+    }
+}
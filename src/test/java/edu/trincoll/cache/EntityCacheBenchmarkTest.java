@@ -0,0 +1,106 @@
+package edu.trincoll.cache;
+
+import edu.trincoll.LibraryApplication;
+import edu.trincoll.model.BookStatus;
+import edu.trincoll.model.Member;
+import edu.trincoll.model.MembershipType;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.MemberRepository;
+import edu.trincoll.service.CatalogService;
+import edu.trincoll.service.LibraryService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the same read-heavy mix of member, copy and count lookups (one checkout
+ * and return per hundred reads) with the second-level cache off and on, and
+ * compares the statements sent to the database. Run with
+ * {@code ./gradlew benchmark}; timings and region hit ratios are printed.
+ */
+@Tag("benchmark")
+@DisplayName("Entity Cache Benchmark")
+class EntityCacheBenchmarkTest {
+    private static final int TITLES = 200;
+    private static final int COPIES = 2;
+    private static final int MEMBERS = 100;
+    private static final int OPERATIONS = 20_000;
+
+    @Test
+    @DisplayName("the second-level cache cuts database round trips for a read-heavy mix")
+    void fewerRoundTrips() {
+        long uncached = run(false);
+        long cached = run(true);
+
+        System.out.printf("statements per operation: %.2f uncached, %.2f cached%n",
+                (double) uncached / OPERATIONS, (double) cached / OPERATIONS);
+        assertThat(cached).isLessThan(uncached);
+    }
+
+    private static long run(boolean cacheEnabled) {
+        try (ConfigurableApplicationContext context = SpringApplication.run(LibraryApplication.class,
+                "--server.port=0", "--spring.jpa.show-sql=false",
+                "--spring.datasource.url=jdbc:h2:mem:cache-bench-" + cacheEnabled,
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + cacheEnabled,
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=" + cacheEnabled)) {
+            CatalogService catalogService = context.getBean(CatalogService.class);
+            MemberRepository memberRepository = context.getBean(MemberRepository.class);
+            BookRepository bookRepository = context.getBean(BookRepository.class);
+            LibraryService libraryService = context.getBean(LibraryService.class);
+
+            List<String> isbns = new ArrayList<>(TITLES);
+            for (int i = 0; i < TITLES; i++) {
+                String isbn = "978-2-00-%06d".formatted(i);
+                catalogService.addCopies(isbn, "Title " + i, "Author " + (i % 20), LocalDate.of(2020, 1, 1), COPIES);
+                isbns.add(isbn);
+            }
+            List<String> emails = new ArrayList<>(MEMBERS);
+            for (int i = 0; i < MEMBERS; i++) {
+                String email = "reader" + i + "@example.com";
+                memberRepository.save(new Member("Reader " + i, email, MembershipType.PREMIUM));
+                emails.add(email);
+            }
+
+            Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+            Random random = new Random(42);
+            long start = System.nanoTime();
+            for (int op = 0; op < OPERATIONS; op++) {
+                String isbn = isbns.get(random.nextInt(TITLES));
+                switch (op % 100 == 99 ? 4 : random.nextInt(4)) {
+                    case 0 -> memberRepository.findByEmail(emails.get(random.nextInt(MEMBERS)));
+                    case 1 -> bookRepository.findByIsbnAndCopyNumber(isbn, 1 + random.nextInt(COPIES));
+                    case 2 -> bookRepository.countByStatus(BookStatus.AVAILABLE);
+                    case 3 -> bookRepository.findBranches();
+                    default -> {
+                        String email = emails.get(random.nextInt(MEMBERS));
+                        libraryService.checkoutBook(isbn, email);
+                        libraryService.returnBook(isbn, email);
+                    }
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            long statements = statistics.getPrepareStatementCount();
+
+            System.out.printf("cache %s: %d statements, %d ms%n",
+                    cacheEnabled ? "on" : "off", statements, elapsed / 1_000_000);
+            for (Map.Entry<String, Double> region : context.getBean(EntityCaches.class).hitRatios().entrySet()) {
+                System.out.printf("  %-40s %5.1f%% hits%n", region.getKey(), 100 * region.getValue());
+            }
+            return statements;
+        }
+    }
+}
@@ -0,0 +1,446 @@
+package edu.trincoll.engine;
+
+import edu.trincoll.journal.CirculationEvent;
+import edu.trincoll.metrics.CheckoutOutcome;
+import edu.trincoll.metrics.ReturnOutcome;
+import edu.trincoll.model.Book;
+import edu.trincoll.model.BookStatus;
+import edu.trincoll.model.LoanEvent;
+import edu.trincoll.model.Member;
+import edu.trincoll.model.MembershipType;
+import edu.trincoll.model.Reservation;
+import edu.trincoll.model.ReservationStatus;
+import edu.trincoll.projection.BookChanged;
+import edu.trincoll.projection.BookView;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.policy.MembershipTiers;
+import edu.trincoll.repository.BookTitleRepository;
+import edu.trincoll.repository.CheckoutPolicyFactory;
+import edu.trincoll.repository.LoanEventRepository;
+import edu.trincoll.repository.MemberRepository;
+import edu.trincoll.repository.MembershipTierRepository;
+import edu.trincoll.repository.ReservationRepository;
+import edu.trincoll.service.HoldReady;
+import edu.trincoll.service.latefee.LateFeeCalculatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Circulation Engine Tests")
+class CirculationEngineTest {
+
+    @Mock private BookRepository bookRepository;
+    @Mock private MemberRepository memberRepository;
+    @Mock private BookTitleRepository bookTitleRepository;
+    @Mock private LoanEventRepository loanEventRepository;
+    @Mock private ReservationRepository reservationRepository;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Mock private TransactionTemplate transactionTemplate;
+
+    private CirculationEngine engine;
+    private Book copy;
+    private Member member;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        copy = new Book("978-0-123456-78-9", 1, "Clean Code", "Robert Martin", LocalDate.of(2008, 8, 1));
+        copy.setId(1L);
+        member = new Member("John Doe", "john@example.com", MembershipType.REGULAR);
+        member.setId(7L);
+
+        lenient().when(bookRepository.findAllByIsbnOrderByCopyNumberAsc(copy.getIsbn()))
+                .thenAnswer(inv -> new ArrayList<>(List.of(copy)));
+        lenient().when(memberRepository.findByEmail(member.getEmail())).thenReturn(Optional.of(member));
+        lenient().when(bookRepository.updateCirculation(anyLong(), any(), any(), any(), anyLong(), anyLong())).thenReturn(1);
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> ((TransactionCallback<Object>) inv.getArgument(0)).doInTransaction(null));
+
+        MembershipTiers tiers = new MembershipTiers(mock(MembershipTierRepository.class));
+        engine = new CirculationEngine(bookRepository, memberRepository, bookTitleRepository, loanEventRepository,
+                reservationRepository, new LateFeeCalculatorFactory(tiers), new CheckoutPolicyFactory(tiers), eventPublisher,
+                transactionTemplate, 3, 16, 8, 2);
+        engine.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.stop();
+    }
+
+    @Test
+    @DisplayName("applies commands in order against in-memory state and writes the final rows behind")
+    void appliesCommandsInOrder() {
+        CheckoutResult first = engine.checkout(copy.getIsbn(), member.getEmail()).join();
+        CheckoutResult second = engine.checkout(copy.getIsbn(), member.getEmail()).join();
+        ReturnResult returned = engine.returnBook(copy.getIsbn()).join();
+        engine.stop();
+
+        assertThat(first.outcome()).isEqualTo(CheckoutOutcome.SUCCESS);
+        assertThat(first.message()).startsWith("Book checked out successfully. Due date: ");
+        assertThat(second.outcome()).isEqualTo(CheckoutOutcome.NOT_AVAILABLE);
+        assertThat(returned.outcome()).isEqualTo(ReturnOutcome.SUCCESS);
+        assertThat(returned.message()).isEqualTo("Book returned successfully");
+
+        ArgumentCaptor<BookStatus> status = ArgumentCaptor.forClass(BookStatus.class);
+        verify(bookRepository, atLeastOnce()).updateCirculation(eq(1L), status.capture(), any(), any(), anyLong(), anyLong());
+        assertThat(status.getAllValues()).last().isEqualTo(BookStatus.AVAILABLE);
+
+        ArgumentCaptor<Integer> count = ArgumentCaptor.forClass(Integer.class);
+        verify(memberRepository, atLeastOnce()).updateBooksCheckedOut(eq(7L), count.capture());
+        assertThat(count.getAllValues()).last().isEqualTo(0);
+
+        verify(eventPublisher, times(2)).publishEvent(any(CirculationEvent.class));
+        assertThat(savedLoans()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("enforces the checkout policy limit from in-memory counters")
+    void enforcesPolicyLimit() {
+        member.setBooksCheckedOut(3);
+
+        CheckoutResult result = engine.checkout(copy.getIsbn(), member.getEmail()).join();
+
+        assertThat(result.outcome()).isEqualTo(CheckoutOutcome.LIMIT_REACHED);
+        assertThat(result.message()).isEqualTo("Member has reached checkout limit");
+    }
+
+    @Test
+    @DisplayName("charges the tier's late fee when an overdue copy comes back")
+    void chargesLateFee() {
+        copy.setStatus(BookStatus.CHECKED_OUT);
+        copy.setCheckedOutBy(member.getEmail());
+        copy.setDueDate(LocalDate.now().minusDays(4));
+        member.setBooksCheckedOut(1);
+
+        ReturnResult result = engine.returnBook(copy.getIsbn()).join();
+
+        assertThat(result.outcome()).isEqualTo(ReturnOutcome.LATE);
+        assertThat(result.tier()).isEqualTo(MembershipType.REGULAR);
+        assertThat(result.lateFee()).isEqualTo(2.0);
+        assertThat(result.message()).isEqualTo("Book returned. Late fee: $2.00");
+    }
+
+    @Test
+    @DisplayName("hands out only copies shelved at the requested branch")
+    void checkoutAtBranch() {
+        Book west = givenSecondCopyAt("WEST");
+        copy.setBranch("EAST");
+
+        CheckoutResult result = engine.checkout(copy.getIsbn(), member.getEmail(), "WEST").join();
+        CheckoutResult none = engine.checkout(copy.getIsbn(), member.getEmail(), "WEST").join();
+
+        assertThat(result.outcome()).isEqualTo(CheckoutOutcome.SUCCESS);
+        assertThat(result.copy().getCopyNumber()).isEqualTo(2);
+        assertThat(west.getStatus()).isEqualTo(BookStatus.CHECKED_OUT);
+        assertThat(none.outcome()).isEqualTo(CheckoutOutcome.NOT_AVAILABLE);
+        assertThat(copy.getStatus()).isEqualTo(BookStatus.AVAILABLE);
+    }
+
+    @Test
+    @DisplayName("moves a ready hold to the branch the member came to and shelves the copy held elsewhere")
+    void movesReadyHoldToBranch() {
+        Book west = givenSecondCopyAt("WEST");
+        copy.setBranch("EAST");
+        copy.setStatus(BookStatus.RESERVED);
+        Reservation ready = hold(11L, member.getEmail(), ReservationStatus.READY);
+        ready.setBookId(1L);
+        ready.setPickupDeadline(LocalDate.now().plusDays(2));
+        givenHolds(ready);
+
+        CheckoutResult result = engine.checkout(copy.getIsbn(), member.getEmail(), "WEST").join();
+        engine.stop();
+
+        assertThat(result.outcome()).isEqualTo(CheckoutOutcome.SUCCESS);
+        assertThat(west.getCheckedOutBy()).isEqualTo(member.getEmail());
+        assertThat(copy.getStatus()).isEqualTo(BookStatus.AVAILABLE);
+        verify(reservationRepository).updateHold(11L, ReservationStatus.FULFILLED, 2L, ready.getPickupDeadline());
+        verify(bookTitleRepository, atLeastOnce()).updateAvailable(copy.getIsbn(), 1);
+    }
+
+    @Test
+    @DisplayName("returns only copies shelved at the requested branch")
+    void returnAtBranch() {
+        givenSecondCopyAt("WEST");
+        copy.setBranch("EAST");
+        copy.setStatus(BookStatus.CHECKED_OUT);
+        copy.setCheckedOutBy(member.getEmail());
+        copy.setDueDate(LocalDate.now().plusDays(3));
+
+        ReturnResult elsewhere = engine.returnBook(copy.getIsbn(), member.getEmail(), "WEST").join();
+        ReturnResult here = engine.returnBook(copy.getIsbn(), member.getEmail(), "EAST").join();
+
+        assertThat(elsewhere.outcome()).isEqualTo(ReturnOutcome.NOT_CHECKED_OUT);
+        assertThat(here.outcome()).isEqualTo(ReturnOutcome.SUCCESS);
+        assertThatThrownBy(() -> engine.returnBook(copy.getIsbn(), member.getEmail(), "NORTH").join())
+                .isInstanceOf(CompletionException.class)
+                .hasRootCauseMessage("Book not found");
+    }
+
+    @Test
+    @DisplayName("returns only the borrower's copy when a member is named")
+    void returnScopedToBorrower() {
+        copy.setStatus(BookStatus.CHECKED_OUT);
+        copy.setCheckedOutBy("someone@example.com");
+        copy.setDueDate(LocalDate.now().plusDays(3));
+
+        ReturnResult result = engine.returnBook(copy.getIsbn(), member.getEmail()).join();
+
+        assertThat(result.outcome()).isEqualTo(ReturnOutcome.NOT_CHECKED_OUT);
+        assertThat(copy.getStatus()).isEqualTo(BookStatus.CHECKED_OUT);
+    }
+
+    @Test
+    @DisplayName("hands the copy held for the member to them and leaves the shelf count alone")
+    void claimsReadyHold() {
+        copy.setStatus(BookStatus.RESERVED);
+        Reservation ready = hold(11L, member.getEmail(), ReservationStatus.READY);
+        ready.setBookId(1L);
+        givenHolds(ready);
+
+        CheckoutResult result = engine.checkout(copy.getIsbn(), member.getEmail()).join();
+        engine.stop();
+
+        assertThat(result.outcome()).isEqualTo(CheckoutOutcome.SUCCESS);
+        assertThat(result.copy().getCheckedOutBy()).isEqualTo(member.getEmail());
+        assertThat(result.member().getBooksCheckedOut()).isEqualTo(1);
+        verify(bookTitleRepository, atLeastOnce()).updateAvailable(copy.getIsbn(), 0);
+        verify(reservationRepository).updateHold(11L, ReservationStatus.FULFILLED, 1L, null);
+    }
+
+    @Test
+    @DisplayName("keeps a copy held for someone else off the shelf")
+    void reservedCopyNotForOthers() {
+        copy.setStatus(BookStatus.RESERVED);
+        Reservation ready = hold(11L, "someone@example.com", ReservationStatus.READY);
+        ready.setBookId(1L);
+        givenHolds(ready);
+
+        CheckoutResult result = engine.checkout(copy.getIsbn(), member.getEmail()).join();
+
+        assertThat(result.outcome()).isEqualTo(CheckoutOutcome.NOT_AVAILABLE);
+        assertThat(copy.getStatus()).isEqualTo(BookStatus.RESERVED);
+    }
+
+    @Test
+    @DisplayName("reserves a returned copy for the next member in the hold queue")
+    void returnGoesToNextHolder() {
+        copy.setStatus(BookStatus.CHECKED_OUT);
+        copy.setCheckedOutBy(member.getEmail());
+        copy.setDueDate(LocalDate.now().plusDays(3));
+        member.setBooksCheckedOut(1);
+        givenHolds(hold(11L, "next@example.com", ReservationStatus.WAITING));
+
+        ReturnResult result = engine.returnBook(copy.getIsbn()).join();
+        engine.stop();
+
+        LocalDate deadline = LocalDate.now().plusDays(3);
+        assertThat(result.outcome()).isEqualTo(ReturnOutcome.SUCCESS);
+        verify(bookRepository, atLeastOnce()).updateCirculation(1L, BookStatus.RESERVED, null, null, 0L, 1L);
+        verify(bookTitleRepository, atLeastOnce()).updateAvailable(copy.getIsbn(), 0);
+        verify(reservationRepository).updateHold(11L, ReservationStatus.READY, 1L, deadline);
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof HoldReady ready
+                && ready.memberEmail().equals("next@example.com") && ready.pickupDeadline().equals(deadline)));
+    }
+
+    @Test
+    @DisplayName("passes the copy of a cancelled ready hold to the next holder in the same batch")
+    void cancelPassesCopyOn() {
+        copy.setStatus(BookStatus.RESERVED);
+        Reservation ready = hold(11L, member.getEmail(), ReservationStatus.READY);
+        ready.setBookId(1L);
+        ready.setPickupDeadline(LocalDate.now().plusDays(1));
+        givenHolds(ready, hold(12L, "next@example.com", ReservationStatus.WAITING));
+
+        engine.cancelHold(copy.getIsbn(), member.getEmail()).join();
+        engine.stop();
+
+        assertThat(copy.getStatus()).isEqualTo(BookStatus.RESERVED);
+        verify(reservationRepository).updateHold(11L, ReservationStatus.CANCELLED, 1L, ready.getPickupDeadline());
+        verify(reservationRepository).updateHold(12L, ReservationStatus.READY, 1L, LocalDate.now().plusDays(3));
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+
+    @Test
+    @DisplayName("shelves the copy of an expired hold when nobody else is waiting")
+    void expiryShelvesCopy() {
+        copy.setStatus(BookStatus.RESERVED);
+        Reservation ready = hold(11L, member.getEmail(), ReservationStatus.READY);
+        ready.setBookId(1L);
+        ready.setPickupDeadline(LocalDate.now().minusDays(1));
+        givenHolds(ready);
+
+        int expired = engine.expireHolds(copy.getIsbn(), LocalDate.now()).join();
+        engine.stop();
+
+        assertThat(expired).isEqualTo(1);
+        assertThat(copy.getStatus()).isEqualTo(BookStatus.AVAILABLE);
+        verify(reservationRepository).updateHold(11L, ReservationStatus.EXPIRED, 1L, ready.getPickupDeadline());
+        verify(bookRepository).updateCirculation(1L, BookStatus.AVAILABLE, null, null, 0L, 1L);
+        verify(bookTitleRepository).updateAvailable(copy.getIsbn(), 1);
+    }
+
+    @Test
+    @DisplayName("hands a copy that came back before the hold arrived to the new hold")
+    void placedHoldTakesShelvedCopy() {
+        engine.checkout(copy.getIsbn(), member.getEmail()).join();
+        engine.returnBook(copy.getIsbn()).join();
+        Reservation placed = hold(11L, "next@example.com", ReservationStatus.WAITING);
+
+        engine.placeHold(placed).join();
+        engine.stop();
+
+        assertThat(copy.getStatus()).isEqualTo(BookStatus.RESERVED);
+        verify(reservationRepository).updateHold(eq(11L), eq(ReservationStatus.READY), eq(1L), any());
+    }
+
+    @Test
+    @DisplayName("rejects cancelling a hold the member does not have")
+    void cancelUnknownHold() {
+        assertThatThrownBy(() -> engine.cancelHold(copy.getIsbn(), member.getEmail()).join())
+                .isInstanceOf(CompletionException.class)
+                .hasRootCauseMessage("Hold not found");
+    }
+
+    @Test
+    @DisplayName("picks up copy changes committed outside the engine")
+    void appliesOutsideChanges() {
+        engine.checkout(copy.getIsbn(), member.getEmail()).join();
+        Book added = new Book(copy.getIsbn(), 2, "Clean Code", "Robert Martin", LocalDate.of(2008, 8, 1));
+        added.setId(2L);
+        engine.onBookChanged(BookChanged.of(added, false));
+
+        CheckoutResult result = engine.checkout(copy.getIsbn(), member.getEmail()).join();
+
+        assertThat(result.outcome()).isEqualTo(CheckoutOutcome.SUCCESS);
+        assertThat(result.copy().getCopyNumber()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("drops an outside view older than the engine's own state")
+    void dropsStaleOutsideChange() {
+        engine.checkout(copy.getIsbn(), member.getEmail()).join();
+        Book stale = new Book(copy.getIsbn(), 1, "Clean Code", "Robert Martin", LocalDate.of(2008, 8, 1));
+        stale.setId(1L);
+        engine.onBookChanged(new BookChanged(BookView.of(stale), 0L, false));
+
+        CheckoutResult result = engine.checkout(copy.getIsbn(), member.getEmail()).join();
+
+        assertThat(result.outcome()).isEqualTo(CheckoutOutcome.NOT_AVAILABLE);
+    }
+
+    @Test
+    @DisplayName("applies an outside view newer than the engine's own state")
+    void appliesNewerOutsideChange() {
+        engine.checkout(copy.getIsbn(), member.getEmail()).join();
+        Book shelved = new Book(copy.getIsbn(), 1, "Clean Code", "Robert Martin", LocalDate.of(2008, 8, 1));
+        shelved.setId(1L);
+        engine.onBookChanged(new BookChanged(BookView.of(shelved), 5L, false));
+
+        CheckoutResult result = engine.checkout(copy.getIsbn(), member.getEmail()).join();
+        engine.stop();
+
+        assertThat(result.outcome()).isEqualTo(CheckoutOutcome.SUCCESS);
+        verify(bookRepository).updateCirculation(eq(1L), eq(BookStatus.CHECKED_OUT), any(), any(), eq(5L), eq(6L));
+    }
+
+    @Test
+    @DisplayName("reloads a copy whose row was changed outside the engine before its write landed")
+    void reloadsCopyAfterVersionConflict() {
+        when(bookRepository.updateCirculation(anyLong(), any(), any(), any(), anyLong(), anyLong())).thenReturn(0);
+        Book row = new Book(copy.getIsbn(), 1, "Clean Code", "Robert Martin", LocalDate.of(2008, 8, 1));
+        row.setId(1L);
+        row.setStatus(BookStatus.CHECKED_OUT);
+        row.setCheckedOutBy("someone@example.com");
+        row.setDueDate(LocalDate.now().plusDays(7));
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(row));
+
+        engine.checkout(copy.getIsbn(), member.getEmail()).join();
+        verify(bookRepository, timeout(5000)).findById(1L);
+        engine.returnBook(copy.getIsbn(), member.getEmail()).join();
+
+        assertThat(copy.getCheckedOutBy()).isEqualTo("someone@example.com");
+        verify(eventPublisher, never()).publishEvent(any(BookChanged.class));
+    }
+
+    @Test
+    @DisplayName("stops taking commands and keeps the rows once a batch cannot be written")
+    void haltsAfterFailedWrites() {
+        when(transactionTemplate.execute(any())).thenThrow(new IllegalStateException("database down"));
+
+        engine.checkout(copy.getIsbn(), member.getEmail()).join();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!engine.hasFailed() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+
+        assertThat(engine.hasFailed()).isTrue();
+        verify(transactionTemplate, times(2)).execute(any());
+        assertThatThrownBy(() -> engine.checkout(copy.getIsbn(), member.getEmail()).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasRootCauseMessage("database down");
+    }
+
+    @Test
+    @DisplayName("fails the command when the ISBN is unknown")
+    void unknownIsbn() {
+        when(bookRepository.findAllByIsbnOrderByCopyNumberAsc("missing")).thenReturn(List.of());
+
+        assertThatThrownBy(() -> engine.checkout("missing", member.getEmail()).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class)
+                .hasRootCauseMessage("Book not found");
+    }
+
+    private Book givenSecondCopyAt(String branch) {
+        Book second = new Book(copy.getIsbn(), 2, "Clean Code", "Robert Martin", LocalDate.of(2008, 8, 1));
+        second.setId(2L);
+        second.setBranch(branch);
+        when(bookRepository.findAllByIsbnOrderByCopyNumberAsc(copy.getIsbn()))
+                .thenAnswer(inv -> new ArrayList<>(List.of(copy, second)));
+        return second;
+    }
+
+    private void givenHolds(Reservation... holds) {
+        when(reservationRepository.findByIsbnAndStatusInOrderByIdAsc(eq(copy.getIsbn()), anyCollection()))
+                .thenReturn(List.of(holds));
+    }
+
+    private Reservation hold(long id, String email, ReservationStatus status) {
+        Reservation reservation = new Reservation(copy.getIsbn(), email);
+        reservation.setId(id);
+        reservation.setStatus(status);
+        return reservation;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<LoanEvent> savedLoans() {
+        ArgumentCaptor<List<LoanEvent>> loans = ArgumentCaptor.forClass(List.class);
+        verify(loanEventRepository, atLeastOnce()).saveAll(loans.capture());
+        List<LoanEvent> all = new ArrayList<>();
+        loans.getAllValues().forEach(all::addAll);
+        return all;
+    }
+}
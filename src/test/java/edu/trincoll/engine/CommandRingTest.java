@@ -0,0 +1,68 @@
+package edu.trincoll.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Command Ring Tests")
+class CommandRingTest {
+
+    @Test
+    @DisplayName("rejects offers when full and accepts again after a poll")
+    void boundedCapacity() {
+        CommandRing<Integer> ring = new CommandRing<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(ring.offer(i)).isTrue();
+        }
+        assertThat(ring.offer(4)).isFalse();
+
+        assertThat(ring.poll()).isEqualTo(0);
+        assertThat(ring.offer(4)).isTrue();
+        assertThat(List.of(ring.poll(), ring.poll(), ring.poll(), ring.poll())).containsExactly(1, 2, 3, 4);
+        assertThat(ring.poll()).isNull();
+        assertThat(ring.isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("delivers every item from concurrent producers in per-producer order")
+    void concurrentProducers() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 50_000;
+        CommandRing<long[]> ring = new CommandRing<>(1024);
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            pool.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    long[] item = {producer, i};
+                    while (!ring.offer(item)) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+
+        long[] lastSeen = {-1, -1, -1, -1};
+        List<long[]> received = new ArrayList<>();
+        while (received.size() < producers * perProducer) {
+            long[] item = ring.poll();
+            if (item == null) {
+                Thread.yield();
+                continue;
+            }
+            assertThat(item[1]).isEqualTo(lastSeen[(int) item[0]] + 1);
+            lastSeen[(int) item[0]] = item[1];
+            received.add(item);
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(ring.poll()).isNull();
+    }
+}
@@ -0,0 +1,113 @@
+package edu.trincoll.index;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.BookStatus;
+import edu.trincoll.projection.BookChanged;
+import edu.trincoll.projection.CatalogProjection;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.MemberRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Catalog Bitmap Index Tests")
+class CatalogBitmapIndexTest {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final MemberRepository memberRepository = mock(MemberRepository.class);
+
+    private SimpleMeterRegistry registry;
+    private CatalogProjection projection;
+    private CatalogBitmapIndex index;
+    private Book cleanCode;
+    private Book refactoring;
+    private Book ddd;
+
+    @BeforeEach
+    void setUp() {
+        cleanCode = book(1L, "Clean Code", "Robert Martin", 2008);
+        refactoring = book(2L, "Refactoring", "Martin Fowler", 1999);
+        ddd = book(3L, "Domain-Driven Design", "Eric Evans", 2003);
+        refactoring.setStatus(BookStatus.CHECKED_OUT);
+        refactoring.setCheckedOutBy("john@example.com");
+
+        when(bookRepository.findAll()).thenReturn(List.of(cleanCode, refactoring, ddd));
+        when(memberRepository.findAll()).thenReturn(List.of());
+
+        registry = new SimpleMeterRegistry();
+        projection = new CatalogProjection(bookRepository, memberRepository, registry, Duration.ofSeconds(2), 1000);
+        index = new CatalogBitmapIndex(projection);
+        projection.start();
+        await(projection::isReady);
+    }
+
+    @AfterEach
+    void tearDown() {
+        projection.stop();
+    }
+
+    @Test
+    @DisplayName("intersects status, year range and borrower facets")
+    void filtersByFacets() {
+        assertThat(index.matching(FacetQuery.ANY).toArray()).containsExactly(1, 2, 3);
+        assertThat(index.matching(new FacetQuery(BookStatus.AVAILABLE, null, 2000, null, null)).toArray())
+                .containsExactly(1, 3);
+        assertThat(index.matching(new FacetQuery(null, null, null, 2005, true)).toArray()).containsExactly(2);
+        assertThat(index.matching(new FacetQuery(null, "Nobody", null, null, null)).isEmpty()).isTrue();
+        assertThat(index.search(new FacetQuery(null, "Eric Evans", null, null, false)))
+                .extracting(Book::getTitle).containsExactly("Domain-Driven Design");
+    }
+
+    @Test
+    @DisplayName("counts facet values within the match")
+    void countsFacets() {
+        FacetCounts counts = index.counts(FacetQuery.ANY, 2);
+
+        assertThat(counts.total()).isEqualTo(3);
+        assertThat(counts.byStatus()).containsEntry(BookStatus.AVAILABLE, 2).containsEntry(BookStatus.CHECKED_OUT, 1);
+        assertThat(counts.byAuthor()).hasSize(2);
+        assertThat(counts.byDecade()).containsEntry(1990, 1).containsEntry(2000, 2);
+        assertThat(counts.checkedOut()).isEqualTo(1);
+        assertThat(counts).isEqualTo(FacetCounts.tally(List.of(cleanCode, refactoring, ddd), 2));
+    }
+
+    @Test
+    @DisplayName("follows committed changes incrementally")
+    void followsChanges() {
+        cleanCode.setStatus(BookStatus.CHECKED_OUT);
+        cleanCode.setCheckedOutBy("jane@example.com");
+        projection.onBookChanged(BookChanged.of(cleanCode, false));
+        projection.onBookChanged(BookChanged.of(ddd, true));
+        await(() -> registry.get("library.projection.applied").counter().count() == 2);
+
+        assertThat(index.matching(new FacetQuery(BookStatus.CHECKED_OUT, null, null, null, true)).toArray())
+                .containsExactly(1, 2);
+        assertThat(index.matching(new FacetQuery(BookStatus.AVAILABLE, null, null, null, null)).isEmpty()).isTrue();
+        assertThat(index.counts(FacetQuery.ANY, 10).byAuthor()).doesNotContainKey("Eric Evans");
+    }
+
+    private static Book book(Long id, String title, String author, int year) {
+        Book book = new Book("isbn-" + id, 1, title, author, LocalDate.of(year, 1, 1));
+        book.setId(id);
+        return book;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5s").isLessThan(deadline);
+            LockSupport.parkNanos(1_000_000);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package edu.trincoll.index;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.Member;
+import edu.trincoll.projection.BookChanged;
+import edu.trincoll.projection.MemberChanged;
+import edu.trincoll.projection.MemberView;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.MemberRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Existence Filters Tests")
+class ExistenceFiltersTest {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final MemberRepository memberRepository = mock(MemberRepository.class);
+    private SimpleMeterRegistry registry;
+    private ExistenceFilters filters;
+
+    @BeforeEach
+    void setUp() {
+        when(bookRepository.count()).thenReturn(2L);
+        when(memberRepository.count()).thenReturn(1L);
+        when(bookRepository.findAllIsbns()).thenReturn(List.of("978-0-123456-78-9", "978-0-987654-32-1"));
+        when(memberRepository.findAllEmails()).thenReturn(List.of("john@example.com"));
+        registry = new SimpleMeterRegistry();
+        filters = new ExistenceFilters(bookRepository, memberRepository, registry, 0.01);
+    }
+
+    @Test
+    @DisplayName("lets everything through until the first build")
+    void openBeforeFirstBuild() {
+        assertThat(filters.mightContainIsbn("missing")).isTrue();
+        assertThat(filters.mightContainEmail("missing@example.com")).isTrue();
+    }
+
+    @Test
+    @DisplayName("rejects unknown keys and counts the rejections")
+    void rejectsUnknownKeys() {
+        filters.rebuild();
+
+        assertThat(filters.mightContainIsbn("978-0-123456-78-9")).isTrue();
+        assertThat(filters.mightContainEmail("john@example.com")).isTrue();
+        assertThat(filters.mightContainEmail("nobody@example.com")).isFalse();
+        assertThat(registry.get("library.bloom.rejected").tag("key", "email").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("admits keys inserted after the build, and keeps them across one rebuild")
+    void admitsInsertedKeys() {
+        filters.rebuild();
+        Book book = new Book("978-1-111111-11-1", 1, "New Title", "Someone", LocalDate.of(2020, 1, 1));
+        book.setId(3L);
+        Member member = new Member("Jane Doe", "jane@example.com");
+        member.setId(2L);
+
+        filters.onBookChanged(BookChanged.of(book, false));
+        filters.onMemberChanged(new MemberChanged(MemberView.of(member), false));
+        // The inserting transaction has not committed, so the rebuild cannot see it
+        filters.rebuild();
+
+        assertThat(filters.mightContainIsbn("978-1-111111-11-1")).isTrue();
+        assertThat(filters.mightContainEmail("jane@example.com")).isTrue();
+    }
+
+    @Test
+    @DisplayName("keeps false positives near the configured rate")
+    void falsePositiveRate() {
+        BloomFilter bloom = BloomFilter.create(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> bloom.put("978-" + i));
+
+        assertThat(IntStream.range(0, 10_000).allMatch(i -> bloom.mightContain("978-" + i))).isTrue();
+        long falsePositives = IntStream.range(0, 100_000).filter(i -> bloom.mightContain("unknown-" + i)).count();
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+}
@@ -0,0 +1,81 @@
+package edu.trincoll.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Roaring Bitmap Tests")
+class RoaringBitmapTest {
+
+    @Test
+    @DisplayName("set operations agree with BitSet across sparse and dense chunks")
+    void matchesBitSet() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            BitSet expectedA = new BitSet();
+            BitSet expectedB = new BitSet();
+            RoaringBitmap a = fill(random, expectedA, round % 2 == 0 ? 20_000 : 500);
+            RoaringBitmap b = fill(random, expectedB, round % 3 == 0 ? 20_000 : 500);
+
+            BitSet and = (BitSet) expectedA.clone();
+            and.and(expectedB);
+            BitSet or = (BitSet) expectedA.clone();
+            or.or(expectedB);
+            BitSet andNot = (BitSet) expectedA.clone();
+            andNot.andNot(expectedB);
+
+            assertThat(RoaringBitmap.and(a, b).toArray()).isEqualTo(and.stream().toArray());
+            assertThat(RoaringBitmap.andCardinality(a, b)).isEqualTo(and.cardinality());
+            assertThat(RoaringBitmap.or(a, b).toArray()).isEqualTo(or.stream().toArray());
+            assertThat(RoaringBitmap.andNot(a, b).toArray()).isEqualTo(andNot.stream().toArray());
+            assertThat(a.cardinality()).isEqualTo(expectedA.cardinality());
+        }
+    }
+
+    @Test
+    @DisplayName("converts a chunk to a bitset and back as it fills and drains")
+    void addsAndRemovesAcrossThreshold() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int i = 0; i < 10_000; i++) {
+            bitmap.add(i * 2);
+        }
+        assertThat(bitmap.cardinality()).isEqualTo(10_000);
+        assertThat(bitmap.contains(19_998)).isTrue();
+        assertThat(bitmap.contains(19_999)).isFalse();
+
+        for (int i = 0; i < 10_000; i += 2) {
+            bitmap.remove(i * 2);
+        }
+        assertThat(bitmap.cardinality()).isEqualTo(5_000);
+        assertThat(bitmap.contains(0)).isFalse();
+        assertThat(bitmap.contains(2)).isTrue();
+
+        bitmap.clear();
+        assertThat(bitmap.isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("copies are independent of the original")
+    void copyIsIndependent() {
+        RoaringBitmap original = RoaringBitmap.of(1, 70_000, 140_000);
+        RoaringBitmap copy = original.copy();
+        copy.remove(70_000);
+
+        assertThat(original.toArray()).containsExactly(1, 70_000, 140_000);
+        assertThat(copy.toArray()).containsExactly(1, 140_000);
+    }
+
+    private static RoaringBitmap fill(Random random, BitSet expected, int count) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int i = 0; i < count; i++) {
+            int value = random.nextInt(200_000);
+            bitmap.add(value);
+            expected.set(value);
+        }
+        return bitmap;
+    }
+}
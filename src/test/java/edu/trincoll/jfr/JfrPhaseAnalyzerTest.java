@@ -0,0 +1,53 @@
+package edu.trincoll.jfr;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("JFR Phase Analyzer Tests")
+class JfrPhaseAnalyzerTest {
+
+    @Test
+    @DisplayName("groups recorded events per phase with percentiles")
+    void summarizesRecordedPhases(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("test.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(CirculationPhaseEvent.class).withoutThreshold();
+            recording.enable(SearchEvent.class).withoutThreshold();
+            recording.start();
+
+            for (int i = 0; i < 5; i++) {
+                CirculationPhaseEvent.start("checkout", "findBook").finish("isbn-" + i);
+            }
+            CirculationPhaseEvent.start("return", "saveBook").finish("isbn-0");
+            SearchEvent.start("title").finish();
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        var stats = JfrPhaseAnalyzer.analyze(file);
+
+        assertThat(stats).containsOnlyKeys("checkout.findBook", "return.saveBook", "search.title");
+        assertThat(stats.get("checkout.findBook").count()).isEqualTo(5);
+        assertThat(stats.get("return.saveBook").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("computes nearest-rank percentiles")
+    void computesPercentiles() {
+        var stats = JfrPhaseAnalyzer.summarize(List.of(5L, 1L, 4L, 2L, 3L, 10L, 9L, 8L, 7L, 6L));
+
+        assertThat(stats.count()).isEqualTo(10);
+        assertThat(stats.p50Micros()).isEqualTo(5);
+        assertThat(stats.p90Micros()).isEqualTo(9);
+        assertThat(stats.p99Micros()).isEqualTo(10);
+        assertThat(stats.maxMicros()).isEqualTo(10);
+    }
+}
@@ -0,0 +1,133 @@
+package edu.trincoll.journal;
+
+import edu.trincoll.model.LoanEventType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Event Journal Tests")
+class EventJournalTest {
+
+    @TempDir Path dir;
+
+    @Test
+    @DisplayName("replays events in order across rolled segments")
+    void replaysAcrossSegments() throws IOException {
+        try (EventJournal journal = EventJournal.open(dir, 4096, 16, 1024)) {
+            for (int i = 0; i < 500; i++) {
+                journal.append(event(i));
+            }
+        }
+
+        assertThat(segmentFiles()).hasSizeGreaterThan(1);
+
+        List<CirculationEvent> replayed = new ArrayList<>();
+        try (EventJournal journal = EventJournal.open(dir, 4096, 16, 1024)) {
+            assertThat(journal.replay(replayed::add)).isEqualTo(500);
+        }
+        assertThat(replayed).extracting(CirculationEvent::copyNumber)
+                .containsExactlyElementsOf(IntStream.range(0, 500).boxed().toList());
+        assertThat(replayed.get(0)).isEqualTo(event(0));
+    }
+
+    @Test
+    @DisplayName("keeps appending after the last intact record when reopened")
+    void appendsAfterReopen() throws IOException {
+        try (EventJournal journal = EventJournal.open(dir, 1 << 20, 16, 1024)) {
+            journal.append(event(1));
+        }
+        try (EventJournal journal = EventJournal.open(dir, 1 << 20, 16, 1024)) {
+            journal.append(event(2));
+        }
+
+        List<CirculationEvent> replayed = new ArrayList<>();
+        try (EventJournal journal = EventJournal.open(dir, 1 << 20, 16, 1024)) {
+            journal.replay(replayed::add);
+        }
+        assertThat(replayed).containsExactly(event(1), event(2));
+    }
+
+    @Test
+    @DisplayName("drops a torn record at the tail and overwrites it on the next append")
+    void recoversFromTornWrite() throws IOException {
+        try (EventJournal journal = EventJournal.open(dir, 1 << 20, 16, 1024)) {
+            journal.append(event(1));
+            journal.append(event(2));
+        }
+        Path segment = segmentFiles().get(0);
+        corruptSecondRecord(segment);
+
+        List<CirculationEvent> replayed = new ArrayList<>();
+        try (EventJournal journal = EventJournal.open(dir, 1 << 20, 16, 1024)) {
+            journal.replay(replayed::add);
+            journal.append(event(3));
+        }
+        assertThat(replayed).containsExactly(event(1));
+
+        replayed.clear();
+        try (EventJournal journal = EventJournal.open(dir, 1 << 20, 16, 1024)) {
+            journal.replay(replayed::add);
+        }
+        assertThat(replayed).containsExactly(event(1), event(3));
+    }
+
+    @Test
+    @DisplayName("fails and rejects new events once a batch cannot be written")
+    void failsAfterRetries() throws IOException {
+        try (EventJournal journal = EventJournal.open(dir, 256, 16, 1024)) {
+            CirculationEvent tooLarge = new CirculationEvent(LoanEventType.CHECKOUT, "9".repeat(1000), 1,
+                    "member@example.com", Instant.ofEpochMilli(1_700_000_000_000L), null, 0.0, false);
+            journal.append(tooLarge);
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!journal.hasFailed() && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+
+            assertThat(journal.hasFailed()).isTrue();
+            assertThat(journal.written()).isZero();
+            assertThatThrownBy(() -> journal.append(event(1)))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("Journal failed");
+        }
+    }
+
+    private static CirculationEvent event(int i) {
+        return new CirculationEvent(i % 2 == 0 ? LoanEventType.CHECKOUT : LoanEventType.RETURN,
+                "978-0-00000-" + i, i, "member" + i + "@example.com",
+                Instant.ofEpochMilli(1_700_000_000_000L + i), i % 2 == 0 ? LocalDate.of(2025, 1, 1).plusDays(i) : null,
+                i % 2 == 0 ? 0.0 : i * 0.25, false);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+
+    private static void corruptSecondRecord(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            channel.read(length, JournalSegment.HEADER_SIZE);
+            long second = JournalSegment.HEADER_SIZE + JournalSegment.RECORD_OVERHEAD + length.flip().getInt();
+            channel.write(ByteBuffer.wrap(new byte[]{0x7F}), second + JournalSegment.RECORD_OVERHEAD + 2);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package edu.trincoll.metrics;
+
+import edu.trincoll.model.MembershipType;
+import edu.trincoll.report.ReportGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Library Metrics Tests")
+class LibraryMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private LibraryMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new LibraryMetrics(registry);
+    }
+
+    @Test
+    @DisplayName("counts checkouts by outcome and times them")
+    void recordsCheckoutOutcomes() {
+        metrics.recordCheckout(metrics.startTimer(), CheckoutOutcome.SUCCESS);
+        metrics.recordCheckout(metrics.startTimer(), CheckoutOutcome.LIMIT_REACHED);
+        metrics.recordCheckout(metrics.startTimer(), CheckoutOutcome.SUCCESS);
+
+        assertThat(registry.get("library.checkouts").tag("outcome", "success").counter().count()).isEqualTo(2);
+        assertThat(registry.get("library.checkouts").tag("outcome", "limit_reached").counter().count()).isEqualTo(1);
+        assertThat(registry.get("library.checkout.duration").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("records time to the first successful checkout only once")
+    void recordsTimeToFirstCheckout() {
+        metrics.recordCheckout(metrics.startTimer(), CheckoutOutcome.NOT_AVAILABLE);
+        assertThat(metrics.timeToFirstCheckout()).isEmpty();
+        assertThat(registry.get("library.startup.first.checkout").gauge().value()).isNaN();
+
+        metrics.recordCheckout(metrics.startTimer(), CheckoutOutcome.SUCCESS);
+        var first = metrics.timeToFirstCheckout().orElseThrow();
+        metrics.recordCheckout(metrics.startTimer(), CheckoutOutcome.SUCCESS);
+
+        assertThat(first).isPositive();
+        assertThat(metrics.timeToFirstCheckout()).contains(first);
+        assertThat(registry.get("library.startup.first.checkout").gauge().value()).isEqualTo(first.toMillis() / 1000.0);
+    }
+
+    @Test
+    @DisplayName("records late fees per membership tier")
+    void recordsLateFeesPerTier() {
+        metrics.recordLateFee(MembershipType.STUDENT, 1.25);
+        metrics.recordLateFee(MembershipType.STUDENT, 0.75);
+
+        var summary = registry.get("library.late.fees").tag("tier", "student").summary();
+        assertThat(summary.count()).isEqualTo(2);
+        assertThat(summary.totalAmount()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("times searches by type and passes results through")
+    void timesSearches() {
+        String result = metrics.timeSearch("title", () -> "found");
+
+        assertThat(result).isEqualTo("found");
+        assertThat(registry.get("library.search.duration").tag("type", "title").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("wraps report generators with a per-report timer")
+    void wrapsReportGenerators() {
+        var beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("libraryMetrics", metrics);
+        var postProcessor = new ReportGeneratorMetricsPostProcessor(beanFactory.getBeanProvider(LibraryMetrics.class));
+        ReportGenerator generator = () -> "report";
+
+        var wrapped = (ReportGenerator) postProcessor.postProcessAfterInitialization(generator, "overdueReportGenerator");
+
+        assertThat(wrapped.generateReport()).isEqualTo("report");
+        assertThat(registry.get("library.report.duration").tag("report", "overdue").timer().count()).isEqualTo(1);
+    }
+}
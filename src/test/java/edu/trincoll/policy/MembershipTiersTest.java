@@ -0,0 +1,98 @@
+package edu.trincoll.policy;
+
+import edu.trincoll.model.Member;
+import edu.trincoll.model.MembershipTier;
+import edu.trincoll.model.MembershipType;
+import edu.trincoll.repository.CheckoutPolicy;
+import edu.trincoll.repository.CheckoutPolicyFactory;
+import edu.trincoll.repository.MembershipTierRepository;
+import edu.trincoll.service.latefee.LateFeeCalculatorFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Membership Tiers Tests")
+class MembershipTiersTest {
+
+    private final MembershipTierRepository repository = mock(MembershipTierRepository.class);
+    private final MembershipTiers tiers = new MembershipTiers(repository);
+    private final CheckoutPolicyFactory policies = new CheckoutPolicyFactory(tiers);
+
+    @Test
+    @DisplayName("an empty tier table keeps the default limits and fees")
+    void defaultsWithoutRows() {
+        when(repository.findAll()).thenReturn(List.of());
+
+        tiers.reload();
+
+        CheckoutPolicy regular = policies.getCheckoutPolicy(MembershipType.REGULAR);
+        assertThat(regular.getMaxBooks()).isEqualTo(3);
+        assertThat(regular.getLoanPeriodDays()).isEqualTo(14);
+        assertThat(policies.getCheckoutPolicy(MembershipType.PREMIUM).getMaxBooks()).isEqualTo(10);
+        assertThat(policies.getCheckoutPolicy(MembershipType.STUDENT).getLoanPeriodDays()).isEqualTo(21);
+        assertThat(tiers.current()).isSameAs(PolicyTable.defaults());
+    }
+
+    @Test
+    @DisplayName("rows replace the policy for their tier on reload")
+    void reloadInstallsRows() {
+        when(repository.findAll()).thenReturn(List.of(
+                new MembershipTier(MembershipType.STUDENT, 6, 28, 0.20, 5.0, 2)));
+
+        tiers.reload();
+
+        CheckoutPolicy student = policies.getCheckoutPolicy(MembershipType.STUDENT);
+        Member member = new Member("Jane Doe", "jane@example.com");
+        member.setMembershipType(MembershipType.STUDENT);
+        member.setBooksCheckedOut(5);
+        assertThat(student.canCheckout(member)).isTrue();
+        assertThat(student.getLoanPeriodDays()).isEqualTo(28);
+        assertThat(policies.getCheckoutPolicy(MembershipType.REGULAR).getMaxBooks()).isEqualTo(3);
+        assertThat(new LateFeeCalculatorFactory(tiers).getCalculator(MembershipType.STUDENT).calculateLateFee(10))
+                .isCloseTo(1.60, within(0.001));
+    }
+
+    @Test
+    @DisplayName("a failed reload keeps the installed table")
+    void failedReloadKeepsTable() {
+        when(repository.findAll()).thenReturn(List.of(
+                new MembershipTier(MembershipType.REGULAR, 4, 14, 0.50, null, 0)));
+        tiers.reload();
+        PolicyTable installed = tiers.current();
+
+        when(repository.findAll()).thenReturn(List.of(
+                new MembershipTier(MembershipType.REGULAR, 4, 0, 0.50, null, 0)));
+        tiers.reload();
+        when(repository.findAll()).thenThrow(new IllegalStateException("database unavailable"));
+        tiers.reload();
+
+        assertThat(tiers.current()).isSameAs(installed);
+        assertThat(policies.getCheckoutPolicy(MembershipType.REGULAR).getMaxBooks()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("fees start after the grace period and stop at the cap")
+    void graceAndCap() {
+        TierPolicy policy = new TierPolicy(MembershipType.REGULAR, 3, 14, 0.50, 4.0, 3);
+
+        assertThat(policy.calculateLateFee(3)).isZero();
+        assertThat(policy.calculateLateFee(5)).isCloseTo(1.00, within(0.001));
+        assertThat(policy.calculateLateFee(100)).isCloseTo(4.00, within(0.001));
+    }
+
+    @Test
+    @DisplayName("rejects a tier defined twice")
+    void rejectsDuplicateTier() {
+        TierPolicy regular = new TierPolicy(MembershipType.REGULAR, 3, 14, 0.50, TierPolicy.NO_CAP, 0);
+
+        assertThatThrownBy(() -> PolicyTable.compile(List.of(regular, regular)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("REGULAR");
+    }
+}
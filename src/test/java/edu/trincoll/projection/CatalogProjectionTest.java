@@ -0,0 +1,215 @@
+package edu.trincoll.projection;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.BookStatus;
+import edu.trincoll.model.Member;
+import edu.trincoll.model.MembershipType;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.MemberRepository;
+import edu.trincoll.snapshot.CatalogSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Catalog Projection Tests")
+class CatalogProjectionTest {
+
+    @Mock private BookRepository bookRepository;
+    @Mock private MemberRepository memberRepository;
+    @TempDir Path dir;
+
+    private SimpleMeterRegistry registry;
+    private CatalogProjection projection;
+    private Book copy1;
+    private Book copy2;
+
+    @BeforeEach
+    void setUp() {
+        copy1 = book(1L, 1, BookStatus.AVAILABLE);
+        copy2 = book(2L, 2, BookStatus.AVAILABLE);
+        Member member = new Member("John Doe", "john@example.com");
+        member.setId(1L);
+
+        when(bookRepository.findAll()).thenReturn(List.of(copy1, copy2));
+        when(memberRepository.findAll()).thenReturn(List.of(member));
+
+        registry = new SimpleMeterRegistry();
+        projection = new CatalogProjection(bookRepository, memberRepository, registry, Duration.ofSeconds(2), 1000);
+        projection.start();
+        await(projection::isReady);
+    }
+
+    @AfterEach
+    void tearDown() {
+        projection.stop();
+    }
+
+    @Test
+    @DisplayName("serves searches from the initial load")
+    void servesLoadedCatalog() {
+        assertThat(projection.bookCount()).isEqualTo(2);
+        assertThat(projection.memberCount()).isEqualTo(1);
+        assertThat(projection.searchByTitle("clean")).hasSize(2);
+        assertThat(projection.searchByAuthor("Robert Martin")).hasSize(2);
+        assertThat(projection.findByIsbn(copy1.getIsbn())).get()
+                .extracting(Book::getCopyNumber).isEqualTo(1);
+        assertThat(projection.availableTitles()).singleElement()
+                .satisfies(title -> {
+                    assertThat(title.availableCopies()).isEqualTo(2);
+                    assertThat(title.totalCopies()).isEqualTo(2);
+                });
+    }
+
+    @Test
+    @DisplayName("prefers an available copy at the requested branch and scopes title search")
+    void branchAwareLookups() {
+        copy2.setBranch("EAST");
+        projection.onBookChanged(BookChanged.of(copy2, false));
+        await(() -> projection.lag().isZero()
+                && projection.findAvailableCopy(copy1.getIsbn(), "EAST").map(Book::getCopyNumber).orElse(0) == 2);
+
+        assertThat(projection.findAvailableCopy(copy1.getIsbn(), "WEST")).get()
+                .extracting(Book::getCopyNumber).isEqualTo(1);
+        assertThat(projection.searchByTitle("clean", "EAST")).extracting(Book::getBranch).containsExactly("EAST");
+        assertThat(projection.findAvailableCopy("unknown", "EAST")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("applies committed changes to availability and the overdue index")
+    void appliesChanges() {
+        copy2.setStatus(BookStatus.CHECKED_OUT);
+        copy2.setCheckedOutBy("john@example.com");
+        copy2.setDueDate(LocalDate.now().minusDays(1));
+
+        projection.onBookChanged(BookChanged.of(copy2, false));
+        await(() -> registry.get("library.projection.applied").counter().count() == 1);
+
+        assertThat(projection.overdue(LocalDate.now())).extracting(Book::getId).containsExactly(2L);
+        assertThat(projection.availableTitles()).singleElement()
+                .extracting(TitleAvailability::availableCopies).isEqualTo(1);
+
+        projection.onBookChanged(BookChanged.of(copy1, true));
+        await(() -> registry.get("library.projection.applied").counter().count() == 2);
+
+        assertThat(projection.findByIsbn(copy1.getIsbn())).get()
+                .extracting(Book::getCopyNumber).isEqualTo(2);
+        assertThat(projection.availableTitles()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("reloads from the repositories when the change queue overflows")
+    void reloadsOnOverflow() {
+        CatalogProjection tiny = new CatalogProjection(bookRepository, memberRepository,
+                new SimpleMeterRegistry(), Duration.ofSeconds(2), 1);
+        tiny.onBookChanged(BookChanged.of(copy1, false));
+        tiny.onBookChanged(BookChanged.of(copy2, false));
+        assertThat(tiny.isReady()).isFalse();
+
+        tiny.start();
+        try {
+            await(tiny::isReady);
+            assertThat(tiny.bookCount()).isEqualTo(2);
+        } finally {
+            tiny.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("serves a current snapshot from the mapping and layers later changes over it")
+    void servesCurrentSnapshot() throws IOException {
+        CatalogSnapshot.Mark mark = new CatalogSnapshot.Mark(5L, 2L, 1L);
+        Path file = writeSnapshot(mark);
+        when(bookRepository.count()).thenReturn(2L);
+        when(memberRepository.count()).thenReturn(1L);
+
+        CatalogProjection seeded = new CatalogProjection(bookRepository, memberRepository,
+                new SimpleMeterRegistry(), Duration.ofSeconds(2), 1000);
+        seeded.seed(CatalogSnapshot.open(file), () -> mark);
+        seeded.start();
+        try {
+            await(seeded::isReady);
+            assertThat(seeded.bookCount()).isEqualTo(2);
+            assertThat(seeded.memberCount()).isEqualTo(1);
+            assertThat(seeded.searchByAuthor("Robert Martin")).hasSize(2);
+
+            copy2.setStatus(BookStatus.CHECKED_OUT);
+            copy2.setCheckedOutBy("john@example.com");
+            copy2.setDueDate(LocalDate.now().minusDays(1));
+            seeded.onBookChanged(BookChanged.of(copy2, false));
+            await(() -> seeded.overdue(LocalDate.now()).size() == 1);
+
+            assertThat(seeded.bookCount()).isEqualTo(2);
+            assertThat(seeded.searchByTitle("clean")).extracting(Book::getStatus)
+                    .containsExactlyInAnyOrder(BookStatus.AVAILABLE, BookStatus.CHECKED_OUT);
+            assertThat(seeded.availableTitles()).singleElement()
+                    .satisfies(title -> {
+                        assertThat(title.availableCopies()).isEqualTo(1);
+                        assertThat(title.totalCopies()).isEqualTo(2);
+                    });
+        } finally {
+            seeded.stop();
+        }
+        // Only the projection from setUp read the tables
+        verify(bookRepository, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("loads from the repositories when the snapshot is behind the database")
+    void rejectsStaleSnapshot() throws IOException {
+        Path file = writeSnapshot(new CatalogSnapshot.Mark(5L, 2L, 1L));
+        when(bookRepository.count()).thenReturn(2L);
+        when(memberRepository.count()).thenReturn(1L);
+
+        CatalogProjection seeded = new CatalogProjection(bookRepository, memberRepository,
+                new SimpleMeterRegistry(), Duration.ofSeconds(2), 1000);
+        seeded.seed(CatalogSnapshot.open(file), () -> new CatalogSnapshot.Mark(5L, 2L, 2L));
+        seeded.start();
+        try {
+            await(seeded::isReady);
+            assertThat(seeded.bookCount()).isEqualTo(2);
+        } finally {
+            seeded.stop();
+        }
+        verify(bookRepository, times(2)).findAll();
+    }
+
+    private Path writeSnapshot(CatalogSnapshot.Mark mark) throws IOException {
+        Path file = dir.resolve("catalog.snap");
+        CatalogSnapshot.write(file, List.of(BookView.of(copy1), BookView.of(copy2)),
+                List.of(new MemberView(1L, "John Doe", "john@example.com", MembershipType.REGULAR, 0)), mark);
+        return file;
+    }
+
+    private static Book book(Long id, int copyNumber, BookStatus status) {
+        Book book = new Book("978-0-123456-78-9", copyNumber, "Clean Code", "Robert Martin", LocalDate.of(2008, 8, 1));
+        book.setId(id);
+        book.setStatus(status);
+        return book;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5s").isLessThan(deadline);
+            LockSupport.parkNanos(1_000_000);
+        }
+    }
+}
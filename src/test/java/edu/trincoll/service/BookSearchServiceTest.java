@@ -1,8 +1,15 @@
 package edu.trincoll.service;
 
+import edu.trincoll.index.CatalogBitmapIndex;
+import edu.trincoll.metrics.LibraryMetrics;
 import edu.trincoll.model.Book;
+import edu.trincoll.model.BookTitle;
+import edu.trincoll.projection.CatalogProjection;
 import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.BookTitleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
 import java.util.List;
 import java.util.Optional;
 import static org.mockito.Mockito.*;
@@ -13,7 +20,7 @@ class BookSearchServiceTest {
     @Test
     void testSearchByTitle() {
         BookRepository repo = mock(BookRepository.class);
-        BookSearchService search = new BookSearchService(repo);
+        BookSearchService search = newSearchService(repo);
         when(repo.findByTitleContainingIgnoreCase("Java")).thenReturn(List.of(new Book()));
         assertEquals(1, search.searchByTitle("Java").size());
     }
@@ -21,7 +28,7 @@ class BookSearchServiceTest {
     @Test
     void testSearchByAuthor() {
         BookRepository repo = mock(BookRepository.class);
-        BookSearchService search = new BookSearchService(repo);
+        BookSearchService search = newSearchService(repo);
         when(repo.findByAuthor("Robert Martin")).thenReturn(List.of(new Book()));
         assertEquals(1, search.searchByAuthor("Robert Martin").size());
     }
@@ -29,9 +36,26 @@ class BookSearchServiceTest {
     @Test
     void testSearchByIsbn() {
         BookRepository repo = mock(BookRepository.class);
-        BookSearchService search = new BookSearchService(repo);
+        BookSearchService search = newSearchService(repo);
         Book mockBook = new Book();
         when(repo.findByIsbn("123")).thenReturn(Optional.of(mockBook));
         assertTrue(search.searchByIsbn("123").isPresent());
     }
+
+    @Test
+    void testSearchTitles() {
+        BookTitleRepository titles = mock(BookTitleRepository.class);
+        BookSearchService search = newSearchService(mock(BookRepository.class), titles);
+        when(titles.findByTitleContainingIgnoreCase("Java")).thenReturn(List.of(new BookTitle()));
+        assertEquals(1, search.searchTitles("Java").size());
+    }
+
+    private static BookSearchService newSearchService(BookRepository repo) {
+        return newSearchService(repo, mock(BookTitleRepository.class));
+    }
+
+    private static BookSearchService newSearchService(BookRepository repo, BookTitleRepository titles) {
+        return new BookSearchService(repo, titles, new LibraryMetrics(new SimpleMeterRegistry()), mock(CatalogProjection.class),
+                mock(CatalogBitmapIndex.class), mock(ObjectProvider.class));
+    }
 }
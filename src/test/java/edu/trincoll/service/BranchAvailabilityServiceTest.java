@@ -0,0 +1,115 @@
+package edu.trincoll.service;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.BookStatus;
+import edu.trincoll.projection.CatalogProjection;
+import edu.trincoll.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Branch Availability Tests")
+class BranchAvailabilityServiceTest {
+    private static final String ISBN = "978-0-13-235088-4";
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final CatalogProjection projection = mock(CatalogProjection.class);
+    private BranchAvailabilityService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new BranchAvailabilityService(bookRepository, projection, 4);
+        when(bookRepository.findBranches()).thenReturn(List.of("EAST", "MAIN", "NORTH", "WEST"));
+        when(bookRepository.findFirstByBranchAndIsbnAndStatusOrderByCopyNumberAsc(anyString(), eq(ISBN),
+                eq(BookStatus.AVAILABLE))).thenReturn(Optional.empty());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    private static Book copyAt(String branch, int copyNumber) {
+        Book book = new Book(ISBN, copyNumber, "Clean Code", "Robert Martin", LocalDate.of(2008, 8, 1));
+        book.setBranch(branch);
+        return book;
+    }
+
+    private void shelve(Book copy) {
+        when(bookRepository.findFirstByBranchAndIsbnAndStatusOrderByCopyNumberAsc(copy.getBranch(), ISBN,
+                BookStatus.AVAILABLE)).thenReturn(Optional.of(copy));
+    }
+
+    @Test
+    @DisplayName("answers from the projection while it is ready")
+    void usesProjection() {
+        Book copy = copyAt("EAST", 2);
+        when(projection.isReady()).thenReturn(true);
+        when(projection.findAvailableCopy(ISBN, "MAIN")).thenReturn(Optional.of(copy));
+
+        assertThat(service.findAvailableCopy(ISBN, "MAIN")).contains(copy);
+        verify(bookRepository, never()).findBranches();
+    }
+
+    @Test
+    @DisplayName("stays at the preferred branch when it has a copy")
+    void preferredBranchFirst() {
+        Book local = copyAt("MAIN", 1);
+        shelve(local);
+
+        assertThat(service.findAvailableCopy(ISBN, "MAIN")).contains(local);
+        verify(bookRepository, never()).findBranches();
+    }
+
+    @Test
+    @DisplayName("fans out to the other branches when the preferred one has none")
+    void fansOut() {
+        Book remote = copyAt("NORTH", 3);
+        shelve(remote);
+
+        assertThat(service.findAvailableCopy(ISBN, "MAIN")).contains(remote);
+        assertThat(service.findAvailableCopyAnywhere(ISBN)).contains(remote);
+    }
+
+    @Test
+    @DisplayName("reports no copy when every branch is out")
+    void noneAnywhere() {
+        assertThat(service.findAvailableCopyAnywhere(ISBN)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("passes over a failing branch when another has a copy")
+    void skipsFailedBranch() {
+        Book remote = copyAt("NORTH", 3);
+        shelve(remote);
+        when(bookRepository.findFirstByBranchAndIsbnAndStatusOrderByCopyNumberAsc("WEST", ISBN, BookStatus.AVAILABLE))
+                .thenThrow(new IllegalStateException("branch offline"));
+
+        assertThat(service.findAvailableCopyAnywhere(ISBN)).contains(remote);
+    }
+
+    @Test
+    @DisplayName("surfaces a failing branch query when no branch has a copy")
+    void propagatesFailure() {
+        when(bookRepository.findFirstByBranchAndIsbnAndStatusOrderByCopyNumberAsc("WEST", ISBN, BookStatus.AVAILABLE))
+                .thenThrow(new IllegalStateException("branch offline"));
+
+        assertThatThrownBy(() -> service.findAvailableCopyAnywhere(ISBN))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("branch offline");
+    }
+}
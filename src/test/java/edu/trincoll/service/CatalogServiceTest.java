@@ -0,0 +1,63 @@
+package edu.trincoll.service;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.BookTitle;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.BookTitleRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Catalog Service Tests")
+class CatalogServiceTest {
+
+    @Mock private BookRepository bookRepository;
+    @Mock private BookTitleRepository bookTitleRepository;
+
+    @InjectMocks private CatalogService catalogService;
+
+    @Test
+    @DisplayName("numbers new copies after the existing ones and bumps both counters")
+    void addsCopiesAfterExistingOnes() {
+        BookTitle title = new BookTitle("978-0-13-468599-1", "Effective Java", "Joshua Bloch", LocalDate.of(2018, 1, 6));
+        title.setTotalCopies(2);
+        title.setAvailableCopies(1);
+        Book lastCopy = new Book("978-0-13-468599-1", 2, "Effective Java", "Joshua Bloch", LocalDate.of(2018, 1, 6));
+
+        when(bookTitleRepository.findByIsbn(title.getIsbn())).thenReturn(Optional.of(title));
+        when(bookRepository.findTopByIsbnOrderByCopyNumberDesc(title.getIsbn())).thenReturn(Optional.of(lastCopy));
+        when(bookRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        List<Book> added = catalogService.addCopies(title.getIsbn(), "Effective Java", "Joshua Bloch",
+                LocalDate.of(2018, 1, 6), 3);
+
+        assertThat(added).extracting(Book::getCopyNumber).containsExactly(3, 4, 5);
+        assertThat(title.getTotalCopies()).isEqualTo(5);
+        assertThat(title.getAvailableCopies()).isEqualTo(4);
+        verify(bookTitleRepository).save(title);
+    }
+
+    @Test
+    @DisplayName("answers availability from the title counter")
+    void availabilityFromCounter() {
+        when(bookTitleRepository.findAvailableCopiesByIsbn("in-stock")).thenReturn(Optional.of(3));
+        when(bookTitleRepository.findAvailableCopiesByIsbn("all-out")).thenReturn(Optional.of(0));
+
+        assertThat(catalogService.isAnyCopyAvailable("in-stock")).isTrue();
+        assertThat(catalogService.isAnyCopyAvailable("all-out")).isFalse();
+        assertThat(catalogService.isAnyCopyAvailable("unknown")).isFalse();
+        verifyNoInteractions(bookRepository);
+    }
+}
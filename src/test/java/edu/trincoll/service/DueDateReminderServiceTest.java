@@ -0,0 +1,163 @@
+package edu.trincoll.service;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.BookStatus;
+import edu.trincoll.model.Member;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.MemberRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Due Date Reminder Service Tests")
+class DueDateReminderServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 10);
+    private static final LocalDate DUE = TODAY.plusDays(2);
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final MemberRepository memberRepository = mock(MemberRepository.class);
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final MutableClock clock = new MutableClock();
+    private SimpleMeterRegistry registry;
+    private DueDateReminderService reminders;
+
+    private Member john;
+    private Member jane;
+    private Book johnsFirst;
+    private Book johnsSecond;
+    private Book janesCopy;
+
+    @BeforeEach
+    void setUp() {
+        john = member(1L, "john@example.com");
+        jane = member(2L, "jane@example.com");
+        johnsFirst = copy(10L, "john@example.com");
+        johnsSecond = copy(11L, "john@example.com");
+        janesCopy = copy(12L, "jane@example.com");
+
+        registry = new SimpleMeterRegistry();
+        reminders = new DueDateReminderService(bookRepository, memberRepository, notificationService, registry,
+                2, 2, 2, clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reminders.close();
+    }
+
+    @Test
+    @DisplayName("sends one reminder per borrower listing all of their copies due")
+    void groupsCopiesByBorrower() {
+        stubBorrowers();
+
+        DueDateReminderService.Result result = reminders.sendReminders();
+
+        assertThat(result).isEqualTo(new DueDateReminderService.Result(2, 0, 0));
+        verify(notificationService).sendDueSoonNotification(john, List.of(johnsFirst, johnsSecond), DUE);
+        verify(notificationService).sendDueSoonNotification(jane, List.of(janesCopy), DUE);
+        // A full chunk asks for the next one, starting after the last borrower seen
+        verify(bookRepository).findBorrowersDueBetween(
+                eq(BookStatus.CHECKED_OUT), eq(DUE), eq(DUE), eq("john@example.com"), any(Limit.class));
+        assertThat(registry.get("library.reminders").tag("outcome", "sent").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("a second sweep the same day only reaches members whose send failed")
+    void skipsMembersRemindedToday() {
+        stubBorrowers();
+        when(notificationService.sendDueSoonNotification(eq(jane), anyList(), eq(DUE)))
+                .thenThrow(new IllegalStateException("mail server unavailable"))
+                .thenReturn(null);
+
+        assertThat(reminders.sendReminders()).isEqualTo(new DueDateReminderService.Result(1, 0, 1));
+        assertThat(reminders.sendReminders()).isEqualTo(new DueDateReminderService.Result(1, 1, 0));
+
+        verify(notificationService, times(1)).sendDueSoonNotification(eq(john), anyList(), eq(DUE));
+        verify(notificationService, times(2)).sendDueSoonNotification(eq(jane), anyList(), eq(DUE));
+    }
+
+    @Test
+    @DisplayName("forgets who was reminded once the day changes")
+    void resetsLogEachDay() {
+        stubBorrowers();
+        reminders.sendReminders();
+
+        clock.advance(Duration.ofDays(1));
+        LocalDate nextDue = DUE.plusDays(1);
+        when(bookRepository.findBorrowersDueBetween(eq(BookStatus.CHECKED_OUT), eq(nextDue), eq(nextDue), eq(""), any()))
+                .thenReturn(List.of("john@example.com"));
+        when(bookRepository.findByStatusAndDueDateBetweenAndCheckedOutByIn(
+                eq(BookStatus.CHECKED_OUT), eq(nextDue), eq(nextDue), anyCollection()))
+                .thenReturn(List.of(johnsFirst));
+        when(memberRepository.findByEmailIn(List.of("john@example.com"))).thenReturn(List.of(john));
+
+        assertThat(reminders.sendReminders()).isEqualTo(new DueDateReminderService.Result(1, 0, 0));
+        verify(notificationService).sendDueSoonNotification(john, List.of(johnsFirst), nextDue);
+    }
+
+    private void stubBorrowers() {
+        List<String> borrowers = List.of("jane@example.com", "john@example.com");
+        when(bookRepository.findBorrowersDueBetween(eq(BookStatus.CHECKED_OUT), eq(DUE), eq(DUE), eq(""), any()))
+                .thenReturn(borrowers);
+        when(bookRepository.findByStatusAndDueDateBetweenAndCheckedOutByIn(BookStatus.CHECKED_OUT, DUE, DUE, borrowers))
+                .thenReturn(List.of(johnsFirst, janesCopy, johnsSecond));
+        when(memberRepository.findByEmailIn(borrowers)).thenReturn(List.of(jane, john));
+    }
+
+    private static Member member(Long id, String email) {
+        Member member = new Member("Member " + id, email);
+        member.setId(id);
+        return member;
+    }
+
+    private static Book copy(Long id, String borrower) {
+        Book book = new Book("978-0-123456-78-9", id.intValue(), "Title " + id, "Author", LocalDate.of(2020, 1, 1));
+        book.setId(id);
+        book.setStatus(BookStatus.CHECKED_OUT);
+        book.setCheckedOutBy(borrower);
+        book.setDueDate(DUE);
+        return book;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = TODAY.atTime(9, 0).toInstant(ZoneOffset.UTC);
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
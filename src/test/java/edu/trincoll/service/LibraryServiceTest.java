@@ -1,11 +1,23 @@
 package edu.trincoll.service;
 
+import edu.trincoll.engine.CirculationEngine;
+import edu.trincoll.index.ExistenceFilters;
+import edu.trincoll.journal.CirculationEvent;
+import edu.trincoll.metrics.LibraryMetrics;
 import edu.trincoll.model.Book;
 import edu.trincoll.model.BookStatus;
 import edu.trincoll.model.Member;
+import edu.trincoll.model.LoanEventType;
 import edu.trincoll.model.MembershipType;
+import edu.trincoll.policy.MembershipTiers;
+import edu.trincoll.policy.PolicyTable;
 import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.BookTitleRepository;
+import edu.trincoll.repository.CheckoutPolicyFactory;
 import edu.trincoll.repository.MemberRepository;
+import edu.trincoll.repository.MembershipTierRepository;
+import edu.trincoll.service.history.LoanHistoryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,13 +25,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import edu.trincoll.service.latefee.LateFeeCalculatorFactory;
-import edu.trincoll.service.latefee.PremiumLateFeeCalculator;
-import edu.trincoll.service.latefee.RegularLateFeeCalculator;
-import edu.trincoll.service.latefee.StudentLateFeeCalculator;
 
 import java.lang.reflect.Field;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -35,6 +47,13 @@ class LibraryServiceTest {
     @Mock private BookRepository bookRepository;
     @Mock private MemberRepository memberRepository;
     @Mock private LateFeeCalculatorFactory lateFeeCalculatorFactory;  // NEW
+    @Mock private ReservationService reservationService;
+    @Mock private BookTitleRepository bookTitleRepository;
+    @Mock private LoanHistoryService loanHistoryService;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Mock private ObjectProvider<CirculationEngine> circulationEngine;
+    @Mock private ExistenceFilters existenceFilters;
+    @Mock private BranchAvailabilityService branchAvailability;
 
     // Real services with mocked repos injected
     @InjectMocks private BookService bookService;
@@ -50,6 +69,7 @@ class LibraryServiceTest {
     private Member regularMember;
     private Member premiumMember;
     private Member studentMember;
+    private SimpleMeterRegistry registry;
 
     @BeforeEach
     void setUp() throws Exception {
@@ -73,11 +93,22 @@ class LibraryServiceTest {
         studentMember.setMembershipType(MembershipType.STUDENT);
         studentMember.setBooksCheckedOut(0);
 
+        // Filters that have not been built yet let every key through
+        lenient().when(existenceFilters.mightContainIsbn(anyString())).thenReturn(true);
+        lenient().when(existenceFilters.mightContainEmail(anyString())).thenReturn(true);
+        // Titles have a copy on the shelf unless a test says otherwise
+        lenient().when(bookTitleRepository.decrementAvailable(anyString())).thenReturn(1);
+
         // ---- CRITICAL: manually inject services into LibraryService (since your prod constructor doesn't) ----
         inject(libraryService, "bookService", bookService);
         inject(libraryService, "memberService", memberService);
         inject(libraryService, "emailNotificationService", emailNotificationService);
         inject(libraryService, "lateFeeCalculatorFactory", lateFeeCalculatorFactory);
+        registry = new SimpleMeterRegistry();
+        inject(libraryService, "metrics", new LibraryMetrics(registry));
+        CheckoutPolicyFactory policies = new CheckoutPolicyFactory(new MembershipTiers(mock(MembershipTierRepository.class)));
+        inject(libraryService, "checkoutPolicyFactory", policies);
+        inject(memberService, "checkoutPolicyFactory", policies);
 
 // NEW: default stub for factory so all returnBook tests work
     }
@@ -117,6 +148,11 @@ class LibraryServiceTest {
         verify(memberRepository).save(argThat(member ->
                 member.getBooksCheckedOut() == 1
         ));
+        verify(bookTitleRepository).decrementAvailable(availableBook.getIsbn());
+        verify(loanHistoryService).recordCheckout(availableBook);
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof CirculationEvent circulation
+                && circulation.type() == LoanEventType.CHECKOUT
+                && regularMember.getEmail().equals(circulation.memberEmail())));
     }
 
     @Test
@@ -194,6 +230,141 @@ class LibraryServiceTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessage("Book not found");
         verifyNoInteractions(emailNotificationService);
+        assertThat(registry.get("library.checkouts").tag("outcome", "not_found").counter().count()).isEqualTo(1);
+        assertThat(registry.get("library.checkout.duration").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should count a checkout by an unknown member as not found")
+    void shouldRecordCheckoutByUnknownMember() {
+        when(bookRepository.findFirstByIsbnAndStatusOrderByCopyNumberAsc(availableBook.getIsbn(), BookStatus.AVAILABLE))
+                .thenReturn(Optional.of(availableBook));
+        when(memberRepository.findByEmail("nobody@example.com")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> libraryService.checkoutBook(availableBook.getIsbn(), "nobody@example.com"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Member not found");
+        assertThat(registry.get("library.checkouts").tag("outcome", "not_found").counter().count()).isEqualTo(1);
+        assertThat(registry.get("library.checkout.duration").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should only consider copies at the requested branch")
+    void shouldCheckoutFromRequestedBranch() {
+        // Arrange
+        availableBook.setBranch("EAST");
+        when(bookRepository.findFirstByBranchAndIsbnAndStatusOrderByCopyNumberAsc("EAST", availableBook.getIsbn(),
+                BookStatus.AVAILABLE)).thenReturn(Optional.of(availableBook));
+        when(memberRepository.findByEmail(regularMember.getEmail()))
+                .thenReturn(Optional.of(regularMember));
+        when(bookRepository.save(any(Book.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(memberRepository.save(any(Member.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // Act
+        libraryService.checkoutBook(availableBook.getIsbn(), regularMember.getEmail(), "EAST");
+
+        // Assert
+        verify(bookRepository).save(argThat(book ->
+                book.getStatus() == BookStatus.CHECKED_OUT && "EAST".equals(book.getBranch())));
+        verify(bookRepository, never()).findFirstByIsbnAndStatusOrderByCopyNumberAsc(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should check out a local copy when the member's hold is waiting at another branch")
+    void shouldMoveHoldToRequestedBranch() {
+        // Arrange
+        Book held = new Book(availableBook.getIsbn(), availableBook.getTitle(), availableBook.getAuthor(),
+                availableBook.getPublicationDate());
+        held.setId(2L);
+        held.setBranch("WEST");
+        held.setStatus(BookStatus.RESERVED);
+        availableBook.setBranch("EAST");
+        when(reservationService.readyCopyFor(availableBook.getIsbn(), regularMember.getEmail())).thenReturn(Optional.of(2L));
+        when(bookRepository.findById(2L)).thenReturn(Optional.of(held));
+        when(bookRepository.findFirstByBranchAndIsbnAndStatusOrderByCopyNumberAsc("EAST", availableBook.getIsbn(),
+                BookStatus.AVAILABLE)).thenReturn(Optional.of(availableBook));
+        when(reservationService.moveReadyHold(availableBook, regularMember.getEmail())).thenAnswer(inv -> {
+            availableBook.setStatus(BookStatus.RESERVED);
+            return Optional.of(availableBook);
+        });
+        when(reservationService.claimHold(availableBook, regularMember)).thenReturn(true);
+        when(memberRepository.findByEmail(regularMember.getEmail()))
+                .thenReturn(Optional.of(regularMember));
+        when(bookRepository.save(any(Book.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(memberRepository.save(any(Member.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // Act
+        libraryService.checkoutBook(availableBook.getIsbn(), regularMember.getEmail(), "EAST");
+
+        // Assert
+        assertThat(availableBook.getStatus()).isEqualTo(BookStatus.CHECKED_OUT);
+        assertThat(availableBook.getCheckedOutBy()).isEqualTo(regularMember.getEmail());
+    }
+
+    @Test
+    @DisplayName("Should name another branch when every copy at the requested one is out")
+    void shouldSuggestAnotherBranch() {
+        // Arrange
+        availableBook.setBranch("EAST");
+        availableBook.setStatus(BookStatus.CHECKED_OUT);
+        Book west = new Book(availableBook.getIsbn(), availableBook.getTitle(), availableBook.getAuthor(),
+                availableBook.getPublicationDate());
+        west.setBranch("WEST");
+        when(bookRepository.findFirstByBranchAndIsbnAndStatusOrderByCopyNumberAsc("EAST", availableBook.getIsbn(),
+                BookStatus.AVAILABLE)).thenReturn(Optional.empty());
+        when(bookRepository.findFirstByBranchAndIsbnOrderByCopyNumberAsc("EAST", availableBook.getIsbn()))
+                .thenReturn(Optional.of(availableBook));
+        when(branchAvailability.findAvailableCopy(availableBook.getIsbn(), "EAST")).thenReturn(Optional.of(west));
+
+        // Act
+        String result = libraryService.checkoutBook(availableBook.getIsbn(), regularMember.getEmail(), "EAST");
+
+        // Assert
+        assertThat(result).isEqualTo("Book is not available at EAST; a copy is available at WEST");
+        verify(bookRepository, never()).save(any());
+        verifyNoInteractions(emailNotificationService);
+    }
+
+    @Test
+    @DisplayName("Should only return the member's copy at the requested branch")
+    void shouldReturnFromRequestedBranch() {
+        // Arrange
+        availableBook.setBranch("EAST");
+        availableBook.setStatus(BookStatus.CHECKED_OUT);
+        availableBook.setCheckedOutBy(regularMember.getEmail());
+        availableBook.setDueDate(LocalDate.now().plusDays(7));
+        regularMember.setBooksCheckedOut(1);
+        when(bookRepository.findFirstByBranchAndIsbnAndStatusAndCheckedOutByOrderByDueDateAsc("EAST",
+                availableBook.getIsbn(), BookStatus.CHECKED_OUT, regularMember.getEmail()))
+                .thenReturn(Optional.of(availableBook));
+        when(memberRepository.findByEmail(regularMember.getEmail()))
+                .thenReturn(Optional.of(regularMember));
+        when(bookRepository.save(any(Book.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(memberRepository.save(any(Member.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // Act
+        libraryService.returnBook(availableBook.getIsbn(), regularMember.getEmail(), "EAST");
+
+        // Assert
+        assertThat(availableBook.getStatus()).isEqualTo(BookStatus.AVAILABLE);
+        verify(bookRepository, never()).findFirstByIsbnAndStatusAndCheckedOutByOrderByDueDateAsc(anyString(), any(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should throw exception when the branch has no copy")
+    void shouldThrowExceptionWhenBranchHasNoCopy() {
+        // Arrange
+        when(bookRepository.findFirstByBranchAndIsbnAndStatusOrderByCopyNumberAsc("WEST", availableBook.getIsbn(),
+                BookStatus.AVAILABLE)).thenReturn(Optional.empty());
+        when(bookRepository.findFirstByBranchAndIsbnOrderByCopyNumberAsc("WEST", availableBook.getIsbn()))
+                .thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThatThrownBy(() ->
+                libraryService.checkoutBook(availableBook.getIsbn(), regularMember.getEmail(), "WEST"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Book not found");
+        verifyNoInteractions(emailNotificationService);
     }
 
     @Test
@@ -227,6 +398,56 @@ class LibraryServiceTest {
                 member.getBooksCheckedOut() == 0
         ));
         verifyNoInteractions(emailNotificationService); // your return path prints to stdout only
+        verify(loanHistoryService).recordReturn(availableBook, regularMember.getEmail(), 0.0);
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof CirculationEvent circulation
+                && circulation.type() == LoanEventType.RETURN
+                && regularMember.getEmail().equals(circulation.memberEmail())));
+    }
+
+    @Test
+    @DisplayName("Should not return a copy checked out to another member")
+    void shouldNotReturnAnotherMembersCopy() {
+        availableBook.setStatus(BookStatus.CHECKED_OUT);
+        availableBook.setCheckedOutBy(premiumMember.getEmail());
+        availableBook.setDueDate(LocalDate.now().plusDays(7));
+
+        when(bookRepository.findByIsbn(availableBook.getIsbn()))
+                .thenReturn(Optional.of(availableBook));
+
+        String result = libraryService.returnBook(availableBook.getIsbn(), regularMember.getEmail());
+
+        assertThat(result).isEqualTo("Book is not checked out");
+        verify(bookRepository, never()).save(any());
+        verify(memberRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should require a borrower or copy number when several copies are out")
+    void shouldRejectAmbiguousReturn() {
+        Book second = new Book(availableBook.getIsbn(), 2, "Clean Code", "Robert Martin", LocalDate.of(2008, 8, 1));
+        when(bookRepository.findTop2ByIsbnAndStatusOrderByDueDateAsc(availableBook.getIsbn(), BookStatus.CHECKED_OUT))
+                .thenReturn(List.of(availableBook, second));
+
+        assertThatThrownBy(() -> libraryService.returnBook(availableBook.getIsbn()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Several copies are checked out; specify the borrower or copy number");
+        verify(bookRepository, never()).save(any());
+        assertThat(registry.get("library.returns").tag("outcome", "error").counter().count()).isEqualTo(1);
+        assertThat(registry.get("library.return.duration").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should count a return of an unknown book as not found")
+    void shouldRecordReturnOfUnknownBook() {
+        when(bookRepository.findFirstByIsbnAndStatusAndCheckedOutByOrderByDueDateAsc("invalid-isbn",
+                BookStatus.CHECKED_OUT, regularMember.getEmail())).thenReturn(Optional.empty());
+        when(bookRepository.findByIsbn("invalid-isbn")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> libraryService.returnBook("invalid-isbn", regularMember.getEmail()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Book not found");
+        assertThat(registry.get("library.returns").tag("outcome", "not_found").counter().count()).isEqualTo(1);
+        assertThat(registry.get("library.return.duration").timer().count()).isEqualTo(1);
     }
 
     @Test
@@ -244,7 +465,7 @@ class LibraryServiceTest {
         when(bookRepository.save(any(Book.class))).thenAnswer(inv -> inv.getArgument(0));
         when(memberRepository.save(any(Member.class))).thenAnswer(inv -> inv.getArgument(0));
         when(lateFeeCalculatorFactory.getCalculator(MembershipType.REGULAR))
-                .thenReturn(new edu.trincoll.service.latefee.RegularLateFeeCalculator());
+                .thenReturn(PolicyTable.defaults().policy(MembershipType.REGULAR));
 
         regularMember.setBooksCheckedOut(1);
 
@@ -271,7 +492,7 @@ class LibraryServiceTest {
         when(bookRepository.save(any(Book.class))).thenAnswer(inv -> inv.getArgument(0));
         when(memberRepository.save(any(Member.class))).thenAnswer(inv -> inv.getArgument(0));
         when(lateFeeCalculatorFactory.getCalculator(MembershipType.PREMIUM))
-                .thenReturn(new edu.trincoll.service.latefee.PremiumLateFeeCalculator());
+                .thenReturn(PolicyTable.defaults().policy(MembershipType.PREMIUM));
 
         premiumMember.setBooksCheckedOut(1);
 
@@ -0,0 +1,91 @@
+package edu.trincoll.service;
+
+import edu.trincoll.cache.EntityCaches;
+import edu.trincoll.engine.CirculationEngine;
+import edu.trincoll.model.BookStatus;
+import edu.trincoll.model.Member;
+import edu.trincoll.projection.MemberChanged;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.BorrowerCount;
+import edu.trincoll.repository.MemberCounter;
+import edu.trincoll.repository.MemberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Member Counter Reconciler Tests")
+class MemberCounterReconcilerTest {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final MemberRepository memberRepository = mock(MemberRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final EntityCaches entityCaches = mock(EntityCaches.class);
+    @SuppressWarnings("unchecked")
+    private final ObjectProvider<CirculationEngine> circulationEngine = mock(ObjectProvider.class);
+
+    private MemberCounterReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<Integer>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+        reconciler = new MemberCounterReconciler(bookRepository, memberRepository, jdbcTemplate, transactionTemplate,
+                eventPublisher, entityCaches, circulationEngine, 2);
+    }
+
+    @Test
+    @DisplayName("corrects only drifted members, paging by id")
+    @SuppressWarnings("unchecked")
+    void correctsDrift() {
+        when(bookRepository.countByBorrower(BookStatus.CHECKED_OUT)).thenReturn(List.of(
+                new BorrowerCount("john@example.com", 2), new BorrowerCount("jane@example.com", 1)));
+        when(memberRepository.findCountersAfter(eq(0L), any(Limit.class))).thenReturn(List.of(
+                new MemberCounter(1L, "john@example.com", 2), new MemberCounter(2L, "jane@example.com", 0)));
+        when(memberRepository.findCountersAfter(eq(2L), any(Limit.class))).thenReturn(List.of(
+                new MemberCounter(3L, "bob@example.com", 4)));
+        when(jdbcTemplate.batchUpdate(eq(MemberCounterReconciler.CORRECT_SQL), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenReturn(new int[][]{{1}}, new int[][]{{0}});
+        Member jane = new Member("Jane Doe", "jane@example.com");
+        jane.setId(2L);
+        jane.setBooksCheckedOut(1);
+        when(memberRepository.findAllById(List.of(2L))).thenReturn(List.of(jane));
+
+        MemberCounterReconciler.Result result = reconciler.reconcile();
+
+        assertThat(result).isEqualTo(new MemberCounterReconciler.Result(3, 1, 1));
+        ArgumentCaptor<List<MemberCounter>> drifted = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(MemberCounterReconciler.CORRECT_SQL), drifted.capture(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertThat(drifted.getAllValues()).extracting(chunk -> chunk.get(0).id()).containsExactly(2L, 3L);
+        ArgumentCaptor<MemberChanged> event = ArgumentCaptor.forClass(MemberChanged.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().member().booksCheckedOut()).isEqualTo(1);
+        verify(entityCaches, times(2)).evict(Member.class);
+    }
+
+    @Test
+    @DisplayName("leaves the counters alone while the circulation engine owns them")
+    void skipsUnderEngine() {
+        when(circulationEngine.getIfAvailable()).thenReturn(mock(CirculationEngine.class));
+
+        assertThat(reconciler.reconcile()).isEqualTo(new MemberCounterReconciler.Result(0, 0, 0));
+        verifyNoInteractions(bookRepository, memberRepository, jdbcTemplate);
+    }
+}
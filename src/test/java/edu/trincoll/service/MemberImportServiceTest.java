@@ -0,0 +1,131 @@
+package edu.trincoll.service;
+
+import edu.trincoll.cache.EntityCaches;
+import edu.trincoll.engine.CirculationEngine;
+import edu.trincoll.model.Member;
+import edu.trincoll.model.MembershipType;
+import edu.trincoll.projection.MemberChanged;
+import edu.trincoll.repository.MemberRepository;
+import edu.trincoll.service.MemberImportService.MemberRecord;
+import edu.trincoll.service.MemberImportService.RowError;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Member Import Service Tests")
+class MemberImportServiceTest {
+
+    private final MemberRepository memberRepository = mock(MemberRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final EntityCaches entityCaches = mock(EntityCaches.class);
+    @SuppressWarnings("unchecked")
+    private final ObjectProvider<CirculationEngine> circulationEngine = mock(ObjectProvider.class);
+
+    private MemberImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        importService = new MemberImportService(memberRepository, jdbcTemplate, transactionTemplate, eventPublisher,
+                entityCaches, Validation.buildDefaultValidatorFactory().getValidator(), circulationEngine, 4);
+    }
+
+    @Test
+    @DisplayName("inserts new members, updates changed ones and reports rejected rows")
+    @SuppressWarnings("unchecked")
+    void upsertsAndReportsErrors() {
+        Member unchanged = member(1L, "Sam Same", "same@example.com", MembershipType.STUDENT);
+        Member graduating = member(2L, "Gina Grad", "grad@example.com", MembershipType.STUDENT);
+        when(memberRepository.findByEmailIn(List.of("new@example.com", "same@example.com", "grad@example.com")))
+                .thenReturn(List.of(unchanged, graduating));
+        when(memberRepository.findByEmailIn(List.of("new@example.com", "grad@example.com")))
+                .thenReturn(List.of(member(3L, "Nina New", "new@example.com", MembershipType.STUDENT),
+                        member(2L, "Gina Grad", "grad@example.com", MembershipType.REGULAR)));
+
+        MemberImportService.Result result = importService.importMembers(Stream.of(
+                new MemberRecord(1, "Nina New", "new@example.com", MembershipType.STUDENT),
+                new MemberRecord(2, "Sam Same", "same@example.com", MembershipType.STUDENT),
+                new MemberRecord(3, "Gina Grad", "grad@example.com", MembershipType.REGULAR),
+                new MemberRecord(4, "Bad Email", "not-an-email", MembershipType.STUDENT),
+                new MemberRecord(5, "Nina Again", "new@example.com", MembershipType.STUDENT),
+                new MemberRecord(6, " ", "blank@example.com", MembershipType.STUDENT)));
+
+        assertThat(result.inserted()).isEqualTo(1);
+        assertThat(result.updated()).isEqualTo(1);
+        assertThat(result.unchanged()).isEqualTo(1);
+        assertThat(result.errors()).extracting(RowError::line).containsExactly(4L, 5L, 6L);
+        assertThat(result.errors().get(0).message()).startsWith("email:");
+        assertThat(result.errors().get(1).message()).isEqualTo("Duplicate email in extract");
+        assertThat(result.errors().get(2).message()).startsWith("name:");
+
+        ArgumentCaptor<List<MemberRecord>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(MemberImportService.INSERT_SQL), inserted.capture(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertThat(inserted.getValue()).extracting(MemberRecord::email).containsExactly("new@example.com");
+        ArgumentCaptor<List<MemberRecord>> updated = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(MemberImportService.UPDATE_SQL), updated.capture(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertThat(updated.getValue()).extracting(MemberRecord::email).containsExactly("grad@example.com");
+        verify(eventPublisher, times(2)).publishEvent(any(MemberChanged.class));
+        verify(entityCaches).evict(Member.class);
+    }
+
+    @Test
+    @DisplayName("a chunk that fails to write is reported row by row and the import goes on")
+    void reportsFailedChunk() {
+        when(jdbcTemplate.batchUpdate(eq(MemberImportService.INSERT_SQL), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DuplicateKeyException("uk_members_email"))
+                .thenReturn(new int[][]{{1}});
+
+        MemberImportService.Result result = importService.importMembers(Stream.of(
+                new MemberRecord(1, "A", "a@example.com", MembershipType.STUDENT),
+                new MemberRecord(2, "B", "b@example.com", MembershipType.STUDENT),
+                new MemberRecord(3, "C", "c@example.com", MembershipType.STUDENT),
+                new MemberRecord(4, "D", "d@example.com", MembershipType.STUDENT),
+                new MemberRecord(5, "E", "e@example.com", MembershipType.STUDENT)));
+
+        assertThat(result.inserted()).isEqualTo(1);
+        assertThat(result.errors()).extracting(RowError::line).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(result.errors()).allSatisfy(error -> assertThat(error.message()).startsWith("Not saved:"));
+    }
+
+    @Test
+    @DisplayName("refuses to run while the circulation engine owns members")
+    void refusesWithEngine() {
+        when(circulationEngine.getIfAvailable()).thenReturn(mock(CirculationEngine.class));
+
+        assertThatThrownBy(() -> importService.importMembers(Stream.empty()))
+                .isInstanceOf(IllegalStateException.class);
+        verifyNoInteractions(memberRepository, jdbcTemplate);
+    }
+
+    private static Member member(Long id, String name, String email, MembershipType type) {
+        Member member = new Member(name, email, type);
+        member.setId(id);
+        return member;
+    }
+}
@@ -0,0 +1,38 @@
+package edu.trincoll.service;
+
+import edu.trincoll.model.Member;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Member Name Key Backfill Tests")
+class MemberNameKeyBackfillTest {
+
+    private final JdbcTemplate jdbcTemplate =
+            new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:name-key-backfill;DB_CLOSE_DELAY=-1"));
+    private final MemberNameKeyBackfill backfill = new MemberNameKeyBackfill(jdbcTemplate);
+
+    @AfterEach
+    void dropTable() {
+        jdbcTemplate.execute("drop table if exists members");
+    }
+
+    @Test
+    @DisplayName("fills missing keys the way Member computes them and leaves existing keys alone")
+    void fillsMissingKeys() {
+        jdbcTemplate.execute("create table members (id bigint primary key, name varchar(255) not null, name_key varchar(255))");
+        jdbcTemplate.update("insert into members values (1, '  Jane Doe ', null), (2, 'Tom Lee', 'kept')");
+
+        assertThat(backfill.backfill()).isEqualTo(1);
+        assertThat(backfill.backfill()).isZero();
+
+        assertThat(jdbcTemplate.queryForObject("select name_key from members where id = 1", String.class))
+                .isEqualTo(Member.nameKey("  Jane Doe "));
+        assertThat(jdbcTemplate.queryForObject("select name_key from members where id = 2", String.class))
+                .isEqualTo("kept");
+    }
+}
@@ -0,0 +1,84 @@
+package edu.trincoll.service;
+
+import edu.trincoll.index.ExistenceFilters;
+import edu.trincoll.model.Member;
+import edu.trincoll.model.MembershipType;
+import edu.trincoll.policy.MembershipTiers;
+import edu.trincoll.repository.CheckoutPolicyFactory;
+import edu.trincoll.repository.MemberRepository;
+import edu.trincoll.repository.MembershipTierRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Member Service Tests")
+class MemberServiceTest {
+
+    private final MemberRepository memberRepository = mock(MemberRepository.class);
+    private final MemberService memberService = new MemberService(memberRepository, mock(ExistenceFilters.class),
+            new CheckoutPolicyFactory(new MembershipTiers(mock(MembershipTierRepository.class))));
+
+    @Test
+    @DisplayName("keeps the name key in step with the name")
+    void maintainsNameKey() {
+        Member member = new Member("  Ada Lovelace ", "ada@example.com");
+        assertThat(member.getNameKey()).isEqualTo("ada lovelace");
+
+        member.setName("Grace Hopper");
+        assertThat(member.getNameKey()).isEqualTo("grace hopper");
+    }
+
+    @Test
+    @DisplayName("applies a counter change to the current row when the member was written meanwhile")
+    void retriesCounterOnVersionConflict() {
+        Member stale = new Member("Ada Lovelace", "ada@example.com");
+        stale.setBooksCheckedOut(1);
+        Member current = new Member("Ada Lovelace", "ada@example.com");
+        current.setBooksCheckedOut(2);
+        when(memberRepository.save(same(stale))).thenThrow(new OptimisticLockingFailureException("stale"));
+        when(memberRepository.findByEmail("ada@example.com")).thenReturn(Optional.of(current));
+        when(memberRepository.save(same(current))).thenReturn(current);
+
+        assertThat(memberService.incrementCheckedOut(stale).getBooksCheckedOut()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("searches names by case-insensitive prefix in name order")
+    void searchesByNamePrefix() {
+        Member ada = new Member("Ada Lovelace", "ada@example.com");
+        when(memberRepository.findByNameKeyStartingWith(eq("ada"), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(ada)));
+
+        assertThat(memberService.searchByName("ADA", 0, 20).getContent()).containsExactly(ada);
+        verify(memberRepository).findByNameKeyStartingWith("ada", PageRequest.of(0, 20, Sort.by("nameKey", "id")));
+    }
+
+    @Test
+    @DisplayName("near-limit queries start from the tier limit minus the margin")
+    void nearLimitUsesTierLimit() {
+        when(memberRepository.findByMembershipTypeAndBooksCheckedOutGreaterThanEqual(
+                any(MembershipType.class), anyInt(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        memberService.membersNearLimit(MembershipType.STUDENT, 1, 0, 50);
+        memberService.membersNearLimit(MembershipType.REGULAR, 10, 2, 50);
+
+        Sort fullestFirst = Sort.by(Sort.Order.desc("booksCheckedOut"), Sort.Order.asc("id"));
+        verify(memberRepository).findByMembershipTypeAndBooksCheckedOutGreaterThanEqual(
+                MembershipType.STUDENT, 4, PageRequest.of(0, 50, fullestFirst));
+        verify(memberRepository).findByMembershipTypeAndBooksCheckedOutGreaterThanEqual(
+                MembershipType.REGULAR, 0, PageRequest.of(2, 50, fullestFirst));
+    }
+}
@@ -1,18 +1,28 @@
 package edu.trincoll.service;
 
+import edu.trincoll.analytics.PopularityTracker;
+import edu.trincoll.journal.CirculationEvent;
 import edu.trincoll.model.Book;
 import edu.trincoll.model.BookStatus;
+import edu.trincoll.model.BookTitle;
+import edu.trincoll.model.LoanEventType;
+import edu.trincoll.projection.CatalogProjection;
 import edu.trincoll.report.AvailabilityReportGenerator;
 import edu.trincoll.report.OverdueReportGenerator;
+import edu.trincoll.report.PopularityReportGenerator;
 import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.BookTitleRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -26,43 +36,39 @@ class ReportServiceTest {
     class AvailabilityReportGeneratorTests {
 
         @Test
-        @DisplayName("returns 'No available books.' when repository is empty")
+        @DisplayName("returns 'No available books.' when no title has a copy on the shelf")
         void availability_noBooks() {
-            BookRepository repo = mock(BookRepository.class);
-            when(repo.findByStatus(BookStatus.AVAILABLE)).thenReturn(List.of());
+            BookTitleRepository repo = mock(BookTitleRepository.class);
+            when(repo.findByAvailableCopiesGreaterThan(0)).thenReturn(List.of());
 
-            var gen = new AvailabilityReportGenerator(repo);
+            var gen = new AvailabilityReportGenerator(repo, mock(CatalogProjection.class));
             String report = gen.generateReport();
 
             assertThat(report).isEqualTo("No available books.");
-            verify(repo).findByStatus(BookStatus.AVAILABLE);
+            verify(repo).findByAvailableCopiesGreaterThan(0);
         }
 
         @Test
-        @DisplayName("lists available books with title/author/isbn")
+        @DisplayName("lists available titles with title/author/isbn and copy counts")
         void availability_listsBooks() {
-            Book b1 = new Book();
-            b1.setTitle("Clean Code");
-            b1.setAuthor("Robert Martin");
-            b1.setIsbn("978-0-123456-78-9");
-            b1.setStatus(BookStatus.AVAILABLE);
-
-            Book b2 = new Book();
-            b2.setTitle("Refactoring");
-            b2.setAuthor("Martin Fowler");
-            b2.setIsbn("978-0-987654-32-1");
-            b2.setStatus(BookStatus.AVAILABLE);
+            BookTitle t1 = new BookTitle("978-0-123456-78-9", "Clean Code", "Robert Martin", null);
+            t1.setTotalCopies(3);
+            t1.setAvailableCopies(2);
 
-            BookRepository repo = mock(BookRepository.class);
-            when(repo.findByStatus(BookStatus.AVAILABLE)).thenReturn(List.of(b1, b2));
+            BookTitle t2 = new BookTitle("978-0-987654-32-1", "Refactoring", "Martin Fowler", null);
+            t2.setTotalCopies(1);
+            t2.setAvailableCopies(1);
+
+            BookTitleRepository repo = mock(BookTitleRepository.class);
+            when(repo.findByAvailableCopiesGreaterThan(0)).thenReturn(List.of(t1, t2));
 
-            var gen = new AvailabilityReportGenerator(repo);
+            var gen = new AvailabilityReportGenerator(repo, mock(CatalogProjection.class));
             String report = gen.generateReport();
 
             assertThat(report).startsWith("Available Books:\n");
-            assertThat(report).contains("Clean Code by Robert Martin (ISBN 978-0-123456-78-9)");
-            assertThat(report).contains("Refactoring by Martin Fowler (ISBN 978-0-987654-32-1)");
-            verify(repo).findByStatus(BookStatus.AVAILABLE);
+            assertThat(report).contains("Clean Code by Robert Martin (ISBN 978-0-123456-78-9) - 2 of 3 copies available");
+            assertThat(report).contains("Refactoring by Martin Fowler (ISBN 978-0-987654-32-1) - 1 of 1 copies available");
+            verify(repo).findByAvailableCopiesGreaterThan(0);
         }
     }
 
@@ -76,7 +82,7 @@ class ReportServiceTest {
             BookRepository repo = mock(BookRepository.class);
             when(repo.findByDueDateBefore(any(LocalDate.class))).thenReturn(List.of());
 
-            var gen = new OverdueReportGenerator(repo);
+            var gen = new OverdueReportGenerator(repo, mock(CatalogProjection.class));
             String report = gen.generateReport();
 
             assertThat(report).isEqualTo("No overdue books.");
@@ -108,7 +114,7 @@ class ReportServiceTest {
             when(repo.findByDueDateBefore(any(LocalDate.class)))
                     .thenReturn(List.of(overdueCheckedOut, overdueButAvailable));
 
-            var gen = new OverdueReportGenerator(repo);
+            var gen = new OverdueReportGenerator(repo, mock(CatalogProjection.class));
             String report = gen.generateReport();
 
             assertThat(report).startsWith("Overdue Books:\n");
@@ -118,5 +124,63 @@ class ReportServiceTest {
 
             verify(repo).findByDueDateBefore(any(LocalDate.class));
         }
+
+        @Test
+        @DisplayName("reads from the catalog projection when it is ready")
+        void overdue_fromProjection() {
+            Book overdue = new Book("978-0-321-12521-7", 1, "Domain-Driven Design", "Eric Evans", null);
+            overdue.setStatus(BookStatus.CHECKED_OUT);
+            overdue.setCheckedOutBy("alice@example.com");
+            overdue.setDueDate(LocalDate.now().minusDays(2));
+
+            BookRepository repo = mock(BookRepository.class);
+            CatalogProjection projection = mock(CatalogProjection.class);
+            when(projection.isReady()).thenReturn(true);
+            when(projection.overdue(any(LocalDate.class))).thenReturn(List.of(overdue));
+
+            String report = new OverdueReportGenerator(repo, projection).generateReport();
+
+            assertThat(report).contains("Domain-Driven Design by Eric Evans (member alice@example.com)");
+            verifyNoInteractions(repo);
+        }
+    }
+
+    @Nested
+    @DisplayName("PopularityReportGenerator")
+    class PopularityReportGeneratorTests {
+
+        @Test
+        @DisplayName("returns a message when nothing was borrowed in the window")
+        void popularity_noCheckouts() {
+            var tracker = new PopularityTracker(Duration.ofDays(7), 7, 10, 0.001, 0.99);
+
+            String report = new PopularityReportGenerator(tracker, mock(BookTitleRepository.class)).generateReport();
+
+            assertThat(report).isEqualTo("No checkouts in the last 7 days.");
+        }
+
+        @Test
+        @DisplayName("ranks titles and members by checkouts")
+        void popularity_ranksTitlesAndMembers() {
+            var tracker = new PopularityTracker(Duration.ofDays(7), 7, 10, 0.001, 0.99);
+            for (int i = 0; i < 3; i++) {
+                tracker.onCirculation(new CirculationEvent(LoanEventType.CHECKOUT, "978-0-123456-78-9", 1,
+                        "alice@example.com", Instant.now(), null, 0.0, false));
+            }
+            tracker.onCirculation(new CirculationEvent(LoanEventType.CHECKOUT, "978-0-987654-32-1", 1,
+                    "bob@example.com", Instant.now(), null, 0.0, false));
+
+            BookTitleRepository repo = mock(BookTitleRepository.class);
+            when(repo.findByIsbn("978-0-123456-78-9"))
+                    .thenReturn(Optional.of(new BookTitle("978-0-123456-78-9", "Clean Code", "Robert Martin", null)));
+            when(repo.findByIsbn("978-0-987654-32-1")).thenReturn(Optional.empty());
+
+            String report = new PopularityReportGenerator(tracker, repo).generateReport();
+
+            assertThat(report).startsWith("Most Borrowed Titles (last 7 days");
+            assertThat(report).contains("1. Clean Code by Robert Martin (ISBN 978-0-123456-78-9) - 3 checkouts");
+            assertThat(report).contains("2. Unknown title (ISBN 978-0-987654-32-1) - 1 checkouts");
+            assertThat(report).contains("Most Active Members:\n1. alice@example.com - 3 checkouts\n2. bob@example.com - 1 checkouts");
+        }
     }
-}
\ No newline at end of file
+}
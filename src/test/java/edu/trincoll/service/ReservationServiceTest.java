@@ -0,0 +1,282 @@
+package edu.trincoll.service;
+
+import edu.trincoll.engine.CirculationEngine;
+import edu.trincoll.model.Book;
+import edu.trincoll.model.BookStatus;
+import edu.trincoll.model.Member;
+import edu.trincoll.model.Reservation;
+import edu.trincoll.model.ReservationStatus;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.BookTitleRepository;
+import edu.trincoll.repository.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Reservation Service Tests")
+class ReservationServiceTest {
+
+    @Mock private ReservationRepository reservationRepository;
+    @Mock private BookRepository bookRepository;
+    @Mock private BookTitleRepository bookTitleRepository;
+    @Mock private CatalogService catalogService;
+    @Mock private MemberService memberService;
+    @Mock private NotificationService notificationService;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Mock private TransactionTemplate transactionTemplate;
+    @Mock private ObjectProvider<CirculationEngine> circulationEngine;
+
+    private ReservationService reservationService;
+    private Book book;
+    private Member holder;
+
+    @BeforeEach
+    void setUp() {
+        reservationService = new ReservationService(reservationRepository, bookRepository, bookTitleRepository, catalogService, memberService,
+                notificationService, eventPublisher, transactionTemplate, circulationEngine, 3, 100);
+
+        book = new Book("978-0-123456-78-9", "Clean Code", "Robert Martin", LocalDate.of(2008, 8, 1));
+        book.setId(1L);
+        book.setStatus(BookStatus.CHECKED_OUT);
+
+        holder = new Member("Jane Smith", "jane@example.com");
+    }
+
+    @Test
+    @DisplayName("rejects a hold when a copy is on the shelf")
+    void rejectsHoldOnAvailableBook() {
+        when(memberService.getByEmail(holder.getEmail())).thenReturn(holder);
+        when(catalogService.isAnyCopyAvailable(book.getIsbn())).thenReturn(true);
+
+        assertThatThrownBy(() -> reservationService.placeHold(book.getIsbn(), holder.getEmail()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Book is available for checkout");
+        verify(reservationRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("hands a returned copy to the head of the queue and announces it")
+    void assignsReturnedCopyToNextHolder() {
+        Reservation head = new Reservation(book.getIsbn(), holder.getEmail());
+        when(reservationRepository.findFirstByIsbnAndStatusOrderByIdAsc(book.getIsbn(), ReservationStatus.WAITING))
+                .thenReturn(Optional.of(head));
+
+        boolean assigned = reservationService.assignNextHolder(book);
+
+        assertThat(assigned).isTrue();
+        assertThat(head.getStatus()).isEqualTo(ReservationStatus.READY);
+        assertThat(head.getBookId()).isEqualTo(1L);
+        assertThat(head.getPickupDeadline()).isEqualTo(LocalDate.now().plusDays(3));
+        verify(eventPublisher).publishEvent(new HoldReady(holder.getEmail(), book, head.getPickupDeadline()));
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    @DisplayName("notifies the holder when the hold is committed")
+    void notifiesHolderAfterCommit() {
+        LocalDate deadline = LocalDate.now().plusDays(3);
+        when(memberService.getByEmail(holder.getEmail())).thenReturn(holder);
+
+        reservationService.onHoldReady(new HoldReady(holder.getEmail(), book, deadline));
+
+        verify(notificationService).sendHoldReadyNotification(holder, book, deadline);
+    }
+
+    @Test
+    @DisplayName("does not fail the committed return when the notification fails")
+    void swallowsNotificationFailure() {
+        when(memberService.getByEmail(holder.getEmail())).thenThrow(new IllegalArgumentException("Member not found"));
+
+        reservationService.onHoldReady(new HoldReady(holder.getEmail(), book, LocalDate.now()));
+
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    @DisplayName("leaves the copy unassigned when nobody is waiting")
+    void noHolderWhenQueueEmpty() {
+        when(reservationRepository.findFirstByIsbnAndStatusOrderByIdAsc(book.getIsbn(), ReservationStatus.WAITING))
+                .thenReturn(Optional.empty());
+
+        assertThat(reservationService.assignNextHolder(book)).isFalse();
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    @DisplayName("only the ready holder can claim a reserved copy")
+    void claimRequiresReadyHoldOnSameCopy() {
+        Reservation ready = new Reservation(book.getIsbn(), holder.getEmail());
+        ready.setStatus(ReservationStatus.READY);
+        ready.setBookId(1L);
+        when(reservationRepository.findFirstByIsbnAndMemberEmailAndStatus(book.getIsbn(), holder.getEmail(), ReservationStatus.READY))
+                .thenReturn(Optional.of(ready));
+
+        assertThat(reservationService.claimHold(book, holder)).isTrue();
+        assertThat(ready.getStatus()).isEqualTo(ReservationStatus.FULFILLED);
+    }
+
+    @Test
+    @DisplayName("moves a ready hold to a copy at another branch and shelves the old copy")
+    @SuppressWarnings("unchecked")
+    void movesReadyHoldToLocalCopy() {
+        Reservation ready = new Reservation(book.getIsbn(), holder.getEmail());
+        ready.setStatus(ReservationStatus.READY);
+        ready.setBookId(1L);
+        book.setStatus(BookStatus.RESERVED);
+        book.setBranch("EAST");
+        Book local = new Book(book.getIsbn(), book.getTitle(), book.getAuthor(), book.getPublicationDate());
+        local.setId(2L);
+        local.setBranch("WEST");
+        local.setStatus(BookStatus.AVAILABLE);
+
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                inv.<TransactionCallback<Object>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+        when(reservationRepository.findFirstByIsbnAndMemberEmailAndStatus(book.getIsbn(), holder.getEmail(), ReservationStatus.READY))
+                .thenReturn(Optional.of(ready));
+        when(bookRepository.save(any(Book.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(reservationRepository.findFirstByIsbnAndStatusOrderByIdAsc(book.getIsbn(), ReservationStatus.WAITING))
+                .thenReturn(Optional.empty());
+
+        Optional<Book> moved = reservationService.moveReadyHold(local, holder.getEmail());
+
+        assertThat(moved).contains(local);
+        assertThat(ready.getBookId()).isEqualTo(2L);
+        assertThat(local.getStatus()).isEqualTo(BookStatus.RESERVED);
+        assertThat(book.getStatus()).isEqualTo(BookStatus.AVAILABLE);
+        verify(bookTitleRepository).decrementAvailable(book.getIsbn());
+        verify(bookTitleRepository).incrementAvailable(book.getIsbn());
+    }
+
+    @Test
+    @DisplayName("cancelling a ready hold returns the copy to the shelf when nobody is waiting")
+    void cancellingReadyHoldReleasesCopy() {
+        Reservation ready = new Reservation(book.getIsbn(), holder.getEmail());
+        ready.setStatus(ReservationStatus.READY);
+        ready.setBookId(1L);
+        book.setStatus(BookStatus.RESERVED);
+
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(reservationRepository.findFirstByIsbnAndMemberEmailAndStatusIn(eq(book.getIsbn()), eq(holder.getEmail()), anyCollection()))
+                .thenReturn(Optional.of(ready));
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(reservationRepository.findFirstByIsbnAndStatusOrderByIdAsc(book.getIsbn(), ReservationStatus.WAITING))
+                .thenReturn(Optional.empty());
+
+        reservationService.cancelHold(book.getIsbn(), holder.getEmail());
+
+        assertThat(ready.getStatus()).isEqualTo(ReservationStatus.CANCELLED);
+        assertThat(book.getStatus()).isEqualTo(BookStatus.AVAILABLE);
+        verify(bookTitleRepository).incrementAvailable(book.getIsbn());
+    }
+
+    @Test
+    @DisplayName("cancelling a ready hold passes the copy to the next holder")
+    void cancellingReadyHoldPassesCopyOn() {
+        Reservation ready = new Reservation(book.getIsbn(), holder.getEmail());
+        ready.setStatus(ReservationStatus.READY);
+        ready.setBookId(1L);
+        book.setStatus(BookStatus.RESERVED);
+        Member nextMember = new Member("Tom Lee", "tom@example.com");
+        Reservation next = new Reservation(book.getIsbn(), nextMember.getEmail());
+
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(reservationRepository.findFirstByIsbnAndMemberEmailAndStatusIn(eq(book.getIsbn()), eq(holder.getEmail()), anyCollection()))
+                .thenReturn(Optional.of(ready));
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(reservationRepository.findFirstByIsbnAndStatusOrderByIdAsc(book.getIsbn(), ReservationStatus.WAITING))
+                .thenReturn(Optional.of(next));
+
+        reservationService.cancelHold(book.getIsbn(), holder.getEmail());
+
+        assertThat(book.getStatus()).isEqualTo(BookStatus.RESERVED);
+        assertThat(next.getStatus()).isEqualTo(ReservationStatus.READY);
+        assertThat(next.getBookId()).isEqualTo(1L);
+        verify(eventPublisher).publishEvent(new HoldReady(nextMember.getEmail(), book, next.getPickupDeadline()));
+        verify(bookTitleRepository, never()).incrementAvailable(any());
+    }
+
+    @Test
+    @DisplayName("expired holds release the copy back to the shelf")
+    @SuppressWarnings("unchecked")
+    void expiresOverdueHolds() {
+        Reservation stale = new Reservation(book.getIsbn(), holder.getEmail());
+        stale.setStatus(ReservationStatus.READY);
+        stale.setBookId(1L);
+        book.setStatus(BookStatus.RESERVED);
+
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> ((TransactionCallback<Integer>) inv.getArgument(0)).doInTransaction(null));
+        when(reservationRepository.findByStatusAndPickupDeadlineBeforeOrderByIdAsc(eq(ReservationStatus.READY), any(LocalDate.class), any(Limit.class)))
+                .thenReturn(List.of(stale), List.of());
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+
+        int expired = reservationService.expireHolds();
+
+        assertThat(expired).isEqualTo(1);
+        assertThat(stale.getStatus()).isEqualTo(ReservationStatus.EXPIRED);
+        verify(bookRepository).save(argThat(b -> b.getStatus() == BookStatus.AVAILABLE));
+        verify(bookTitleRepository).incrementAvailable(book.getIsbn());
+    }
+
+    @Test
+    @DisplayName("leaves holds and copies to the circulation engine when it runs")
+    void delegatesToEngine() {
+        CirculationEngine engine = mock(CirculationEngine.class);
+        when(circulationEngine.getIfAvailable()).thenReturn(engine);
+        reservationService = new ReservationService(reservationRepository, bookRepository, bookTitleRepository, catalogService, memberService,
+                notificationService, eventPublisher, transactionTemplate, circulationEngine, 3, 100);
+        when(engine.cancelHold(book.getIsbn(), holder.getEmail())).thenReturn(CompletableFuture.completedFuture(null));
+        when(reservationRepository.findIsbnsByStatusAndPickupDeadlineBefore(ReservationStatus.READY, LocalDate.now()))
+                .thenReturn(List.of(book.getIsbn()));
+        when(engine.expireHolds(book.getIsbn(), LocalDate.now())).thenReturn(CompletableFuture.completedFuture(2));
+
+        reservationService.cancelHold(book.getIsbn(), holder.getEmail());
+        int expired = reservationService.expireHolds();
+
+        assertThat(expired).isEqualTo(2);
+        verifyNoInteractions(bookRepository, bookTitleRepository, transactionTemplate);
+    }
+
+    @Test
+    @DisplayName("surfaces the engine's answer when there is no hold to cancel")
+    void engineCancelWithoutHold() {
+        CirculationEngine engine = mock(CirculationEngine.class);
+        when(circulationEngine.getIfAvailable()).thenReturn(engine);
+        reservationService = new ReservationService(reservationRepository, bookRepository, bookTitleRepository, catalogService, memberService,
+                notificationService, eventPublisher, transactionTemplate, circulationEngine, 3, 100);
+        when(engine.cancelHold(book.getIsbn(), holder.getEmail()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalArgumentException("Hold not found")));
+
+        assertThatThrownBy(() -> reservationService.cancelHold(book.getIsbn(), holder.getEmail()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Hold not found");
+    }
+}
@@ -0,0 +1,71 @@
+package edu.trincoll.service.history;
+
+import edu.trincoll.model.LoanEvent;
+import edu.trincoll.model.LoanEventType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Loan Archive File Tests")
+class LoanArchiveFileTest {
+
+    @TempDir Path dir;
+
+    @Test
+    @DisplayName("round-trips events with repeated ISBNs and members")
+    void roundTrip() throws IOException {
+        LocalDateTime at = LocalDateTime.of(2025, 3, 4, 10, 15, 30);
+        List<LoanEvent> events = List.of(
+                new LoanEvent(LoanEventType.CHECKOUT, "978-1", 1, "a@example.com", at, LocalDate.of(2025, 3, 18), 0.0),
+                new LoanEvent(LoanEventType.CHECKOUT, "978-2", 40_000, "b@example.com", at.plusHours(1), LocalDate.of(2025, 3, 18), 0.0),
+                new LoanEvent(LoanEventType.RETURN, "978-1", 1, "a@example.com", at.plusDays(20), null, 1.5));
+        Path file = dir.resolve("loans-202503.lha");
+
+        try (LoanArchiveFile archive = LoanArchiveFile.create(file, 202503, 42L)) {
+            for (LoanEvent event : events) {
+                archive.append(event);
+            }
+            assertThat(archive.written()).isEqualTo(3);
+        }
+
+        List<LoanEvent> read = new ArrayList<>();
+        LoanArchiveFile.Header header = LoanArchiveFile.read(file, read::add);
+
+        assertThat(header.loanMonth()).isEqualTo(202503);
+        assertThat(header.coveredId()).isEqualTo(42L);
+        assertThat(read).hasSize(3);
+        assertThat(read).extracting(LoanEvent::getIsbn).containsExactly("978-1", "978-2", "978-1");
+        assertThat(read).extracting(LoanEvent::getMemberEmail).containsExactly("a@example.com", "b@example.com", "a@example.com");
+        assertThat(read.get(0).getOccurredAt()).isEqualTo(at);
+        assertThat(read.get(1).getCopyNumber()).isEqualTo(40_000);
+        assertThat(read.get(2).getType()).isEqualTo(LoanEventType.RETURN);
+        assertThat(read.get(2).getDueDate()).isNull();
+        assertThat(read.get(2).getLateFee()).isEqualTo(1.5);
+        assertThat(read.get(2).getLoanMonth()).isEqualTo(202503);
+    }
+
+    @Test
+    @DisplayName("rejects files that are not loan archives")
+    void rejectsForeignFile() throws IOException {
+        Path file = dir.resolve("junk.lha");
+        try (GZIPOutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        }
+
+        assertThatThrownBy(() -> LoanArchiveFile.read(file, event -> { }))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not a loan archive");
+    }
+}
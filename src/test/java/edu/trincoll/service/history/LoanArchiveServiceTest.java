@@ -0,0 +1,95 @@
+package edu.trincoll.service.history;
+
+import edu.trincoll.model.LoanEvent;
+import edu.trincoll.model.LoanEventType;
+import edu.trincoll.repository.LoanEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Loan Archive Service Tests")
+class LoanArchiveServiceTest {
+    private static final int MONTH = 202503;
+
+    @TempDir Path dir;
+
+    private final LoanEventRepository loanEventRepository = mock(LoanEventRepository.class);
+    private LoanArchiveService archiveService;
+
+    @BeforeEach
+    void setUp() {
+        archiveService = new LoanArchiveService(loanEventRepository, dir, 6, 100);
+    }
+
+    @Test
+    @DisplayName("archives only rows up to the newest id seen and deletes just those")
+    void archivesUpToNewestId() throws IOException {
+        when(loanEventRepository.findMaxIdByLoanMonth(MONTH)).thenReturn(Optional.of(2L));
+        when(loanEventRepository.findByLoanMonthAndIdGreaterThanAndIdLessThanEqualOrderByIdAsc(eq(MONTH), eq(0L), eq(2L), any(Limit.class)))
+                .thenReturn(List.of(event(1L, "978-1"), event(2L, "978-2")));
+
+        Path file = archiveService.archiveMonth(MONTH);
+
+        assertThat(LoanArchiveFile.header(file).coveredId()).isEqualTo(2L);
+        assertThat(read(file)).extracting(LoanEvent::getIsbn).containsExactly("978-1", "978-2");
+        verify(loanEventRepository).deleteArchived(MONTH, 2L);
+        assertThat(dir.resolve(file.getFileName() + ".tmp")).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("merges newer rows into an existing archive without repeating earlier ones")
+    void mergesIntoExistingArchive() throws IOException {
+        try (LoanArchiveFile earlier = LoanArchiveFile.create(dir.resolve("loans-" + MONTH + ".lha"), MONTH, 2L)) {
+            earlier.append(event(1L, "978-1"));
+            earlier.append(event(2L, "978-2"));
+        }
+        when(loanEventRepository.findMaxIdByLoanMonth(MONTH)).thenReturn(Optional.of(3L));
+        when(loanEventRepository.findByLoanMonthAndIdGreaterThanAndIdLessThanEqualOrderByIdAsc(eq(MONTH), eq(2L), eq(3L), any(Limit.class)))
+                .thenReturn(List.of(event(3L, "978-3")));
+
+        Path file = archiveService.archiveMonth(MONTH);
+
+        assertThat(LoanArchiveFile.header(file).coveredId()).isEqualTo(3L);
+        assertThat(read(file)).extracting(LoanEvent::getIsbn).containsExactly("978-1", "978-2", "978-3");
+        verify(loanEventRepository).deleteArchived(MONTH, 3L);
+    }
+
+    @Test
+    @DisplayName("leaves the month alone when it has no live rows")
+    void nothingToArchive() {
+        when(loanEventRepository.findMaxIdByLoanMonth(MONTH)).thenReturn(Optional.empty());
+
+        Path file = archiveService.archiveMonth(MONTH);
+
+        assertThat(Files.exists(file)).isFalse();
+        verify(loanEventRepository, never()).deleteArchived(anyInt(), anyLong());
+    }
+
+    private static LoanEvent event(long id, String isbn) {
+        LoanEvent event = new LoanEvent(LoanEventType.CHECKOUT, isbn, 1, "a@example.com",
+                LocalDateTime.of(2025, 3, 4, 10, 0), null, 0.0);
+        ReflectionTestUtils.setField(event, "id", id);
+        return event;
+    }
+
+    private static List<LoanEvent> read(Path file) throws IOException {
+        List<LoanEvent> events = new ArrayList<>();
+        LoanArchiveFile.read(file, events::add);
+        return events;
+    }
+}
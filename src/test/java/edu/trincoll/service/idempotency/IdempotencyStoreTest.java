@@ -0,0 +1,141 @@
+package edu.trincoll.service.idempotency;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Idempotency Store Tests")
+class IdempotencyStoreTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final IdempotencyStore<String> store = new IdempotencyStore<>(Duration.ofMinutes(10), 3, clock);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    @DisplayName("replays the first result for a retry within the window")
+    void replaysWithinWindow() {
+        IdempotencyStore.Outcome<String> first = store.execute("k1", "return 123", this::returnBook);
+        IdempotencyStore.Outcome<String> retry = store.execute("k1", "return 123", this::returnBook);
+
+        assertThat(first).isEqualTo(new IdempotencyStore.Outcome<>("Book returned successfully", false));
+        assertThat(retry).isEqualTo(new IdempotencyStore.Outcome<>("Book returned successfully", true));
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("runs the operation again once the window has passed")
+    void forgetsAfterWindow() {
+        store.execute("k1", "return 123", this::returnBook);
+        clock.advance(Duration.ofMinutes(11));
+
+        assertThat(store.execute("k1", "return 123", this::returnBook).replayed()).isFalse();
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("rejects a key reused for a different request")
+    void rejectsReusedKey() {
+        store.execute("k1", "return 123", this::returnBook);
+
+        assertThatThrownBy(() -> store.execute("k1", "return 456", this::returnBook))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("different request");
+    }
+
+    @Test
+    @DisplayName("replays not-found errors but forgets other failures")
+    void failures() {
+        assertThatThrownBy(() -> store.execute("k1", "checkout", () -> {
+            calls.incrementAndGet();
+            throw new IllegalArgumentException("Book not found");
+        })).hasMessage("Book not found");
+        assertThatThrownBy(() -> store.execute("k1", "checkout", this::returnBook)).hasMessage("Book not found");
+
+        assertThatThrownBy(() -> store.execute("k2", "return", () -> {
+            throw new IllegalStateException("connection reset");
+        })).hasMessage("connection reset");
+        assertThat(store.execute("k2", "return", this::returnBook).replayed()).isFalse();
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("evicts the oldest keys beyond the size bound")
+    void boundsSize() {
+        for (int i = 0; i < 10; i++) {
+            store.execute("k" + i, "return " + i, this::returnBook);
+        }
+
+        assertThat(store.size()).isLessThanOrEqualTo(3);
+        assertThat(store.execute("k9", "return 9", this::returnBook).replayed()).isTrue();
+        assertThat(store.execute("k0", "return 0", this::returnBook).replayed()).isFalse();
+    }
+
+    @Test
+    @DisplayName("a retry during the first attempt waits for its result")
+    void concurrentRetryWaits() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<IdempotencyStore.Outcome<String>> first = CompletableFuture.supplyAsync(
+                () -> store.execute("k1", "return 123", () -> {
+                    started.countDown();
+                    await(release);
+                    return returnBook();
+                }));
+        started.await();
+
+        CompletableFuture<IdempotencyStore.Outcome<String>> retry = CompletableFuture.supplyAsync(
+                () -> store.execute("k1", "return 123", this::returnBook));
+        release.countDown();
+
+        assertThat(first.get().replayed()).isFalse();
+        assertThat(retry.get()).isEqualTo(new IdempotencyStore.Outcome<>("Book returned successfully", true));
+        assertThat(calls).hasValue(1);
+    }
+
+    private String returnBook() {
+        calls.incrementAndGet();
+        return "Book returned successfully";
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-03-10T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package edu.trincoll.service.latefee;
 
+import edu.trincoll.model.MembershipType;
+import edu.trincoll.policy.PolicyTable;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -7,19 +9,19 @@ class LateFeeCalculatorTest {
 
     @Test
     void testRegulatLateFee() {
-        LateFeeCalculator calc = new RegularLateFeeCalculator();
+        LateFeeCalculator calc = PolicyTable.defaults().policy(MembershipType.REGULAR);
         assertEquals(2.50, calc.calculateLateFee(5), 0.001);
     }
 
     @Test
     void testPremiumLateFee() {
-        LateFeeCalculator calc = new PremiumLateFeeCalculator();
+        LateFeeCalculator calc = PolicyTable.defaults().policy(MembershipType.PREMIUM);
         assertEquals(0.0, calc.calculateLateFee(10), 0.001);
     }
 
     @Test
     void testStudentLateFee() {
-        LateFeeCalculator calc = new StudentLateFeeCalculator();
+        LateFeeCalculator calc = PolicyTable.defaults().policy(MembershipType.STUDENT);
         assertEquals(2.50, calc.calculateLateFee(10), 0.001);
     }
 }
\ No newline at end of file
@@ -1,24 +1,32 @@
 package edu.trincoll.service.latefee;
 
 import edu.trincoll.model.MembershipType;
+import edu.trincoll.policy.MembershipTiers;
+import edu.trincoll.repository.MembershipTierRepository;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
 
 class LateFeeFactoryTest {
-    private final LateFeeCalculatorFactory factory = new LateFeeCalculatorFactory();
+    private final LateFeeCalculatorFactory factory = new LateFeeCalculatorFactory(new MembershipTiers(mock(MembershipTierRepository.class)));
 
     @Test
     void testRegularFactory() {
-        assertTrue(factory.getCalculator(MembershipType.REGULAR) instanceof RegularLateFeeCalculator);
+        assertEquals(2.50, factory.getCalculator(MembershipType.REGULAR).calculateLateFee(5), 0.001);
     }
 
     @Test
     void testPremiumFactory() {
-        assertTrue(factory.getCalculator(MembershipType.PREMIUM) instanceof PremiumLateFeeCalculator);
+        assertEquals(0.0, factory.getCalculator(MembershipType.PREMIUM).calculateLateFee(10), 0.001);
     }
 
     @Test
     void testStudentFactory() {
-        assertTrue(factory.getCalculator(MembershipType.STUDENT) instanceof StudentLateFeeCalculator);
+        assertEquals(2.50, factory.getCalculator(MembershipType.STUDENT).calculateLateFee(10), 0.001);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCalculatorsAreShared() {
+        assertSame(factory.getCalculator(MembershipType.REGULAR), factory.getCalculator(MembershipType.REGULAR));
+    }
+}
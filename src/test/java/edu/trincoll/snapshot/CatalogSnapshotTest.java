@@ -0,0 +1,105 @@
+package edu.trincoll.snapshot;
+
+import edu.trincoll.model.BookStatus;
+import edu.trincoll.model.MembershipType;
+import edu.trincoll.projection.BookView;
+import edu.trincoll.projection.MemberView;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Catalog Snapshot Tests")
+class CatalogSnapshotTest {
+
+    @TempDir Path dir;
+
+    private final BookView cleanCode2 = new BookView(2L, "978-0-13-235088-4", 2, "Clean Code", "Robert Martin",
+            LocalDate.of(2008, 8, 1), BookStatus.CHECKED_OUT, "jane@example.com", LocalDate.of(2025, 5, 1), "EAST");
+    private final BookView cleanCode1 = new BookView(1L, "978-0-13-235088-4", 1, "Clean Code", "Robert Martin",
+            LocalDate.of(2008, 8, 1), BookStatus.AVAILABLE, null, null, "MAIN");
+    private final BookView refactoring = new BookView(3L, "978-0-13-475759-9", 1, "Refactoring", "Martin Fowler",
+            LocalDate.of(2018, 11, 20), BookStatus.RESERVED, null, null, "MAIN");
+    private final MemberView jane = new MemberView(10L, "Jane Smith", "jane@example.com", MembershipType.PREMIUM, 1);
+    private final MemberView bob = new MemberView(11L, "Bob Student", "bob@example.com", MembershipType.STUDENT, 0);
+    private final CatalogSnapshot.Mark mark = new CatalogSnapshot.Mark(42L, 7L, 3L);
+
+    @Test
+    @DisplayName("round-trips rows in sorted order, including null columns")
+    void roundTrip() throws IOException {
+        Path file = dir.resolve("catalog.snap");
+        CatalogSnapshot.write(file, List.of(refactoring, cleanCode2, cleanCode1), List.of(jane, bob), mark);
+
+        try (CatalogSnapshot snapshot = CatalogSnapshot.open(file)) {
+            assertThat(snapshot.bookCount()).isEqualTo(3);
+            assertThat(snapshot.memberCount()).isEqualTo(2);
+            assertThat(snapshot.mark()).isEqualTo(mark);
+
+            List<BookView> books = new ArrayList<>();
+            snapshot.forEachBook(books::add);
+            assertThat(books).containsExactly(cleanCode1, cleanCode2, refactoring);
+
+            List<MemberView> members = new ArrayList<>();
+            snapshot.forEachMember(members::add);
+            assertThat(members).containsExactly(bob, jane);
+        }
+        assertThat(Files.exists(dir.resolve("catalog.snap.tmp"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("finds rows by id and by ISBN without scanning")
+    void lookups() throws IOException {
+        Path file = dir.resolve("catalog.snap");
+        CatalogSnapshot.write(file, List.of(refactoring, cleanCode2, cleanCode1), List.of(jane, bob), mark);
+
+        try (CatalogSnapshot snapshot = CatalogSnapshot.open(file)) {
+            assertThat(snapshot.book(snapshot.bookRow(3L))).isEqualTo(refactoring);
+            assertThat(snapshot.book(snapshot.bookRow(2L))).isEqualTo(cleanCode2);
+            assertThat(snapshot.bookRow(99L)).isEqualTo(-1);
+            assertThat(snapshot.member(snapshot.memberRow(10L))).isEqualTo(jane);
+            assertThat(snapshot.memberRow(99L)).isEqualTo(-1);
+
+            int first = snapshot.firstCopyRow("978-0-13-235088-4");
+            assertThat(snapshot.book(first)).isEqualTo(cleanCode1);
+            assertThat(snapshot.titleEnd(first)).isEqualTo(first + 2);
+            assertThat(snapshot.book(snapshot.firstCopyRow("978-0-13-475759-9"))).isEqualTo(refactoring);
+            assertThat(snapshot.firstCopyRow("978-0-00-000000-0")).isEqualTo(-1);
+            assertThat(snapshot.firstCopyRow("an isbn far too long for the column")).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    @DisplayName("keeps copy numbers and checkout counts beyond the short range")
+    void wideColumns() throws IOException {
+        Path file = dir.resolve("catalog.snap");
+        BookView copy40000 = new BookView(4L, "978-0-13-235088-4", 40_000, "Clean Code", "Robert Martin",
+                LocalDate.of(2008, 8, 1), BookStatus.AVAILABLE, null, null, "MAIN");
+        MemberView library = new MemberView(12L, "Branch Desk", "desk@example.com", MembershipType.PREMIUM, 70_000);
+        CatalogSnapshot.write(file, List.of(copy40000), List.of(library), mark);
+
+        try (CatalogSnapshot snapshot = CatalogSnapshot.open(file)) {
+            assertThat(snapshot.book(0).copyNumber()).isEqualTo(40_000);
+            assertThat(snapshot.member(0).booksCheckedOut()).isEqualTo(70_000);
+        }
+    }
+
+    @Test
+    @DisplayName("rejects files that are not snapshots")
+    void rejectsForeignFile() throws IOException {
+        Path file = dir.resolve("junk.snap");
+        Files.write(file, new byte[128]);
+
+        assertThatThrownBy(() -> CatalogSnapshot.open(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not a catalog snapshot");
+    }
+}
@@ -0,0 +1,113 @@
+package edu.trincoll.warmup;
+
+import edu.trincoll.model.Book;
+import edu.trincoll.model.Member;
+import edu.trincoll.model.MembershipType;
+import edu.trincoll.policy.MembershipTiers;
+import edu.trincoll.projection.CatalogProjection;
+import edu.trincoll.repository.BookRepository;
+import edu.trincoll.repository.BookTitleRepository;
+import edu.trincoll.repository.CheckoutPolicyFactory;
+import edu.trincoll.repository.IsbnCount;
+import edu.trincoll.repository.MemberRepository;
+import edu.trincoll.repository.MembershipTierRepository;
+import edu.trincoll.service.BookSearchService;
+import edu.trincoll.service.BookService;
+import edu.trincoll.service.CatalogService;
+import edu.trincoll.service.MemberService;
+import edu.trincoll.service.history.LoanHistoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Circulation Warm-up Tests")
+class CirculationWarmupTest {
+
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final TransactionStatus status = mock(TransactionStatus.class);
+    private final BookService bookService = mock(BookService.class);
+    private final MemberService memberService = mock(MemberService.class);
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final BookSearchService bookSearchService = mock(BookSearchService.class);
+    private final LoanHistoryService loanHistoryService = mock(LoanHistoryService.class);
+    private final CatalogProjection projection = mock(CatalogProjection.class);
+    private final DataSource dataSource = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<Long>>getArgument(0).doInTransaction(status));
+        Book book = new Book(CirculationWarmup.ISBN, 1, "Warm-up Title", "Warm-up Author", LocalDate.now());
+        when(bookService.getCopyForCheckout(CirculationWarmup.ISBN, CirculationWarmup.EMAIL)).thenReturn(book);
+        when(bookService.getCopyForReturn(CirculationWarmup.ISBN, CirculationWarmup.EMAIL)).thenReturn(book);
+        when(memberService.getByEmail(CirculationWarmup.EMAIL))
+                .thenReturn(new Member("Warm-up", CirculationWarmup.EMAIL, MembershipType.REGULAR));
+        when(loanHistoryService.mostBorrowed(any(), any(), anyInt())).thenReturn(List.of(new IsbnCount("978-0-13-468599-1", 12)));
+        when(projection.isReady()).thenReturn(true);
+        when(dataSource.getConnection()).thenReturn(connection);
+    }
+
+    private CirculationWarmup warmup(Duration target, Duration maxDuration, int roundSize, int minRounds) {
+        return new CirculationWarmup(transactionTemplate, mock(CatalogService.class), bookService, memberService,
+                mock(MemberRepository.class), bookRepository, mock(BookTitleRepository.class), bookSearchService,
+                loanHistoryService, new CheckoutPolicyFactory(new MembershipTiers(mock(MembershipTierRepository.class))),
+                projection, dataSource, target, maxDuration, roundSize, minRounds, 200, 2);
+    }
+
+    @Test
+    @DisplayName("stops after the minimum rounds once latency is under target, rolling back every round")
+    void reachesTarget() throws SQLException {
+        CirculationWarmup.Result result = warmup(Duration.ofHours(1), Duration.ofMinutes(1), 5, 3).run();
+
+        assertThat(result.reachedTarget()).isTrue();
+        assertThat(result.rounds()).isEqualTo(3);
+        verify(status, times(3)).setRollbackOnly();
+        verify(bookService, times(15)).checkoutBook(any(), any(), eq(14));
+        verify(bookService, times(15)).returnBook(any());
+        verify(bookSearchService, times(15)).searchByTitle("Warm-up Title");
+        verify(dataSource, times(2)).getConnection();
+        verify(connection, times(2)).close();
+        verify(bookRepository).findAllByIsbnOrderByCopyNumberAsc("978-0-13-468599-1");
+    }
+
+    @Test
+    @DisplayName("gives up at the maximum duration when the target is never met")
+    void givesUpAtDeadline() {
+        CirculationWarmup.Result result = warmup(Duration.ZERO, Duration.ofMillis(50), 1, 1).run();
+
+        assertThat(result.reachedTarget()).isFalse();
+        assertThat(result.rounds()).isPositive();
+    }
+
+    @Test
+    @DisplayName("a failing round ends warm-up instead of blocking readiness")
+    void failingRoundEndsWarmup() {
+        when(bookService.getCopyForCheckout(CirculationWarmup.ISBN, CirculationWarmup.EMAIL))
+                .thenThrow(new IllegalArgumentException("Book not found"));
+
+        CirculationWarmup.Result result = warmup(Duration.ofHours(1), Duration.ofMinutes(1), 5, 3).run();
+
+        assertThat(result.reachedTarget()).isFalse();
+        assertThat(result.rounds()).isZero();
+    }
+}